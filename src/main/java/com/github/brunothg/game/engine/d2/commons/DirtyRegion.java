@@ -0,0 +1,275 @@
+package com.github.brunothg.game.engine.d2.commons;
+
+import java.awt.Rectangle;
+
+/**
+ *
+ * A small set of rectangles, that have to be redrawn. Overlapping or touching
+ * rectangles are merged. If there are more rectangles than the set can hold,
+ * the new one is merged with the rectangle, that grows least. So the set
+ * always covers every added rectangle, but may cover some more area. Adding
+ * rectangles does not allocate anything.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class DirtyRegion {
+
+	public static final int DEFAULT_MAX_RECTANGLES = 8;
+
+	private final int[] x;
+	private final int[] y;
+	private final int[] width;
+	private final int[] height;
+	private int count;
+
+	private int boundsWidth = Integer.MAX_VALUE;
+	private int boundsHeight = Integer.MAX_VALUE;
+	private boolean full;
+
+	public DirtyRegion() {
+
+		this(DEFAULT_MAX_RECTANGLES);
+	}
+
+	/**
+	 *
+	 * @param maxRectangles
+	 *            Maximum number of rectangles (positive)
+	 */
+	public DirtyRegion(int maxRectangles) {
+
+		if (maxRectangles <= 0) {
+			throw new IllegalArgumentException("Maximum must be positive -> " + maxRectangles);
+		}
+
+		x = new int[maxRectangles];
+		y = new int[maxRectangles];
+		width = new int[maxRectangles];
+		height = new int[maxRectangles];
+	}
+
+	/**
+	 * Set the drawing area. Added rectangles are clipped to it.
+	 */
+	public void setBounds(int width, int height) {
+		this.boundsWidth = width;
+		this.boundsHeight = height;
+	}
+
+	/**
+	 * Add a rectangle, that has to be redrawn
+	 */
+	public void add(Rectangle rectangle) {
+		add(rectangle.x, rectangle.y, rectangle.width, rectangle.height);
+	}
+
+	/**
+	 * Add a rectangle, that has to be redrawn
+	 */
+	public void add(int x, int y, int width, int height) {
+
+		// Clip
+		if (x < 0) {
+			width += x;
+			x = 0;
+		}
+		if (y < 0) {
+			height += y;
+			y = 0;
+		}
+		width = Math.min(width, boundsWidth - x);
+		height = Math.min(height, boundsHeight - y);
+
+		if (full || width <= 0 || height <= 0) {
+			return;
+		}
+
+		if (x == 0 && y == 0 && width >= boundsWidth && height >= boundsHeight) {
+			addAll();
+			return;
+		}
+
+		// Merge with everything it touches, if there's no space left with the
+		// cheapest one
+		while (true) {
+
+			int i = indexOfTouching(x, y, width, height);
+			if (i < 0) {
+				if (count < this.x.length) {
+					break;
+				}
+
+				i = cheapestMerge(x, y, width, height);
+			}
+
+			int x2 = Math.max(x + width, this.x[i] + this.width[i]);
+			int y2 = Math.max(y + height, this.y[i] + this.height[i]);
+			x = Math.min(x, this.x[i]);
+			y = Math.min(y, this.y[i]);
+			width = x2 - x;
+			height = y2 - y;
+
+			removeRectangle(i);
+		}
+
+		this.x[count] = x;
+		this.y[count] = y;
+		this.width[count] = width;
+		this.height[count] = height;
+		count++;
+	}
+
+	/**
+	 * Mark the whole drawing area dirty
+	 */
+	public void addAll() {
+
+		full = true;
+		count = 0;
+	}
+
+	/**
+	 * Remove all rectangles
+	 */
+	public void clear() {
+
+		full = false;
+		count = 0;
+	}
+
+	/**
+	 * Add all rectangles of another region
+	 */
+	public void addRegion(DirtyRegion region) {
+
+		if (region.isFull()) {
+			addAll();
+			return;
+		}
+
+		for (int i = 0; i < region.count; i++) {
+			add(region.x[i], region.y[i], region.width[i], region.height[i]);
+		}
+	}
+
+	/**
+	 * Check if nothing has to be redrawn
+	 */
+	public boolean isEmpty() {
+		return !full && count == 0;
+	}
+
+	/**
+	 * Check if the whole drawing area has to be redrawn
+	 */
+	public boolean isFull() {
+		return full;
+	}
+
+	/**
+	 * Get the number of rectangles. A full region has no rectangles.
+	 */
+	public int getRectangleCount() {
+		return count;
+	}
+
+	public int getX(int index) {
+		return x[index];
+	}
+
+	public int getY(int index) {
+		return y[index];
+	}
+
+	public int getWidth(int index) {
+		return width[index];
+	}
+
+	public int getHeight(int index) {
+		return height[index];
+	}
+
+	/**
+	 * Get a rectangle of this region
+	 */
+	public Rectangle getRectangle(int index) {
+		return new Rectangle(x[index], y[index], width[index], height[index]);
+	}
+
+	/**
+	 * Get the covered area
+	 *
+	 * @return Sum of the rectangles' areas
+	 */
+	public long getArea() {
+
+		if (full) {
+			return (long) boundsWidth * boundsHeight;
+		}
+
+		long area = 0;
+		for (int i = 0; i < count; i++) {
+			area += (long) width[i] * height[i];
+		}
+
+		return area;
+	}
+
+	private int indexOfTouching(int x, int y, int width, int height) {
+
+		for (int i = 0; i < count; i++) {
+			if (x <= this.x[i] + this.width[i] && this.x[i] <= x + width && y <= this.y[i] + this.height[i]
+					&& this.y[i] <= y + height) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * @return Index of the rectangle, whose bounds grow least if merged with the
+	 *         given one
+	 */
+	private int cheapestMerge(int x, int y, int width, int height) {
+
+		int best = 0;
+		long bestCost = Long.MAX_VALUE;
+
+		for (int i = 0; i < count; i++) {
+
+			long unionWidth = Math.max(x + width, this.x[i] + this.width[i]) - Math.min(x, this.x[i]);
+			long unionHeight = Math.max(y + height, this.y[i] + this.height[i]) - Math.min(y, this.y[i]);
+			long cost = unionWidth * unionHeight - (long) this.width[i] * this.height[i];
+
+			if (cost < bestCost) {
+				bestCost = cost;
+				best = i;
+			}
+		}
+
+		return best;
+	}
+
+	private void removeRectangle(int index) {
+
+		count--;
+		x[index] = x[count];
+		y[index] = y[count];
+		width[index] = width[count];
+		height[index] = height[count];
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder("DirtyRegion [full=").append(full).append(", rectangles=");
+		for (int i = 0; i < count; i++) {
+			sb.append('(').append(x[i]).append(',').append(y[i]).append(',').append(width[i]).append(',')
+					.append(height[i]).append(')');
+		}
+
+		return sb.append(']').toString();
+	}
+}
@@ -22,6 +22,7 @@ import com.github.brunothg.game.engine.d2.scene.Scene;
 import com.github.brunothg.game.engine.d2.stage.CanvasStage;
 import com.github.brunothg.game.engine.image.EmptyImage;
 import com.github.brunothg.game.engine.time.Clock;
+import com.github.brunothg.game.engine.time.EngineScheduler;
 
 /**
  * 
@@ -103,15 +104,30 @@ public class FullScreenGameFrame implements Closeable {
 	 */
 	public FullScreenGameFrame(GraphicsDevice gd, GraphicsConfiguration gc, DisplayMode dm, String title) {
 
+		this(gd, gc, dm, title, null);
+	}
+
+	/**
+	 * 
+	 * @param gd        {@link GraphicsDevice} used for rendering
+	 * @param gc        {@link GraphicsConfiguration} used for {@link Window}
+	 * @param dm        {@link DisplayMode} used for rendering
+	 * @param title     Frame title
+	 * @param scheduler The {@link EngineScheduler} driving this frame or null for
+	 *                  an own clock thread
+	 */
+	public FullScreenGameFrame(GraphicsDevice gd, GraphicsConfiguration gc, DisplayMode dm, String title,
+			EngineScheduler scheduler) {
+
 		this.window = new Frame(title, gc);
 
 		this.gd = gd;
 		this.dm = dm;
 
-		initialize();
+		initialize(scheduler);
 	}
 
-	private void initialize() {
+	private void initialize(EngineScheduler scheduler) {
 
 		window.setLayout(new BorderLayout());
 		window.setIgnoreRepaint(true);
@@ -123,7 +139,7 @@ public class FullScreenGameFrame implements Closeable {
 		stage.setScene(new LoadingScene());
 		window.add(stage, BorderLayout.CENTER);
 
-		clock = new Clock();
+		clock = new Clock(Clock.FPS_MODERATE, scheduler);
 		clock.addClockListener(stage);
 		clock.start();
 
@@ -15,6 +15,7 @@ import com.github.brunothg.game.engine.d2.scene.Scene;
 import com.github.brunothg.game.engine.d2.stage.SwingStage;
 import com.github.brunothg.game.engine.image.EmptyImage;
 import com.github.brunothg.game.engine.time.Clock;
+import com.github.brunothg.game.engine.time.EngineScheduler;
 
 /**
  * 
@@ -31,22 +32,37 @@ public class SwingGameFrame extends JFrame implements Closeable {
 	public SwingGameFrame(String title, GraphicsConfiguration gc) {
 
 		super(title, gc);
-		initialize();
+		initialize(null);
+	}
+
+	/**
+	 * Game frame driven by a shared {@link EngineScheduler} instead of an own clock
+	 * thread.
+	 * 
+	 * @param title     Frame title
+	 * @param scheduler The scheduler driving this frame or null for an own clock
+	 *                  thread
+	 * @see EngineScheduler#getDefault()
+	 */
+	public SwingGameFrame(String title, EngineScheduler scheduler) {
+
+		super(title);
+		initialize(scheduler);
 	}
 
 	public SwingGameFrame(String title) {
 
 		super(title);
-		initialize();
+		initialize(null);
 	}
 
 	public SwingGameFrame() {
 
 		super("GameEngine");
-		initialize();
+		initialize(null);
 	}
 
-	private void initialize() {
+	private void initialize(EngineScheduler scheduler) {
 
 		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		setLocationRelativeTo(null);
@@ -58,7 +74,7 @@ public class SwingGameFrame extends JFrame implements Closeable {
 		stage.setScene(new LoadingScene());
 		super.add(stage, BorderLayout.CENTER);
 
-		clock = new Clock();
+		clock = new Clock(Clock.FPS_MODERATE, scheduler);
 		clock.addClockListener(stage);
 		clock.start();
 	}
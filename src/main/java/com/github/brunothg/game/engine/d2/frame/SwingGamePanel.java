@@ -9,6 +9,7 @@ import com.github.brunothg.game.engine.d2.scene.LoadingScene;
 import com.github.brunothg.game.engine.d2.scene.Scene;
 import com.github.brunothg.game.engine.d2.stage.SwingStage;
 import com.github.brunothg.game.engine.time.Clock;
+import com.github.brunothg.game.engine.time.EngineScheduler;
 
 /**
  * Swing component for embedding game-engine in normal swing applications.
@@ -24,10 +25,22 @@ public class SwingGamePanel extends JPanel implements Closeable {
 
 	public SwingGamePanel() {
 
-		initialize();
+		this(null);
 	}
 
-	private void initialize() {
+	/**
+	 * Game panel driven by a shared {@link EngineScheduler}. Use this if many panels are
+	 * displayed at once, so they don't need a thread each.
+	 * 
+	 * @param scheduler The scheduler driving this panel or null for an own clock thread
+	 * @see EngineScheduler#getDefault()
+	 */
+	public SwingGamePanel(EngineScheduler scheduler) {
+
+		initialize(scheduler);
+	}
+
+	private void initialize(EngineScheduler scheduler) {
 
 		setLayout(new BorderLayout());
 
@@ -35,7 +48,7 @@ public class SwingGamePanel extends JPanel implements Closeable {
 		stage.setScene(new LoadingScene());
 		super.add(stage, BorderLayout.CENTER);
 
-		clock = new Clock();
+		clock = new Clock(Clock.FPS_MODERATE, scheduler);
 		clock.addClockListener(stage);
 		clock.start();
 	}
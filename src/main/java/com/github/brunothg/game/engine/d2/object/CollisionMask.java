@@ -0,0 +1,408 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.github.brunothg.game.engine.image.sprite.Sprite;
+
+/**
+ * The pixels of an image, that take part in collisions. A pixel is set if its alpha is greater
+ * than a threshold. Every row is stored as packed bits, so collision tests handle 64 pixels at
+ * once.<br>
+ * Masks of images and sprite tiles are cached by the identity of the image or sprite and the size
+ * they are painted with, so objects sharing an image share the mask. The cache doesn't keep the
+ * images from being collected. Masks are immutable and can be used by any thread.
+ *
+ * @see SceneObject#getCollisionMask()
+ * @author Marvin Bruns
+ *
+ */
+public final class CollisionMask
+{
+
+	/**
+	 * Pixels with an alpha greater than this value are set
+	 */
+	public static final int DEFAULT_ALPHA_THRESHOLD = 0;
+
+	private static final Map<Object, Map<Key, CollisionMask>> CACHE = new WeakHashMap<Object, Map<Key, CollisionMask>>();
+
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	private final long[] bits;
+
+	private CollisionMask(int width, int height)
+	{
+
+		this.width = Math.max(width, 0);
+		this.height = Math.max(height, 0);
+		this.wordsPerRow = (this.width + 63) >>> 6;
+		this.bits = new long[wordsPerRow * this.height];
+	}
+
+	/**
+	 * Create a mask without any pixel set
+	 */
+	static CollisionMask empty(int width, int height)
+	{
+		return new CollisionMask(width, height);
+	}
+
+	/**
+	 * Create a mask of an image with the image's size
+	 *
+	 * @param image The image
+	 * @param alphaThreshold Pixels with an alpha greater than this value are set
+	 * @return The new mask
+	 */
+	public static CollisionMask create(BufferedImage image, int alphaThreshold)
+	{
+		return create(image, image.getWidth(), image.getHeight(), alphaThreshold);
+	}
+
+	/**
+	 * Create a mask of an image scaled to a size. The image is scaled by using the nearest pixel.
+	 *
+	 * @param image The image
+	 * @param width Width of the mask
+	 * @param height Height of the mask
+	 * @param alphaThreshold Pixels with an alpha greater than this value are set
+	 * @return The new mask
+	 */
+	public static CollisionMask create(BufferedImage image, int width, int height, int alphaThreshold)
+	{
+
+		if (image == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		CollisionMask mask = new CollisionMask(width, height);
+
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+		int[] row = new int[imageWidth];
+		int rowY = -1;
+
+		for (int y = 0; y < mask.height; y++)
+		{
+
+			int imageY = (int) ((long) y * imageHeight / mask.height);
+			if (imageY != rowY)
+			{
+
+				image.getRGB(0, imageY, imageWidth, 1, row, 0, imageWidth);
+				rowY = imageY;
+			}
+
+			int offset = y * mask.wordsPerRow;
+			for (int x = 0; x < mask.width; x++)
+			{
+
+				int alpha = row[(int) ((long) x * imageWidth / mask.width)] >>> 24;
+				if (alpha > alphaThreshold)
+				{
+					mask.bits[offset + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Get the cached mask of an image painted with a size. The mask is created, if not cached.
+	 *
+	 * @param image The image
+	 * @param width Width the image is painted with
+	 * @param height Height the image is painted with
+	 * @return The mask using the {@link #DEFAULT_ALPHA_THRESHOLD}
+	 */
+	public static CollisionMask get(BufferedImage image, int width, int height)
+	{
+
+		if (width <= 0 || height <= 0)
+		{
+			return empty(width, height);
+		}
+
+		Key key = new Key(0, 0, width, height);
+		CollisionMask mask = getCached(image, key);
+		if (mask == null)
+		{
+
+			mask = create(image, width, height, DEFAULT_ALPHA_THRESHOLD);
+			putCached(image, key, mask);
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Get the cached mask of a sprite's tile painted with a size. The mask is created, if not
+	 * cached.
+	 *
+	 * @param sprite The sprite
+	 * @param x X-Coordinate of the tile
+	 * @param y Y-Coordinate of the tile
+	 * @param width Width the tile is painted with
+	 * @param height Height the tile is painted with
+	 * @return The mask using the {@link #DEFAULT_ALPHA_THRESHOLD}
+	 */
+	public static CollisionMask get(Sprite sprite, int x, int y, int width, int height)
+	{
+
+		if (width <= 0 || height <= 0)
+		{
+			return empty(width, height);
+		}
+
+		Key key = new Key(x, y, width, height);
+		CollisionMask mask = getCached(sprite, key);
+		if (mask == null)
+		{
+
+			mask = create(sprite.getTile(x, y), width, height, DEFAULT_ALPHA_THRESHOLD);
+			putCached(sprite, key, mask);
+		}
+
+		return mask;
+	}
+
+	private static CollisionMask getCached(Object source, Key key)
+	{
+
+		synchronized (CACHE)
+		{
+
+			Map<Key, CollisionMask> masks = CACHE.get(source);
+			return (masks != null) ? masks.get(key) : null;
+		}
+	}
+
+	private static void putCached(Object source, Key key, CollisionMask mask)
+	{
+
+		synchronized (CACHE)
+		{
+
+			Map<Key, CollisionMask> masks = CACHE.get(source);
+			if (masks == null)
+			{
+
+				masks = new HashMap<Key, CollisionMask>();
+				CACHE.put(source, masks);
+			}
+
+			masks.put(key, mask);
+		}
+	}
+
+	/**
+	 * Remove all cached masks, e.g. after changing the pixels of a cached image
+	 */
+	public static void clearCache()
+	{
+
+		synchronized (CACHE)
+		{
+			CACHE.clear();
+		}
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Check if a pixel is set
+	 *
+	 * @return true if the pixel is set, false if not or out of bounds
+	 */
+	public boolean isSet(int x, int y)
+	{
+
+		if (x < 0 || y < 0 || x >= width || y >= height)
+		{
+			return false;
+		}
+
+		return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Check if any pixel of this mask is set at the position of a pixel set in an other mask
+	 *
+	 * @param other The other mask
+	 * @param offsetX X-Coordinate of the other mask's top left corner relative to this mask
+	 * @param offsetY Y-Coordinate of the other mask's top left corner relative to this mask
+	 * @return true if the masks overlap
+	 */
+	public boolean intersects(CollisionMask other, int offsetX, int offsetY)
+	{
+		return intersects(other, offsetX, offsetY, 0, 0, width, height);
+	}
+
+	/**
+	 * Check if any pixel of this mask is set at the position of a pixel set in an other mask.
+	 * Only pixels inside of a region are tested.
+	 *
+	 * @param other The other mask
+	 * @param offsetX X-Coordinate of the other mask's top left corner relative to this mask
+	 * @param offsetY Y-Coordinate of the other mask's top left corner relative to this mask
+	 * @param x X-Coordinate of the tested region relative to this mask
+	 * @param y Y-Coordinate of the tested region relative to this mask
+	 * @param width Width of the tested region
+	 * @param height Height of the tested region
+	 * @return true if the masks overlap inside of the region
+	 */
+	public boolean intersects(CollisionMask other, int offsetX, int offsetY, int x, int y, int width,
+		int height)
+	{
+
+		int minX = Math.max(Math.max(x, 0), offsetX);
+		int minY = Math.max(Math.max(y, 0), offsetY);
+		int maxX = Math.min(Math.min(x + width, this.width), offsetX + other.width);
+		int maxY = Math.min(Math.min(y + height, this.height), offsetY + other.height);
+
+		for (int row = minY; row < maxY; row++)
+		{
+			for (int column = minX; column < maxX; column += 64)
+			{
+
+				long overlap = getBits(row, column) & other.getBits(row - offsetY, column - offsetX);
+
+				// Ignore pixels right of the region
+				int remaining = maxX - column;
+				if (remaining < 64)
+				{
+					overlap &= (1L << remaining) - 1;
+				}
+
+				if (overlap != 0)
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check if this mask is set at the positions of all pixels set in an other mask
+	 *
+	 * @param other The other mask
+	 * @param offsetX X-Coordinate of the other mask's top left corner relative to this mask
+	 * @param offsetY Y-Coordinate of the other mask's top left corner relative to this mask
+	 * @return true if the other mask is covered by this one
+	 */
+	public boolean covers(CollisionMask other, int offsetX, int offsetY)
+	{
+
+		for (int row = 0; row < other.height; row++)
+		{
+			for (int column = 0; column < other.width; column += 64)
+			{
+
+				long set = other.bits[row * other.wordsPerRow + (column >>> 6)];
+				if (set == 0)
+				{
+					continue;
+				}
+
+				// Pixels out of bounds are not set
+				if ((set & ~getBits(row + offsetY, column + offsetX)) != 0)
+				{
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get the bits of 64 pixels of a row beginning with a pixel. Pixels out of bounds are 0.
+	 */
+	private long getBits(int row, int column)
+	{
+
+		if (row < 0 || row >= height || column >= width || column <= -64)
+		{
+			return 0;
+		}
+
+		int offset = row * wordsPerRow;
+		if (column < 0)
+		{
+			return bits[offset] << -column;
+		}
+
+		int word = column >>> 6;
+		int shift = column & 63;
+
+		long value = bits[offset + word] >>> shift;
+		if (shift != 0 && word + 1 < wordsPerRow)
+		{
+			value |= bits[offset + word + 1] << (64 - shift);
+		}
+
+		return value;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CollisionMask [width=" + width + ", height=" + height + "]";
+	}
+
+	/**
+	 * Tile and size of a cached mask
+	 */
+	private static final class Key
+	{
+
+		final int x;
+		final int y;
+		final int width;
+		final int height;
+
+		Key(int x, int y, int width, int height)
+		{
+
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return ((x * 31 + y) * 31 + width) * 31 + height;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return x == other.x && y == other.y && width == other.width && height == other.height;
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the {@link SceneObject}s drawn and culled by
+ * {@link SceneObject#paintOnScene(java.awt.Graphics2D, int, int, long)}. Groups are counted like
+ * other objects, the children of a culled group aren't counted.<br>
+ * Objects record into the statistics bound to the painting thread by {@link #bind(CullingStatistics)},
+ * nothing is recorded if none is bound. Every stage binds its own statistics while painting and
+ * calls {@link #nextFrame()} after every painted frame. Recording does not lock or allocate.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class CullingStatistics
+{
+
+	private static final ThreadLocal<CullingStatistics> BOUND = new ThreadLocal<CullingStatistics>();
+
+	private final LongAdder drawnObjects = new LongAdder();
+	private final LongAdder culledObjects = new LongAdder();
+
+	private volatile long lastDrawnObjects;
+	private volatile long lastCulledObjects;
+
+	public CullingStatistics()
+	{
+	}
+
+	/**
+	 * Bind statistics to the calling thread. Objects painted by this thread record into them.
+	 *
+	 * @param statistics The statistics or null to stop recording
+	 * @return The statistics bound before, to be bound again after painting
+	 */
+	public static CullingStatistics bind(CullingStatistics statistics)
+	{
+
+		CullingStatistics previous = BOUND.get();
+		BOUND.set(statistics);
+		return previous;
+	}
+
+	/**
+	 * Get the statistics bound to the calling thread
+	 *
+	 * @return The bound statistics or null
+	 */
+	public static CullingStatistics getBound()
+	{
+		return BOUND.get();
+	}
+
+	void recordDrawn()
+	{
+		drawnObjects.increment();
+	}
+
+	void recordCulled()
+	{
+		culledObjects.increment();
+	}
+
+	/**
+	 * Finish the actual frame. The counts are available by {@link #getDrawnObjects()} and
+	 * {@link #getCulledObjects()} until the next call.
+	 */
+	public void nextFrame()
+	{
+
+		lastDrawnObjects = drawnObjects.sumThenReset();
+		lastCulledObjects = culledObjects.sumThenReset();
+	}
+
+	/**
+	 * Get the number of objects drawn in the last frame
+	 */
+	public long getDrawnObjects()
+	{
+		return lastDrawnObjects;
+	}
+
+	/**
+	 * Get the number of objects culled in the last frame
+	 */
+	public long getCulledObjects()
+	{
+		return lastCulledObjects;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CullingStatistics [drawn=" + getDrawnObjects() + ", culled=" + getCulledObjects() + "]";
+	}
+}
@@ -0,0 +1,344 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.util.Map;
+
+import com.github.brunothg.game.engine.d2.commons.RenderingOptions;
+
+/**
+ * Attributes of a {@link Graphics2D} saved before painting a {@link SceneObject} and restored
+ * afterwards, so the parent graphics can be reused instead of creating a child for every object.
+ * States are pooled per thread and used like a stack, so painting allocates nothing once the
+ * nesting depth was reached the first time. Only rendering options for hints, that aren't set on
+ * the graphics, allocate: a single unset hint can't be restored, so all hints are copied.
+ *
+ * @author Marvin Bruns
+ *
+ */
+final class GraphicsState
+{
+
+	private static final ThreadLocal<GraphicsState> FREE = new ThreadLocal<GraphicsState>()
+	{
+
+		@Override
+		protected GraphicsState initialValue()
+		{
+			return new GraphicsState(null);
+		}
+	};
+
+	/**
+	 * First state of the thread, holding the thread's settings
+	 */
+	private final GraphicsState root;
+	private GraphicsState next;
+	private GraphicsState previous;
+	private boolean untracked;
+
+	/**
+	 * Visible area in the coordinates of the object's children, used for culling
+	 */
+	final Rectangle viewport = new Rectangle();
+	boolean hasViewport;
+	/**
+	 * Free for use by the object about to be painted
+	 */
+	final Rectangle bounds = new Rectangle();
+	private final double[] corners = new double[8];
+
+	private Color color;
+	private Paint paint;
+	private Stroke stroke;
+	private Font font;
+	private Composite composite;
+	private Color background;
+	private Shape clip;
+	private boolean clipped;
+
+	private RenderingHints.Key[] hintKeys = new RenderingHints.Key[4];
+	private Object[] hintValues = new Object[4];
+	private int hintCount;
+	// All hints of the graphics, if an option's hint wasn't set before
+	private final RenderingHints hints = new RenderingHints(null);
+	private boolean hintsSaved;
+
+	private GraphicsState(GraphicsState root)
+	{
+		this.root = (root != null) ? root : this;
+	}
+
+	/**
+	 * Set if objects painted by the calling thread track their painted bounds
+	 *
+	 * @return The previous setting
+	 */
+	static boolean setTracking(boolean tracking)
+	{
+
+		GraphicsState root = FREE.get().root;
+		boolean previous = !root.untracked;
+		root.untracked = !tracking;
+		return previous;
+	}
+
+	/**
+	 * Check if objects painted by this state's thread track their painted bounds
+	 */
+	boolean isTracking()
+	{
+		return !root.untracked;
+	}
+
+	/**
+	 * Get the state used by the next {@link #save(Graphics2D, RenderingOptions)}
+	 */
+	static GraphicsState next()
+	{
+		return FREE.get();
+	}
+
+	/**
+	 * Set the viewport to the visible area of a graphics. That's the clip, if there's one.
+	 * Otherwise it's the viewport of the object painted at the moment or the scene, if no object is
+	 * painted.
+	 *
+	 * @param g The graphics
+	 * @param width Scene width
+	 * @param height Scene height
+	 */
+	void initViewport(Graphics2D g, int width, int height)
+	{
+
+		// Not changed if there's no clip
+		viewport.setBounds(0, 0, Integer.MIN_VALUE, Integer.MIN_VALUE);
+		g.getClipBounds(viewport);
+
+		if (viewport.width == Integer.MIN_VALUE)
+		{
+
+			if (previous != null && previous.hasViewport)
+			{
+				viewport.setBounds(previous.viewport);
+			}
+			else
+			{
+				viewport.setBounds(0, 0, width, height);
+			}
+		}
+
+		hasViewport = true;
+	}
+
+	/**
+	 * Transform the viewport into the coordinates of a transformed graphics
+	 *
+	 * @param inverseTransform Inverse of the transform applied to the graphics
+	 */
+	void transformViewport(AffineTransform inverseTransform)
+	{
+
+		if (!hasViewport)
+		{
+			return;
+		}
+
+		corners[0] = viewport.getMinX();
+		corners[1] = viewport.getMinY();
+		corners[2] = viewport.getMaxX();
+		corners[3] = viewport.getMinY();
+		corners[4] = viewport.getMaxX();
+		corners[5] = viewport.getMaxY();
+		corners[6] = viewport.getMinX();
+		corners[7] = viewport.getMaxY();
+		inverseTransform.transform(corners, 0, corners, 0, 4);
+
+		double minX = Math.min(Math.min(corners[0], corners[2]), Math.min(corners[4], corners[6]));
+		double minY = Math.min(Math.min(corners[1], corners[3]), Math.min(corners[5], corners[7]));
+		double maxX = Math.max(Math.max(corners[0], corners[2]), Math.max(corners[4], corners[6]));
+		double maxY = Math.max(Math.max(corners[1], corners[3]), Math.max(corners[5], corners[7]));
+
+		int x = (int) Math.floor(minX);
+		int y = (int) Math.floor(minY);
+		viewport.setBounds(x, y, (int) Math.ceil(maxX) - x, (int) Math.ceil(maxY) - y);
+	}
+
+	/**
+	 * Save the attributes of a graphics and apply the rendering options. Every saved state has to
+	 * be restored in reverse order.
+	 *
+	 * @param g The graphics
+	 * @param options Rendering options to apply or null
+	 * @return The saved state
+	 */
+	static GraphicsState save(Graphics2D g, RenderingOptions options)
+	{
+
+		GraphicsState state = FREE.get();
+		if (state.next == null)
+		{
+
+			state.next = new GraphicsState(state.root);
+			state.next.previous = state;
+		}
+		FREE.set(state.next);
+
+		state.color = g.getColor();
+		state.paint = g.getPaint();
+		state.stroke = g.getStroke();
+		state.font = g.getFont();
+		state.composite = g.getComposite();
+		state.background = g.getBackground();
+		state.clipped = false;
+
+		state.hintCount = 0;
+		state.hintsSaved = false;
+		if (options != null)
+		{
+
+			boolean unset = false;
+			for (RenderingHints.Key key : options.keySet())
+			{
+
+				Object value = g.getRenderingHint(key);
+				state.addHint(key, value);
+				unset |= value == null;
+			}
+
+			// A single hint can't be unset again -> restore all hints (allocates)
+			if (unset)
+			{
+
+				state.hints.putAll(g.getRenderingHints());
+				state.hintsSaved = true;
+			}
+
+			for (Map.Entry<RenderingHints.Key, Object> option : options.entrySet())
+			{
+				g.setRenderingHint(option.getKey(), option.getValue());
+			}
+		}
+
+		return state;
+	}
+
+	private void addHint(RenderingHints.Key key, Object value)
+	{
+
+		if (hintCount == hintKeys.length)
+		{
+
+			RenderingHints.Key[] keys = new RenderingHints.Key[hintCount * 2];
+			Object[] values = new Object[hintCount * 2];
+			System.arraycopy(hintKeys, 0, keys, 0, hintCount);
+			System.arraycopy(hintValues, 0, values, 0, hintCount);
+			hintKeys = keys;
+			hintValues = values;
+		}
+
+		hintKeys[hintCount] = key;
+		hintValues[hintCount] = value;
+		hintCount++;
+	}
+
+	/**
+	 * Intersect the clip with a rectangle. Java2D allocates for every clip change, so this is only
+	 * used if requested.
+	 */
+	void clipRect(Graphics2D g, int x, int y, int width, int height)
+	{
+
+		clip = g.getClip();
+		clipped = true;
+		g.clipRect(x, y, width, height);
+	}
+
+	/**
+	 * Get the state of the object painted at the moment
+	 *
+	 * @return The state or null if no object is painted
+	 */
+	static GraphicsState current()
+	{
+		return FREE.get().previous;
+	}
+
+	/**
+	 * Restore the saved attributes and release this state
+	 *
+	 * @param g The graphics used for saving
+	 */
+	void restore(Graphics2D g)
+	{
+
+		if (clipped)
+		{
+			g.setClip(clip);
+		}
+
+		if (hintsSaved)
+		{
+
+			g.setRenderingHints(hints);
+			hints.clear();
+		}
+
+		for (int i = hintCount - 1; i >= 0; i--)
+		{
+
+			if (!hintsSaved)
+			{
+				g.setRenderingHint(hintKeys[i], hintValues[i]);
+			}
+
+			hintKeys[i] = null;
+			hintValues[i] = null;
+		}
+
+		if (g.getColor() != color)
+		{
+			g.setColor(color);
+		}
+		if (g.getPaint() != paint)
+		{
+			g.setPaint(paint);
+		}
+		if (g.getStroke() != stroke)
+		{
+			g.setStroke(stroke);
+		}
+		if (g.getFont() != font)
+		{
+			g.setFont(font);
+		}
+		if (g.getComposite() != composite)
+		{
+			g.setComposite(composite);
+		}
+		if (g.getBackground() != background)
+		{
+			g.setBackground(background);
+		}
+
+		// Don't keep references
+		color = null;
+		paint = null;
+		stroke = null;
+		font = null;
+		composite = null;
+		background = null;
+		clip = null;
+		hasViewport = false;
+
+		FREE.set(this);
+	}
+}
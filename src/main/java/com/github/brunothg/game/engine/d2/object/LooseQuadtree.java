@@ -0,0 +1,336 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.awt.Rectangle;
+import java.util.Collection;
+
+/**
+ * {@link SpatialIndex} dividing a square area recursively into four quadrants. The nodes are
+ * loose: a node holds objects whose center lies in the node and which are not bigger than the
+ * node, so they stay within the node's bounds expanded by half its size at every side. The node
+ * of an object is found by its size and center without searching, and big and small objects are
+ * mixed without stored copies. Objects whose center is outside of the area are kept in the root.
+ * Nodes are created when needed and kept for reuse.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class LooseQuadtree extends SpatialIndex
+{
+
+	public static final int DEFAULT_MAX_DEPTH = 8;
+
+	private final int x;
+	private final int y;
+	private final double size;
+	private final int maxDepth;
+
+	private Node root;
+
+	/**
+	 * @see #LooseQuadtree(int, int, int, int, int)
+	 */
+	public LooseQuadtree(int x, int y, int width, int height)
+	{
+
+		this(x, y, width, height, DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 *
+	 * @param x X-Coordinate of the area
+	 * @param y Y-Coordinate of the area
+	 * @param width Width of the area (positive)
+	 * @param height Height of the area (positive)
+	 * @param maxDepth Maximum number of subdivisions (0 - 30)
+	 */
+	public LooseQuadtree(int x, int y, int width, int height, int maxDepth)
+	{
+
+		if (width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Size must be positive -> " + width + "x" + height);
+		}
+		if (maxDepth < 0 || maxDepth > 30)
+		{
+			throw new IllegalArgumentException("Depth out of range -> " + maxDepth);
+		}
+
+		this.x = x;
+		this.y = y;
+		this.size = Math.max(width, height);
+		this.maxDepth = maxDepth;
+
+		eraseAll();
+	}
+
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	@Override
+	Entry createEntry()
+	{
+		return new NodeEntry();
+	}
+
+	@Override
+	void insert(Entry entry)
+	{
+		findNode(entry.x, entry.y, entry.width, entry.height).add((NodeEntry) entry);
+	}
+
+	@Override
+	void erase(Entry entry)
+	{
+
+		NodeEntry nodeEntry = (NodeEntry) entry;
+		nodeEntry.node.remove(nodeEntry);
+	}
+
+	@Override
+	void eraseAll()
+	{
+		root = new Node(x, y, size);
+	}
+
+	@Override
+	void move(Entry entry, Rectangle bounds)
+	{
+
+		NodeEntry nodeEntry = (NodeEntry) entry;
+		Node node = findNode(bounds.x, bounds.y, bounds.width, bounds.height);
+
+		entry.setBounds(bounds);
+		if (node != nodeEntry.node)
+		{
+
+			nodeEntry.node.remove(nodeEntry);
+			node.add(nodeEntry);
+		}
+	}
+
+	/**
+	 * Get the deepest node, that's not smaller than the object and contains its center
+	 */
+	private Node findNode(int x, int y, int width, int height)
+	{
+
+		double centerX = x + width * 0.5;
+		double centerY = y + height * 0.5;
+		if (centerX < this.x || centerY < this.y || centerX >= this.x + size || centerY >= this.y + size)
+		{
+			return root;
+		}
+
+		int objectSize = Math.max(width, height);
+		Node node = root;
+		for (int depth = 0; depth < maxDepth && objectSize <= node.size * 0.5; depth++)
+		{
+
+			double half = node.size * 0.5;
+			int quadrant = ((centerX >= node.x + half) ? 1 : 0) + ((centerY >= node.y + half) ? 2 : 0);
+
+			if (node.children == null)
+			{
+				node.children = new Node[4];
+			}
+
+			Node child = node.children[quadrant];
+			if (child == null)
+			{
+
+				child = new Node(node.x + ((quadrant & 1) != 0 ? half : 0), node.y + ((quadrant & 2) != 0 ? half : 0),
+					half);
+				node.children[quadrant] = child;
+			}
+
+			node = child;
+		}
+
+		return node;
+	}
+
+	@Override
+	void queryRegion(int x, int y, int width, int height, Collection<? super SceneObject> result)
+	{
+		queryRegion(root, x, y, width, height, result);
+	}
+
+	private void queryRegion(Node node, int x, int y, int width, int height, Collection<? super SceneObject> result)
+	{
+
+		// Root holds objects of any position
+		if (node != root && !node.looseIntersects(x, y, width, height))
+		{
+			return;
+		}
+
+		for (int i = 0; i < node.count; i++)
+		{
+
+			NodeEntry entry = node.entries[i];
+			if (entry.intersects(x, y, width, height))
+			{
+				result.add(entry.object);
+			}
+		}
+
+		if (node.children != null)
+		{
+			for (Node child : node.children)
+			{
+				if (child != null)
+				{
+					queryRegion(child, x, y, width, height, result);
+				}
+			}
+		}
+	}
+
+	@Override
+	void queryPoint(int x, int y, Collection<? super SceneObject> result)
+	{
+		queryPoint(root, x, y, result);
+	}
+
+	private void queryPoint(Node node, int x, int y, Collection<? super SceneObject> result)
+	{
+
+		if (node != root && !node.looseIntersects(x, y, 1, 1))
+		{
+			return;
+		}
+
+		for (int i = 0; i < node.count; i++)
+		{
+
+			NodeEntry entry = node.entries[i];
+			if (entry.contains(x, y))
+			{
+				result.add(entry.object);
+			}
+		}
+
+		if (node.children != null)
+		{
+			for (Node child : node.children)
+			{
+				if (child != null)
+				{
+					queryPoint(child, x, y, result);
+				}
+			}
+		}
+	}
+
+	@Override
+	void queryAllPairs(PairVisitor visitor)
+	{
+
+		// Loose nodes overlap -> search the partners of every object
+		for (int i = 0; i < size(); i++)
+		{
+
+			Entry entry = getEntry(i);
+			if (entry.width > 0 && entry.height > 0)
+			{
+				queryPairs(root, entry, visitor);
+			}
+		}
+	}
+
+	private void queryPairs(Node node, Entry a, PairVisitor visitor)
+	{
+
+		if (node != root && !node.looseIntersects(a.x, a.y, a.width, a.height))
+		{
+			return;
+		}
+
+		for (int i = 0; i < node.count; i++)
+		{
+
+			// Each pair once
+			NodeEntry b = node.entries[i];
+			if (b.id > a.id && a.intersects(b))
+			{
+				visitor.visit(a.object, b.object);
+			}
+		}
+
+		if (node.children != null)
+		{
+			for (Node child : node.children)
+			{
+				if (child != null)
+				{
+					queryPairs(child, a, visitor);
+				}
+			}
+		}
+	}
+
+	private static class NodeEntry extends Entry
+	{
+
+		Node node;
+		int slot;
+	}
+
+	private static class Node
+	{
+
+		final double x;
+		final double y;
+		final double size;
+
+		Node[] children;
+
+		NodeEntry[] entries = new NodeEntry[4];
+		int count;
+
+		Node(double x, double y, double size)
+		{
+
+			this.x = x;
+			this.y = y;
+			this.size = size;
+		}
+
+		boolean looseIntersects(int x, int y, int width, int height)
+		{
+
+			double half = size * 0.5;
+			return x < this.x + size + half && this.x - half < x + width && y < this.y + size + half
+				&& this.y - half < y + height;
+		}
+
+		void add(NodeEntry entry)
+		{
+
+			if (count == entries.length)
+			{
+
+				NodeEntry[] newEntries = new NodeEntry[count * 2];
+				System.arraycopy(entries, 0, newEntries, 0, count);
+				entries = newEntries;
+			}
+
+			entry.node = this;
+			entry.slot = count;
+			entries[count++] = entry;
+		}
+
+		void remove(NodeEntry entry)
+		{
+
+			NodeEntry last = entries[--count];
+			entries[entry.slot] = last;
+			last.slot = entry.slot;
+			entries[count] = null;
+
+			entry.node = null;
+		}
+	}
+}
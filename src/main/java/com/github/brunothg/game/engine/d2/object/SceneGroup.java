@@ -0,0 +1,638 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link SceneObject} containing other objects. The children's positions are relative to the
+ * group's top left corner and transformed by the group's {@link #setTransform(AffineTransform)
+ * transform}, so a whole subtree is moved, scaled or rotated by changing the group only. Children
+ * are painted in the order they were added.<br>
+ * The world transform and the bounds of the children are cached. If a child's position or size
+ * changes, only the groups on the path to the root are recomputed. If a group is moved, the
+ * transforms of its subtree are updated, but the children's bounds are not collected again.
+ * Positions have to be changed by {@link #setPosition(com.github.brunothg.game.engine.d2.commons.Point)}
+ * and {@link #setSize(com.github.brunothg.game.engine.d2.commons.Size)}, changing a
+ * {@link com.github.brunothg.game.engine.d2.commons.Point} in place isn't noticed.<br>
+ * {@link #getRectangle()} returns the bounds of the children in the parent's coordinates, so a
+ * group outside of the visible area is culled with all children at once.<br>
+ * Like the scene the tree has to be changed by one thread. Reading the cached values is thread
+ * safe, so groups can be painted by a {@link com.github.brunothg.game.engine.d2.scene.ReentrantScene}.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class SceneGroup extends SceneObject
+{
+
+	private final List<SceneObject> children = new ArrayList<SceneObject>();
+	private final List<SceneObject> unmodifiableChildren = Collections.unmodifiableList(children);
+
+	private final AffineTransform transform = new AffineTransform();
+	private final AffineTransform inverseTransform = new AffineTransform();
+
+	// Cached, validated while holding the root group's lock
+	private boolean transformDirty = true;
+	private boolean boundsDirty = true;
+	private final AffineTransform worldTransform = new AffineTransform();
+	private final Rectangle2D.Double localBounds = new Rectangle2D.Double();
+	private final Rectangle2D.Double worldBounds = new Rectangle2D.Double();
+	private final Rectangle parentBounds = new Rectangle();
+	private final Rectangle childBounds = new Rectangle();
+	private final double[] corners = new double[8];
+
+	// Dirty region tracking
+	private boolean changed = true;
+	private boolean painted;
+	private final Rectangle paintedBounds = new Rectangle();
+	private final Rectangle dirtyBounds = new Rectangle();
+
+	/**
+	 * Children are painted outside of the group's size, so the group isn't clipped
+	 */
+	public SceneGroup()
+	{
+
+		setClipToBounds(false);
+	}
+
+	/**
+	 * Add a child painted above all others
+	 *
+	 * @param child Object without parent
+	 */
+	public void add(SceneObject child)
+	{
+
+		add(children.size(), child);
+	}
+
+	/**
+	 * Add a child at a position in the painting order
+	 *
+	 * @param index Position of the child, 0 is painted first
+	 * @param child Object without parent
+	 */
+	public void add(int index, SceneObject child)
+	{
+
+		if (child == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (child.parent != null)
+		{
+			throw new IllegalArgumentException("Object is already part of a group");
+		}
+		for (SceneGroup group = this; group != null; group = group.parent)
+		{
+			if (group == child)
+			{
+				throw new IllegalArgumentException("A group can't contain itself");
+			}
+		}
+
+		children.add(index, child);
+		child.parent = this;
+		childBoundsChanged();
+	}
+
+	/**
+	 * Remove a child
+	 *
+	 * @return true if the object was a child of this group
+	 */
+	public boolean remove(SceneObject child)
+	{
+
+		if (child == null || child.parent != this)
+		{
+			return false;
+		}
+
+		children.remove(child);
+		child.parent = null;
+		childBoundsChanged();
+		return true;
+	}
+
+	/**
+	 * Remove all children
+	 */
+	public void clear()
+	{
+
+		for (SceneObject child : children)
+		{
+			child.parent = null;
+		}
+
+		children.clear();
+		childBoundsChanged();
+	}
+
+	/**
+	 * Get the children in painting order
+	 *
+	 * @return Unmodifiable view of the children
+	 */
+	public List<SceneObject> getChildren()
+	{
+		return unmodifiableChildren;
+	}
+
+	public int getChildCount()
+	{
+		return children.size();
+	}
+
+	public SceneObject getChild(int index)
+	{
+		return children.get(index);
+	}
+
+	/**
+	 * Get the transform applied to the children
+	 *
+	 * @return Copy of the transform
+	 */
+	public AffineTransform getTransform()
+	{
+		return new AffineTransform(transform);
+	}
+
+	/**
+	 * Set the transform applied to the children. The children are transformed relative to the
+	 * group's top left corner.
+	 *
+	 * @param transform Invertible transform, null for identity
+	 */
+	public void setTransform(AffineTransform transform)
+	{
+
+		AffineTransform inverse;
+		try
+		{
+			inverse = (transform != null) ? transform.createInverse() : new AffineTransform();
+		}
+		catch (NoninvertibleTransformException e)
+		{
+			throw new IllegalArgumentException("Transform must be invertible", e);
+		}
+
+		if (transform != null)
+		{
+			this.transform.setTransform(transform);
+		}
+		else
+		{
+			this.transform.setToIdentity();
+		}
+		this.inverseTransform.setTransform(inverse);
+
+		boundsChanged();
+	}
+
+	/**
+	 * Get the transform from this group's children to the scene
+	 *
+	 * @return Copy of the world transform
+	 */
+	public AffineTransform getWorldTransform()
+	{
+
+		synchronized (validate())
+		{
+			return new AffineTransform(worldTransform);
+		}
+	}
+
+	/**
+	 * Get the bounds of all children in scene coordinates
+	 *
+	 * @return Copy of the world bounds
+	 */
+	public Rectangle2D getWorldBounds()
+	{
+
+		synchronized (validate())
+		{
+			return new Rectangle2D.Double(worldBounds.x, worldBounds.y, worldBounds.width, worldBounds.height);
+		}
+	}
+
+	/**
+	 * Get the bounds of all children in the parent's coordinates
+	 */
+	@Override
+	public Rectangle getRectangle(Rectangle rv)
+	{
+
+		synchronized (validate())
+		{
+
+			rv.setBounds(parentBounds);
+			return rv;
+		}
+	}
+
+	@Override
+	protected void paint(Graphics2D g, long elapsedTime)
+	{
+
+		boolean transformed = !transform.isIdentity();
+		if (transformed)
+		{
+
+			g.transform(transform);
+
+			// Cull children in their own coordinates
+			GraphicsState state = GraphicsState.current();
+			if (state != null)
+			{
+				state.transformViewport(inverseTransform);
+			}
+		}
+
+		try
+		{
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				children.get(i).paintOnScene(g, getWidth(), getHeight(), elapsedTime);
+			}
+		}
+		finally
+		{
+
+			if (transformed)
+			{
+				g.transform(inverseTransform);
+			}
+		}
+
+		GraphicsState state = GraphicsState.current();
+		if (state == null || state.isTracking())
+		{
+
+			getRectangle(paintedBounds);
+			painted = true;
+			changed = false;
+		}
+	}
+
+	/**
+	 * A group containing objects, that aren't cullable, is never culled, so these objects are
+	 * painted
+	 */
+	@Override
+	public boolean isCullable()
+	{
+
+		if (!super.isCullable())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < children.size(); i++)
+		{
+			if (!children.get(i).isCullable())
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Children of a culled group are culled, too
+	 */
+	@Override
+	protected void culled(long elapsedTime)
+	{
+
+		for (int i = 0; i < children.size(); i++)
+		{
+			children.get(i).culled(elapsedTime);
+		}
+	}
+
+	@Override
+	void paintingSkipped()
+	{
+
+		super.paintingSkipped();
+		for (int i = 0; i < children.size(); i++)
+		{
+			children.get(i).paintingSkipped();
+		}
+
+		getRectangle(paintedBounds);
+		painted = true;
+		changed = false;
+	}
+
+	/**
+	 * The mask covers the bounds of all children. It is kept until the transform, a child's bounds or
+	 * a child's mask changes.
+	 */
+	@Override
+	protected CollisionMask createCollisionMask()
+	{
+
+		Rectangle bounds = getRectangle();
+		if (bounds.width <= 0 || bounds.height <= 0)
+		{
+			return CollisionMask.empty(bounds.width, bounds.height);
+		}
+
+		BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try
+		{
+
+			g.translate(-bounds.x, -bounds.y);
+			paintCollisionMask(g);
+		}
+		finally
+		{
+			g.dispose();
+		}
+
+		return CollisionMask.create(image, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+	}
+
+	@Override
+	boolean isCollisionMaskStale(CollisionMask mask)
+	{
+		return changedByItself();
+	}
+
+	/**
+	 * Check if a child changed without {@link #invalidate()}
+	 */
+	@Override
+	boolean changedByItself()
+	{
+
+		for (int i = 0; i < children.size(); i++)
+		{
+			if (children.get(i).changedByItself())
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	void paintCollisionMask(Graphics2D g)
+	{
+
+		int x = getTopLeftX();
+		int y = getTopLeftY();
+
+		g.translate(x, y);
+		g.transform(transform);
+		try
+		{
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				children.get(i).paintCollisionMask(g);
+			}
+		}
+		finally
+		{
+
+			g.transform(inverseTransform);
+			g.translate(-x, -y);
+		}
+	}
+
+	/**
+	 * Check if a child changed since the last painting
+	 */
+	@Override
+	public boolean isInvalid()
+	{
+
+		if (changed || super.isInvalid())
+		{
+			return true;
+		}
+
+		for (int i = 0; i < children.size(); i++)
+		{
+			if (children.get(i).isInvalid())
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Adds the bounds of all children before and after the change
+	 */
+	@Override
+	public void addDirtyRegion(DirtyRegion region)
+	{
+
+		if (!isInvalid())
+		{
+			return;
+		}
+
+		if (painted)
+		{
+			region.add(paintedBounds);
+		}
+
+		region.add(getRectangle(dirtyBounds));
+	}
+
+	@Override
+	void boundsChanged()
+	{
+
+		transformDirty = true;
+		changed = true;
+		collisionMaskChanged();
+		super.boundsChanged();
+	}
+
+	/**
+	 * Mark the bounds of this group and all groups above as dirty
+	 */
+	void childBoundsChanged()
+	{
+
+		changed = true;
+		collisionMaskChanged();
+		for (SceneGroup group = this; group != null && !group.boundsDirty; group = group.parent)
+		{
+
+			group.boundsDirty = true;
+			if (group.spatialIndex != null)
+			{
+				group.spatialIndex.invalidate(group);
+			}
+		}
+	}
+
+	private SceneGroup getRoot()
+	{
+
+		SceneGroup root = this;
+		while (root.parent != null)
+		{
+			root = root.parent;
+		}
+
+		return root;
+	}
+
+	/**
+	 * Recompute the dirty parts of the tree
+	 *
+	 * @return The root, guarding the cached values
+	 */
+	private SceneGroup validate()
+	{
+
+		SceneGroup root = getRoot();
+		synchronized (root)
+		{
+
+			if (root.transformDirty || root.boundsDirty)
+			{
+
+				root.worldTransform.setToIdentity();
+				root.validate(root.worldTransform, false);
+			}
+		}
+
+		return root;
+	}
+
+	private void validate(AffineTransform parentWorldTransform, boolean parentChanged)
+	{
+
+		boolean transformChanged = parentChanged || transformDirty;
+		if (transformChanged)
+		{
+
+			worldTransform.setTransform(parentWorldTransform);
+			worldTransform.translate(getTopLeftX(), getTopLeftY());
+			worldTransform.concatenate(transform);
+		}
+
+		if (boundsDirty || transformChanged)
+		{
+
+			double minX = Double.POSITIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+
+			for (int i = 0; i < children.size(); i++)
+			{
+
+				SceneObject child = children.get(i);
+				Rectangle bounds;
+
+				if (child instanceof SceneGroup)
+				{
+
+					SceneGroup group = (SceneGroup) child;
+					if (transformChanged || group.transformDirty || group.boundsDirty)
+					{
+						group.validate(worldTransform, transformChanged);
+					}
+
+					bounds = group.parentBounds;
+				}
+				else if (boundsDirty)
+				{
+					bounds = child.getRectangle(childBounds);
+				}
+				else
+				{
+					continue;
+				}
+
+				minX = Math.min(minX, bounds.getMinX());
+				minY = Math.min(minY, bounds.getMinY());
+				maxX = Math.max(maxX, bounds.getMaxX());
+				maxY = Math.max(maxY, bounds.getMaxY());
+			}
+
+			if (boundsDirty)
+			{
+
+				if (children.isEmpty())
+				{
+					localBounds.setRect(0, 0, 0, 0);
+				}
+				else
+				{
+					localBounds.setRect(minX, minY, maxX - minX, maxY - minY);
+				}
+			}
+
+			transform(transform, getTopLeftX(), getTopLeftY(), parentBounds);
+			transform(worldTransform, 0, 0, worldBounds);
+		}
+
+		transformDirty = false;
+		boundsDirty = false;
+	}
+
+	/**
+	 * Transform the local bounds
+	 */
+	private void transform(AffineTransform transform, int x, int y, Rectangle2D result)
+	{
+
+		corners[0] = localBounds.getMinX();
+		corners[1] = localBounds.getMinY();
+		corners[2] = localBounds.getMaxX();
+		corners[3] = localBounds.getMinY();
+		corners[4] = localBounds.getMaxX();
+		corners[5] = localBounds.getMaxY();
+		corners[6] = localBounds.getMinX();
+		corners[7] = localBounds.getMaxY();
+		transform.transform(corners, 0, corners, 0, 4);
+
+		double minX = Math.min(Math.min(corners[0], corners[2]), Math.min(corners[4], corners[6]));
+		double minY = Math.min(Math.min(corners[1], corners[3]), Math.min(corners[5], corners[7]));
+		double maxX = Math.max(Math.max(corners[0], corners[2]), Math.max(corners[4], corners[6]));
+		double maxY = Math.max(Math.max(corners[1], corners[3]), Math.max(corners[5], corners[7]));
+
+		if (result instanceof Rectangle)
+		{
+
+			// Covering integer bounds
+			int x0 = (int) Math.floor(minX);
+			int y0 = (int) Math.floor(minY);
+			((Rectangle) result).setBounds(x + x0, y + y0, (int) Math.ceil(maxX) - x0, (int) Math.ceil(maxY) - y0);
+		}
+		else
+		{
+			result.setRect(x + minX, y + minY, maxX - minX, maxY - minY);
+		}
+	}
+}
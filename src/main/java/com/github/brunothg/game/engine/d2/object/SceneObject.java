@@ -3,11 +3,9 @@ package com.github.brunothg.game.engine.d2.object;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
-import java.awt.image.ColorModel;
-import java.awt.image.WritableRaster;
 
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
 import com.github.brunothg.game.engine.d2.commons.Point;
 import com.github.brunothg.game.engine.d2.commons.RenderingOptions;
 import com.github.brunothg.game.engine.d2.commons.Size;
@@ -23,13 +21,49 @@ public abstract class SceneObject {
 
 	protected final static Point ORIGIN_TOP_LEFT = new Point(0, 0);
 
+	/**
+	 * Intersection and bounds used by collision tests of a thread
+	 */
+	private static final ThreadLocal<Rectangle[]> COLLISION_BOUNDS = new ThreadLocal<Rectangle[]>() {
+		@Override
+		protected Rectangle[] initialValue() {
+			return new Rectangle[] { new Rectangle(), new Rectangle() };
+		}
+	};
+
 	private Point position = ORIGIN_TOP_LEFT;
 	private Size size = new Size(0, 0);
 
 	private boolean drawBoundingBox;
+	private boolean clipToBounds = true;
+	private boolean cullable = true;
 
 	private RenderingOptions renderingOptions;
 
+	/**
+	 * Group containing this object
+	 */
+	SceneGroup parent;
+
+	/**
+	 * Index containing this object
+	 */
+	SpatialIndex spatialIndex;
+	SpatialIndex.Entry spatialEntry;
+	boolean spatialDirty;
+
+	// Mask of the last look for collision testing
+	private CollisionMask collisionMask;
+	private boolean collisionMaskInvalid = true;
+
+	// Bounds of the last painting for dirty region tracking
+	private boolean invalid = true;
+	private boolean painted;
+	private int paintedX;
+	private int paintedY;
+	private int paintedWidth;
+	private int paintedHeight;
+
 	public SceneObject() {
 
 		setPosition(0, 0);
@@ -39,7 +73,11 @@ public abstract class SceneObject {
 	/**
 	 * Paint this SceneObject. This method maybe called for collision testing with
 	 * an elapsed time of zero. For correct collision the {@link SceneObject} it is
-	 * important, that the object is drawn in it's actual state.
+	 * important, that the object is drawn in it's actual state.<br>
+	 * The graphics is shared with the scene. Color, paint, stroke, font,
+	 * composite, background and the hints of the {@link RenderingOptions} are
+	 * restored afterwards. Changes of the transform or clip have to be undone by
+	 * the implementation.
 	 * 
 	 * @param g
 	 *            Graphics Object for painting
@@ -64,6 +102,10 @@ public abstract class SceneObject {
 
 	/**
 	 * Paints this SceneObject and applies the actual {@link RenderingOptions}.
+	 * Objects outside of the visible area are culled: If the
+	 * {@link #getRectangle() bounds} don't intersect the clip or, without clip,
+	 * the scene, nothing is painted and {@link #culled(long)} is called instead.
+	 * Painted by a {@link SceneGroup} the visible area is the group's.
 	 * 
 	 * @param g
 	 *            Graphics Object for painting
@@ -73,10 +115,75 @@ public abstract class SceneObject {
 	 *            Scene width
 	 * @param height
 	 *            scene height
-	 * @see #paintOnScene(Graphics2D, Size, long)
+	 * @see #setCullable(boolean)
+	 * @see CullingStatistics#bind(CullingStatistics)
 	 */
 	public void paintOnScene(Graphics2D g, int width, int height, long elapsedTime) {
-		paintOnScene(g, new Size(width, height), elapsedTime);
+		GraphicsState state = GraphicsState.next();
+		state.initViewport(g, width, height);
+
+		CullingStatistics statistics = CullingStatistics.getBound();
+
+		try {
+			if (isCullable() && !state.viewport.intersects(getRectangle(state.bounds))) {
+				if (statistics != null) {
+					statistics.recordCulled();
+				}
+				culled(elapsedTime);
+				if (state.isTracking()) {
+					paintingSkipped();
+				}
+				return;
+			}
+
+			if (statistics != null) {
+				statistics.recordDrawn();
+			}
+			paintAbsoluteOnScene(g, elapsedTime);
+		} finally {
+			state.hasViewport = false;
+		}
+	}
+
+	/**
+	 * Track the bounds like a painting, so a culled object isn't dirty until it
+	 * changes again
+	 */
+	void paintingSkipped() {
+		painted = true;
+		paintedX = getTopLeftX();
+		paintedY = getTopLeftY();
+		paintedWidth = getWidth();
+		paintedHeight = getHeight();
+		invalid = false;
+	}
+
+	/**
+	 * Set if objects painted by the calling thread track the bounds they were
+	 * painted at, which are used for {@link #addDirtyRegion(DirtyRegion) dirty
+	 * regions}. If several threads paint the same objects at once (e.g. in bands
+	 * of a {@link com.github.brunothg.game.engine.d2.scene.ReentrantScene}),
+	 * exactly one of them has to track. Every thread paints or culls every object,
+	 * so any of them tracks the same bounds.
+	 * 
+	 * @param tracking
+	 *            false for threads painting without tracking
+	 * @return The previous setting of the calling thread
+	 */
+	public static boolean setDirtyRegionTracking(boolean tracking) {
+		return GraphicsState.setTracking(tracking);
+	}
+
+	/**
+	 * Called instead of painting, if this object is outside of the visible area.
+	 * Objects advancing their state while painting (e.g. animations) can do this
+	 * here without painting. The default implementation does nothing.
+	 * 
+	 * @param elapsedTime
+	 *            Elapsed time since the last call to
+	 *            {@link #paint(Graphics2D, long)} or this method
+	 */
+	protected void culled(long elapsedTime) {
 	}
 
 	/**
@@ -88,10 +195,10 @@ public abstract class SceneObject {
 	 *            Scene size
 	 * @param elapsedTime
 	 *            Elapsed time since the last call to this method
-	 * @see #paintOnScene(Graphics2D, Size, long)
+	 * @see #paintOnScene(Graphics2D, int, int, long)
 	 */
 	public void paintOnScene(Graphics2D g, Size sceneSize, long elapsedTime) {
-		paintAbsoluteOnScene(g, elapsedTime);
+		paintOnScene(g, sceneSize.getWidth(), sceneSize.getHeight(), elapsedTime);
 	}
 
 	/**
@@ -103,14 +210,7 @@ public abstract class SceneObject {
 	 *            Elapsed time since the last call to this method
 	 */
 	protected void paintAbsoluteOnScene(Graphics2D g, long elapsedTime) {
-		Point topLeftPosition = getTopLeftPosition();
-		int x_topLeft = topLeftPosition.getX();
-		int y_topLeft = topLeftPosition.getY();
-
-		int width = getWidth();
-		int height = getHeight();
-
-		paintOnScene(g, new Point(x_topLeft, y_topLeft), new Size(width, height), elapsedTime);
+		paintOnScene(g, getTopLeftX(), getTopLeftY(), getWidth(), getHeight(), elapsedTime);
 	}
 
 	/**
@@ -124,21 +224,121 @@ public abstract class SceneObject {
 	 *            Absolute size of object
 	 * @param elapsedTime
 	 *            Elapsed time since the last call to this method
+	 * @deprecated Use {@link #paintOnScene(Graphics2D, int, int, int, int, long)}
+	 *             instead
 	 */
+	@Deprecated
 	protected void paintOnScene(Graphics2D g, Point positionTopLeft, Size size, long elapsedTime) {
-		Graphics2D g2d = (Graphics2D) g.create(positionTopLeft.getX(), positionTopLeft.getY(), size.getWidth(),
-				size.getHeight());
-		if (renderingOptions != null) {
-			renderingOptions.apply(g2d);
+		paintOnScene(g, positionTopLeft.getX(), positionTopLeft.getY(), size.getWidth(), size.getHeight(),
+				elapsedTime);
+	}
+
+	/**
+	 * Paint on scene with given size and position. The object is painted on the
+	 * given graphics translated to its position, the graphics' state is restored
+	 * afterwards. So painting doesn't allocate any objects.
+	 * 
+	 * @param g
+	 *            Graphics Object for painting
+	 * @param x
+	 *            X-Coordinate of the top left position
+	 * @param y
+	 *            Y-Coordinate of the top left position
+	 * @param width
+	 *            Absolute width of object
+	 * @param height
+	 *            Absolute height of object
+	 * @param elapsedTime
+	 *            Elapsed time since the last call to this method
+	 * @see #setClipToBounds(boolean)
+	 */
+	protected void paintOnScene(Graphics2D g, int x, int y, int width, int height, long elapsedTime) {
+		GraphicsState state = GraphicsState.save(g, renderingOptions);
+		boolean tracking = state.isTracking();
+		if (tracking) {
+			painted = true;
+			paintedX = x;
+			paintedY = y;
+			paintedWidth = width;
+			paintedHeight = height;
 		}
-		paint(g2d, elapsedTime);
 
-		if (isDrawBoundingBox()) {
-			g2d.setColor(Color.BLACK);
-			g2d.drawRect(0, 0, size.getWidth() - 1, size.getHeight() - 1);
+		g.translate(x, y);
+		if (state.hasViewport) {
+			state.viewport.translate(-x, -y);
 		}
+		try {
+			if (isClipToBounds()) {
+				state.clipRect(g, 0, 0, width, height);
+			}
+
+			paint(g, elapsedTime);
+			if (tracking) {
+				invalid = false;
+			}
 
-		g2d.dispose();
+			if (isDrawBoundingBox()) {
+				g.setColor(Color.BLACK);
+				g.drawRect(0, 0, width - 1, height - 1);
+			}
+		} finally {
+			g.translate(-x, -y);
+			state.restore(g);
+		}
+	}
+
+	/**
+	 * Mark this object to be repainted by stages drawing dirty regions only. Has to
+	 * be called if the look of this object changed without changing its bounds.
+	 * 
+	 * @see #addDirtyRegion(DirtyRegion)
+	 */
+	public void invalidate() {
+		invalid = true;
+		collisionMaskChanged();
+	}
+
+	/**
+	 * Drop the cached collision masks of this object and all groups containing it
+	 */
+	void collisionMaskChanged() {
+		for (SceneObject object = this; object != null; object = object.parent) {
+			object.collisionMaskInvalid = true;
+		}
+	}
+
+	/**
+	 * Check if the look of this object changed since the last painting. Objects
+	 * changing with every painting (e.g. animations) should override this method.
+	 * 
+	 * @return true if this object has to be repainted
+	 */
+	public boolean isInvalid() {
+		return invalid;
+	}
+
+	/**
+	 * Add the regions, that changed since this object was painted the last time.
+	 * If the object moved, both the old and the new bounds are added.
+	 * 
+	 * @param region
+	 *            The region to be redrawn
+	 */
+	public void addDirtyRegion(DirtyRegion region) {
+		int x = getTopLeftX();
+		int y = getTopLeftY();
+		int width = getWidth();
+		int height = getHeight();
+
+		if (!isInvalid() && painted && x == paintedX && y == paintedY && width == paintedWidth
+				&& height == paintedHeight) {
+			return;
+		}
+
+		if (painted) {
+			region.add(paintedX, paintedY, paintedWidth, paintedHeight);
+		}
+		region.add(x, y, width, height);
 	}
 
 	/**
@@ -147,7 +347,43 @@ public abstract class SceneObject {
 	 * @return The Position of this SceneObject's top left corner
 	 */
 	public Point getTopLeftPosition() {
-		return new Point(getPreciseX() - getOrigin().getPreciseX(), getPreciseY() - getOrigin().getPreciseY());
+		return new Point(getPreciseTopLeftX(), getPreciseTopLeftY());
+	}
+
+	/**
+	 * The X-Coordinate of this {@link SceneObject}'s top left corner
+	 * 
+	 * @see #getTopLeftPosition()
+	 */
+	public int getTopLeftX() {
+		return (int) Math.round(getPreciseTopLeftX());
+	}
+
+	/**
+	 * The precise X-Coordinate of this {@link SceneObject}'s top left corner
+	 * 
+	 * @see #getTopLeftPosition()
+	 */
+	public double getPreciseTopLeftX() {
+		return getPreciseX() - getOrigin().getPreciseX();
+	}
+
+	/**
+	 * The Y-Coordinate of this {@link SceneObject}'s top left corner
+	 * 
+	 * @see #getTopLeftPosition()
+	 */
+	public int getTopLeftY() {
+		return (int) Math.round(getPreciseTopLeftY());
+	}
+
+	/**
+	 * The precise Y-Coordinate of this {@link SceneObject}'s top left corner
+	 * 
+	 * @see #getTopLeftPosition()
+	 */
+	public double getPreciseTopLeftY() {
+		return getPreciseY() - getOrigin().getPreciseY();
 	}
 
 	/**
@@ -219,6 +455,7 @@ public abstract class SceneObject {
 		}
 
 		this.position = position;
+		boundsChanged();
 	}
 
 	/**
@@ -307,6 +544,28 @@ public abstract class SceneObject {
 		}
 
 		this.size = size;
+		boundsChanged();
+	}
+
+	/**
+	 * Called if position or size changed
+	 */
+	void boundsChanged() {
+		if (parent != null) {
+			parent.childBoundsChanged();
+		}
+		if (spatialIndex != null) {
+			spatialIndex.invalidate(this);
+		}
+	}
+
+	/**
+	 * Get the {@link SceneGroup} containing this {@link SceneObject}
+	 * 
+	 * @return The parent group or null if this object is not part of a group
+	 */
+	public SceneGroup getParent() {
+		return parent;
 	}
 
 	/**
@@ -338,6 +597,51 @@ public abstract class SceneObject {
 	 */
 	public void setDrawBoundingBox(boolean drawBoundingBox) {
 		this.drawBoundingBox = drawBoundingBox;
+		invalidate();
+	}
+
+	/**
+	 * Check if this object is skipped, if it's outside of the visible area
+	 * 
+	 * @see #setCullable(boolean)
+	 */
+	public boolean isCullable() {
+		return cullable;
+	}
+
+	/**
+	 * Skip painting this object, if it's outside of the visible area. Enabled by
+	 * default. Disable it for objects, that have to be painted to advance their
+	 * state and don't use {@link #culled(long)}.
+	 * 
+	 * @param cullable
+	 *            false for painting always
+	 */
+	public void setCullable(boolean cullable) {
+		this.cullable = cullable;
+	}
+
+	/**
+	 * Check if painting is clipped to the bounds of this {@link SceneObject}.
+	 * 
+	 * @return true if nothing is painted outside of the bounds
+	 * @see #setClipToBounds(boolean)
+	 */
+	public boolean isClipToBounds() {
+		return clipToBounds;
+	}
+
+	/**
+	 * Clip painting to the bounds of this {@link SceneObject}. Enabled by default.
+	 * Java2D allocates for every clip change, so objects painted in large numbers,
+	 * that stay inside of their bounds, should disable clipping.
+	 * 
+	 * @param clipToBounds
+	 *            true if nothing should be painted outside of the bounds
+	 */
+	public void setClipToBounds(boolean clipToBounds) {
+		this.clipToBounds = clipToBounds;
+		invalidate();
 	}
 
 	/**
@@ -360,6 +664,7 @@ public abstract class SceneObject {
 	 */
 	public void setRenderingOptions(RenderingOptions renderingOptions) {
 		this.renderingOptions = renderingOptions;
+		invalidate();
 	}
 
 	/**
@@ -384,10 +689,10 @@ public abstract class SceneObject {
 	}
 
 	/**
-	 * Exactly check overlapping. Uses alpha mask to detect geometry. If there's a
-	 * pixel in the given object, that has an alpha greater 0 and this object is
-	 * transparent (alpha = 0) at this position false is returned.
-	 * 
+	 * Exactly check overlapping. Uses the {@link #getCollisionMask() collision
+	 * masks} to detect geometry. If there's a pixel in the given object, that has
+	 * an alpha greater 0 and this object is transparent (alpha = 0) at this
+	 * position false is returned.
 	 * 
 	 * @param obj
 	 *            Other object for testing
@@ -395,59 +700,10 @@ public abstract class SceneObject {
 	 */
 	public boolean consumesExactly(SceneObject obj) {
 
-		BufferedImage img1 = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g1 = img1.createGraphics();
-		paint(g1, 0);
-
-		BufferedImage img2 = new BufferedImage(obj.getWidth(), obj.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g2 = img2.createGraphics();
-		obj.paint(g2, 0);
-
-		ColorModel cm1 = img1.getColorModel();
-		WritableRaster raster1 = img1.getRaster();
-
-		ColorModel cm2 = img2.getColorModel();
-		WritableRaster raster2 = img2.getRaster();
-
-		Point topLeftPosition1 = getTopLeftPosition();
-		Point topLeftPosition2 = obj.getTopLeftPosition();
-
-		int offsetX = topLeftPosition2.getX() - topLeftPosition1.getX();
-		int offsetY = topLeftPosition2.getY() - topLeftPosition1.getY();
-
-		int width1 = img1.getWidth();
-		int height1 = img1.getHeight();
-
-		int width2 = img2.getWidth();
-		int height2 = img2.getHeight();
-
-		for (int x = 0; x < width2; x++) {
-			for (int y = 0; y < height2; y++) {
-
-				int alpha2 = cm2.getAlpha(raster2.getDataElements(x, y, null));
-
-				if (alpha2 == 0) {
-					continue;
-				}
-
-				int xt = x - offsetX;
-				int yt = y - offsetY;
-
-				// Collision not possible out of bounds
-				if (xt < 0 || yt < 0 || xt >= width1 || yt >= height1) {
-
-					return false;
-				}
+		Rectangle bounds = getRectangle();
+		Rectangle objBounds = obj.getRectangle();
 
-				int alpha1 = cm1.getAlpha(raster1.getDataElements(xt, yt, null));
-
-				if (alpha1 == 0) {
-					return false;
-				}
-			}
-		}
-
-		return true;
+		return getCollisionMask().covers(obj.getCollisionMask(), objBounds.x - bounds.x, objBounds.y - bounds.y);
 	}
 
 	/**
@@ -484,7 +740,7 @@ public abstract class SceneObject {
 
 		boolean isColliding;
 
-		Rectangle intersection = collidesBoundingBox(obj);
+		Rectangle intersection = collidesBoundingBox(obj, COLLISION_BOUNDS.get()[0]);
 		isColliding = intersection != null;
 
 		if (isColliding) {
@@ -497,10 +753,10 @@ public abstract class SceneObject {
 	/**
 	 * Check exactly if a collision is present. The result may only be correct if
 	 * {@link #collidesBoundingBox(SceneObject)} returns a non empty region. The
-	 * default implementation tests every pixel drawn by this object. If there's a
-	 * pixel set (alpha != 0) in both objects they collide. Depending on the object
-	 * there maybe a better collision handling. Feel free to override this method
-	 * for better performance.
+	 * default implementation tests the {@link #getCollisionMask() collision masks}
+	 * 64 pixels at once. If there's a pixel set (alpha != 0) in both objects they
+	 * collide. Depending on the object there maybe a better collision handling.
+	 * Feel free to override this method for better performance.
 	 * 
 	 * @param obj
 	 *            The second {@link SceneObject} for testing
@@ -510,53 +766,100 @@ public abstract class SceneObject {
 	 */
 	public boolean collidesExactly(SceneObject obj, Rectangle intersection) {
 
-		boolean collides = false;
+		Rectangle bounds = obj.getRectangle(COLLISION_BOUNDS.get()[1]);
+		int objX = bounds.x;
+		int objY = bounds.y;
+		getRectangle(bounds);
 
-		BufferedImage img1 = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g1 = img1.createGraphics();
-		paint(g1, 0);
+		return getCollisionMask().intersects(obj.getCollisionMask(), objX - bounds.x, objY - bounds.y,
+				intersection.x - bounds.x, intersection.y - bounds.y, intersection.width, intersection.height);
+	}
 
-		BufferedImage img2 = new BufferedImage(obj.getWidth(), obj.getHeight(), BufferedImage.TYPE_INT_ARGB);
-		Graphics2D g2 = img2.createGraphics();
-		obj.paint(g2, 0);
+	/**
+	 * Get the pixels of this object taking part in exact collision tests. The
+	 * default implementation paints this object and keeps the mask until the size
+	 * changes, {@link #invalidate()} is called or {@link #isInvalid()} reports a
+	 * change since the last painting. Objects showing images should return a
+	 * shared mask, e.g. by {@link CollisionMask#get(BufferedImage, int, int)}.
+	 * 
+	 * @return The mask covering the {@link #getRectangle() bounds} of this object
+	 */
+	public CollisionMask getCollisionMask() {
 
-		ColorModel cm1 = img1.getColorModel();
-		WritableRaster raster1 = img1.getRaster();
+		CollisionMask mask = collisionMask;
+		if (mask == null || collisionMaskInvalid || isCollisionMaskStale(mask)) {
 
-		ColorModel cm2 = img2.getColorModel();
-		WritableRaster raster2 = img2.getRaster();
+			mask = createCollisionMask();
+			collisionMask = mask;
+			collisionMaskInvalid = false;
+		}
 
-		Point topLeftPosition1 = getTopLeftPosition();
-		Point topLeftPosition2 = obj.getTopLeftPosition();
+		return mask;
+	}
 
-		int xOffset1 = -topLeftPosition1.getX();
-		int yOffset1 = -topLeftPosition1.getY();
+	/**
+	 * Check if a cached mask doesn't fit this object anymore
+	 */
+	boolean isCollisionMaskStale(CollisionMask mask) {
+		return mask.getWidth() != getWidth() || mask.getHeight() != getHeight() || changedByItself();
+	}
 
-		int xOffset2 = -topLeftPosition2.getX();
-		int yOffset2 = -topLeftPosition2.getY();
+	/**
+	 * Check if this object changed without {@link #invalidate()}, e.g. an animation
+	 * overriding {@link #isInvalid()}
+	 */
+	boolean changedByItself() {
+		return !invalid && isInvalid();
+	}
 
-		loop: for (int y = intersection.y; y < intersection.height + intersection.y; y++) {
-			for (int x = (int) intersection.x; x < intersection.width + intersection.x; x++) {
+	/**
+	 * Create a mask by painting this object with an elapsed time of zero
+	 * 
+	 * @return The new mask
+	 */
+	protected CollisionMask createCollisionMask() {
 
-				int alpha1 = cm1.getAlpha(raster1.getDataElements(x + xOffset1, y + yOffset1, null));
-				// (img1.getRGB(x + xOffset1, y + yOffset1) >> 24) & 0xFF;
+		int width = getWidth();
+		int height = getHeight();
+		if (width <= 0 || height <= 0) {
+			return CollisionMask.empty(width, height);
+		}
 
-				// Collision not possible
-				if (alpha1 == 0) {
-					continue;
-				}
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			paint(g, 0);
+		} finally {
+			g.dispose();
+		}
 
-				int alpha2 = cm2.getAlpha(raster2.getDataElements(x + xOffset2, y + yOffset2, null));
-				// (img2.getRGB(x + xOffset2, y + yOffset2) >> 24) & 0xFF;
+		return CollisionMask.create(image, CollisionMask.DEFAULT_ALPHA_THRESHOLD);
+	}
 
-				if (alpha1 == alpha2) {
-					collides = true;
-					break loop;
-				}
+	/**
+	 * Paint this object for a collision mask at its position. Unlike
+	 * {@link #paintOnScene(Graphics2D, int, int, long)} nothing is culled and the
+	 * object isn't marked as painted.
+	 * 
+	 * @param g
+	 *            Graphics in the parent's coordinates
+	 */
+	void paintCollisionMask(Graphics2D g) {
+		int x = getTopLeftX();
+		int y = getTopLeftY();
+
+		GraphicsState state = GraphicsState.save(g, renderingOptions);
+		g.translate(x, y);
+		try {
+			if (isClipToBounds()) {
+				state.clipRect(g, 0, 0, getWidth(), getHeight());
 			}
-		}
 
-		return collides;
+			paint(g, 0);
+		} finally {
+			g.translate(-x, -y);
+			state.restore(g);
+		}
 	}
 
 	/**
@@ -569,15 +872,39 @@ public abstract class SceneObject {
 	 */
 	public Rectangle collidesBoundingBox(SceneObject obj) {
 
-		Rectangle2D rect = getRectangle().createIntersection(obj.getRectangle());
-
-		Rectangle ret = null;
+		return collidesBoundingBox(obj, new Rectangle());
+	}
 
-		if (rect.getWidth() >= 0 && rect.getWidth() >= 0) {
-			ret = new Rectangle((int) rect.getX(), (int) rect.getY(), (int) rect.getWidth(), (int) rect.getHeight());
+	/**
+	 * Check collision with bounding box algorithm without allocating a new
+	 * {@link Rectangle}.
+	 * 
+	 * @param obj
+	 *            The second {@link SceneObject} for testing
+	 * @param rv
+	 *            The rectangle receiving the overlapping region
+	 * @return rv or null if there's no overlapping region
+	 */
+	public Rectangle collidesBoundingBox(SceneObject obj, Rectangle rv) {
+
+		obj.getRectangle(rv);
+		int objMinX = rv.x;
+		int objMinY = rv.y;
+		int objMaxX = rv.x + rv.width;
+		int objMaxY = rv.y + rv.height;
+
+		getRectangle(rv);
+		int minX = Math.max(rv.x, objMinX);
+		int minY = Math.max(rv.y, objMinY);
+		int maxX = Math.min(rv.x + rv.width, objMaxX);
+		int maxY = Math.min(rv.y + rv.height, objMaxY);
+
+		if (maxX < minX || maxY < minY) {
+			return null;
 		}
 
-		return ret;
+		rv.setBounds(minX, minY, maxX - minX, maxY - minY);
+		return rv;
 	}
 
 	/**
@@ -587,9 +914,21 @@ public abstract class SceneObject {
 	 */
 	public Rectangle getRectangle() {
 
-		Point position = getTopLeftPosition();
+		return getRectangle(new Rectangle());
+	}
+
+	/**
+	 * Get the {@link Rectangle} representing this object's bounds without
+	 * allocating a new one.
+	 * 
+	 * @param rv
+	 *            The rectangle receiving the bounds
+	 * @return rv
+	 */
+	public Rectangle getRectangle(Rectangle rv) {
 
-		return new Rectangle(position.getX(), position.getY(), getWidth(), getHeight());
+		rv.setBounds(getTopLeftX(), getTopLeftY(), getWidth(), getHeight());
+		return rv;
 	}
 
 }
@@ -0,0 +1,399 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.awt.Rectangle;
+import java.util.Collection;
+
+/**
+ * Finds {@link SceneObject}s by their {@link SceneObject#getRectangle() bounds} without testing
+ * every object. Use a {@link UniformGrid} for objects of similar size spread over a large area and
+ * a {@link LooseQuadtree} for objects of very different sizes in a known area.<br>
+ * The index follows {@link SceneObject#setPosition(com.github.brunothg.game.engine.d2.commons.Point)}
+ * and {@link SceneObject#setSize(com.github.brunothg.game.engine.d2.commons.Size)} (and changes
+ * of a {@link SceneGroup}'s children). Changes are collected and applied by the next query, so
+ * moving an object many times per frame costs one update. Changing a
+ * {@link com.github.brunothg.game.engine.d2.commons.Point} in place isn't noticed, use
+ * {@link #update(SceneObject)} then.<br>
+ * All objects of an index should use the same coordinates, e.g. be children of the same group.
+ * An object can be part of one index only. Like the scene, an index has to be used by one thread.
+ * Queries don't allocate, the results are added to a collection given by the caller.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public abstract class SpatialIndex
+{
+
+	private Entry[] entries = new Entry[16];
+	private int size;
+	private int nextId;
+
+	private SceneObject[] dirty = new SceneObject[16];
+	private int dirtyCount;
+
+	private int stamp;
+	private final Rectangle bounds = new Rectangle();
+
+	/**
+	 * Add an object
+	 *
+	 * @param obj Object, that isn't part of an index
+	 */
+	public void add(SceneObject obj)
+	{
+
+		if (obj == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (obj.spatialIndex != null)
+		{
+			throw new IllegalArgumentException("Object is already part of a spatial index");
+		}
+
+		Entry entry = createEntry();
+		entry.object = obj;
+		entry.id = nextId++;
+		entry.setBounds(obj.getRectangle(bounds));
+
+		if (size == entries.length)
+		{
+
+			Entry[] newEntries = new Entry[size * 2];
+			System.arraycopy(entries, 0, newEntries, 0, size);
+			entries = newEntries;
+		}
+		entry.index = size;
+		entries[size++] = entry;
+
+		obj.spatialIndex = this;
+		obj.spatialEntry = entry;
+		obj.spatialDirty = false;
+
+		insert(entry);
+	}
+
+	/**
+	 * Remove an object
+	 *
+	 * @return true if the object was part of this index
+	 */
+	public boolean remove(SceneObject obj)
+	{
+
+		if (obj == null || obj.spatialIndex != this)
+		{
+			return false;
+		}
+
+		Entry entry = obj.spatialEntry;
+		erase(entry);
+
+		Entry last = entries[--size];
+		entries[entry.index] = last;
+		last.index = entry.index;
+		entries[size] = null;
+
+		obj.spatialIndex = null;
+		obj.spatialEntry = null;
+		obj.spatialDirty = false;
+		return true;
+	}
+
+	/**
+	 * Remove all objects
+	 */
+	public void clear()
+	{
+
+		for (int i = 0; i < size; i++)
+		{
+
+			SceneObject obj = entries[i].object;
+			obj.spatialIndex = null;
+			obj.spatialEntry = null;
+			obj.spatialDirty = false;
+			entries[i] = null;
+		}
+		size = 0;
+
+		for (int i = 0; i < dirtyCount; i++)
+		{
+			dirty[i] = null;
+		}
+		dirtyCount = 0;
+
+		eraseAll();
+	}
+
+	/**
+	 * Check if an object is part of this index
+	 */
+	public boolean contains(SceneObject obj)
+	{
+		return obj != null && obj.spatialIndex == this;
+	}
+
+	/**
+	 * Get the number of objects
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Read the bounds of an object again, e.g. after its position was changed in place
+	 *
+	 * @param obj Object of this index
+	 */
+	public void update(SceneObject obj)
+	{
+
+		if (!contains(obj))
+		{
+			throw new IllegalArgumentException("Object is not part of this index");
+		}
+
+		invalidate(obj);
+	}
+
+	/**
+	 * Find the objects intersecting a region
+	 *
+	 * @param x X-Coordinate of the region
+	 * @param y Y-Coordinate of the region
+	 * @param width Width of the region
+	 * @param height Height of the region
+	 * @param result Collection the objects are added to
+	 * @return result
+	 */
+	public <C extends Collection<? super SceneObject>> C query(int x, int y, int width, int height, C result)
+	{
+
+		validate();
+		if (width > 0 && height > 0)
+		{
+			queryRegion(x, y, width, height, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Find the objects intersecting a region
+	 *
+	 * @see #query(int, int, int, int, Collection)
+	 */
+	public <C extends Collection<? super SceneObject>> C query(Rectangle region, C result)
+	{
+		return query(region.x, region.y, region.width, region.height, result);
+	}
+
+	/**
+	 * Find the objects containing a point
+	 *
+	 * @param x X-Coordinate of the point
+	 * @param y Y-Coordinate of the point
+	 * @param result Collection the objects are added to
+	 * @return result
+	 */
+	public <C extends Collection<? super SceneObject>> C query(int x, int y, C result)
+	{
+
+		validate();
+		queryPoint(x, y, result);
+
+		return result;
+	}
+
+	/**
+	 * Find all pairs of objects with intersecting bounds. Every pair is visited once. These are the
+	 * candidates for {@link SceneObject#collides(SceneObject)}.
+	 *
+	 * @param visitor Called for every pair
+	 */
+	public void queryPairs(PairVisitor visitor)
+	{
+
+		validate();
+		queryAllPairs(visitor);
+	}
+
+	/**
+	 * Called if the bounds of an object changed
+	 */
+	void invalidate(SceneObject obj)
+	{
+
+		if (obj.spatialDirty)
+		{
+			return;
+		}
+		obj.spatialDirty = true;
+
+		if (dirtyCount == dirty.length)
+		{
+
+			SceneObject[] newDirty = new SceneObject[dirtyCount * 2];
+			System.arraycopy(dirty, 0, newDirty, 0, dirtyCount);
+			dirty = newDirty;
+		}
+		dirty[dirtyCount++] = obj;
+	}
+
+	/**
+	 * Move the changed objects
+	 */
+	private void validate()
+	{
+
+		for (int i = 0; i < dirtyCount; i++)
+		{
+
+			SceneObject obj = dirty[i];
+			dirty[i] = null;
+
+			// Removed meanwhile
+			if (obj.spatialIndex != this || !obj.spatialDirty)
+			{
+				continue;
+			}
+			obj.spatialDirty = false;
+
+			Entry entry = obj.spatialEntry;
+			obj.getRectangle(bounds);
+			if (entry.x != bounds.x || entry.y != bounds.y || entry.width != bounds.width
+				|| entry.height != bounds.height)
+			{
+				move(entry, bounds);
+			}
+		}
+
+		dirtyCount = 0;
+	}
+
+	/**
+	 * Get a new stamp for marking the entries visited by a query
+	 */
+	int nextStamp()
+	{
+
+		if (++stamp == 0)
+		{
+
+			// Overflow -> no entry may have the new stamp
+			for (int i = 0; i < size; i++)
+			{
+				entries[i].stamp = 0;
+			}
+			stamp = 1;
+		}
+
+		return stamp;
+	}
+
+	/**
+	 * Get an entry by its position in the list of all entries
+	 *
+	 * @param index 0 &lt;= index &lt; {@link #size()}
+	 */
+	Entry getEntry(int index)
+	{
+		return entries[index];
+	}
+
+	/**
+	 * Create an entry for a new object
+	 */
+	abstract Entry createEntry();
+
+	/**
+	 * Insert an entry with its bounds set
+	 */
+	abstract void insert(Entry entry);
+
+	/**
+	 * Remove an entry with the bounds it was inserted with
+	 */
+	abstract void erase(Entry entry);
+
+	/**
+	 * Remove all entries
+	 */
+	abstract void eraseAll();
+
+	/**
+	 * Move an entry to new bounds. The default implementation erases and inserts it again.
+	 */
+	void move(Entry entry, Rectangle bounds)
+	{
+
+		erase(entry);
+		entry.setBounds(bounds);
+		insert(entry);
+	}
+
+	abstract void queryRegion(int x, int y, int width, int height, Collection<? super SceneObject> result);
+
+	abstract void queryPoint(int x, int y, Collection<? super SceneObject> result);
+
+	abstract void queryAllPairs(PairVisitor visitor);
+
+	/**
+	 * Receives the pairs found by {@link SpatialIndex#queryPairs(PairVisitor)}
+	 *
+	 * @author Marvin Bruns
+	 *
+	 */
+	public interface PairVisitor
+	{
+
+		/**
+		 * Called for a pair of objects with intersecting bounds
+		 */
+		void visit(SceneObject a, SceneObject b);
+	}
+
+	/**
+	 * An object and the bounds it is stored with
+	 */
+	static class Entry
+	{
+
+		SceneObject object;
+		int id;
+		int index;
+		int stamp;
+
+		int x;
+		int y;
+		int width;
+		int height;
+
+		void setBounds(Rectangle bounds)
+		{
+
+			x = bounds.x;
+			y = bounds.y;
+			width = bounds.width;
+			height = bounds.height;
+		}
+
+		boolean intersects(int x, int y, int width, int height)
+		{
+
+			return this.width > 0 && this.height > 0 && x < this.x + this.width && this.x < x + width
+				&& y < this.y + this.height && this.y < y + height;
+		}
+
+		boolean intersects(Entry other)
+		{
+			return intersects(other.x, other.y, other.width, other.height);
+		}
+
+		boolean contains(int x, int y)
+		{
+			return x >= this.x && y >= this.y && x < this.x + width && y < this.y + height;
+		}
+	}
+}
@@ -0,0 +1,438 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * {@link SpatialIndex} dividing the plane into square cells of equal size. Only cells containing
+ * objects are stored (hash grid), so the area is unbounded and empty cells cost nothing. An object is stored in every cell it
+ * overlaps. Works best, if most objects are about as big as a cell or smaller. Moving an object
+ * within its cells costs nothing.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class UniformGrid extends SpatialIndex
+{
+
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int MIN_CAPACITY = 64;
+
+	private final int cellSize;
+
+	// Open addressing hash map: cell key -> cell
+	private long[] keys;
+	private Cell[] cells;
+	private int cellCount;
+
+	public UniformGrid()
+	{
+
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 *
+	 * @param cellSize Edge length of the cells (positive), e.g. about the size of the objects
+	 */
+	public UniformGrid(int cellSize)
+	{
+
+		if (cellSize <= 0)
+		{
+			throw new IllegalArgumentException("Cell size must be positive -> " + cellSize);
+		}
+
+		this.cellSize = cellSize;
+		eraseAll();
+	}
+
+	public int getCellSize()
+	{
+		return cellSize;
+	}
+
+	/**
+	 * Get the number of stored cells
+	 */
+	int getCellCount()
+	{
+		return cellCount;
+	}
+
+	@Override
+	Entry createEntry()
+	{
+		return new GridEntry();
+	}
+
+	@Override
+	void insert(Entry entry)
+	{
+
+		GridEntry gridEntry = (GridEntry) entry;
+		gridEntry.minCellX = cell(entry.x);
+		gridEntry.minCellY = cell(entry.y);
+		gridEntry.maxCellX = cell(entry.x + Math.max(entry.width, 1) - 1);
+		gridEntry.maxCellY = cell(entry.y + Math.max(entry.height, 1) - 1);
+
+		for (int cellY = gridEntry.minCellY; cellY <= gridEntry.maxCellY; cellY++)
+		{
+			for (int cellX = gridEntry.minCellX; cellX <= gridEntry.maxCellX; cellX++)
+			{
+				getCell(cellX, cellY, true).add(entry);
+			}
+		}
+	}
+
+	@Override
+	void erase(Entry entry)
+	{
+
+		GridEntry gridEntry = (GridEntry) entry;
+		for (int cellY = gridEntry.minCellY; cellY <= gridEntry.maxCellY; cellY++)
+		{
+			for (int cellX = gridEntry.minCellX; cellX <= gridEntry.maxCellX; cellX++)
+			{
+
+				int slot = findSlot(key(cellX, cellY));
+				Cell cell = cells[slot];
+				cell.remove(entry);
+
+				// Empty cells are removed, so moving objects don't grow the grid
+				if (cell.count == 0)
+				{
+					removeSlot(slot);
+				}
+			}
+		}
+	}
+
+	@Override
+	void eraseAll()
+	{
+
+		keys = new long[MIN_CAPACITY];
+		cells = new Cell[keys.length];
+		Arrays.fill(keys, EMPTY);
+		cellCount = 0;
+	}
+
+	@Override
+	void move(Entry entry, Rectangle bounds)
+	{
+
+		GridEntry gridEntry = (GridEntry) entry;
+
+		// Same cells -> keep
+		if (cell(bounds.x) == gridEntry.minCellX && cell(bounds.y) == gridEntry.minCellY
+			&& cell(bounds.x + Math.max(bounds.width, 1) - 1) == gridEntry.maxCellX
+			&& cell(bounds.y + Math.max(bounds.height, 1) - 1) == gridEntry.maxCellY)
+		{
+
+			entry.setBounds(bounds);
+			return;
+		}
+
+		super.move(entry, bounds);
+	}
+
+	@Override
+	void queryRegion(int x, int y, int width, int height, Collection<? super SceneObject> result)
+	{
+
+		int stamp = nextStamp();
+
+		int minCellX = cell(x);
+		int minCellY = cell(y);
+		int maxCellX = cell(x + width - 1);
+		int maxCellY = cell(y + height - 1);
+
+		// Big region -> visit the stored cells instead of all cells in the region
+		if ((maxCellX - minCellX + 1L) * (maxCellY - minCellY + 1L) > cells.length)
+		{
+
+			for (Cell cell : cells)
+			{
+				if (cell != null && cell.cellX >= minCellX && cell.cellX <= maxCellX && cell.cellY >= minCellY
+					&& cell.cellY <= maxCellY)
+				{
+					collect(cell, x, y, width, height, stamp, result);
+				}
+			}
+
+			return;
+		}
+
+		for (int cellY = minCellY; cellY <= maxCellY; cellY++)
+		{
+			for (int cellX = minCellX; cellX <= maxCellX; cellX++)
+			{
+
+				Cell cell = getCell(cellX, cellY, false);
+				if (cell != null)
+				{
+					collect(cell, x, y, width, height, stamp, result);
+				}
+			}
+		}
+	}
+
+	private static void collect(Cell cell, int x, int y, int width, int height, int stamp,
+		Collection<? super SceneObject> result)
+	{
+
+		for (int i = 0; i < cell.count; i++)
+		{
+
+			Entry entry = cell.entries[i];
+			if (entry.stamp != stamp)
+			{
+
+				entry.stamp = stamp;
+				if (entry.intersects(x, y, width, height))
+				{
+					result.add(entry.object);
+				}
+			}
+		}
+	}
+
+	@Override
+	void queryPoint(int x, int y, Collection<? super SceneObject> result)
+	{
+
+		Cell cell = getCell(cell(x), cell(y), false);
+		if (cell == null)
+		{
+			return;
+		}
+
+		for (int i = 0; i < cell.count; i++)
+		{
+
+			Entry entry = cell.entries[i];
+			if (entry.contains(x, y))
+			{
+				result.add(entry.object);
+			}
+		}
+	}
+
+	@Override
+	void queryAllPairs(PairVisitor visitor)
+	{
+
+		for (int c = 0; c < cells.length; c++)
+		{
+
+			Cell cell = cells[c];
+			if (cell == null)
+			{
+				continue;
+			}
+
+			for (int i = 0; i < cell.count; i++)
+			{
+
+				Entry a = cell.entries[i];
+				for (int j = i + 1; j < cell.count; j++)
+				{
+
+					Entry b = cell.entries[j];
+					if (!a.intersects(b))
+					{
+						continue;
+					}
+
+					// Report in the cell containing the intersection's corner only
+					if (cell(Math.max(a.x, b.x)) == cell.cellX && cell(Math.max(a.y, b.y)) == cell.cellY)
+					{
+						visitor.visit(a.object, b.object);
+					}
+				}
+			}
+		}
+	}
+
+	private int cell(int coordinate)
+	{
+		return Math.floorDiv(coordinate, cellSize);
+	}
+
+	private Cell getCell(int cellX, int cellY, boolean create)
+	{
+
+		long key = key(cellX, cellY);
+		int slot = findSlot(key);
+		if (keys[slot] == key)
+		{
+			return cells[slot];
+		}
+
+		if (!create)
+		{
+			return null;
+		}
+
+		Cell cell = new Cell(cellX, cellY);
+		keys[slot] = key;
+		cells[slot] = cell;
+
+		if (++cellCount * 2 > keys.length)
+		{
+			rehash(keys.length * 2);
+		}
+
+		return cell;
+	}
+
+	private static long key(int cellX, int cellY)
+	{
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Get the slot of a key or the empty slot it would be stored in
+	 */
+	private int findSlot(long key)
+	{
+
+		int mask = keys.length - 1;
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key)
+		{
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	/**
+	 * Remove a cell and move the following cells back, so no lookup stops at the gap
+	 */
+	private void removeSlot(int slot)
+	{
+
+		int mask = keys.length - 1;
+		int gap = slot;
+		int i = slot;
+		while (true)
+		{
+
+			i = (i + 1) & mask;
+			if (keys[i] == EMPTY)
+			{
+				break;
+			}
+
+			// Move only, if the gap is between the cell's home slot and its slot
+			int home = hash(keys[i]) & mask;
+			if (((i - home) & mask) >= ((i - gap) & mask))
+			{
+
+				keys[gap] = keys[i];
+				cells[gap] = cells[i];
+				gap = i;
+			}
+		}
+
+		keys[gap] = EMPTY;
+		cells[gap] = null;
+		cellCount--;
+
+		// Shrink, so iterating all cells stays cheap
+		if (keys.length > MIN_CAPACITY && cellCount * 8 < keys.length)
+		{
+			rehash(keys.length / 2);
+		}
+	}
+
+	private void rehash(int capacity)
+	{
+
+		long[] oldKeys = keys;
+		Cell[] oldCells = cells;
+
+		keys = new long[capacity];
+		cells = new Cell[capacity];
+		Arrays.fill(keys, EMPTY);
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != EMPTY)
+			{
+
+				int slot = findSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				cells[slot] = oldCells[i];
+			}
+		}
+	}
+
+	private static int hash(long key)
+	{
+
+		key *= 0x9E3779B97F4A7C15L;
+		return (int) (key ^ (key >>> 32));
+	}
+
+	private static class GridEntry extends Entry
+	{
+
+		int minCellX;
+		int minCellY;
+		int maxCellX;
+		int maxCellY;
+	}
+
+	private static class Cell
+	{
+
+		final int cellX;
+		final int cellY;
+
+		Entry[] entries = new Entry[4];
+		int count;
+
+		Cell(int cellX, int cellY)
+		{
+
+			this.cellX = cellX;
+			this.cellY = cellY;
+		}
+
+		void add(Entry entry)
+		{
+
+			if (count == entries.length)
+			{
+
+				Entry[] newEntries = new Entry[count * 2];
+				System.arraycopy(entries, 0, newEntries, 0, count);
+				entries = newEntries;
+			}
+
+			entries[count++] = entry;
+		}
+
+		void remove(Entry entry)
+		{
+
+			for (int i = 0; i < count; i++)
+			{
+
+				if (entries[i] == entry)
+				{
+
+					entries[i] = entries[--count];
+					entries[count] = null;
+					return;
+				}
+			}
+		}
+	}
+}
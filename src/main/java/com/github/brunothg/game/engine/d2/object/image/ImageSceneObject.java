@@ -2,6 +2,7 @@ package com.github.brunothg.game.engine.d2.object.image;
 
 import com.github.brunothg.game.engine.d2.commons.Point;
 import com.github.brunothg.game.engine.d2.commons.RenderingOptions;
+import com.github.brunothg.game.engine.d2.object.CollisionMask;
 import com.github.brunothg.game.engine.d2.object.SceneObject;
 import com.github.brunothg.game.engine.image.ImageUtils;
 
@@ -20,6 +21,7 @@ public class ImageSceneObject extends SceneObject
 {
 
 	private BufferedImage image;
+	private CollisionMask collisionMask;
 
 	/**
 	 * @see #ImageSceneObject(BufferedImage)
@@ -55,6 +57,24 @@ public class ImageSceneObject extends SceneObject
 		g.drawImage(image, 0, 0, getWidth(), getHeight(), 0, 0, width, height, null);
 	}
 
+	/**
+	 * The mask is shared by all objects showing the same image with the same size
+	 */
+	@Override
+	public CollisionMask getCollisionMask()
+	{
+
+		CollisionMask mask = collisionMask;
+		if (mask == null || mask.getWidth() != getWidth() || mask.getHeight() != getHeight())
+		{
+
+			mask = CollisionMask.get(getImage(), getWidth(), getHeight());
+			collisionMask = mask;
+		}
+
+		return mask;
+	}
+
 	@Override
 	public Point getOrigin()
 	{
@@ -76,7 +96,9 @@ public class ImageSceneObject extends SceneObject
 		}
 
 		this.image = image;
+		this.collisionMask = null;
 		setSize(this.image.getWidth(), this.image.getHeight());
+		invalidate();
 	}
 
 }
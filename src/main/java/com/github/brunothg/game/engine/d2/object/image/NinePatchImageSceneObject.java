@@ -7,6 +7,7 @@ import com.github.brunothg.game.engine.image.NinePatchImage;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Insets;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 
 /**
@@ -43,7 +44,21 @@ public class NinePatchImageSceneObject extends SceneObject
 	protected void paint(Graphics2D g, long elapsedTime)
 	{
 
+		// Graphics is shared with the scene -> keep its interpolation
+		Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+		RenderingHints hints = (interpolation == null) ? g.getRenderingHints() : null;
+
 		image.draw(g, getWidth(), getHeight());
+
+		if (hints != null)
+		{
+			// Unset hints can only be restored with all hints
+			g.setRenderingHints(hints);
+		}
+		else
+		{
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+		}
 	}
 
 	/**
@@ -54,6 +69,7 @@ public class NinePatchImageSceneObject extends SceneObject
 	{
 
 		image.setQuality(quality);
+		invalidate();
 	}
 
 	public Insets getInsets()
@@ -2,6 +2,7 @@ package com.github.brunothg.game.engine.d2.object.sprite;
 
 import com.github.brunothg.game.engine.d2.commons.Point;
 import com.github.brunothg.game.engine.d2.commons.Size;
+import com.github.brunothg.game.engine.d2.object.CollisionMask;
 import com.github.brunothg.game.engine.d2.object.SceneObject;
 import com.github.brunothg.game.engine.image.sprite.Sprite;
 
@@ -27,6 +28,10 @@ public class SpriteSceneObject extends SceneObject
 
 	private int animation;
 
+	private CollisionMask collisionMask;
+	private int collisionMaskFrame;
+	private int collisionMaskRow;
+
 	/**
 	 * Create an {@link SpriteSceneObject} from a sprite. Only one row will be used for animation.
 	 * The row used for this animation can be changed.
@@ -101,6 +106,7 @@ public class SpriteSceneObject extends SceneObject
 		}
 
 		animation = row;
+		invalidate();
 
 		if (reset)
 		{
@@ -171,6 +177,7 @@ public class SpriteSceneObject extends SceneObject
 		}
 
 		this.frame = frame;
+		invalidate();
 	}
 
 	/**
@@ -216,6 +223,16 @@ public class SpriteSceneObject extends SceneObject
 		return new Size(sprite.getTileWidth(), sprite.getTileHeight());
 	}
 
+	/**
+	 * A running animation changes with every painting
+	 */
+	@Override
+	public boolean isInvalid()
+	{
+
+		return super.isInvalid() || getTime(getAnimationRow(), frame) > 0;
+	}
+
 	@Override
 	protected void paint(Graphics2D g, long elapsedTime)
 	{
@@ -228,6 +245,41 @@ public class SpriteSceneObject extends SceneObject
 		getSprite().drawTile(g, frame, getAnimationRow(), getWidth(), getHeight());
 	}
 
+	/**
+	 * Keeps the animation running while outside of the visible area
+	 */
+	@Override
+	protected void culled(long elapsedTime)
+	{
+
+		if (getTime(getAnimationRow(), frame) > 0)
+		{
+			recalculateFrame(elapsedTime);
+		}
+	}
+
+	/**
+	 * The masks of the tiles are shared by all objects showing the same sprite with the same size
+	 */
+	@Override
+	public CollisionMask getCollisionMask()
+	{
+
+		CollisionMask mask = collisionMask;
+		int row = getAnimationRow();
+		if (mask == null || collisionMaskFrame != frame || collisionMaskRow != row || mask.getWidth() != getWidth()
+			|| mask.getHeight() != getHeight())
+		{
+
+			mask = CollisionMask.get(getSprite(), frame, row, getWidth(), getHeight());
+			collisionMask = mask;
+			collisionMaskFrame = frame;
+			collisionMaskRow = row;
+		}
+
+		return mask;
+	}
+
 	/**
 	 * 
 	 * Recalculates the current visible frame depending on the elapsed time. Row restarts if it
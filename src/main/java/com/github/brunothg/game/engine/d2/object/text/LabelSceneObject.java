@@ -9,6 +9,7 @@ import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.font.GlyphVector;
 import java.awt.font.LineMetrics;
+import java.awt.geom.AffineTransform;
 
 import com.github.brunothg.game.engine.d2.commons.FontScaleStrategy;
 import com.github.brunothg.game.engine.d2.commons.Orientation.HorizontalOrientation;
@@ -142,8 +143,11 @@ public class LabelSceneObject extends SceneObject {
 		vector = font.layoutGlyphVector(g.getFontRenderContext(), text.toCharArray(), 0, text.length(), flags);
 		outline = vector.getOutline();
 
+		// Graphics is shared with the scene -> undo layout
+		AffineTransform transform = g.getTransform();
 		layout(g, fontMetrics, text);
 		draw(g, outline);
+		g.setTransform(transform);
 	}
 
 	private void draw(Graphics2D g, Shape outline) {
@@ -208,6 +212,7 @@ public class LabelSceneObject extends SceneObject {
 	public void setFont(Font font) {
 
 		this.font = font;
+		invalidate();
 	}
 
 	public VerticalOrientation getVerticalTextOrientation() {
@@ -222,6 +227,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setVerticalTextOrientation(VerticalOrientation verticalTextOrientation) {
 		this.verticalTextOrientation = Null.nvl(verticalTextOrientation, VerticalOrientation.Center);
+		invalidate();
 	}
 
 	public HorizontalOrientation getHorizontalTextOrientation() {
@@ -236,6 +242,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setHorizontalTextOrientation(HorizontalOrientation horizontalTextOrientation) {
 		this.horizontalTextOrientation = Null.nvl(horizontalTextOrientation, HorizontalOrientation.Center);
+		invalidate();
 	}
 
 	/**
@@ -255,6 +262,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setText(String text) {
 		this.text = Null.nvl(text, "");
+		invalidate();
 	}
 
 	public Paint getPaint() {
@@ -270,6 +278,7 @@ public class LabelSceneObject extends SceneObject {
 	public void setPaint(Paint paint) {
 
 		this.paint = paint;
+		invalidate();
 	}
 
 	/**
@@ -294,6 +303,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setOutlinePaint(Paint outlinePaint) {
 		this.outlinePaint = outlinePaint;
+		invalidate();
 	}
 
 	/**
@@ -319,6 +329,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setStroke(Stroke stroke) {
 		this.stroke = stroke;
+		invalidate();
 	}
 
 	public FontScaleStrategy getScaleStrategy() {
@@ -338,6 +349,7 @@ public class LabelSceneObject extends SceneObject {
 		}
 
 		this.scaleStrategy = Null.nvl(scaleStrategy, FontScaleStrategy.FitParent);
+		invalidate();
 	}
 
 	public int getFontFlags() {
@@ -353,6 +365,7 @@ public class LabelSceneObject extends SceneObject {
 	 */
 	public void setFontFlags(int fontFlags) {
 		this.fontFlags = fontFlags;
+		invalidate();
 	}
 
 }
@@ -0,0 +1,27 @@
+package com.github.brunothg.game.engine.d2.scene;
+
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+
+/**
+ * A {@link Scene}, that knows which regions changed since its last painting. Stages drawing dirty
+ * regions only repaint these regions, the painting is clipped to them. Usually the scene passes the
+ * region to {@link SceneObject#addDirtyRegion(DirtyRegion)} of all its objects.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public interface DirtyRegionScene extends Scene
+{
+
+	/**
+	 * Add all regions, that changed since the last call to
+	 * {@link #paintScene(java.awt.Graphics2D, int, int, long)}. Called right before every painting.
+	 * If nothing changed, the painting may be skipped and its time is added to the next painting.
+	 * 
+	 * @param region Region to add the changes to
+	 * @param width Width of painting area
+	 * @param height Height of painting area
+	 */
+	public void collectDirtyRegions(DirtyRegion region, int width, int height);
+}
@@ -0,0 +1,16 @@
+package com.github.brunothg.game.engine.d2.scene;
+
+/**
+ * Marks a {@link Scene}, that can be painted by several threads at the same time. For one frame
+ * {@link #paintScene(java.awt.Graphics2D, int, int, long)} may be called concurrently several
+ * times, every call with the same elapsed time and its own clipped {@link java.awt.Graphics2D}.
+ * So painting must not change any state of the scene, e.g. advance animations or count frames.
+ * Update the state in a {@link com.github.brunothg.game.engine.time.ClockUpdateListener}
+ * instead.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public interface ReentrantScene extends Scene
+{
+}
@@ -0,0 +1,204 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import com.github.brunothg.game.engine.d2.object.CullingStatistics;
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+import com.github.brunothg.game.engine.d2.scene.ReentrantScene;
+import com.github.brunothg.game.engine.image.ImageUtils;
+
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Paints a {@link ReentrantScene} in parallel. The image is split into horizontal bands, every
+ * band is cleared and painted with its own clipped {@link Graphics2D} on a {@link ForkJoinPool}.
+ * So the software rasterization of Java2D is spread over several cores. The calling thread paints
+ * one band itself and waits for all others.<br>
+ * The {@link CullingStatistics} bound to the calling thread are bound to the bands, too. Every band
+ * culls on its own, so an object is counted by every band it is painted or culled by.<br>
+ * Only the calling thread's band tracks the painted bounds of the scene's objects (see
+ * {@link SceneObject#setDirtyRegionTracking(boolean)}).<br>
+ * A rasterizer paints one image at a time, it is not thread safe.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class BandedRasterizer
+{
+
+	private final ForkJoinPool pool;
+	private final BandTask[] bands;
+
+	/**
+	 * Uses one band per core of the {@link ForkJoinPool#commonPool()} and the calling thread
+	 */
+	public BandedRasterizer()
+	{
+		this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism() + 1);
+	}
+
+	/**
+	 *
+	 * @param pool Pool painting the bands
+	 * @param bands Number of bands (positive)
+	 */
+	public BandedRasterizer(ForkJoinPool pool, int bands)
+	{
+
+		if (pool == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (bands <= 0)
+		{
+			throw new IllegalArgumentException("Band count must be positive -> " + bands);
+		}
+
+		this.pool = pool;
+		this.bands = new BandTask[bands];
+		for (int i = 0; i < bands; i++)
+		{
+			this.bands[i] = new BandTask();
+		}
+	}
+
+	/**
+	 * Clear an image and paint a scene into it
+	 *
+	 * @param scene The scene to be painted
+	 * @param image Target image
+	 * @param width Width of painting area
+	 * @param height Height of painting area
+	 * @param elapsedTime Time since the last painting
+	 * @param clip Additional clip or null
+	 */
+	public void paint(ReentrantScene scene, BufferedImage image, int width, int height, long elapsedTime, Shape clip)
+	{
+
+		int bandCount = Math.max(1, Math.min(bands.length, height));
+		int bandHeight = (height + bandCount - 1) / bandCount;
+
+		int last = bandCount - 1;
+		for (int i = 0; i <= last; i++)
+		{
+
+			int y = i * bandHeight;
+			bands[i].prepare(scene, image, width, height, elapsedTime, clip, y, Math.min(bandHeight, height - y));
+
+			if (i < last)
+			{
+				pool.execute(bands[i]);
+			}
+		}
+
+		try
+		{
+			bands[last].paint();
+		}
+		finally
+		{
+			for (int i = 0; i < last; i++)
+			{
+				bands[i].join();
+			}
+		}
+	}
+
+	public int getBandCount()
+	{
+		return bands.length;
+	}
+
+	public ForkJoinPool getPool()
+	{
+		return pool;
+	}
+
+	/**
+	 * Reused for every frame
+	 */
+	private static final class BandTask extends RecursiveAction
+	{
+
+		private static final long serialVersionUID = 1L;
+
+		private ReentrantScene scene;
+		private CullingStatistics statistics;
+		private BufferedImage image;
+		private int width;
+		private int height;
+		private long elapsedTime;
+		private Shape clip;
+		private int bandY;
+		private int bandHeight;
+
+		void prepare(ReentrantScene scene, BufferedImage image, int width, int height, long elapsedTime, Shape clip,
+			int bandY, int bandHeight)
+		{
+
+			this.scene = scene;
+			this.statistics = CullingStatistics.getBound();
+			this.image = image;
+			this.width = width;
+			this.height = height;
+			this.elapsedTime = elapsedTime;
+			this.clip = clip;
+			this.bandY = bandY;
+			this.bandHeight = bandHeight;
+			reinitialize();
+		}
+
+		@Override
+		protected void compute()
+		{
+
+			// Tracked by the calling thread's band
+			boolean tracking = SceneObject.setDirtyRegionTracking(false);
+			try
+			{
+				paint();
+			}
+			finally
+			{
+				SceneObject.setDirtyRegionTracking(tracking);
+			}
+		}
+
+		void paint()
+		{
+
+			if (bandHeight <= 0)
+			{
+				return;
+			}
+
+			CullingStatistics previousStatistics = CullingStatistics.bind(statistics);
+			Graphics2D g = image.createGraphics();
+			try
+			{
+
+				if (clip != null)
+				{
+					g.setClip(clip);
+				}
+				g.clipRect(0, bandY, width, bandHeight);
+
+				ImageUtils.clearImage(g, width, height, ImageUtils.COLOR_TRANSPARENT);
+				scene.paintScene(g, width, height, elapsedTime);
+			}
+			finally
+			{
+				g.dispose();
+				CullingStatistics.bind(previousStatistics);
+
+				// Don't keep the frame alive
+				scene = null;
+				statistics = null;
+				image = null;
+				clip = null;
+			}
+		}
+	}
+}
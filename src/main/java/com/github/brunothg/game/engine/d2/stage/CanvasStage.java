@@ -1,18 +1,27 @@
 package com.github.brunothg.game.engine.d2.stage;
 
+import com.github.brunothg.game.engine.d2.object.CullingStatistics;
 import com.github.brunothg.game.engine.d2.scene.Scene;
-import com.github.brunothg.game.engine.image.NullGraphics;
 
 import java.awt.Canvas;
+import java.awt.EventQueue;
 import java.awt.Graphics2D;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.awt.image.BufferStrategy;
 import java.util.EventListener;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Stage using {@link Canvas} for drawing. If supported draws images using page flipping.<br>
+ * The number of buffers is configurable (2 for double, 3 for triple buffering). Lost buffer
+ * contents are repainted or presented again. The time spent for getting the graphics, painting and
+ * showing is measured in the {@link #getPresentMetrics() present metrics}. While the canvas is not
+ * displayable or {@link #setIdlePolicy(IdlePolicy) idle} nothing is painted, the time is added to
+ * the next painted frame.<br>
+ * A new scene is painted from the next frame on. Setting a scene never waits for a frame, the
+ * scene's EventListeners are rewired by the event dispatch thread.<br>
  * Before using this you should test it. With some JVM implementations this will fail.
  * 
  * @author Marvin Bruns
@@ -23,120 +32,320 @@ public class CanvasStage extends Canvas implements Stage
 
 	private static final long serialVersionUID = 1L;
 
+	public static final int DEFAULT_BUFFER_COUNT = 2;
+
+	/**
+	 * Painted scene, changed by the clock's thread only
+	 */
 	private volatile Scene scene;
-	private Object sceneLock = new Object();
+	/**
+	 * Scene set, but not painted yet
+	 */
+	private final AtomicReference<SceneSwap> sceneSwap = new AtomicReference<SceneSwap>();
+
+	private volatile int bufferCount;
+	private volatile BufferStrategy bufferStrategy;
+
+	private final PresentMetrics presentMetrics = new PresentMetrics();
+	private final CullingStatistics cullingStatistics = new CullingStatistics();
+	private volatile IdlePolicy idlePolicy;
 
-	private BufferStrategy bufferStrategy;
+	/**
+	 * Used if the frame couldn't be painted (e.g. not displayable). Will be added to elapsedTime
+	 * next painted frame.
+	 */
+	private long skippedTime = 0;
 
 	private EventListener[] sceneListener;
 
 	public CanvasStage()
+	{
+
+		this(DEFAULT_BUFFER_COUNT);
+	}
+
+	/**
+	 * 
+	 * @param bufferCount Number of buffers (2 or 3)
+	 */
+	public CanvasStage(int bufferCount)
 	{
 
 		setIgnoreRepaint(true);
+		setBufferCount(bufferCount);
 	}
 
 	@Override
 	public void tick(long frames, long coveredTime)
 	{
 
-		boolean isNullGraphic = false;
-		Graphics2D g2d;
+		Scene scene = swapScene();
+
+		coveredTime += skippedTime;
+		skippedTime = 0;
 
-		if (!isReadyForDrawing())
+		IdlePolicy idlePolicy = getIdlePolicy();
+		if (idlePolicy != null && idlePolicy.update(this))
 		{
 
-			g2d = new NullGraphics();
-			isNullGraphic = true;
+			skippedTime = coveredTime;
+			presentMetrics.recordSkippedFrame();
+			return;
 		}
-		else
+
+		BufferStrategy bufferStrategy = getReadyBufferStrategy();
+		if (bufferStrategy == null || scene == null)
 		{
 
-			g2d = (Graphics2D) bufferStrategy.getDrawGraphics();
+			skippedTime = coveredTime;
+			presentMetrics.recordSkippedFrame();
+			return;
 		}
 
 		int width = getWidth();
 		int height = getHeight();
 
-		synchronized (sceneLock)
+		boolean restored;
+		boolean lost;
+		boolean painting = false;
+		// Repaints show the same frame, its time passes and its objects are counted once
+		boolean painted = false;
+		try
 		{
 
-			Scene scene = getScene();
-
-			if (isNullGraphic)
+			// Repaint until the contents are valid, present until they are not lost
+			do
 			{
-				try
+
+				do
 				{
-					scene.paintScene(g2d, width, height, coveredTime);
+
+					long startTime = System.nanoTime();
+					Graphics2D g2d = (Graphics2D) bufferStrategy.getDrawGraphics();
+					long paintStartTime = System.nanoTime();
+					presentMetrics.recordDrawGraphics(paintStartTime - startTime);
+
+					painting = true;
+					CullingStatistics previousStatistics = CullingStatistics.bind(painted ? null : cullingStatistics);
+					try
+					{
+
+						scene.paintScene(g2d, width, height, painted ? 0 : coveredTime);
+						painted = true;
+						painting = false;
+					}
+					finally
+					{
+
+						CullingStatistics.bind(previousStatistics);
+						g2d.dispose();
+						presentMetrics.recordPaint(System.nanoTime() - paintStartTime);
+					}
+
+					restored = bufferStrategy.contentsRestored();
+					if (restored)
+					{
+						presentMetrics.recordRestoredContents();
+					}
 				}
-				catch (Throwable t)
+				while (restored);
+
+				long showStartTime = System.nanoTime();
+				bufferStrategy.show();
+				presentMetrics.recordShow(System.nanoTime() - showStartTime);
+
+				lost = bufferStrategy.contentsLost();
+				if (lost)
 				{
+					presentMetrics.recordLostContents();
 				}
 			}
-			else
-			{
-				scene.paintScene(g2d, width, height, coveredTime);
-			}
+			while (lost);
+
+			cullingStatistics.nextFrame();
+			presentMetrics.recordPresentedFrame();
 		}
+		catch (IllegalStateException e)
+		{
 
-		g2d.dispose();
+			// Thrown by the scene, not by the buffer strategy
+			if (painting)
+			{
+				throw e;
+			}
 
-		if (!isNullGraphic)
-		{
-			bufferStrategy.show();
+			// Peer removed while painting, the time has passed for a painted scene
+			this.bufferStrategy = null;
+			skippedTime = painted ? 0 : coveredTime;
+			presentMetrics.recordSkippedFrame();
 		}
 	}
 
-	private boolean isReadyForDrawing()
+	/**
+	 * Creates the buffer strategy if necessary
+	 * 
+	 * @return The buffer strategy or null if the canvas is not displayable
+	 */
+	BufferStrategy getReadyBufferStrategy()
 	{
 
-		if (bufferStrategy == null && isDisplayable())
+		if (!isDisplayable())
 		{
 
-			createBufferStrategy(2);
-			bufferStrategy = getBufferStrategy();
+			bufferStrategy = null;
+			return null;
 		}
-		else if (bufferStrategy == null && !isDisplayable())
+
+		BufferStrategy bufferStrategy = this.bufferStrategy;
+		if (bufferStrategy == null)
 		{
 
-			return false;
+			createBufferStrategy(bufferCount);
+			bufferStrategy = getBufferStrategy();
+			this.bufferStrategy = bufferStrategy;
 		}
 
-		return true;
+		return bufferStrategy;
 	}
 
+	@Override
+	public void removeNotify()
+	{
+
+		bufferStrategy = null;
+		super.removeNotify();
+	}
+
+	public int getBufferCount()
+	{
+		return bufferCount;
+	}
+
+	/**
+	 * Set the number of buffers. The buffer strategy is recreated before the next frame.
+	 * 
+	 * @param bufferCount 2 for double buffering, 3 for triple buffering
+	 */
+	public void setBufferCount(int bufferCount)
+	{
+
+		if (bufferCount < 2 || bufferCount > 3)
+		{
+			throw new IllegalArgumentException("Buffer count must be 2 or 3 -> " + bufferCount);
+		}
+
+		this.bufferCount = bufferCount;
+		this.bufferStrategy = null;
+	}
+
+	/**
+	 * Check if the buffers are presented by page flipping
+	 * 
+	 * @return true if flipping, false if copying or not displayable yet
+	 */
+	public boolean isPageFlipping()
+	{
+
+		BufferStrategy bufferStrategy = this.bufferStrategy;
+		return bufferStrategy != null && bufferStrategy.getCapabilities().isPageFlipping();
+	}
+
+	/**
+	 * Get the measured times of painting and presenting frames
+	 */
+	public PresentMetrics getPresentMetrics()
+	{
+		return presentMetrics;
+	}
+
+	/**
+	 * Get the counts of the objects drawn and culled by the last painting of the scene
+	 */
+	public CullingStatistics getCullingStatistics()
+	{
+		return cullingStatistics;
+	}
+
+	public IdlePolicy getIdlePolicy()
+	{
+		return idlePolicy;
+	}
+
+	/**
+	 * Suspend painting while the canvas is idle (e.g. hidden or minimized). The time is added to
+	 * the first frame after resuming.
+	 * 
+	 * @param idlePolicy The policy or null for painting whenever the canvas is displayable
+	 */
+	public void setIdlePolicy(IdlePolicy idlePolicy)
+	{
+		this.idlePolicy = idlePolicy;
+	}
+
+	/**
+	 * Set the scene. Never waits for the painting of a frame. The scene is painted from the next
+	 * frame on. Its EventListeners are registered by the event dispatch thread right away, even if
+	 * the clock isn't running.
+	 */
 	@Override
 	public void setScene(Scene scene)
 	{
 
-		synchronized (sceneLock)
+		sceneSwap.set(new SceneSwap(scene));
+
+		// Rewire listeners off the render path
+		EventQueue.invokeLater(new Runnable()
 		{
 
-			recycleScene();
+			@Override
+			public void run()
+			{
 
-			this.scene = scene;
-			registerEventListeners();
-		}
+				// Latest scene, if set again meanwhile
+				recycleScene();
+				registerEventListeners(getScene());
+			}
+		});
 	}
 
+	/**
+	 * Get the last set scene, even if it was not painted yet
+	 */
 	@Override
 	public Scene getScene()
 	{
 
-		synchronized (sceneLock)
-		{
+		SceneSwap swap = sceneSwap.get();
+		return (swap != null) ? swap.scene : scene;
+	}
+
+	/**
+	 * Change the painted scene at the frame boundary. Called by the clock's thread.
+	 * 
+	 * @return The scene for this frame
+	 */
+	private Scene swapScene()
+	{
 
-			return this.scene;
+		SceneSwap swap = sceneSwap.getAndSet(null);
+		if (swap == null)
+		{
+			return scene;
 		}
+
+		Scene newScene = swap.scene;
+		scene = newScene;
+
+		return newScene;
 	}
 
 	/**
 	 * Register scene's EventListeners
 	 */
-	private void registerEventListeners()
+	private void registerEventListeners(Scene scene)
 	{
 
-		sceneListener = getScene().getEventListeners();
+		sceneListener = (scene != null) ? scene.getEventListeners() : null;
 
 		if (sceneListener == null)
 		{
@@ -207,4 +416,18 @@ public class CanvasStage extends Canvas implements Stage
 			removeMouseMotionListener((MouseMotionListener) evl);
 		}
 	}
+
+	/**
+	 * Scene waiting for the next frame
+	 */
+	private static class SceneSwap
+	{
+
+		private final Scene scene;
+
+		SceneSwap(Scene scene)
+		{
+			this.scene = scene;
+		}
+	}
 }
@@ -0,0 +1,168 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import com.github.brunothg.game.engine.time.Clock;
+
+import java.awt.Component;
+import java.awt.Frame;
+import java.awt.Window;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Decides when a stage is idle and doesn't need to rasterize. A stage is idle, if it is not
+ * showing (e.g. hidden or removed), has no size or its window is minimized. Optionally it is also
+ * idle, if its window is not focused. Idle stages skip painting, the time is added to the first
+ * frame painted after resuming.<br>
+ * With an idle clock the clock's frame rate is lowered while the stage is idle, so logic updates
+ * go on at a reduced rate. With fixed updates per second at most
+ * {@link Clock#getMaxUpdateSteps()} updates run per frame. The frame rate set before is restored
+ * on resume. Don't combine it with a {@link com.github.brunothg.game.engine.time.FrameRateGovernor}.
+ * <br>
+ * A policy is checked by the clock's thread of its stage and belongs to one stage.
+ *
+ * @see SwingStage#setIdlePolicy(IdlePolicy)
+ * @see CanvasStage#setIdlePolicy(IdlePolicy)
+ * @author Marvin Bruns
+ *
+ */
+public class IdlePolicy
+{
+
+	public static final int DEFAULT_IDLE_FPS = 2;
+
+	private volatile boolean suspendWhenUnfocused;
+
+	private volatile Clock idleClock;
+	private volatile int idleFramesPerSecond = DEFAULT_IDLE_FPS;
+	private int activeFramesPerSecond;
+
+	private volatile boolean idle;
+	private volatile long idleFrames;
+
+	/**
+	 * Check the stage's state. Called by the clock's thread every frame.
+	 *
+	 * @param stage The stage component
+	 * @return true if the stage should not paint
+	 */
+	boolean update(Component stage)
+	{
+
+		boolean idle = isIdle(stage);
+
+		if (idle != this.idle)
+		{
+
+			this.idle = idle;
+
+			Clock clock = getIdleClock();
+			if (clock != null && idle)
+			{
+
+				double fps = clock.getFramesPerSecond();
+				activeFramesPerSecond = (fps < 0) ? Clock.FPS_AS_FAST_AS_POSSIBLE : (int) Math.round(fps);
+				clock.setFramesPerSecond(getIdleFramesPerSecond());
+			}
+			else if (clock != null && activeFramesPerSecond != 0)
+			{
+
+				clock.setFramesPerSecond(activeFramesPerSecond);
+				activeFramesPerSecond = 0;
+			}
+		}
+
+		if (idle)
+		{
+			idleFrames++;
+		}
+
+		return idle;
+	}
+
+	private boolean isIdle(Component stage)
+	{
+
+		if (!stage.isShowing() || stage.getWidth() <= 0 || stage.getHeight() <= 0)
+		{
+			return true;
+		}
+
+		Window window = SwingUtilities.getWindowAncestor(stage);
+		if (window == null)
+		{
+			return false;
+		}
+
+		if (window instanceof Frame && (((Frame) window).getExtendedState() & Frame.ICONIFIED) != 0)
+		{
+			return true;
+		}
+
+		return isSuspendWhenUnfocused() && !window.isFocused();
+	}
+
+	/**
+	 * Check if the stage was idle at the last frame
+	 */
+	public boolean isIdle()
+	{
+		return idle;
+	}
+
+	/**
+	 * Get the number of frames not painted, because the stage was idle
+	 */
+	public long getIdleFrames()
+	{
+		return idleFrames;
+	}
+
+	public boolean isSuspendWhenUnfocused()
+	{
+		return suspendWhenUnfocused;
+	}
+
+	/**
+	 * Treat a stage in an unfocused window as idle
+	 */
+	public void setSuspendWhenUnfocused(boolean suspendWhenUnfocused)
+	{
+		this.suspendWhenUnfocused = suspendWhenUnfocused;
+	}
+
+	public Clock getIdleClock()
+	{
+		return idleClock;
+	}
+
+	/**
+	 * Lower the frame rate of a clock while idle
+	 *
+	 * @param idleClock The clock ticking the stage or null for keeping the frame rate
+	 */
+	public void setIdleClock(Clock idleClock)
+	{
+		this.idleClock = idleClock;
+	}
+
+	public int getIdleFramesPerSecond()
+	{
+		return idleFramesPerSecond;
+	}
+
+	/**
+	 * Set the frame rate of the idle clock while idle
+	 *
+	 * @param idleFramesPerSecond Positive frame rate
+	 */
+	public void setIdleFramesPerSecond(int idleFramesPerSecond)
+	{
+
+		if (idleFramesPerSecond <= 0)
+		{
+			throw new IllegalArgumentException("Frame rate must be positive -> " + idleFramesPerSecond);
+		}
+
+		this.idleFramesPerSecond = idleFramesPerSecond;
+	}
+}
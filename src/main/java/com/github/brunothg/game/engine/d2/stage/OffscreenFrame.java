@@ -0,0 +1,81 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A frame rendered by an {@link OffscreenStage}. The image belongs to the stage's pool, so it has
+ * to be {@link #release() released} as soon as it is not needed any more. The image must not be
+ * used after releasing it.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public class OffscreenFrame
+{
+
+	private final OffscreenStage stage;
+	private final BufferedImage image;
+	private final long frameNumber;
+	private final long elapsedTime;
+
+	private final AtomicBoolean released = new AtomicBoolean(false);
+
+	OffscreenFrame(OffscreenStage stage, BufferedImage image, long frameNumber, long elapsedTime)
+	{
+		this.stage = stage;
+		this.image = image;
+		this.frameNumber = frameNumber;
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * Get the rendered image
+	 */
+	public BufferedImage getImage()
+	{
+		return image;
+	}
+
+	/**
+	 * Get the number of this frame. The first frame rendered by a stage is 0.
+	 */
+	public long getFrameNumber()
+	{
+		return frameNumber;
+	}
+
+	/**
+	 * Get the time passed to the scene for this frame
+	 * 
+	 * @return Elapsed time in nanoseconds
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * Give the image back to the stage's pool. Further calls are ignored.
+	 */
+	public void release()
+	{
+
+		if (released.compareAndSet(false, true))
+		{
+			stage.release(image);
+		}
+	}
+
+	public boolean isReleased()
+	{
+		return released.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "OffscreenFrame [frameNumber=" + frameNumber + ", elapsedTime=" + elapsedTime + ", width="
+			+ image.getWidth() + ", height=" + image.getHeight() + "]";
+	}
+}
@@ -0,0 +1,365 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import com.github.brunothg.game.engine.d2.object.CullingStatistics;
+import com.github.brunothg.game.engine.d2.scene.ReentrantScene;
+import com.github.brunothg.game.engine.d2.scene.Scene;
+import com.github.brunothg.game.engine.d2.stage.capture.FrameCapture;
+import com.github.brunothg.game.engine.image.ImageUtils;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stage without any display. Scenes are rendered into a pool of reusable images, so it works with
+ * <code>java.awt.headless=true</code>, e.g. for benchmarks or thumbnails.<br>
+ * Add the stage to a {@link com.github.brunothg.game.engine.time.Clock} and receive the frames
+ * with a {@link FrameConsumer} or call {@link #render(long)} directly. Every frame has to be
+ * released. If all images of the pool are in use, the frame is dropped and its time is added to the
+ * next frame.<br>
+ * Scenes' EventListeners are not supported.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class OffscreenStage implements Stage
+{
+
+	public static final int DEFAULT_POOL_SIZE = 3;
+
+	private volatile Scene scene;
+	private Object sceneLock = new Object();
+
+	private volatile Dimension size;
+	private final int poolSize;
+	private final Queue<BufferedImage> freeImages = new ConcurrentLinkedQueue<BufferedImage>();
+	private final AtomicInteger createdImages = new AtomicInteger();
+
+	private volatile FrameConsumer frameConsumer;
+	private volatile BandedRasterizer bandedRasterizer;
+	private volatile FrameCapture frameCapture;
+
+	private final AtomicLong renderedFrames = new AtomicLong();
+	private final AtomicLong droppedFrames = new AtomicLong();
+	private final CullingStatistics cullingStatistics = new CullingStatistics();
+
+	/**
+	 * Used if a frame was dropped. Will be added to elapsedTime next rendered frame.
+	 */
+	private long skippedTime = 0;
+
+	public OffscreenStage(int width, int height)
+	{
+
+		this(width, height, DEFAULT_POOL_SIZE);
+	}
+
+	/**
+	 *
+	 * @param width Width of the rendered images
+	 * @param height Height of the rendered images
+	 * @param poolSize Maximum number of images in use at the same time
+	 */
+	public OffscreenStage(int width, int height, int poolSize)
+	{
+
+		if (poolSize <= 0)
+		{
+			throw new IllegalArgumentException("Pool size must be positive -> " + poolSize);
+		}
+
+		this.poolSize = poolSize;
+		setSize(width, height);
+	}
+
+	@Override
+	public void setScene(Scene scene)
+	{
+
+		synchronized (sceneLock)
+		{
+			this.scene = scene;
+		}
+	}
+
+	@Override
+	public Scene getScene()
+	{
+
+		synchronized (sceneLock)
+		{
+			return this.scene;
+		}
+	}
+
+	/**
+	 * Renders a frame and hands it to the {@link FrameConsumer}. Without consumer the frame is
+	 * released immediately.
+	 */
+	@Override
+	public void tick(long frames, long coveredTime)
+	{
+
+		OffscreenFrame frame = render(coveredTime);
+		if (frame == null)
+		{
+			return;
+		}
+
+		FrameConsumer frameConsumer = getFrameConsumer();
+		if (frameConsumer == null)
+		{
+			frame.release();
+			return;
+		}
+
+		frameConsumer.frameRendered(frame);
+	}
+
+	/**
+	 * Render the actual scene. The returned frame has to be released.
+	 *
+	 * @param elapsedTime Time since the last rendering
+	 * @return The rendered frame or null if there is no scene or no free image
+	 */
+	public synchronized OffscreenFrame render(long elapsedTime)
+	{
+
+		elapsedTime += skippedTime;
+		skippedTime = 0;
+
+		// Drawing not possible -> no scene to display
+		if (getScene() == null)
+		{
+			return null;
+		}
+
+		Dimension size = this.size;
+		BufferedImage image = acquire(size.width, size.height);
+		if (image == null)
+		{
+
+			droppedFrames.incrementAndGet();
+			skippedTime = elapsedTime;
+			return null;
+		}
+
+		boolean painted = false;
+		CullingStatistics previousStatistics = CullingStatistics.bind(cullingStatistics);
+		try
+		{
+			synchronized (sceneLock)
+			{
+
+				Scene scene = getScene();
+				if (scene == null)
+				{
+					return null;
+				}
+
+				BandedRasterizer bandedRasterizer = getBandedRasterizer();
+				if (bandedRasterizer != null && scene instanceof ReentrantScene)
+				{
+					bandedRasterizer.paint((ReentrantScene) scene, image, size.width, size.height, elapsedTime, null);
+				}
+				else
+				{
+
+					// Clear image and paint scene
+					Graphics2D g = image.createGraphics();
+					try
+					{
+
+						ImageUtils.clearImage(g, size.width, size.height, ImageUtils.COLOR_TRANSPARENT);
+						scene.paintScene(g, size.width, size.height, elapsedTime);
+					}
+					finally
+					{
+						g.dispose();
+					}
+				}
+
+				painted = true;
+			}
+		}
+		finally
+		{
+
+			CullingStatistics.bind(previousStatistics);
+			cullingStatistics.nextFrame();
+
+			// Scene removed or failed -> image back to the pool
+			if (!painted)
+			{
+				release(image);
+			}
+		}
+
+		FrameCapture frameCapture = getFrameCapture();
+		if (frameCapture != null)
+		{
+			frameCapture.capture(image);
+		}
+
+		return new OffscreenFrame(this, image, renderedFrames.getAndIncrement(), elapsedTime);
+	}
+
+	private BufferedImage acquire(int width, int height)
+	{
+
+		BufferedImage image;
+		while ((image = freeImages.poll()) != null)
+		{
+
+			if (image.getWidth() == width && image.getHeight() == height)
+			{
+				return image;
+			}
+
+			// Size changed -> replace
+			createdImages.decrementAndGet();
+		}
+
+		if (createdImages.incrementAndGet() > poolSize)
+		{
+			createdImages.decrementAndGet();
+			return null;
+		}
+
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+
+	void release(BufferedImage image)
+	{
+
+		Dimension size = this.size;
+		if (image.getWidth() != size.width || image.getHeight() != size.height)
+		{
+
+			createdImages.decrementAndGet();
+			return;
+		}
+
+		freeImages.add(image);
+	}
+
+	/**
+	 * Set the size of the rendered images. Images in use keep their size.
+	 */
+	public void setSize(int width, int height)
+	{
+
+		if (width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Size must be positive -> " + width + "x" + height);
+		}
+
+		this.size = new Dimension(width, height);
+	}
+
+	public int getWidth()
+	{
+		return size.width;
+	}
+
+	public int getHeight()
+	{
+		return size.height;
+	}
+
+	public int getPoolSize()
+	{
+		return poolSize;
+	}
+
+	public FrameConsumer getFrameConsumer()
+	{
+		return frameConsumer;
+	}
+
+	/**
+	 * Set the receiver of frames rendered by {@link #tick(long, long)}
+	 *
+	 * @param frameConsumer Receiver or null for releasing the frames immediately
+	 */
+	public void setFrameConsumer(FrameConsumer frameConsumer)
+	{
+		this.frameConsumer = frameConsumer;
+	}
+
+	public BandedRasterizer getBandedRasterizer()
+	{
+		return bandedRasterizer;
+	}
+
+	/**
+	 * Paint {@link ReentrantScene}s in parallel bands
+	 *
+	 * @param bandedRasterizer The rasterizer or null for painting on the rendering thread only
+	 */
+	public void setBandedRasterizer(BandedRasterizer bandedRasterizer)
+	{
+		this.bandedRasterizer = bandedRasterizer;
+	}
+
+	public FrameCapture getFrameCapture()
+	{
+		return frameCapture;
+	}
+
+	/**
+	 * Capture every rendered frame
+	 *
+	 * @param frameCapture The capture or null for stopping
+	 */
+	public void setFrameCapture(FrameCapture frameCapture)
+	{
+		this.frameCapture = frameCapture;
+	}
+
+	/**
+	 * Get the number of rendered frames
+	 */
+	public long getRenderedFrames()
+	{
+		return renderedFrames.get();
+	}
+
+	/**
+	 * Get the number of frames dropped, because no image of the pool was free
+	 */
+	public long getDroppedFrames()
+	{
+		return droppedFrames.get();
+	}
+
+	/**
+	 * Get the counts of the objects drawn and culled by the last rendering
+	 */
+	public CullingStatistics getCullingStatistics()
+	{
+		return cullingStatistics;
+	}
+
+	/**
+	 * Receives the frames of an {@link OffscreenStage}
+	 *
+	 * @author Marvin Bruns
+	 *
+	 */
+	public interface FrameConsumer
+	{
+
+		/**
+		 * Called by the rendering thread for every frame. The frame has to be released, may be
+		 * later by another thread.
+		 *
+		 * @param frame The rendered frame
+		 */
+		public void frameRendered(OffscreenFrame frame);
+	}
+}
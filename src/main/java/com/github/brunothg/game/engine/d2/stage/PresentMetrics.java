@@ -0,0 +1,146 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import com.github.brunothg.game.engine.time.TimeHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Instrumentation of a {@link CanvasStage}. Measures the time spent for getting the drawing
+ * graphics, painting the scene and presenting the frame. If painting dominates the stage is
+ * rasterization bound, if showing dominates it is present bound. Recording does not lock or
+ * allocate. All times are in nanoseconds.
+ *
+ * @see CanvasStage#getPresentMetrics()
+ * @author Marvin Bruns
+ *
+ */
+public class PresentMetrics
+{
+
+	private final TimeHistogram drawGraphicsTimes = new TimeHistogram();
+	private final TimeHistogram paintTimes = new TimeHistogram();
+	private final TimeHistogram showTimes = new TimeHistogram();
+
+	private final AtomicLong presentedFrames = new AtomicLong();
+	private final AtomicLong skippedFrames = new AtomicLong();
+	private final AtomicLong lostContents = new AtomicLong();
+	private final AtomicLong restoredContents = new AtomicLong();
+
+	void recordDrawGraphics(long time)
+	{
+		drawGraphicsTimes.record(time);
+	}
+
+	void recordPaint(long time)
+	{
+		paintTimes.record(time);
+	}
+
+	void recordShow(long time)
+	{
+		showTimes.record(time);
+	}
+
+	void recordPresentedFrame()
+	{
+		presentedFrames.incrementAndGet();
+	}
+
+	void recordSkippedFrame()
+	{
+		skippedFrames.incrementAndGet();
+	}
+
+	void recordLostContents()
+	{
+		lostContents.incrementAndGet();
+	}
+
+	void recordRestoredContents()
+	{
+		restoredContents.incrementAndGet();
+	}
+
+	/**
+	 * Get the live histogram of times spent in
+	 * {@link java.awt.image.BufferStrategy#getDrawGraphics()}
+	 */
+	public TimeHistogram getDrawGraphicsTimeHistogram()
+	{
+		return drawGraphicsTimes;
+	}
+
+	/**
+	 * Get the live histogram of times spent painting the scene
+	 */
+	public TimeHistogram getPaintTimeHistogram()
+	{
+		return paintTimes;
+	}
+
+	/**
+	 * Get the live histogram of times spent in {@link java.awt.image.BufferStrategy#show()}
+	 */
+	public TimeHistogram getShowTimeHistogram()
+	{
+		return showTimes;
+	}
+
+	/**
+	 * Get the number of shown frames
+	 */
+	public long getPresentedFrames()
+	{
+		return presentedFrames.get();
+	}
+
+	/**
+	 * Get the number of frames not painted, because the stage was not displayable or had no scene
+	 */
+	public long getSkippedFrames()
+	{
+		return skippedFrames.get();
+	}
+
+	/**
+	 * Get the number of frames, that had to be presented again, because the buffer's contents got
+	 * lost
+	 */
+	public long getLostContents()
+	{
+		return lostContents.get();
+	}
+
+	/**
+	 * Get the number of frames, that had to be painted again, because the buffer's contents got
+	 * restored while painting
+	 */
+	public long getRestoredContents()
+	{
+		return restoredContents.get();
+	}
+
+	/**
+	 * Reset all measured values
+	 */
+	public void reset()
+	{
+
+		drawGraphicsTimes.reset();
+		paintTimes.reset();
+		showTimes.reset();
+		presentedFrames.set(0);
+		skippedFrames.set(0);
+		lostContents.set(0);
+		restoredContents.set(0);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PresentMetrics [presented=" + getPresentedFrames() + ", skipped=" + getSkippedFrames() + ", lost="
+			+ getLostContents() + ", restored=" + getRestoredContents() + ", drawGraphicsMean="
+			+ drawGraphicsTimes.getMean() + ", paintMean=" + paintTimes.getMean() + ", showMean="
+			+ showTimes.getMean() + "]";
+	}
+}
@@ -0,0 +1,226 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import java.awt.RenderingHints;
+
+/**
+ * Chooses the internal resolution of a stage from the measured painting times. If painting takes
+ * longer than the budget, the scene is rendered into a smaller image, that is scaled up to the
+ * stage's size when presented. If there is time left, the resolution is raised again up to the
+ * full size. The painting time grows with the number of pixels, so the scale is adapted with the
+ * square root of the time ratio. Scales are rounded to steps of {@value #SCALE_STEP}, so the
+ * off screen images are not recreated every frame.<br>
+ * Scenes are painted with a scaled {@link java.awt.Graphics2D} and the stage's size, so they don't
+ * have to know about the scaling.
+ *
+ * @see SwingStage#setResolutionScaler(ResolutionScaler)
+ * @author Marvin Bruns
+ *
+ */
+public class ResolutionScaler
+{
+
+	public static final double DEFAULT_MIN_SCALE = 0.5;
+	public static final int DEFAULT_WINDOW = 15;
+	public static final double SCALE_STEP = 0.0625;
+
+	/**
+	 * Mean painting times above this fraction of the budget lower the resolution
+	 */
+	private static final double HIGH_WATERMARK = 0.9;
+	/**
+	 * Mean painting times below this fraction of the budget raise the resolution
+	 */
+	private static final double LOW_WATERMARK = 0.6;
+	/**
+	 * Fraction of the budget aimed at after changing the scale
+	 */
+	private static final double TARGET = 0.75;
+
+	private final long paintBudget;
+	private volatile double minScale = DEFAULT_MIN_SCALE;
+	private volatile Filter filter = Filter.BILINEAR;
+	private volatile int window = DEFAULT_WINDOW;
+
+	private volatile double scale = 1;
+	private long timeSum;
+	private int measuredFrames;
+
+	/**
+	 *
+	 * @param paintBudget Time in nanoseconds, that painting one frame should take at most
+	 */
+	public ResolutionScaler(long paintBudget)
+	{
+
+		if (paintBudget <= 0)
+		{
+			throw new IllegalArgumentException("Budget must be positive -> " + paintBudget);
+		}
+
+		this.paintBudget = paintBudget;
+	}
+
+	/**
+	 * Record the time spent painting a frame. Called by the rendering thread.
+	 *
+	 * @param paintTime Time in nanoseconds
+	 */
+	synchronized void record(long paintTime)
+	{
+
+		timeSum += paintTime;
+		measuredFrames++;
+
+		if (measuredFrames < window)
+		{
+			return;
+		}
+
+		double mean = (double) timeSum / measuredFrames;
+		timeSum = 0;
+		measuredFrames = 0;
+
+		if (mean <= 0 || (mean <= paintBudget * HIGH_WATERMARK && mean >= paintBudget * LOW_WATERMARK))
+		{
+			return;
+		}
+
+		double newScale = scale * Math.sqrt(paintBudget * TARGET / mean);
+		newScale = Math.round(newScale / SCALE_STEP) * SCALE_STEP;
+		scale = Math.max(minScale, Math.min(1, newScale));
+	}
+
+	/**
+	 * Scale a size of the stage to the internal resolution
+	 *
+	 * @param size Width or height of the stage
+	 * @return Width or height of the off screen (at least 1)
+	 */
+	public int scale(int size)
+	{
+		return Math.max(1, (int) Math.ceil(size * scale));
+	}
+
+	/**
+	 * Get the actual scale
+	 *
+	 * @return Scale in the range [min scale, 1]
+	 */
+	public double getScale()
+	{
+		return scale;
+	}
+
+	/**
+	 * Go back to full resolution and forget all measured times
+	 */
+	public synchronized void reset()
+	{
+
+		scale = 1;
+		timeSum = 0;
+		measuredFrames = 0;
+	}
+
+	public long getPaintBudget()
+	{
+		return paintBudget;
+	}
+
+	public double getMinScale()
+	{
+		return minScale;
+	}
+
+	/**
+	 * Set the lowest resolution
+	 *
+	 * @param minScale Scale in the range (0, 1]
+	 */
+	public void setMinScale(double minScale)
+	{
+
+		if (!(minScale > 0 && minScale <= 1))
+		{
+			throw new IllegalArgumentException("Scale must be in (0, 1] -> " + minScale);
+		}
+
+		this.minScale = minScale;
+		this.scale = Math.max(minScale, scale);
+	}
+
+	public int getWindow()
+	{
+		return window;
+	}
+
+	/**
+	 * Set the number of frames, whose mean painting time decides about the scale
+	 *
+	 * @param window Number of frames (positive)
+	 */
+	public void setWindow(int window)
+	{
+
+		if (window <= 0)
+		{
+			throw new IllegalArgumentException("Window must be positive -> " + window);
+		}
+
+		this.window = window;
+	}
+
+	public Filter getFilter()
+	{
+		return filter;
+	}
+
+	/**
+	 * Set the filter used for scaling the off screen up to the stage's size
+	 */
+	public void setFilter(Filter filter)
+	{
+
+		if (filter == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.filter = filter;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ResolutionScaler [scale=" + scale + ", minScale=" + minScale + ", paintBudget=" + paintBudget
+			+ ", filter=" + filter + "]";
+	}
+
+	/**
+	 * Filters for scaling up, ordered from fastest to best quality
+	 *
+	 * @author Marvin Bruns
+	 *
+	 */
+	public enum Filter
+	{
+		NEAREST_NEIGHBOR(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR),
+		BILINEAR(RenderingHints.VALUE_INTERPOLATION_BILINEAR),
+		BICUBIC(RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+
+		private final Object interpolation;
+
+		private Filter(Object interpolation)
+		{
+			this.interpolation = interpolation;
+		}
+
+		/**
+		 * Get the value for {@link RenderingHints#KEY_INTERPOLATION}
+		 */
+		public Object getInterpolation()
+		{
+			return interpolation;
+		}
+	}
+}
@@ -1,23 +1,49 @@
 package com.github.brunothg.game.engine.d2.stage;
 
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
+import com.github.brunothg.game.engine.d2.object.CullingStatistics;
+import com.github.brunothg.game.engine.d2.scene.DirtyRegionScene;
+import com.github.brunothg.game.engine.d2.scene.ReentrantScene;
 import com.github.brunothg.game.engine.d2.scene.Scene;
+import com.github.brunothg.game.engine.d2.stage.capture.FrameCapture;
+import com.github.brunothg.game.engine.image.CommandBuffer;
 import com.github.brunothg.game.engine.image.ImageUtils;
+import com.github.brunothg.game.engine.image.RecordingGraphics;
 
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
 import java.awt.Toolkit;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.util.EventListener;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 
 /**
  * Buffered swing component. Draws scenes and is the base component for all further drawings.<br>
+ * The stage is triple buffered: The clock's thread renders the next frame while the EDT presents
+ * the last one. Finished frames are exchanged without locking, so neither thread waits for the
+ * other. If the EDT is slower than the clock, frames are dropped instead of queued.<br>
+ * In {@link #setDirtyRegionMode(boolean) dirty region mode} a {@link DirtyRegionScene} is only
+ * redrawn and presented where it changed.<br>
+ * In {@link #setPipelined(boolean) pipelined mode} the clock's thread only records the drawing
+ * commands, a render thread rasterizes them. So the next frame's logic runs while the last frame
+ * is rasterized.<br>
+ * With an {@link #setIdlePolicy(IdlePolicy) idle policy} nothing is painted while the stage is
+ * hidden or minimized.<br>
+ * With a {@link #setResolutionScaler(ResolutionScaler) resolution scaler} the scene is rendered
+ * in a lower resolution, if painting takes too long.<br>
+ * A new scene is painted from the next frame on. Setting a scene never waits for a frame, the
+ * scene's EventListeners are rewired by the EDT.<br>
  * Supported EventListeners:<br>
  * <ul>
  * <li>{@link KeyListener}</li>
@@ -32,13 +58,58 @@ public class SwingStage extends JPanel implements Stage
 
 	private static final long serialVersionUID = 1L;
 
-	private Scene scene;
-	private Object sceneLock = new Object();
+	/**
+	 * Number of frames, whose dirty regions are remembered
+	 */
+	private static final int DIRTY_REGION_HISTORY = 4;
+
+	/**
+	 * Painted scene, changed by the clock's thread only
+	 */
+	private volatile Scene scene;
+	/**
+	 * Scene set, but not painted yet
+	 */
+	private final AtomicReference<SceneSwap> sceneSwap = new AtomicReference<SceneSwap>();
 
 	private EventListener[] sceneListener;
 
-	private BufferedImage offScreen;
-	private Object offScreenLock = new Object();
+	/**
+	 * Rendered by the clock's thread
+	 */
+	private FrameBuffer backBuffer = new FrameBuffer();
+	/**
+	 * Last finished frame, exchanged with the back and front buffer
+	 */
+	private final AtomicReference<FrameBuffer> readyBuffer = new AtomicReference<FrameBuffer>(new FrameBuffer());
+	/**
+	 * Presented by the EDT
+	 */
+	private FrameBuffer frontBuffer = new FrameBuffer();
+
+	private final AtomicBoolean repaintPending = new AtomicBoolean(false);
+	private final Runnable repaintTask = new Runnable()
+	{
+
+		@Override
+		public void run()
+		{
+
+			repaintPending.set(false);
+			repaint();
+		}
+	};
+
+	private volatile BandedRasterizer bandedRasterizer;
+	private volatile boolean dirtyRegionMode;
+	private volatile boolean sceneChanged = true;
+	private final DirtyRegion[] dirtyRegions = new DirtyRegion[DIRTY_REGION_HISTORY];
+	private final DirtyRegion repairRegion = new DirtyRegion();
+	private final Path2D.Float clip = new Path2D.Float();
+	/**
+	 * Number of the last rendered frame
+	 */
+	private long frameNumber = -1;
 
 	/**
 	 * Used if the off screen could'n be drawn (e.g. size is zero). Will be added to elapsedTime
@@ -46,6 +117,33 @@ public class SwingStage extends JPanel implements Stage
 	 */
 	private long skippedTime = 0;
 
+	/**
+	 * Guards the back buffer, used by the clock's thread or the render thread
+	 */
+	private final Object renderLock = new Object();
+
+	private final Object pipelineLock = new Object();
+	/**
+	 * Running in pipelined mode only
+	 */
+	private Thread renderThread;
+	private final CommandBuffer[] freeCommandBuffers = { new CommandBuffer(), new CommandBuffer() };
+	private int freeCommandBufferCount = freeCommandBuffers.length;
+	/**
+	 * Recorded, but not rasterized yet
+	 */
+	private CommandBuffer pendingCommandBuffer;
+	private int pendingWidth;
+	private int pendingHeight;
+	private final CommandBufferScene commandBufferScene = new CommandBufferScene();
+
+	private final CullingStatistics cullingStatistics = new CullingStatistics();
+
+	private volatile ResolutionScaler resolutionScaler;
+	private volatile FrameCapture frameCapture;
+	private volatile IdlePolicy idlePolicy;
+	private final ScaledScene scaledScene = new ScaledScene();
+
 	public SwingStage()
 	{
 
@@ -55,59 +153,296 @@ public class SwingStage extends JPanel implements Stage
 		setRequestFocusEnabled(true);
 		setIgnoreRepaint(false);
 		setDoubleBuffered(false);
+
+		for (int i = 0; i < dirtyRegions.length; i++)
+		{
+			dirtyRegions[i] = new DirtyRegion();
+		}
 	}
 
+	/**
+	 * Set the scene. Never waits for the painting of a frame. The scene is painted from the next
+	 * frame on. Its EventListeners are registered by the event dispatch thread right away, even if
+	 * the clock isn't running.
+	 */
 	@Override
 	public void setScene(Scene scene)
 	{
 
-		synchronized (sceneLock)
+		sceneSwap.set(new SceneSwap(scene));
+
+		// Rewire listeners off the render path
+		SwingUtilities.invokeLater(new Runnable()
 		{
-			recycleScene();
 
-			this.scene = scene;
-			registerEventListeners();
-		}
+			@Override
+			public void run()
+			{
+
+				// Latest scene, if set again meanwhile
+				recycleScene();
+				registerEventListeners(getScene());
+			}
+		});
 	}
 
+	/**
+	 * Get the last set scene, even if it was not painted yet
+	 */
 	@Override
 	public Scene getScene()
 	{
 
-		synchronized (sceneLock)
+		SceneSwap swap = sceneSwap.get();
+		return (swap != null) ? swap.scene : scene;
+	}
+
+	/**
+	 * Change the painted scene at the frame boundary. Called by the clock's thread.
+	 * 
+	 * @return The scene for this frame
+	 */
+	private Scene swapScene()
+	{
+
+		SceneSwap swap = sceneSwap.getAndSet(null);
+		if (swap == null)
 		{
-			return this.scene;
+			return scene;
 		}
+
+		Scene newScene = swap.scene;
+		scene = newScene;
+		sceneChanged = true;
+
+		return newScene;
 	}
 
 	@Override
 	public void tick(long frames, long coveredTime)
 	{
 
-		drawOffScreen(coveredTime);
-		threadsafeRepaint();
+		Scene scene = swapScene();
+
+		IdlePolicy idlePolicy = getIdlePolicy();
+		if (idlePolicy != null && idlePolicy.update(this))
+		{
+
+			// Nothing to see -> paint everything on resume
+			skippedTime += coveredTime;
+			sceneChanged = true;
+			return;
+		}
+
+		boolean repaint = false;
+		CullingStatistics previousStatistics = CullingStatistics.bind(cullingStatistics);
+		try
+		{
+
+			if (isPipelined())
+			{
+				recordOffScreen(scene, coveredTime);
+			}
+			else
+			{
+				synchronized (renderLock)
+				{
+					repaint = drawOffScreen(scene, coveredTime);
+				}
+			}
+		}
+		finally
+		{
+
+			CullingStatistics.bind(previousStatistics);
+			cullingStatistics.nextFrame();
+		}
+
+		if (repaint)
+		{
+			threadsafeRepaint();
+		}
 	}
 
-	private void threadsafeRepaint()
+	/**
+	 * Get the counts of the objects drawn and culled by this stage. The counts are latched after
+	 * every tick, a tick without painting counts nothing.
+	 * 
+	 * @return The statistics of the last tick
+	 */
+	public CullingStatistics getCullingStatistics()
 	{
-		SwingUtilities.invokeLater(new Runnable()
+		return cullingStatistics;
+	}
+
+	public BandedRasterizer getBandedRasterizer()
+	{
+		return bandedRasterizer;
+	}
+
+	/**
+	 * Paint {@link ReentrantScene}s in parallel bands. Other scenes are painted by the clock's thread
+	 * only.
+	 * 
+	 * @param bandedRasterizer The rasterizer or null for painting on the clock's thread
+	 */
+	public void setBandedRasterizer(BandedRasterizer bandedRasterizer)
+	{
+		this.bandedRasterizer = bandedRasterizer;
+	}
+
+	/**
+	 * Check if only changed regions are redrawn
+	 * 
+	 * @see #setDirtyRegionMode(boolean)
+	 */
+	public boolean isDirtyRegionMode()
+	{
+		return dirtyRegionMode;
+	}
+
+	/**
+	 * Redraw only the regions reported by a {@link DirtyRegionScene}. Only these regions are
+	 * cleared, painted and presented. If nothing changed, the scene is not painted at all. Other
+	 * scenes are always redrawn completely.
+	 * 
+	 * @param dirtyRegionMode true for redrawing dirty regions only
+	 */
+	public void setDirtyRegionMode(boolean dirtyRegionMode)
+	{
+		this.dirtyRegionMode = dirtyRegionMode;
+	}
+
+	public ResolutionScaler getResolutionScaler()
+	{
+		return resolutionScaler;
+	}
+
+	/**
+	 * Render the scene in a lower resolution, if painting is too slow. The off screen is scaled up
+	 * to the stage's size when presented. Scaled frames are always redrawn completely.
+	 * 
+	 * @param resolutionScaler The scaler or null for always rendering in full resolution
+	 */
+	public void setResolutionScaler(ResolutionScaler resolutionScaler)
+	{
+		this.resolutionScaler = resolutionScaler;
+	}
+
+	public IdlePolicy getIdlePolicy()
+	{
+		return idlePolicy;
+	}
+
+	/**
+	 * Suspend painting while the stage is idle (e.g. hidden or minimized). The time is added to
+	 * the first frame after resuming, which is redrawn completely.
+	 * 
+	 * @param idlePolicy The policy or null for always painting
+	 */
+	public void setIdlePolicy(IdlePolicy idlePolicy)
+	{
+		this.idlePolicy = idlePolicy;
+	}
+
+	public FrameCapture getFrameCapture()
+	{
+		return frameCapture;
+	}
+
+	/**
+	 * Capture every rendered frame. Frames are captured in the internal resolution (see
+	 * {@link #setResolutionScaler(ResolutionScaler)}).
+	 * 
+	 * @param frameCapture The capture or null for stopping
+	 */
+	public void setFrameCapture(FrameCapture frameCapture)
+	{
+		this.frameCapture = frameCapture;
+	}
+
+	/**
+	 * Check if drawing commands are rasterized by a render thread
+	 * 
+	 * @see #setPipelined(boolean)
+	 */
+	public boolean isPipelined()
+	{
+
+		synchronized (pipelineLock)
 		{
+			return renderThread != null;
+		}
+	}
 
-			@Override
-			public void run()
+	/**
+	 * Record the scene's drawing commands on the clock's thread and rasterize them on a render
+	 * thread. The clock works at most one frame ahead of the render thread. The scene is always
+	 * redrawn completely, the dirty region mode is ignored. Images painted by the scene must not
+	 * change after painting (see {@link RecordingGraphics}). A {@link BandedRasterizer} is used
+	 * for every scene.
+	 * 
+	 * @param pipelined true for starting, false for stopping the render thread
+	 */
+	public void setPipelined(boolean pipelined)
+	{
+
+		synchronized (pipelineLock)
+		{
+
+			if (pipelined == (renderThread != null))
 			{
-				repaint();
+				return;
 			}
-		});
+
+			// Dirty regions were not collected in the meantime
+			sceneChanged = true;
+
+			if (pipelined)
+			{
+
+				renderThread = new Thread(new Runnable()
+				{
+
+					@Override
+					public void run()
+					{
+						renderCommands();
+					}
+				}, "SwingStage-Render");
+				renderThread.setDaemon(true);
+				renderThread.start();
+			}
+			else
+			{
+
+				renderThread.interrupt();
+				renderThread = null;
+				pipelineLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Requests a repaint from the EDT. Requests are coalesced, so there's never more than one
+	 * pending.
+	 */
+	private void threadsafeRepaint()
+	{
+
+		if (repaintPending.compareAndSet(false, true))
+		{
+			SwingUtilities.invokeLater(repaintTask);
+		}
 	}
 
 	/**
 	 * Register scene's EventListeners
 	 */
-	private void registerEventListeners()
+	private void registerEventListeners(Scene scene)
 	{
 
-		sceneListener = getScene().getEventListeners();
+		sceneListener = (scene != null) ? scene.getEventListeners() : null;
 
 		if (sceneListener == null)
 		{
@@ -190,31 +525,46 @@ public class SwingStage extends JPanel implements Stage
 		g2.fillRect(0, 0, getWidth(), getHeight());
 
 		// Draw off screen
-		if (getScene() == null || offScreen == null)
+		if (getScene() == null)
 		{
 			return;
 		}
-		synchronized (offScreenLock)
+
+		// Take the newest frame if there is one. A resized stage scales the last frame until the
+		// next one is rendered.
+		if (readyBuffer.get().fresh)
 		{
 
-			// Recreate if check dimensions
-			if (recreateOffScreen(getWidth(), getHeight()))
-			{
-				drawOffScreen(0);
-			}
+			frontBuffer.fresh = false;
+			frontBuffer = readyBuffer.getAndSet(frontBuffer);
+		}
 
-			g.drawImage(offScreen, 0, 0, getWidth(), getHeight(), 0, 0, offScreen.getWidth(), offScreen.getHeight(),
-				null);
+		BufferedImage offScreen = frontBuffer.image;
+		if (offScreen == null)
+		{
+			return;
 		}
 
+		// Lower internal resolution
+		ResolutionScaler resolutionScaler = getResolutionScaler();
+		if (resolutionScaler != null && (offScreen.getWidth() != getWidth() || offScreen.getHeight() != getHeight()))
+		{
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, resolutionScaler.getFilter().getInterpolation());
+		}
+
+		g.drawImage(offScreen, 0, 0, getWidth(), getHeight(), 0, 0, offScreen.getWidth(), offScreen.getHeight(),
+			null);
+
 		Toolkit.getDefaultToolkit().sync();
 	}
 
 	/**
 	 * 
+	 * @param scene The scene to be drawn
 	 * @param elapedTime Elapsed time since last drawing.
+	 * @return true if the whole stage has to be repainted
 	 */
-	private void drawOffScreen(long elapedTime)
+	private boolean drawOffScreen(Scene scene, long elapedTime)
 	{
 
 		// Get size
@@ -225,6 +575,97 @@ public class SwingStage extends JPanel implements Stage
 		{
 
 			skippedTime += elapedTime;
+			return true;
+		}
+
+		elapedTime += skippedTime;
+		skippedTime = 0;
+
+		// Drawing not possible -> no scene to display
+		if (scene == null)
+		{
+			return true;
+		}
+
+		// Internal resolution
+		ResolutionScaler resolutionScaler = getResolutionScaler();
+		int imageWidth = (resolutionScaler != null) ? resolutionScaler.scale(width) : width;
+		int imageHeight = (resolutionScaler != null) ? resolutionScaler.scale(height) : height;
+		boolean scaled = imageWidth != width || imageHeight != height;
+
+		// Create if null or check dimensions
+		if (recreateOffScreen(backBuffer.image, imageWidth, imageHeight))
+		{
+
+			backBuffer.image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+			backBuffer.frameNumber = -1;
+		}
+
+		DirtyRegion dirtyRegion = dirtyRegions[(int) ((frameNumber + 1) % DIRTY_REGION_HISTORY)];
+		dirtyRegion.clear();
+		dirtyRegion.setBounds(width, height);
+
+		if (sceneChanged || scaled || !isDirtyRegionMode() || !(scene instanceof DirtyRegionScene))
+		{
+			dirtyRegion.addAll();
+		}
+		sceneChanged = false;
+
+		if (scene instanceof DirtyRegionScene)
+		{
+			((DirtyRegionScene) scene).collectDirtyRegions(dirtyRegion, width, height);
+		}
+
+		// Nothing changed
+		if (dirtyRegion.isEmpty())
+		{
+
+			skippedTime = elapedTime;
+			return false;
+		}
+
+		frameNumber++;
+
+		// The back buffer may hold an older frame
+		DirtyRegion repairRegion = getRepairRegion(backBuffer.frameNumber, width, height);
+		Shape paintClip = repairRegion.isFull() ? null : toClip(repairRegion);
+
+		paintOffScreen(scene, scene instanceof ReentrantScene, width, height, elapedTime, paintClip);
+
+		backBuffer.frameNumber = frameNumber;
+		publishBackBuffer();
+
+		if (dirtyRegion.isFull())
+		{
+			return true;
+		}
+
+		// Coalesced by the RepaintManager
+		for (int i = 0; i < dirtyRegion.getRectangleCount(); i++)
+		{
+			repaint(dirtyRegion.getX(i), dirtyRegion.getY(i), dirtyRegion.getWidth(i), dirtyRegion.getHeight(i));
+		}
+
+		return false;
+	}
+
+	/**
+	 * Pipelined mode: record the scene into a free command buffer and hand it to the render thread
+	 * 
+	 * @param scene The scene to be drawn
+	 * @param elapedTime Elapsed time since last drawing.
+	 */
+	private void recordOffScreen(Scene scene, long elapedTime)
+	{
+
+		int width = getWidth();
+		int height = getHeight();
+
+		if (width <= 0 || height <= 0)
+		{
+
+			skippedTime += elapedTime;
+			threadsafeRepaint();
 			return;
 		}
 
@@ -232,44 +673,435 @@ public class SwingStage extends JPanel implements Stage
 		skippedTime = 0;
 
 		// Drawing not possible -> no scene to display
-		if (getScene() == null)
+		if (scene == null)
+		{
+
+			threadsafeRepaint();
+			return;
+		}
+
+		CommandBuffer commandBuffer = acquireCommandBuffer();
+		if (commandBuffer == null)
 		{
+
+			skippedTime = elapedTime;
 			return;
 		}
 
-		synchronized (offScreenLock)
+		boolean submitted = false;
+		RecordingGraphics recorder = commandBuffer.record();
+		try
+		{
+
+			scene.paintScene(recorder, width, height, elapedTime);
+			recorder.dispose();
+			submitted = submitCommandBuffer(commandBuffer, width, height);
+		}
+		finally
+		{
+
+			if (!submitted)
+			{
+
+				recycleCommandBuffer(commandBuffer);
+				skippedTime = elapedTime;
+			}
+		}
+	}
+
+	/**
+	 * Waits until a command buffer is free
+	 * 
+	 * @return A reset buffer or null if the pipelined mode was stopped
+	 */
+	private CommandBuffer acquireCommandBuffer()
+	{
+
+		synchronized (pipelineLock)
+		{
+
+			while (renderThread != null && freeCommandBufferCount == 0)
+			{
+
+				try
+				{
+					pipelineLock.wait();
+				}
+				catch (InterruptedException e)
+				{
+
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+
+			if (renderThread == null)
+			{
+				return null;
+			}
+
+			return freeCommandBuffers[--freeCommandBufferCount];
+		}
+	}
+
+	private boolean submitCommandBuffer(CommandBuffer commandBuffer, int width, int height)
+	{
+
+		synchronized (pipelineLock)
+		{
+
+			if (renderThread == null)
+			{
+				return false;
+			}
+
+			// Render thread is behind -> drop the older frame
+			if (pendingCommandBuffer != null)
+			{
+				recycleCommandBuffer(pendingCommandBuffer);
+			}
+
+			pendingCommandBuffer = commandBuffer;
+			pendingWidth = width;
+			pendingHeight = height;
+			pipelineLock.notifyAll();
+			return true;
+		}
+	}
+
+	private void recycleCommandBuffer(CommandBuffer commandBuffer)
+	{
+
+		synchronized (pipelineLock)
+		{
+
+			commandBuffer.reset();
+			freeCommandBuffers[freeCommandBufferCount++] = commandBuffer;
+			pipelineLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Loop of the render thread
+	 */
+	private void renderCommands()
+	{
+
+		Thread thread = Thread.currentThread();
+
+		while (true)
 		{
 
-			// Create if null or check dimensions
-			if (recreateOffScreen(width, height))
+			CommandBuffer commandBuffer;
+			int width;
+			int height;
+
+			synchronized (pipelineLock)
+			{
+
+				while (renderThread == thread && pendingCommandBuffer == null)
+				{
+
+					try
+					{
+						pipelineLock.wait();
+					}
+					catch (InterruptedException e)
+					{
+						// Stopped -> checked by the loop
+					}
+				}
+
+				commandBuffer = pendingCommandBuffer;
+				pendingCommandBuffer = null;
+				width = pendingWidth;
+				height = pendingHeight;
+
+				if (renderThread != thread)
+				{
+
+					if (commandBuffer != null)
+					{
+						recycleCommandBuffer(commandBuffer);
+					}
+					return;
+				}
+			}
+
+			try
 			{
 
-				offScreen = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+				synchronized (renderLock)
+				{
+					replayOffScreen(commandBuffer, width, height);
+				}
+				threadsafeRepaint();
 			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+			}
+			finally
+			{
+				recycleCommandBuffer(commandBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Rasterize recorded commands into the back buffer and publish it
+	 */
+	private void replayOffScreen(CommandBuffer commandBuffer, int width, int height)
+	{
+
+		ResolutionScaler resolutionScaler = getResolutionScaler();
+		int imageWidth = (resolutionScaler != null) ? resolutionScaler.scale(width) : width;
+		int imageHeight = (resolutionScaler != null) ? resolutionScaler.scale(height) : height;
+
+		if (recreateOffScreen(backBuffer.image, imageWidth, imageHeight))
+		{
+			backBuffer.image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+
+		// Replaying is reentrant
+		commandBufferScene.commandBuffer = commandBuffer;
+		try
+		{
+			paintOffScreen(commandBufferScene, true, width, height, 0, null);
+		}
+		finally
+		{
+			commandBufferScene.commandBuffer = null;
+		}
+
+		// Not part of the dirty region history
+		backBuffer.frameNumber = -1;
+		publishBackBuffer();
+	}
+
+	/**
+	 * Clear the back buffer and paint a scene into it. If the back buffer is smaller than the stage,
+	 * the scene is scaled down.
+	 * 
+	 * @param scene The scene to be painted
+	 * @param reentrant true if the scene may be painted by a {@link BandedRasterizer}
+	 * @param width Width of the stage
+	 * @param height Height of the stage
+	 * @param elapsedTime Time since the last painting
+	 * @param clip Clip in back buffer coordinates or null
+	 */
+	private void paintOffScreen(Scene scene, boolean reentrant, int width, int height, long elapsedTime, Shape clip)
+	{
 
-			// Clear stage and paint scene
-			Graphics2D offGraphics = offScreen.createGraphics();
-			ImageUtils.clearImage(offGraphics, width, height, ImageUtils.COLOR_TRANSPARENT);
+		long startTime = System.nanoTime();
 
-			synchronized (sceneLock)
+		BufferedImage image = backBuffer.image;
+		int imageWidth = image.getWidth();
+		int imageHeight = image.getHeight();
+
+		Scene paintedScene = scene;
+		if (imageWidth != width || imageHeight != height)
+		{
+
+			scaledScene.prepare(scene, width, height, (double) imageWidth / width, (double) imageHeight / height);
+			paintedScene = scaledScene;
+		}
+
+		try
+		{
+
+			BandedRasterizer bandedRasterizer = getBandedRasterizer();
+			if (bandedRasterizer != null && reentrant)
 			{
-				getScene().paintScene(offGraphics, width, height, elapedTime);
+				bandedRasterizer.paint((ReentrantScene) paintedScene, image, imageWidth, imageHeight, elapsedTime, clip);
 			}
+			else
+			{
+
+				Graphics2D offGraphics = image.createGraphics();
+				if (clip != null)
+				{
+					offGraphics.setClip(clip);
+				}
+
+				// Clear stage and paint scene
+				ImageUtils.clearImage(offGraphics, imageWidth, imageHeight, ImageUtils.COLOR_TRANSPARENT);
+				paintedScene.paintScene(offGraphics, imageWidth, imageHeight, elapsedTime);
+
+				offGraphics.dispose();
+			}
+		}
+		finally
+		{
+			scaledScene.scene = null;
+		}
+
+		ResolutionScaler resolutionScaler = getResolutionScaler();
+		if (resolutionScaler != null)
+		{
+			resolutionScaler.record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Publish the frame. An unpresented frame coming back is dropped.
+	 */
+	private void publishBackBuffer()
+	{
+
+		FrameCapture frameCapture = getFrameCapture();
+		if (frameCapture != null)
+		{
+			frameCapture.capture(backBuffer.image);
+		}
+
+		backBuffer.fresh = true;
+		backBuffer = readyBuffer.getAndSet(backBuffer);
+		backBuffer.fresh = false;
+	}
+
+	/**
+	 * Get the regions, that changed since a frame
+	 * 
+	 * @param bufferedFrame Number of the frame in the buffer or negative if none
+	 */
+	private DirtyRegion getRepairRegion(long bufferedFrame, int width, int height)
+	{
+
+		repairRegion.clear();
+		repairRegion.setBounds(width, height);
+
+		if (bufferedFrame < 0 || frameNumber - bufferedFrame > DIRTY_REGION_HISTORY)
+		{
+
+			repairRegion.addAll();
+			return repairRegion;
+		}
+
+		for (long frame = bufferedFrame + 1; frame <= frameNumber; frame++)
+		{
+			repairRegion.addRegion(dirtyRegions[(int) (frame % DIRTY_REGION_HISTORY)]);
+		}
+
+		return repairRegion;
+	}
 
-			offGraphics.dispose();
+	private Path2D toClip(DirtyRegion region)
+	{
+
+		clip.reset();
+		for (int i = 0; i < region.getRectangleCount(); i++)
+		{
+
+			float x = region.getX(i);
+			float y = region.getY(i);
+			float x2 = x + region.getWidth(i);
+			float y2 = y + region.getHeight(i);
+
+			clip.moveTo(x, y);
+			clip.lineTo(x2, y);
+			clip.lineTo(x2, y2);
+			clip.lineTo(x, y2);
+			clip.closePath();
 		}
+
+		return clip;
 	}
 
 	/**
 	 * Tests if the off screen has to be created or recreated.
 	 */
-	private boolean recreateOffScreen(int width, int height)
+	private static boolean recreateOffScreen(BufferedImage offScreen, int width, int height)
+	{
+		return offScreen == null || (offScreen.getWidth() != width || offScreen.getHeight() != height);
+	}
+
+	/**
+	 * One of the three off screens
+	 */
+	private static class FrameBuffer
+	{
+
+		private BufferedImage image;
+		/**
+		 * Number of the frame in the image or negative if none
+		 */
+		private long frameNumber = -1;
+		/**
+		 * True if the frame was not presented yet
+		 */
+		private volatile boolean fresh;
+	}
+
+	/**
+	 * Scene waiting for the next frame
+	 */
+	private static class SceneSwap
+	{
+
+		private final Scene scene;
+
+		SceneSwap(Scene scene)
+		{
+			this.scene = scene;
+		}
+	}
+
+	/**
+	 * Paints a scene with the stage's size into a smaller image
+	 */
+	private static class ScaledScene implements ReentrantScene
+	{
+
+		private Scene scene;
+		private int width;
+		private int height;
+		private double scaleX;
+		private double scaleY;
+
+		void prepare(Scene scene, int width, int height, double scaleX, double scaleY)
+		{
+
+			this.scene = scene;
+			this.width = width;
+			this.height = height;
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+		}
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			g.scale(scaleX, scaleY);
+			scene.paintScene(g, this.width, this.height, elapsedTime);
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Replays a command buffer, so it can be painted by a {@link BandedRasterizer}
+	 */
+	private static class CommandBufferScene implements ReentrantScene
 	{
 
-		synchronized (offScreenLock)
+		private CommandBuffer commandBuffer;
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
 		{
+			commandBuffer.replay(g);
+		}
 
-			return offScreen == null || (offScreen.getWidth() != width || offScreen.getHeight() != height);
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
 		}
 	}
 }
@@ -0,0 +1,129 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Copy of a presented frame. Captured frames are pooled by their {@link FrameCapture}, so they
+ * must not be used after the {@link FrameEncoder} returned.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class CapturedFrame
+{
+
+	private int[] pixels = new int[0];
+	private int width;
+	private int height;
+	private int imageType;
+	private long frameNumber;
+	private long captureTime;
+
+	/**
+	 * Copy an image into this frame. The pixel array is reused if it is big enough.
+	 */
+	void copy(BufferedImage image, long frameNumber)
+	{
+
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.frameNumber = frameNumber;
+		this.captureTime = System.nanoTime();
+
+		int size = width * height;
+		if (pixels.length < size)
+		{
+			pixels = new int[size];
+		}
+
+		switch (image.getType())
+		{
+			case BufferedImage.TYPE_INT_ARGB_PRE:
+			case BufferedImage.TYPE_INT_ARGB:
+			case BufferedImage.TYPE_INT_RGB:
+				// Same layout -> copy without conversion
+				imageType = image.getType();
+				image.getRaster().getDataElements(0, 0, width, height, pixels);
+			break;
+			default:
+				imageType = BufferedImage.TYPE_INT_ARGB;
+				image.getRGB(0, 0, width, height, pixels, 0, width);
+			break;
+		}
+	}
+
+	/**
+	 * Get the pixels in the format of {@link #getImageType()}. The array may be bigger than
+	 * width * height.
+	 */
+	public int[] getPixels()
+	{
+		return pixels;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Get the format of the pixels
+	 *
+	 * @return {@link BufferedImage#TYPE_INT_ARGB_PRE}, {@link BufferedImage#TYPE_INT_ARGB} or
+	 *         {@link BufferedImage#TYPE_INT_RGB}
+	 */
+	public int getImageType()
+	{
+		return imageType;
+	}
+
+	/**
+	 * Get the number of the frame counted by the capture
+	 */
+	public long getFrameNumber()
+	{
+		return frameNumber;
+	}
+
+	/**
+	 * Get the time of capturing
+	 *
+	 * @return Time in nanoseconds, see {@link System#nanoTime()}
+	 */
+	public long getCaptureTime()
+	{
+		return captureTime;
+	}
+
+	/**
+	 * Create a new {@link BufferedImage} with a copy of the pixels
+	 *
+	 * @param imageType Type of the created image
+	 */
+	public BufferedImage toImage(int imageType)
+	{
+
+		BufferedImage image = new BufferedImage(width, height, this.imageType);
+		image.getRaster().setDataElements(0, 0, width, height, pixels);
+
+		if (imageType == this.imageType)
+		{
+			return image;
+		}
+
+		BufferedImage converted = new BufferedImage(width, height, imageType);
+		Graphics2D g = converted.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+
+		return converted;
+	}
+}
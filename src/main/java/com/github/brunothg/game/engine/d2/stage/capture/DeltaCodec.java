@@ -0,0 +1,124 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compresses frames as difference to their predecessor. The pixels are XORed with the previous
+ * frame, so unchanged pixels become zero. The result is run length encoded as pairs of a zero run
+ * and a literal run followed by the literal pixels. Run lengths are written as variable length
+ * integers. A frame without predecessor (key frame) is XORed with zero.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public final class DeltaCodec
+{
+
+	private DeltaCodec()
+	{
+	}
+
+	/**
+	 * Write the difference of two frames
+	 *
+	 * @param pixels The actual frame
+	 * @param previous The previous frame or null for a key frame
+	 * @param length Number of pixels
+	 * @param out Receives the compressed data
+	 */
+	public static void encode(int[] pixels, int[] previous, int length, DataOutput out) throws IOException
+	{
+
+		int i = 0;
+		while (i < length)
+		{
+
+			int zeroStart = i;
+			while (i < length && delta(pixels, previous, i) == 0)
+			{
+				i++;
+			}
+			int zeros = i - zeroStart;
+
+			int literalStart = i;
+			while (i < length && delta(pixels, previous, i) != 0)
+			{
+				i++;
+			}
+			int literals = i - literalStart;
+
+			writeVarInt(out, zeros);
+			writeVarInt(out, literals);
+			for (int j = literalStart; j < i; j++)
+			{
+				out.writeInt(delta(pixels, previous, j));
+			}
+		}
+	}
+
+	/**
+	 * Apply a difference written by {@link #encode(int[], int[], int, DataOutput)}
+	 *
+	 * @param in The compressed data
+	 * @param pixels Holds the previous frame (zeros for a key frame), receives the actual one
+	 * @param length Number of pixels
+	 */
+	public static void decode(DataInput in, int[] pixels, int length) throws IOException
+	{
+
+		int i = 0;
+		while (i < length)
+		{
+
+			i += readVarInt(in);
+
+			int literals = readVarInt(in);
+			if (i + literals > length)
+			{
+				throw new IOException("Corrupt frame data");
+			}
+
+			for (int end = i + literals; i < end; i++)
+			{
+				pixels[i] ^= in.readInt();
+			}
+		}
+	}
+
+	private static int delta(int[] pixels, int[] previous, int index)
+	{
+		return (previous != null) ? pixels[index] ^ previous[index] : pixels[index];
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException
+	{
+
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int readVarInt(DataInput in) throws IOException
+	{
+
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+
+		throw new IOException("Corrupt variable length integer");
+	}
+}
@@ -0,0 +1,212 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Writes all frames into one stream compressed with the {@link DeltaCodec}. Every frame starts
+ * with a header (key frame flag, width, height, image type, frame number, capture time). A frame
+ * is a key frame, if it is the first one, its size differs from its predecessor or
+ * {@link #getKeyFrameInterval()} frames were written since the last key frame. Use
+ * {@link Reader} for decoding.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class DeltaStreamEncoder implements FrameEncoder
+{
+
+	public static final int DEFAULT_KEY_FRAME_INTERVAL = 60;
+
+	private final DataOutputStream out;
+	private final int keyFrameInterval;
+
+	private int[] previous;
+	private int previousWidth;
+	private int previousHeight;
+	private int framesSinceKeyFrame;
+
+	public DeltaStreamEncoder(OutputStream out)
+	{
+
+		this(out, DEFAULT_KEY_FRAME_INTERVAL);
+	}
+
+	/**
+	 *
+	 * @param out Target stream, closed with the encoder
+	 * @param keyFrameInterval Maximum number of frames between two key frames (positive)
+	 */
+	public DeltaStreamEncoder(OutputStream out, int keyFrameInterval)
+	{
+
+		if (out == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (keyFrameInterval <= 0)
+		{
+			throw new IllegalArgumentException("Key frame interval must be positive -> " + keyFrameInterval);
+		}
+
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.keyFrameInterval = keyFrameInterval;
+	}
+
+	@Override
+	public void encode(CapturedFrame frame) throws IOException
+	{
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		int length = width * height;
+
+		boolean keyFrame = previous == null || width != previousWidth || height != previousHeight
+			|| framesSinceKeyFrame >= keyFrameInterval;
+
+		writeFrame(out, frame, keyFrame ? null : previous);
+
+		// Remember for the next delta
+		if (previous == null || previous.length < length)
+		{
+			previous = new int[length];
+		}
+		System.arraycopy(frame.getPixels(), 0, previous, 0, length);
+		previousWidth = width;
+		previousHeight = height;
+		framesSinceKeyFrame = keyFrame ? 1 : framesSinceKeyFrame + 1;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		out.close();
+	}
+
+	/**
+	 * Write header and pixels of a frame in the stream format
+	 *
+	 * @param out Target
+	 * @param frame The frame
+	 * @param previous Pixels of the previous frame or null for a key frame
+	 */
+	static void writeFrame(DataOutput out, CapturedFrame frame, int[] previous) throws IOException
+	{
+
+		out.writeBoolean(previous == null);
+		out.writeInt(frame.getWidth());
+		out.writeInt(frame.getHeight());
+		out.writeInt(frame.getImageType());
+		out.writeLong(frame.getFrameNumber());
+		out.writeLong(frame.getCaptureTime());
+
+		DeltaCodec.encode(frame.getPixels(), previous, frame.getWidth() * frame.getHeight(), out);
+	}
+
+	public int getKeyFrameInterval()
+	{
+		return keyFrameInterval;
+	}
+
+	/**
+	 * Reads a stream written by a {@link DeltaStreamEncoder}
+	 *
+	 * @author Marvin Bruns
+	 *
+	 */
+	public static class Reader
+	{
+
+		private final DataInputStream in;
+
+		private int[] pixels = new int[0];
+		private int width;
+		private int height;
+		private int imageType;
+		private long frameNumber;
+		private long captureTime;
+
+		public Reader(InputStream in)
+		{
+			this.in = new DataInputStream(in);
+		}
+
+		/**
+		 * Read the next frame
+		 *
+		 * @return false if the end of the stream was reached
+		 */
+		public boolean next() throws IOException
+		{
+
+			int keyFrame = in.read();
+			if (keyFrame < 0)
+			{
+				return false;
+			}
+
+			width = in.readInt();
+			height = in.readInt();
+			imageType = in.readInt();
+			frameNumber = in.readLong();
+			captureTime = in.readLong();
+
+			int length = width * height;
+			if (pixels.length != length)
+			{
+				pixels = new int[length];
+			}
+			else if (keyFrame != 0)
+			{
+				Arrays.fill(pixels, 0);
+			}
+
+			DeltaCodec.decode(in, pixels, length);
+			return true;
+		}
+
+		/**
+		 * Get the pixels of the actual frame (width * height values)
+		 */
+		public int[] getPixels()
+		{
+			return pixels;
+		}
+
+		public int getWidth()
+		{
+			return width;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+
+		public int getImageType()
+		{
+			return imageType;
+		}
+
+		public long getFrameNumber()
+		{
+			return frameNumber;
+		}
+
+		public long getCaptureTime()
+		{
+			return captureTime;
+		}
+
+		public void close() throws IOException
+		{
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,285 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Captures the frames presented by a stage and writes them on a background thread. The rendering
+ * thread only copies the frame into a pooled {@link CapturedFrame} and puts it into a bounded
+ * queue, it never waits for the {@link FrameEncoder}. If the encoder falls behind, frames are
+ * dropped according to the {@link DropPolicy}.
+ *
+ * @see com.github.brunothg.game.engine.d2.stage.SwingStage#setFrameCapture(FrameCapture)
+ * @author Marvin Bruns
+ *
+ */
+public class FrameCapture
+{
+
+	private static final Logger LOG = LoggerFactory.getLogger(FrameCapture.class);
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 8;
+
+	private final FrameEncoder encoder;
+	private final DropPolicy dropPolicy;
+
+	private final BlockingQueue<CapturedFrame> queue;
+	private final ConcurrentLinkedQueue<CapturedFrame> freeFrames = new ConcurrentLinkedQueue<CapturedFrame>();
+
+	private final Thread encoderThread;
+	private volatile boolean closed;
+
+	private final AtomicLong capturedFrames = new AtomicLong();
+	private final AtomicLong droppedFrames = new AtomicLong();
+	private final AtomicLong encodedFrames = new AtomicLong();
+	private volatile IOException error;
+
+	public FrameCapture(FrameEncoder encoder)
+	{
+
+		this(encoder, DEFAULT_QUEUE_CAPACITY, DropPolicy.DROP_NEWEST);
+	}
+
+	/**
+	 * Starts the encoder thread
+	 *
+	 * @param encoder Writes the frames
+	 * @param queueCapacity Maximum number of frames waiting for the encoder (positive)
+	 * @param dropPolicy Frames dropped, if the queue is full
+	 */
+	public FrameCapture(FrameEncoder encoder, int queueCapacity, DropPolicy dropPolicy)
+	{
+
+		if (encoder == null || dropPolicy == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (queueCapacity <= 0)
+		{
+			throw new IllegalArgumentException("Capacity must be positive -> " + queueCapacity);
+		}
+
+		this.encoder = encoder;
+		this.dropPolicy = dropPolicy;
+		this.queue = new ArrayBlockingQueue<CapturedFrame>(queueCapacity);
+
+		// Queued frames plus the encoded one
+		for (int i = 0; i <= queueCapacity; i++)
+		{
+			freeFrames.add(new CapturedFrame());
+		}
+
+		encoderThread = new Thread(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				encodeFrames();
+			}
+		}, "FrameCapture-Encoder");
+		encoderThread.setDaemon(true);
+		encoderThread.start();
+	}
+
+	/**
+	 * Copy a frame and queue it for encoding. Never blocks.
+	 *
+	 * @param image The presented frame
+	 * @return true if the frame was queued, false if it was dropped
+	 */
+	public boolean capture(BufferedImage image)
+	{
+
+		if (closed)
+		{
+			return false;
+		}
+
+		long frameNumber = capturedFrames.getAndIncrement();
+
+		CapturedFrame frame = freeFrames.poll();
+		if (frame == null && dropPolicy == DropPolicy.DROP_OLDEST)
+		{
+			frame = queue.poll();
+			if (frame != null)
+			{
+				droppedFrames.incrementAndGet();
+			}
+		}
+
+		if (frame == null)
+		{
+
+			droppedFrames.incrementAndGet();
+			return false;
+		}
+
+		frame.copy(image, frameNumber);
+
+		if (!queue.offer(frame))
+		{
+
+			droppedFrames.incrementAndGet();
+			freeFrames.add(frame);
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Loop of the encoder thread
+	 */
+	private void encodeFrames()
+	{
+
+		try
+		{
+
+			while (!closed || !queue.isEmpty())
+			{
+
+				CapturedFrame frame;
+				try
+				{
+					frame = queue.poll(100, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e)
+				{
+					continue;
+				}
+
+				if (frame == null)
+				{
+					continue;
+				}
+
+				try
+				{
+
+					if (error == null)
+					{
+						encoder.encode(frame);
+						encodedFrames.incrementAndGet();
+					}
+				}
+				catch (IOException e)
+				{
+
+					LOG.warn("Could not encode frame -> capture stopped", e);
+					error = e;
+				}
+				finally
+				{
+					freeFrames.add(frame);
+				}
+			}
+		}
+		finally
+		{
+
+			try
+			{
+				encoder.close();
+			}
+			catch (IOException e)
+			{
+
+				LOG.warn("Could not close encoder", e);
+				if (error == null)
+				{
+					error = e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop capturing. Waits until all queued frames are encoded and the encoder is closed. Must not
+	 * be called by the rendering thread, if it should never block.
+	 *
+	 * @throws IOException The first error of the encoder
+	 */
+	public void close() throws IOException, InterruptedException
+	{
+
+		closed = true;
+		encoderThread.join();
+
+		if (error != null)
+		{
+			throw error;
+		}
+	}
+
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	/**
+	 * Get the number of frames passed to {@link #capture(BufferedImage)}
+	 */
+	public long getCapturedFrames()
+	{
+		return capturedFrames.get();
+	}
+
+	/**
+	 * Get the number of frames dropped, because the encoder was too slow
+	 */
+	public long getDroppedFrames()
+	{
+		return droppedFrames.get();
+	}
+
+	/**
+	 * Get the number of written frames
+	 */
+	public long getEncodedFrames()
+	{
+		return encodedFrames.get();
+	}
+
+	/**
+	 * Get the first error of the encoder. After an error no more frames are written.
+	 *
+	 * @return The error or null
+	 */
+	public IOException getError()
+	{
+		return error;
+	}
+
+	public DropPolicy getDropPolicy()
+	{
+		return dropPolicy;
+	}
+
+	/**
+	 * Decides which frame is dropped, if the encoder falls behind
+	 *
+	 * @author Marvin Bruns
+	 *
+	 */
+	public enum DropPolicy
+	{
+		/**
+		 * Keep the queued frames, drop the new one
+		 */
+		DROP_NEWEST,
+		/**
+		 * Drop the oldest queued frame, keep the new one
+		 */
+		DROP_OLDEST
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.io.IOException;
+
+/**
+ * Writes captured frames. Called by the encoder thread of a {@link FrameCapture} only, so
+ * implementations don't have to be thread safe.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public interface FrameEncoder
+{
+
+	/**
+	 * Write a frame. The frame must not be used after returning.
+	 *
+	 * @param frame The captured frame
+	 */
+	public void encode(CapturedFrame frame) throws IOException;
+
+	/**
+	 * Called after the last frame
+	 */
+	public void close() throws IOException;
+}
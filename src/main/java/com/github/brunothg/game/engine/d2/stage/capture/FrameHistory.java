@@ -0,0 +1,304 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rolling in-memory history of the last frames, e.g. the last 30 seconds for bug reports. Frames
+ * are stored as key frames and deltas compressed with the {@link DeltaCodec}. If the history gets
+ * older than the maximum age or bigger than the memory budget, the oldest key frame and its
+ * deltas are removed. So the memory use stays flat, no matter how long the session runs. The
+ * budget may be exceeded by at most the frames since the newest key frame.<br>
+ * Use it as {@link FrameEncoder} of a {@link FrameCapture}, so compression runs on the capture's
+ * background thread. {@link #dump(OutputStream)} writes the history in the format of the
+ * {@link DeltaStreamEncoder}.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class FrameHistory implements FrameEncoder
+{
+
+	public static final int DEFAULT_KEY_FRAME_INTERVAL = 60;
+
+	private final long maxBytes;
+	private final long maxAge;
+	private final int keyFrameInterval;
+
+	private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+	private long bytes;
+
+	private final ByteArrayOutputStream scratch = new ByteArrayOutputStream();
+	private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+	private int[] previous;
+	private int previousWidth;
+	private int previousHeight;
+	private int framesSinceKeyFrame;
+	private final AtomicBoolean keyFrameRequested = new AtomicBoolean();
+
+	/**
+	 *
+	 * @param maxBytes Memory budget for the compressed frames (positive)
+	 * @param maxAge Maximum time between the oldest and the newest frame (positive)
+	 * @param unit Unit of maxAge
+	 */
+	public FrameHistory(long maxBytes, long maxAge, TimeUnit unit)
+	{
+
+		this(maxBytes, maxAge, unit, DEFAULT_KEY_FRAME_INTERVAL);
+	}
+
+	/**
+	 *
+	 * @param maxBytes Memory budget for the compressed frames (positive)
+	 * @param maxAge Maximum time between the oldest and the newest frame (positive)
+	 * @param unit Unit of maxAge
+	 * @param keyFrameInterval Maximum number of frames between two key frames (positive). The
+	 *            history is shortened in steps of this size.
+	 */
+	public FrameHistory(long maxBytes, long maxAge, TimeUnit unit, int keyFrameInterval)
+	{
+
+		if (maxBytes <= 0 || maxAge <= 0 || keyFrameInterval <= 0)
+		{
+			throw new IllegalArgumentException("Values must be positive -> " + maxBytes + ", " + maxAge + ", "
+				+ keyFrameInterval);
+		}
+
+		this.maxBytes = maxBytes;
+		this.maxAge = unit.toNanos(maxAge);
+		this.keyFrameInterval = keyFrameInterval;
+	}
+
+	@Override
+	public void encode(CapturedFrame frame) throws IOException
+	{
+
+		int width = frame.getWidth();
+		int height = frame.getHeight();
+		int length = width * height;
+
+		// A request made meanwhile is kept for the next frame
+		boolean keyFrame = keyFrameRequested.getAndSet(false);
+		keyFrame |= previous == null || width != previousWidth || height != previousHeight
+			|| framesSinceKeyFrame >= keyFrameInterval;
+
+		scratch.reset();
+		DeltaStreamEncoder.writeFrame(scratchOut, frame, keyFrame ? null : previous);
+		scratchOut.flush();
+
+		// Remember for the next delta
+		if (previous == null || previous.length < length)
+		{
+			previous = new int[length];
+		}
+		System.arraycopy(frame.getPixels(), 0, previous, 0, length);
+		previousWidth = width;
+		previousHeight = height;
+		framesSinceKeyFrame = keyFrame ? 1 : framesSinceKeyFrame + 1;
+
+		Entry entry = new Entry(scratch.toByteArray(), keyFrame, frame.getCaptureTime());
+		synchronized (entries)
+		{
+
+			// Cleared meanwhile -> a delta can't start the history
+			if (entries.isEmpty() && !keyFrame)
+			{
+				return;
+			}
+
+			entries.addLast(entry);
+			bytes += entry.data.length;
+
+			while (bytes > maxBytes || entry.captureTime - entries.getFirst().captureTime > maxAge)
+			{
+
+				if (!removeOldestGroup())
+				{
+
+					// Only the actual group left -> start a new one, so this can be removed
+					keyFrameRequested.set(true);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove the oldest key frame and its deltas
+	 *
+	 * @return false if there's only one group left
+	 */
+	private boolean removeOldestGroup()
+	{
+
+		Iterator<Entry> iterator = entries.iterator();
+		iterator.next();
+
+		boolean hasNextGroup = false;
+		while (iterator.hasNext())
+		{
+			if (iterator.next().keyFrame)
+			{
+				hasNextGroup = true;
+				break;
+			}
+		}
+
+		if (!hasNextGroup)
+		{
+			return false;
+		}
+
+		do
+		{
+			bytes -= entries.removeFirst().data.length;
+		}
+		while (!entries.getFirst().keyFrame);
+
+		return true;
+	}
+
+	/**
+	 * Write the history in the format of the {@link DeltaStreamEncoder}. Compression goes on while
+	 * writing.
+	 *
+	 * @param out Target stream, not closed
+	 */
+	public void dump(OutputStream out) throws IOException
+	{
+
+		// Data is never changed -> write without lock
+		Entry[] snapshot;
+		synchronized (entries)
+		{
+			snapshot = entries.toArray(new Entry[entries.size()]);
+		}
+
+		for (Entry entry : snapshot)
+		{
+			out.write(entry.data);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the history into a file
+	 *
+	 * @see #dump(OutputStream)
+	 */
+	public void dump(File file) throws IOException
+	{
+
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try
+		{
+			dump(out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Remove all frames
+	 */
+	public void clear()
+	{
+
+		synchronized (entries)
+		{
+
+			entries.clear();
+			bytes = 0;
+
+			// Next frame must be a key frame
+			keyFrameRequested.set(true);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		// Keep the history for dumping
+	}
+
+	/**
+	 * Get the number of stored frames
+	 */
+	public int getFrameCount()
+	{
+
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Get the memory used by the compressed frames
+	 */
+	public long getByteCount()
+	{
+
+		synchronized (entries)
+		{
+			return bytes;
+		}
+	}
+
+	/**
+	 * Get the time between the oldest and the newest frame
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public long getDuration()
+	{
+
+		synchronized (entries)
+		{
+			return entries.isEmpty() ? 0 : entries.getLast().captureTime - entries.getFirst().captureTime;
+		}
+	}
+
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	/**
+	 * Get the maximum time between the oldest and the newest frame
+	 *
+	 * @return Time in nanoseconds
+	 */
+	public long getMaxAge()
+	{
+		return maxAge;
+	}
+
+	private static class Entry
+	{
+
+		private final byte[] data;
+		private final boolean keyFrame;
+		private final long captureTime;
+
+		Entry(byte[] data, boolean keyFrame, long captureTime)
+		{
+
+			this.data = data;
+			this.keyFrame = keyFrame;
+			this.captureTime = captureTime;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Writes every frame as PNG file into a directory. The files are named
+ * <code>&lt;prefix&gt;-&lt;frame number&gt;.png</code>, the frame number has at least six digits.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class PngSequenceEncoder implements FrameEncoder
+{
+
+	private final File directory;
+	private final String prefix;
+
+	/**
+	 *
+	 * @param directory Target directory, created if necessary
+	 * @param prefix Prefix of the file names
+	 */
+	public PngSequenceEncoder(File directory, String prefix)
+	{
+
+		if (directory == null || prefix == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.directory = directory;
+		this.prefix = prefix;
+	}
+
+	@Override
+	public void encode(CapturedFrame frame) throws IOException
+	{
+
+		if (!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Could not create directory -> " + directory);
+		}
+
+		BufferedImage image = frame.toImage(BufferedImage.TYPE_INT_ARGB);
+		File file = new File(directory, String.format("%s-%06d.png", prefix, frame.getFrameNumber()));
+
+		if (!ImageIO.write(image, "png", file))
+		{
+			throw new IOException("No PNG writer available");
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+}
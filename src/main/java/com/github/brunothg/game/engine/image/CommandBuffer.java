@@ -0,0 +1,451 @@
+package com.github.brunothg.game.engine.image;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedString;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Compact list of drawing commands recorded by {@link RecordingGraphics}. Commands are stored in
+ * three growing arrays (int, double and object arguments), so a reused buffer does not allocate
+ * once it reached its working size.<br>
+ * A recorded buffer can be {@link #replay(Graphics2D) replayed} any number of times, even by
+ * several threads at the same time. Transformation and clip of the recording are relative to the
+ * target's transformation and clip.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class CommandBuffer
+{
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	static final int CREATE = 1;
+	static final int DISPOSE = 2;
+	static final int SET_COLOR = 3;
+	static final int SET_PAINT = 4;
+	static final int SET_STROKE = 5;
+	static final int SET_FONT = 6;
+	static final int SET_COMPOSITE = 7;
+	static final int SET_BACKGROUND = 8;
+	static final int SET_PAINT_MODE = 9;
+	static final int SET_XOR_MODE = 10;
+	static final int SET_RENDERING_HINT = 11;
+	static final int SET_RENDERING_HINTS = 12;
+	static final int ADD_RENDERING_HINTS = 13;
+	static final int TRANSLATE = 14;
+	static final int ROTATE = 15;
+	static final int ROTATE_AROUND = 16;
+	static final int SCALE = 17;
+	static final int SHEAR = 18;
+	static final int TRANSFORM = 19;
+	static final int SET_TRANSFORM = 20;
+	static final int CLIP = 21;
+	static final int CLIP_RECT = 22;
+	static final int SET_CLIP = 23;
+	static final int DRAW = 24;
+	static final int FILL = 25;
+	static final int DRAW_LINE = 26;
+	static final int DRAW_RECT = 27;
+	static final int FILL_RECT = 28;
+	static final int CLEAR_RECT = 29;
+	static final int DRAW_ROUND_RECT = 30;
+	static final int FILL_ROUND_RECT = 31;
+	static final int DRAW_OVAL = 32;
+	static final int FILL_OVAL = 33;
+	static final int DRAW_ARC = 34;
+	static final int FILL_ARC = 35;
+	static final int DRAW_POLYLINE = 36;
+	static final int DRAW_POLYGON = 37;
+	static final int FILL_POLYGON = 38;
+	static final int COPY_AREA = 39;
+	static final int DRAW_STRING_INT = 40;
+	static final int DRAW_STRING = 41;
+	static final int DRAW_ATTRIBUTED_STRING = 42;
+	static final int DRAW_GLYPH_VECTOR = 43;
+	static final int DRAW_IMAGE_TRANSFORMED = 44;
+	static final int DRAW_IMAGE_OP = 45;
+	static final int DRAW_RENDERED_IMAGE = 46;
+	static final int DRAW_RENDERABLE_IMAGE = 47;
+	static final int DRAW_IMAGE = 48;
+	static final int DRAW_IMAGE_SCALED = 49;
+	static final int DRAW_IMAGE_AREA = 50;
+
+	private int[] ints = new int[INITIAL_CAPACITY];
+	private int intCount;
+	private double[] doubles = new double[INITIAL_CAPACITY];
+	private int doubleCount;
+	private Object[] objects = new Object[INITIAL_CAPACITY];
+	private int objectCount;
+
+	private int graphicsCount = 1;
+	private int commandCount;
+
+	private RecordingGraphics recorder;
+
+	/**
+	 * Remove all commands. The buffer keeps its capacity.
+	 */
+	public void reset()
+	{
+
+		// Don't keep images etc. alive
+		Arrays.fill(objects, 0, objectCount, null);
+
+		intCount = 0;
+		doubleCount = 0;
+		objectCount = 0;
+		graphicsCount = 1;
+		commandCount = 0;
+	}
+
+	/**
+	 * Remove all commands and start a new recording. The returned graphics is created once and
+	 * reused for every recording into this buffer, so it must not be used after the next call.
+	 *
+	 * @return Graphics recording into this buffer
+	 */
+	public RecordingGraphics record()
+	{
+
+		reset();
+		if (recorder == null)
+		{
+			recorder = new RecordingGraphics(this);
+		}
+		else
+		{
+			recorder.restart();
+		}
+
+		return recorder;
+	}
+
+	/**
+	 * Get the number of recorded commands
+	 */
+	public int getCommandCount()
+	{
+		return commandCount;
+	}
+
+	public boolean isEmpty()
+	{
+		return commandCount == 0;
+	}
+
+	/**
+	 * Reserve an id for a graphics object. The id 0 is the replay target.
+	 */
+	int nextGraphicsId()
+	{
+		return graphicsCount++;
+	}
+
+	void command(int command, int graphicsId)
+	{
+
+		commandCount++;
+		addInt(command);
+		addInt(graphicsId);
+	}
+
+	void addInt(int value)
+	{
+
+		if (intCount == ints.length)
+		{
+			ints = Arrays.copyOf(ints, ints.length * 2);
+		}
+		ints[intCount++] = value;
+	}
+
+	void addDouble(double value)
+	{
+
+		if (doubleCount == doubles.length)
+		{
+			doubles = Arrays.copyOf(doubles, doubles.length * 2);
+		}
+		doubles[doubleCount++] = value;
+	}
+
+	void addObject(Object value)
+	{
+
+		if (objectCount == objects.length)
+		{
+			objects = Arrays.copyOf(objects, objects.length * 2);
+		}
+		objects[objectCount++] = value;
+	}
+
+	/**
+	 * Execute all commands on a {@link Graphics2D} object. The target's state is changed like it
+	 * was changed while recording.
+	 *
+	 * @param target Target of the drawing commands
+	 */
+	public void replay(Graphics2D target)
+	{
+
+		// Recorded transformations and clips are relative to these
+		AffineTransform baseTransform = target.getTransform();
+		Shape baseClip = target.getClip();
+		if (baseClip != null)
+		{
+			baseClip = baseTransform.createTransformedShape(baseClip);
+		}
+
+		Graphics2D[] graphics = new Graphics2D[graphicsCount];
+		graphics[0] = target;
+
+		AffineTransform transform = new AffineTransform();
+
+		int i = 0;
+		int d = 0;
+		int o = 0;
+		while (i < intCount)
+		{
+
+			int command = ints[i++];
+			int graphicsId = ints[i++];
+			Graphics2D g = graphics[graphicsId];
+
+			switch (command)
+			{
+				case CREATE:
+					graphics[ints[i++]] = (Graphics2D) g.create();
+				break;
+				case DISPOSE:
+					if (graphicsId != 0)
+					{
+						g.dispose();
+						graphics[graphicsId] = null;
+					}
+				break;
+				case SET_COLOR:
+					g.setColor((Color) objects[o++]);
+				break;
+				case SET_PAINT:
+					g.setPaint((Paint) objects[o++]);
+				break;
+				case SET_STROKE:
+					g.setStroke((Stroke) objects[o++]);
+				break;
+				case SET_FONT:
+					g.setFont((Font) objects[o++]);
+				break;
+				case SET_COMPOSITE:
+					g.setComposite((Composite) objects[o++]);
+				break;
+				case SET_BACKGROUND:
+					g.setBackground((Color) objects[o++]);
+				break;
+				case SET_PAINT_MODE:
+					g.setPaintMode();
+				break;
+				case SET_XOR_MODE:
+					g.setXORMode((Color) objects[o++]);
+				break;
+				case SET_RENDERING_HINT:
+					g.setRenderingHint((RenderingHints.Key) objects[o++], objects[o++]);
+				break;
+				case SET_RENDERING_HINTS:
+					g.setRenderingHints((Map<?, ?>) objects[o++]);
+				break;
+				case ADD_RENDERING_HINTS:
+					g.addRenderingHints((Map<?, ?>) objects[o++]);
+				break;
+				case TRANSLATE:
+					g.translate(doubles[d++], doubles[d++]);
+				break;
+				case ROTATE:
+					g.rotate(doubles[d++]);
+				break;
+				case ROTATE_AROUND:
+					g.rotate(doubles[d++], doubles[d++], doubles[d++]);
+				break;
+				case SCALE:
+					g.scale(doubles[d++], doubles[d++]);
+				break;
+				case SHEAR:
+					g.shear(doubles[d++], doubles[d++]);
+				break;
+				case TRANSFORM:
+					transform.setTransform(doubles[d++], doubles[d++], doubles[d++], doubles[d++], doubles[d++],
+						doubles[d++]);
+					g.transform(transform);
+				break;
+				case SET_TRANSFORM:
+					transform.setTransform(doubles[d++], doubles[d++], doubles[d++], doubles[d++], doubles[d++],
+						doubles[d++]);
+					g.setTransform(baseTransform);
+					g.transform(transform);
+				break;
+				case CLIP:
+					g.clip((Shape) objects[o++]);
+				break;
+				case CLIP_RECT:
+					g.clipRect(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case SET_CLIP:
+					setClip(g, (Shape) objects[o++], baseClip);
+				break;
+				case DRAW:
+					g.draw((Shape) objects[o++]);
+				break;
+				case FILL:
+					g.fill((Shape) objects[o++]);
+				break;
+				case DRAW_LINE:
+					g.drawLine(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_RECT:
+					g.drawRect(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case FILL_RECT:
+					g.fillRect(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case CLEAR_RECT:
+					g.clearRect(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_ROUND_RECT:
+					g.drawRoundRect(ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case FILL_ROUND_RECT:
+					g.fillRoundRect(ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_OVAL:
+					g.drawOval(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case FILL_OVAL:
+					g.fillOval(ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_ARC:
+					g.drawArc(ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case FILL_ARC:
+					g.fillArc(ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_POLYLINE:
+				case DRAW_POLYGON:
+				case FILL_POLYGON:
+				{
+
+					int points = ints[i++];
+					int[] xPoints = (int[]) objects[o++];
+					int[] yPoints = (int[]) objects[o++];
+
+					if (command == DRAW_POLYLINE)
+					{
+						g.drawPolyline(xPoints, yPoints, points);
+					}
+					else if (command == DRAW_POLYGON)
+					{
+						g.drawPolygon(xPoints, yPoints, points);
+					}
+					else
+					{
+						g.fillPolygon(xPoints, yPoints, points);
+					}
+				}
+				break;
+				case COPY_AREA:
+					g.copyArea(ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++]);
+				break;
+				case DRAW_STRING_INT:
+					g.drawString((String) objects[o++], ints[i++], ints[i++]);
+				break;
+				case DRAW_STRING:
+					g.drawString((String) objects[o++], (float) doubles[d++], (float) doubles[d++]);
+				break;
+				case DRAW_ATTRIBUTED_STRING:
+					g.drawString(((AttributedString) objects[o++]).getIterator(), (float) doubles[d++],
+						(float) doubles[d++]);
+				break;
+				case DRAW_GLYPH_VECTOR:
+					g.drawGlyphVector((GlyphVector) objects[o++], (float) doubles[d++], (float) doubles[d++]);
+				break;
+				case DRAW_IMAGE_TRANSFORMED:
+					transform.setTransform(doubles[d++], doubles[d++], doubles[d++], doubles[d++], doubles[d++],
+						doubles[d++]);
+					g.drawImage((Image) objects[o++], transform, null);
+				break;
+				case DRAW_IMAGE_OP:
+					g.drawImage((BufferedImage) objects[o++], (BufferedImageOp) objects[o++], ints[i++], ints[i++]);
+				break;
+				case DRAW_RENDERED_IMAGE:
+					transform.setTransform(doubles[d++], doubles[d++], doubles[d++], doubles[d++], doubles[d++],
+						doubles[d++]);
+					g.drawRenderedImage((RenderedImage) objects[o++], transform);
+				break;
+				case DRAW_RENDERABLE_IMAGE:
+					transform.setTransform(doubles[d++], doubles[d++], doubles[d++], doubles[d++], doubles[d++],
+						doubles[d++]);
+					g.drawRenderableImage((RenderableImage) objects[o++], transform);
+				break;
+				case DRAW_IMAGE:
+					g.drawImage((Image) objects[o++], ints[i++], ints[i++], (Color) objects[o++], null);
+				break;
+				case DRAW_IMAGE_SCALED:
+					g.drawImage((Image) objects[o++], ints[i++], ints[i++], ints[i++], ints[i++], (Color) objects[o++],
+						null);
+				break;
+				case DRAW_IMAGE_AREA:
+					g.drawImage((Image) objects[o++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++], ints[i++],
+						ints[i++], ints[i++], (Color) objects[o++], null);
+				break;
+				default:
+					throw new IllegalStateException("Unknown command -> " + command);
+			}
+		}
+
+		// Not disposed while recording
+		for (int j = 1; j < graphics.length; j++)
+		{
+			if (graphics[j] != null)
+			{
+				graphics[j].dispose();
+			}
+		}
+	}
+
+	private static void setClip(Graphics2D g, Shape clip, Shape baseClip)
+	{
+
+		g.setClip(clip);
+		if (baseClip == null)
+		{
+			return;
+		}
+
+		// Never paint outside of the target's clip
+		AffineTransform transform = g.getTransform();
+		g.setTransform(new AffineTransform());
+		g.clip(baseClip);
+		g.setTransform(transform);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "CommandBuffer [commands=" + commandCount + ", ints=" + intCount + ", doubles=" + doubleCount
+			+ ", objects=" + objectCount + "]";
+	}
+}
@@ -0,0 +1,980 @@
+package com.github.brunothg.game.engine.image;
+
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.RenderingHints.Key;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Line2D;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.text.AttributedString;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * {@link Graphics2D}, that does not paint but records every call into a {@link CommandBuffer}. The
+ * buffer can be replayed later, e.g. by another thread. Getters (color, transformation, clip, font
+ * metrics...) return the state a {@link BufferedImage}'s graphics would have.<br>
+ * Shapes, transformations, polygons and texts are copied. Images, glyph vectors, paints and image
+ * operations are recorded by reference, so their content must not change until the buffer was
+ * replayed. Image observers are not supported, images should be loaded completely.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class RecordingGraphics extends Graphics2D
+{
+
+	private final CommandBuffer buffer;
+	private final int id;
+
+	/**
+	 * Used for font metrics, hit tests etc. Shared by all graphics of a recording.
+	 */
+	private final Graphics2D shadow;
+	private final RenderingHints defaultHints;
+	private final Stroke defaultStroke;
+
+	private final double[] matrix = new double[6];
+
+	private AffineTransform transform;
+	private Shape deviceClip;
+	private Color color;
+	private Paint paint;
+	private Font font;
+	private Stroke stroke;
+	private Composite composite;
+	private Color background;
+	private RenderingHints hints;
+
+	private boolean disposed;
+
+	/**
+	 * Start a recording. The commands are appended to the buffer, so it should be
+	 * {@link CommandBuffer#reset() reset} before.
+	 *
+	 * @param buffer Receives the commands
+	 */
+	public RecordingGraphics(CommandBuffer buffer)
+	{
+
+		this.buffer = buffer;
+		this.id = 0;
+
+		this.shadow = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE).createGraphics();
+		this.defaultHints = shadow.getRenderingHints();
+		this.defaultStroke = shadow.getStroke();
+
+		this.transform = new AffineTransform();
+		this.color = shadow.getColor();
+		this.paint = shadow.getPaint();
+		this.font = shadow.getFont();
+		this.stroke = defaultStroke;
+		this.composite = shadow.getComposite();
+		this.background = shadow.getBackground();
+		this.hints = (RenderingHints) defaultHints.clone();
+	}
+
+	private RecordingGraphics(RecordingGraphics parent)
+	{
+
+		this.buffer = parent.buffer;
+		this.id = buffer.nextGraphicsId();
+
+		this.shadow = parent.shadow;
+		this.defaultHints = parent.defaultHints;
+		this.defaultStroke = parent.defaultStroke;
+
+		this.transform = new AffineTransform(parent.transform);
+		this.deviceClip = parent.deviceClip;
+		this.color = parent.color;
+		this.paint = parent.paint;
+		this.font = parent.font;
+		this.stroke = parent.stroke;
+		this.composite = parent.composite;
+		this.background = parent.background;
+		this.hints = (RenderingHints) parent.hints.clone();
+	}
+
+	/**
+	 * Start a new recording with the initial state. The buffer has to be reset before. Called for
+	 * the graphics of {@link CommandBuffer#record()} only.
+	 */
+	void restart()
+	{
+
+		disposed = false;
+
+		transform.setToIdentity();
+		deviceClip = null;
+		color = shadow.getColor();
+		paint = shadow.getPaint();
+		font = shadow.getFont();
+		stroke = defaultStroke;
+		composite = shadow.getComposite();
+		background = shadow.getBackground();
+		hints.clear();
+		hints.putAll(defaultHints);
+	}
+
+	public CommandBuffer getCommandBuffer()
+	{
+		return buffer;
+	}
+
+	@Override
+	public Graphics create()
+	{
+
+		RecordingGraphics child = new RecordingGraphics(this);
+
+		buffer.command(CommandBuffer.CREATE, id);
+		buffer.addInt(child.id);
+
+		return child;
+	}
+
+	@Override
+	public void dispose()
+	{
+
+		if (disposed)
+		{
+			return;
+		}
+
+		disposed = true;
+		buffer.command(CommandBuffer.DISPOSE, id);
+	}
+
+	// State
+
+	@Override
+	public void setColor(Color c)
+	{
+
+		if (c == null)
+		{
+			return;
+		}
+
+		color = c;
+		paint = c;
+		buffer.command(CommandBuffer.SET_COLOR, id);
+		buffer.addObject(c);
+	}
+
+	@Override
+	public Color getColor()
+	{
+		return color;
+	}
+
+	@Override
+	public void setPaint(Paint paint)
+	{
+
+		if (paint == null)
+		{
+			return;
+		}
+
+		if (paint instanceof Color)
+		{
+			setColor((Color) paint);
+			return;
+		}
+
+		this.paint = paint;
+		buffer.command(CommandBuffer.SET_PAINT, id);
+		buffer.addObject(paint);
+	}
+
+	@Override
+	public Paint getPaint()
+	{
+		return paint;
+	}
+
+	@Override
+	public void setStroke(Stroke s)
+	{
+
+		if (s == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		stroke = s;
+		buffer.command(CommandBuffer.SET_STROKE, id);
+		buffer.addObject(s);
+	}
+
+	@Override
+	public Stroke getStroke()
+	{
+		return stroke;
+	}
+
+	@Override
+	public void setFont(Font font)
+	{
+
+		if (font == null)
+		{
+			return;
+		}
+
+		this.font = font;
+		buffer.command(CommandBuffer.SET_FONT, id);
+		buffer.addObject(font);
+	}
+
+	@Override
+	public Font getFont()
+	{
+		return font;
+	}
+
+	@Override
+	public void setComposite(Composite comp)
+	{
+
+		if (comp == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		composite = comp;
+		buffer.command(CommandBuffer.SET_COMPOSITE, id);
+		buffer.addObject(comp);
+	}
+
+	@Override
+	public Composite getComposite()
+	{
+		return composite;
+	}
+
+	@Override
+	public void setBackground(Color color)
+	{
+
+		background = color;
+		buffer.command(CommandBuffer.SET_BACKGROUND, id);
+		buffer.addObject(color);
+	}
+
+	@Override
+	public Color getBackground()
+	{
+		return background;
+	}
+
+	@Override
+	public void setPaintMode()
+	{
+		buffer.command(CommandBuffer.SET_PAINT_MODE, id);
+	}
+
+	@Override
+	public void setXORMode(Color c1)
+	{
+
+		buffer.command(CommandBuffer.SET_XOR_MODE, id);
+		buffer.addObject(c1);
+	}
+
+	@Override
+	public void setRenderingHint(Key hintKey, Object hintValue)
+	{
+
+		hints.put(hintKey, hintValue);
+		buffer.command(CommandBuffer.SET_RENDERING_HINT, id);
+		buffer.addObject(hintKey);
+		buffer.addObject(hintValue);
+	}
+
+	@Override
+	public Object getRenderingHint(Key hintKey)
+	{
+		return hints.get(hintKey);
+	}
+
+	@Override
+	public void setRenderingHints(Map<?, ?> hints)
+	{
+
+		RenderingHints copy = new RenderingHints(null);
+		copy.putAll(hints);
+
+		this.hints = (RenderingHints) defaultHints.clone();
+		this.hints.putAll(copy);
+		buffer.command(CommandBuffer.SET_RENDERING_HINTS, id);
+		buffer.addObject(copy);
+	}
+
+	@Override
+	public void addRenderingHints(Map<?, ?> hints)
+	{
+
+		RenderingHints copy = new RenderingHints(null);
+		copy.putAll(hints);
+
+		this.hints.putAll(copy);
+		buffer.command(CommandBuffer.ADD_RENDERING_HINTS, id);
+		buffer.addObject(copy);
+	}
+
+	@Override
+	public RenderingHints getRenderingHints()
+	{
+		return (RenderingHints) hints.clone();
+	}
+
+	// Transformation
+
+	@Override
+	public void translate(int x, int y)
+	{
+		translate((double) x, (double) y);
+	}
+
+	@Override
+	public void translate(double tx, double ty)
+	{
+
+		transform.translate(tx, ty);
+		buffer.command(CommandBuffer.TRANSLATE, id);
+		buffer.addDouble(tx);
+		buffer.addDouble(ty);
+	}
+
+	@Override
+	public void rotate(double theta)
+	{
+
+		transform.rotate(theta);
+		buffer.command(CommandBuffer.ROTATE, id);
+		buffer.addDouble(theta);
+	}
+
+	@Override
+	public void rotate(double theta, double x, double y)
+	{
+
+		transform.rotate(theta, x, y);
+		buffer.command(CommandBuffer.ROTATE_AROUND, id);
+		buffer.addDouble(theta);
+		buffer.addDouble(x);
+		buffer.addDouble(y);
+	}
+
+	@Override
+	public void scale(double sx, double sy)
+	{
+
+		transform.scale(sx, sy);
+		buffer.command(CommandBuffer.SCALE, id);
+		buffer.addDouble(sx);
+		buffer.addDouble(sy);
+	}
+
+	@Override
+	public void shear(double shx, double shy)
+	{
+
+		transform.shear(shx, shy);
+		buffer.command(CommandBuffer.SHEAR, id);
+		buffer.addDouble(shx);
+		buffer.addDouble(shy);
+	}
+
+	@Override
+	public void transform(AffineTransform Tx)
+	{
+
+		transform.concatenate(Tx);
+		buffer.command(CommandBuffer.TRANSFORM, id);
+		addTransform(Tx);
+	}
+
+	@Override
+	public void setTransform(AffineTransform Tx)
+	{
+
+		transform.setTransform(Tx);
+		buffer.command(CommandBuffer.SET_TRANSFORM, id);
+		addTransform(Tx);
+	}
+
+	@Override
+	public AffineTransform getTransform()
+	{
+		return new AffineTransform(transform);
+	}
+
+	private void addTransform(AffineTransform tx)
+	{
+
+		tx.getMatrix(matrix);
+		for (int i = 0; i < matrix.length; i++)
+		{
+			buffer.addDouble(matrix[i]);
+		}
+	}
+
+	// Clip
+
+	@Override
+	public void clip(Shape s)
+	{
+
+		if (s == null)
+		{
+			setClip(null);
+			return;
+		}
+
+		Shape copy = copyShape(s);
+		intersectClip(copy);
+		buffer.command(CommandBuffer.CLIP, id);
+		buffer.addObject(copy);
+	}
+
+	@Override
+	public void clipRect(int x, int y, int width, int height)
+	{
+
+		intersectClip(new Rectangle(x, y, width, height));
+		buffer.command(CommandBuffer.CLIP_RECT, id);
+		buffer.addInt(x);
+		buffer.addInt(y);
+		buffer.addInt(width);
+		buffer.addInt(height);
+	}
+
+	@Override
+	public void setClip(int x, int y, int width, int height)
+	{
+		setClip(new Rectangle(x, y, width, height));
+	}
+
+	@Override
+	public void setClip(Shape clip)
+	{
+
+		Shape copy = (clip != null) ? copyShape(clip) : null;
+		deviceClip = (copy != null) ? toDevice(copy) : null;
+		buffer.command(CommandBuffer.SET_CLIP, id);
+		buffer.addObject(copy);
+	}
+
+	@Override
+	public Shape getClip()
+	{
+
+		if (deviceClip == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return transform.createInverse().createTransformedShape(deviceClip);
+		}
+		catch (NoninvertibleTransformException e)
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public Rectangle getClipBounds()
+	{
+
+		Shape clip = getClip();
+		return (clip != null) ? clip.getBounds() : null;
+	}
+
+	private void intersectClip(Shape userClip)
+	{
+
+		Shape clip = toDevice(userClip);
+		if (deviceClip == null)
+		{
+			deviceClip = clip;
+		}
+		else if (deviceClip instanceof Rectangle2D && clip instanceof Rectangle2D)
+		{
+			deviceClip = ((Rectangle2D) deviceClip).createIntersection((Rectangle2D) clip);
+		}
+		else
+		{
+
+			Area area = new Area(deviceClip);
+			area.intersect(new Area(clip));
+			deviceClip = area;
+		}
+	}
+
+	private Shape toDevice(Shape userClip)
+	{
+
+		if (transform.isIdentity())
+		{
+			return userClip;
+		}
+
+		if ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0 && userClip instanceof Rectangle2D)
+		{
+
+			Rectangle2D rectangle = (Rectangle2D) userClip;
+			return new Rectangle2D.Double(rectangle.getX() + transform.getTranslateX(), rectangle.getY()
+				+ transform.getTranslateY(), rectangle.getWidth(), rectangle.getHeight());
+		}
+
+		return transform.createTransformedShape(userClip);
+	}
+
+	/**
+	 * Callers often reuse their shapes, so they are copied
+	 */
+	private static Shape copyShape(Shape s)
+	{
+
+		if (s instanceof RectangularShape)
+		{
+			return (Shape) ((RectangularShape) s).clone();
+		}
+		if (s instanceof Line2D)
+		{
+			return (Shape) ((Line2D) s).clone();
+		}
+		if (s instanceof Path2D)
+		{
+			return (Shape) ((Path2D) s).clone();
+		}
+		if (s instanceof Area)
+		{
+			return (Shape) ((Area) s).clone();
+		}
+		if (s instanceof Polygon)
+		{
+
+			Polygon polygon = (Polygon) s;
+			return new Polygon(polygon.xpoints, polygon.ypoints, polygon.npoints);
+		}
+
+		return new Path2D.Double(s);
+	}
+
+	// Drawing
+
+	@Override
+	public void draw(Shape s)
+	{
+
+		buffer.command(CommandBuffer.DRAW, id);
+		buffer.addObject(copyShape(s));
+	}
+
+	@Override
+	public void fill(Shape s)
+	{
+
+		buffer.command(CommandBuffer.FILL, id);
+		buffer.addObject(copyShape(s));
+	}
+
+	@Override
+	public void drawLine(int x1, int y1, int x2, int y2)
+	{
+		addInts(CommandBuffer.DRAW_LINE, x1, y1, x2, y2);
+	}
+
+	@Override
+	public void drawRect(int x, int y, int width, int height)
+	{
+		addInts(CommandBuffer.DRAW_RECT, x, y, width, height);
+	}
+
+	@Override
+	public void fillRect(int x, int y, int width, int height)
+	{
+		addInts(CommandBuffer.FILL_RECT, x, y, width, height);
+	}
+
+	@Override
+	public void clearRect(int x, int y, int width, int height)
+	{
+		addInts(CommandBuffer.CLEAR_RECT, x, y, width, height);
+	}
+
+	@Override
+	public void drawOval(int x, int y, int width, int height)
+	{
+		addInts(CommandBuffer.DRAW_OVAL, x, y, width, height);
+	}
+
+	@Override
+	public void fillOval(int x, int y, int width, int height)
+	{
+		addInts(CommandBuffer.FILL_OVAL, x, y, width, height);
+	}
+
+	@Override
+	public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight)
+	{
+
+		addInts(CommandBuffer.DRAW_ROUND_RECT, x, y, width, height);
+		buffer.addInt(arcWidth);
+		buffer.addInt(arcHeight);
+	}
+
+	@Override
+	public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight)
+	{
+
+		addInts(CommandBuffer.FILL_ROUND_RECT, x, y, width, height);
+		buffer.addInt(arcWidth);
+		buffer.addInt(arcHeight);
+	}
+
+	@Override
+	public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle)
+	{
+
+		addInts(CommandBuffer.DRAW_ARC, x, y, width, height);
+		buffer.addInt(startAngle);
+		buffer.addInt(arcAngle);
+	}
+
+	@Override
+	public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle)
+	{
+
+		addInts(CommandBuffer.FILL_ARC, x, y, width, height);
+		buffer.addInt(startAngle);
+		buffer.addInt(arcAngle);
+	}
+
+	@Override
+	public void copyArea(int x, int y, int width, int height, int dx, int dy)
+	{
+
+		addInts(CommandBuffer.COPY_AREA, x, y, width, height);
+		buffer.addInt(dx);
+		buffer.addInt(dy);
+	}
+
+	private void addInts(int command, int a, int b, int c, int d)
+	{
+
+		buffer.command(command, id);
+		buffer.addInt(a);
+		buffer.addInt(b);
+		buffer.addInt(c);
+		buffer.addInt(d);
+	}
+
+	@Override
+	public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints)
+	{
+		addPolygon(CommandBuffer.DRAW_POLYLINE, xPoints, yPoints, nPoints);
+	}
+
+	@Override
+	public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints)
+	{
+		addPolygon(CommandBuffer.DRAW_POLYGON, xPoints, yPoints, nPoints);
+	}
+
+	@Override
+	public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints)
+	{
+		addPolygon(CommandBuffer.FILL_POLYGON, xPoints, yPoints, nPoints);
+	}
+
+	private void addPolygon(int command, int[] xPoints, int[] yPoints, int nPoints)
+	{
+
+		buffer.command(command, id);
+		buffer.addInt(nPoints);
+		buffer.addObject(Arrays.copyOf(xPoints, nPoints));
+		buffer.addObject(Arrays.copyOf(yPoints, nPoints));
+	}
+
+	@Override
+	public void drawString(String str, int x, int y)
+	{
+
+		if (str == null)
+		{
+			throw new NullPointerException("String is null");
+		}
+
+		buffer.command(CommandBuffer.DRAW_STRING_INT, id);
+		buffer.addObject(str);
+		buffer.addInt(x);
+		buffer.addInt(y);
+	}
+
+	@Override
+	public void drawString(String str, float x, float y)
+	{
+
+		if (str == null)
+		{
+			throw new NullPointerException("String is null");
+		}
+
+		buffer.command(CommandBuffer.DRAW_STRING, id);
+		buffer.addObject(str);
+		buffer.addDouble(x);
+		buffer.addDouble(y);
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, int x, int y)
+	{
+		drawString(iterator, (float) x, (float) y);
+	}
+
+	@Override
+	public void drawString(AttributedCharacterIterator iterator, float x, float y)
+	{
+
+		if (iterator == null)
+		{
+			throw new NullPointerException("AttributedCharacterIterator is null");
+		}
+
+		buffer.command(CommandBuffer.DRAW_ATTRIBUTED_STRING, id);
+		buffer.addObject(new AttributedString(iterator));
+		buffer.addDouble(x);
+		buffer.addDouble(y);
+	}
+
+	@Override
+	public void drawGlyphVector(GlyphVector g, float x, float y)
+	{
+
+		buffer.command(CommandBuffer.DRAW_GLYPH_VECTOR, id);
+		buffer.addObject(g);
+		buffer.addDouble(x);
+		buffer.addDouble(y);
+	}
+
+	@Override
+	public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs)
+	{
+
+		if (img == null)
+		{
+			return true;
+		}
+
+		buffer.command(CommandBuffer.DRAW_IMAGE_TRANSFORMED, id);
+		buffer.addObject(img);
+		addTransform((xform != null) ? xform : new AffineTransform());
+		return true;
+	}
+
+	@Override
+	public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y)
+	{
+
+		if (img == null)
+		{
+			return;
+		}
+
+		buffer.command(CommandBuffer.DRAW_IMAGE_OP, id);
+		buffer.addObject(img);
+		buffer.addObject(op);
+		buffer.addInt(x);
+		buffer.addInt(y);
+	}
+
+	@Override
+	public void drawRenderedImage(RenderedImage img, AffineTransform xform)
+	{
+
+		if (img == null)
+		{
+			return;
+		}
+
+		buffer.command(CommandBuffer.DRAW_RENDERED_IMAGE, id);
+		buffer.addObject(img);
+		addTransform((xform != null) ? xform : new AffineTransform());
+	}
+
+	@Override
+	public void drawRenderableImage(RenderableImage img, AffineTransform xform)
+	{
+
+		if (img == null)
+		{
+			return;
+		}
+
+		buffer.command(CommandBuffer.DRAW_RENDERABLE_IMAGE, id);
+		buffer.addObject(img);
+		addTransform((xform != null) ? xform : new AffineTransform());
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, ImageObserver observer)
+	{
+		return drawImage(img, x, y, null, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer)
+	{
+
+		if (img == null)
+		{
+			return true;
+		}
+
+		buffer.command(CommandBuffer.DRAW_IMAGE, id);
+		buffer.addObject(img);
+		buffer.addObject(bgcolor);
+		buffer.addInt(x);
+		buffer.addInt(y);
+		return true;
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer)
+	{
+		return drawImage(img, x, y, width, height, null, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor, ImageObserver observer)
+	{
+
+		if (img == null)
+		{
+			return true;
+		}
+
+		buffer.command(CommandBuffer.DRAW_IMAGE_SCALED, id);
+		buffer.addObject(img);
+		buffer.addObject(bgcolor);
+		buffer.addInt(x);
+		buffer.addInt(y);
+		buffer.addInt(width);
+		buffer.addInt(height);
+		return true;
+	}
+
+	@Override
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+		ImageObserver observer)
+	{
+		return drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null, observer);
+	}
+
+	@Override
+	public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2, int sx1, int sy1, int sx2, int sy2,
+		Color bgcolor, ImageObserver observer)
+	{
+
+		if (img == null)
+		{
+			return true;
+		}
+
+		addInts(CommandBuffer.DRAW_IMAGE_AREA, dx1, dy1, dx2, dy2);
+		buffer.addInt(sx1);
+		buffer.addInt(sy1);
+		buffer.addInt(sx2);
+		buffer.addInt(sy2);
+		buffer.addObject(img);
+		buffer.addObject(bgcolor);
+		return true;
+	}
+
+	// Queries
+
+	@Override
+	public GraphicsConfiguration getDeviceConfiguration()
+	{
+		return shadow.getDeviceConfiguration();
+	}
+
+	@Override
+	public FontRenderContext getFontRenderContext()
+	{
+
+		syncShadow();
+		return shadow.getFontRenderContext();
+	}
+
+	@Override
+	public FontMetrics getFontMetrics(Font f)
+	{
+
+		syncShadow();
+		return shadow.getFontMetrics(f);
+	}
+
+	@Override
+	public boolean hit(Rectangle rect, Shape s, boolean onStroke)
+	{
+
+		syncShadow();
+		shadow.setStroke(stroke);
+		return shadow.hit(rect, s, onStroke);
+	}
+
+	/**
+	 * Text metrics depend on the transformation and some hints
+	 */
+	private void syncShadow()
+	{
+
+		shadow.setTransform(transform);
+		syncHint(RenderingHints.KEY_ANTIALIASING);
+		syncHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		syncHint(RenderingHints.KEY_FRACTIONALMETRICS);
+	}
+
+	private void syncHint(Key key)
+	{
+
+		Object value = hints.get(key);
+		if (value != null)
+		{
+			shadow.setRenderingHint(key, value);
+		}
+	}
+}
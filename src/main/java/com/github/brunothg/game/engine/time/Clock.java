@@ -1,10 +1,16 @@
 package com.github.brunothg.game.engine.time;
 
-import javax.swing.event.EventListenerList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 
- * A FPS pulser.
+ * A FPS pulser. The clock's loop does not lock or allocate anything, so a
+ * running clock does not produce any garbage itself. Listeners are held in
+ * copy-on-write arrays, registering them is more expensive than dispatching.
  * 
  * @author Marvin Bruns
  *
@@ -17,21 +23,56 @@ public class Clock extends Thread {
 	public static final int FPS_FAST = 60;
 	public static final int FPS_AS_FAST_AS_POSSIBLE = -1;
 
+	public static final int UPS_DISABLED = 0;
+	public static final int DEFAULT_MAX_UPDATE_STEPS = 5;
+
+	/**
+	 * Returned by {@link #step()} if there's no need to wait
+	 */
+	static final long NO_DEADLINE = Long.MIN_VALUE;
+
 	// Different States of this clock's thread
+	private static final int STATE_NEW = 0x0;
 	private static final int STATE_RUNNING = 0x1;
 	private static final int STATE_PAUSED = 0x2;
 	private static final int STATE_TERMINATED = 0x3;
 
-	private EventListenerList listenerList = new EventListenerList();
+	private static final ListenerEntry[] NO_LISTENERS = new ListenerEntry[0];
+	private static final ClockUpdateListener[] NO_UPDATE_LISTENERS = new ClockUpdateListener[0];
 
-	private volatile double framesPerSecond;
+	private final Object listenerLock = new Object();
+	private volatile ListenerEntry[] listeners = NO_LISTENERS;
+	private volatile ClockUpdateListener[] updateListeners = NO_UPDATE_LISTENERS;
+
+	/**
+	 * Negative if as fast as possible
+	 */
 	private volatile long nanosecondsPerFrame;
 	private volatile long time;
-	private volatile long elapsedTime;
-
-	private volatile int state;
-
-	private Object pauseLock = new Object();
+	private long elapsedTime;
+
+	private volatile long nanosecondsPerUpdate;
+	private volatile int maxUpdateSteps = DEFAULT_MAX_UPDATE_STEPS;
+	private long updateTime;
+	private volatile double interpolation;
+
+	private final AtomicInteger state = new AtomicInteger(STATE_NEW);
+
+	private final TimeSource timeSource;
+	private final EngineScheduler scheduler;
+	private volatile FramePacer framePacer = new SleepFramePacer();
+	private volatile long frameCount;
+	private volatile boolean prepared;
+	private final TimeHistogram jitterHistogram = new TimeHistogram();
+	private final ClockMetrics metrics = new ClockMetrics(this);
+	private volatile ForkJoinPool dispatchPool;
+	private volatile FrameRateGovernor governor;
+	private long skippedFrames;
+	private long skippedTime;
+	private final TimerWheel timerWheel = new TimerWheel();
+	private long stepStartTime;
+
+	private final Object pauseLock = new Object();
 
 	public Clock() {
 
@@ -40,31 +81,85 @@ public class Clock extends Thread {
 
 	public Clock(int framesPerSecond) {
 
+		this(framesPerSecond, TimeSource.SYSTEM);
+	}
+
+	/**
+	 * 
+	 * @param framesPerSecond
+	 *            FPS or negative(as fast as possible)
+	 * @param timeSource
+	 *            Source of time used by this clock. Use a
+	 *            {@link VirtualTimeSource} for deterministic simulations.
+	 */
+	public Clock(int framesPerSecond, TimeSource timeSource) {
+
+		this(framesPerSecond, timeSource, null);
+	}
+
+	/**
+	 * A clock driven by a shared {@link EngineScheduler} instead of its own thread.
+	 * Calling {@link #start()} registers the clock with the scheduler. A clock
+	 * running as fast as possible is stepped at most every
+	 * {@link EngineScheduler#MIN_STEP_INTERVAL}.
+	 * 
+	 * @param framesPerSecond
+	 *            FPS or negative(as fast as possible)
+	 * @param scheduler
+	 *            The scheduler driving this clock or null for an own thread
+	 */
+	public Clock(int framesPerSecond, EngineScheduler scheduler) {
+
+		this(framesPerSecond, (scheduler != null) ? scheduler.getTimeSource() : TimeSource.SYSTEM, scheduler);
+	}
+
+	private Clock(int framesPerSecond, TimeSource timeSource, EngineScheduler scheduler) {
+
 		super("ClockThread - " + System.nanoTime());
 
+		if (timeSource == null) {
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.timeSource = timeSource;
+		this.scheduler = scheduler;
 		setFramesPerSecond(framesPerSecond);
 	}
 
+	/**
+	 * Starts the clock. If this clock uses an {@link EngineScheduler} no thread is
+	 * started, the clock is registered with the scheduler instead.
+	 */
+	@Override
+	public synchronized void start() {
+
+		if (scheduler == null) {
+			super.start();
+			return;
+		}
+
+		if (prepared) {
+			throw new IllegalThreadStateException("Clock already started");
+		}
+
+		prepare();
+		if (state.compareAndSet(STATE_NEW, STATE_RUNNING)) {
+			scheduler.schedule(this);
+		}
+	}
+
 	@Override
 	public void run() {
 
-		state = STATE_RUNNING;
-		elapsedTime = 0;
-		setTime(System.nanoTime());
+		state.compareAndSet(STATE_NEW, STATE_RUNNING);
+		prepare();
 
 		while (true) {
 			int state = getStatus();
 
 			if (state == STATE_PAUSED) {
 
-				synchronized (pauseLock) {
-					try {
-						pauseLock.wait();
-					} catch (InterruptedException e) {
-						interrupt();
-					}
-				}
-
+				waitWhilePaused();
 			} else if (state == STATE_RUNNING) {
 
 				running();
@@ -73,65 +168,210 @@ public class Clock extends Thread {
 				break;
 			}
 		}
+	}
 
-		setStatus(STATE_TERMINATED);
+	/**
+	 * Run this clock in the calling thread until the given number of frames has
+	 * been ticked. The clock must not have been started. Together with a
+	 * {@link VirtualTimeSource} this runs a simulation as fast as possible with
+	 * exact and repeatable covered times. Stops early if the clock is paused or
+	 * destroyed.
+	 * 
+	 * @param frames
+	 *            Number of frames to simulate
+	 * @return Number of frames actually simulated
+	 */
+	public long simulate(long frames) {
+		if (isAlive() || (scheduler != null && prepared)) {
+			throw new IllegalStateException("Clock thread is already running");
+		}
+
+		prepare();
+
+		long startFrame = frameCount;
+		long targetFrame = startFrame + frames;
+		while (frameCount < targetFrame) {
+			int state = getStatus();
+
+			if (state != STATE_NEW && state != STATE_RUNNING) {
+				break;
+			}
+
+			running();
+		}
+
+		return frameCount - startFrame;
+	}
+
+	private void prepare() {
+
+		if (prepared) {
+			return;
+		}
+		prepared = true;
+
+		elapsedTime = 0;
+		updateTime = 0;
+		setTime(timeSource.nanoTime());
+	}
+
+	/**
+	 * Check if this clock is driven by an {@link EngineScheduler}
+	 * 
+	 * @return The scheduler driving this clock or null if it has an own thread
+	 */
+	public EngineScheduler getScheduler() {
+
+		return this.scheduler;
+	}
+
+	/**
+	 * Check if this clock is running, so {@link #step()} may be called
+	 */
+	boolean isRunning() {
+
+		return getStatus() == STATE_RUNNING;
+	}
+
+	/**
+	 * Record the time a scheduler started {@link #step()} too late
+	 */
+	void recordJitter(long lateness) {
+
+		jitterHistogram.record(lateness);
+	}
+
+	private void waitWhilePaused() {
+
+		synchronized (pauseLock) {
+			while (getStatus() == STATE_PAUSED) {
+				try {
+					pauseLock.wait();
+				} catch (InterruptedException e) {
+					// State is checked again
+				}
+			}
+		}
 	}
 
 	private void running() {
 
-		double framesPerSecond;
-		long nanosecondsPerFrame;
-		long time;
+		long deadline = step();
+		if (deadline == NO_DEADLINE) {
+			return;
+		}
 
-		// Fetch all synchronized values
-		synchronized (this) {
-			framesPerSecond = getFramesPerSecond();
-			nanosecondsPerFrame = getNanosecondsPerFrame();
-			time = getTime();
+		// Wait for the next frame boundary
+		try {
+			timeSource.waitUntil(deadline, getFramePacer());
+			jitterHistogram.record(timeSource.nanoTime() - deadline);
+		} catch (InterruptedException e) {
+			// Woken up by a state change, that is handled by the main loop
 		}
+	}
+
+	/**
+	 * Runs one iteration of this clock without waiting.
+	 * 
+	 * @return Time of the next frame boundary or {@link #NO_DEADLINE} if the next
+	 *         iteration should run immediately
+	 */
+	long step() {
+
+		long nanosecondsPerFrame = getNanosecondsPerFrame();
 
 		// Calculate time values
-		long nanoSystemTime = System.nanoTime();
-		elapsedTime += nanoSystemTime - time;
+		long nanoSystemTime = timeSource.nanoTime();
+		stepStartTime = nanoSystemTime;
+		long deltaTime = nanoSystemTime - getTime();
+		elapsedTime += deltaTime;
+
+		runUpdates(deltaTime);
+		timerWheel.advance(deltaTime);
 
 		// As fast as possible
-		if (framesPerSecond < 0) {
-			runAsFastAsPossible(nanoSystemTime);
+		if (nanosecondsPerFrame < 0) {
+			return runAsFastAsPossible(nanoSystemTime);
 		} else {
 
-			runNormalFps(nanosecondsPerFrame, nanoSystemTime);
+			return runNormalFps(nanosecondsPerFrame, nanoSystemTime);
 		}
 	}
 
-	private void runNormalFps(long nanosecondsPerFrame, long nanoSystemTime) {
+	/**
+	 * Runs the fixed time step logic updates covered by the given time. At most
+	 * {@link #getMaxUpdateSteps()} updates are run, the remaining time is dropped. So a slow
+	 * machine slows down the game instead of falling behind more and more.
+	 * 
+	 * @param deltaTime
+	 *            Time since the last call
+	 */
+	private void runUpdates(long deltaTime) {
+
+		long nanosecondsPerUpdate = getNanosecondsPerUpdate();
+		if (nanosecondsPerUpdate <= 0) {
+			return;
+		}
+
+		updateTime += deltaTime;
+
+		int maxUpdateSteps = getMaxUpdateSteps();
+		int steps = 0;
+		while (updateTime >= nanosecondsPerUpdate && steps < maxUpdateSteps) {
+			update(nanosecondsPerUpdate);
+
+			updateTime -= nanosecondsPerUpdate;
+			steps++;
+		}
+
+		// Too far behind -> drop the backlog
+		if (updateTime >= nanosecondsPerUpdate) {
+			metrics.recordDroppedUpdates(updateTime / nanosecondsPerUpdate);
+			updateTime %= nanosecondsPerUpdate;
+		}
+
+		interpolation = updateTime / (double) nanosecondsPerUpdate;
+	}
+
+	private long runNormalFps(long nanosecondsPerFrame, long nanoSystemTime) {
 		long frames = elapsedTime / nanosecondsPerFrame;
 		long coveredTime = frames * nanosecondsPerFrame;
 
 		if (frames > 0) {
-			tick(frames, coveredTime);
+
+			FrameRateGovernor governor = this.governor;
+			if (governor != null && governor.skipFrame()) {
+				// The next tick covers the skipped frames
+				skippedFrames += frames;
+				skippedTime += coveredTime;
+				metrics.recordSkippedFrames(frames);
+			} else {
+
+				tick(frames + skippedFrames, coveredTime + skippedTime);
+				skippedFrames = 0;
+				skippedTime = 0;
+
+				if (governor != null) {
+					governor.frameFinished(this, timeSource.nanoTime() - stepStartTime);
+				}
+			}
 		}
 
 		// Prepare for next round
 		elapsedTime -= coveredTime;
 		setTime(nanoSystemTime);
 
-		long waitTime = nanosecondsPerFrame - elapsedTime;
-		long waitTimeMillis = (long) TimeUtils.Milliseconds(waitTime);
-		int waitTimeNanos = (int) (waitTime - TimeUtils.NanosecondsOfMilliseconds(waitTimeMillis));
-
-		try {
-			sleep(waitTimeMillis, waitTimeNanos);
-		} catch (InterruptedException e) {
-			interrupt();
-		}
+		return nanoSystemTime + (nanosecondsPerFrame - elapsedTime);
 	}
 
-	private void runAsFastAsPossible(long nanoSystemTime) {
+	private long runAsFastAsPossible(long nanoSystemTime) {
 		tick(1, elapsedTime);
 
 		// Prepare for next round
 		elapsedTime = 0;
 		setTime(nanoSystemTime);
+
+		return NO_DEADLINE;
 	}
 
 	/**
@@ -144,34 +384,333 @@ public class Clock extends Thread {
 	 */
 	private void tick(long frames, long coveredTime) {
 
-		synchronized (listenerList) {
-			ClockListener[] listeners = listenerList.getListeners(ClockListener.class);
+		ListenerEntry[] listeners = this.listeners;
+		ForkJoinPool dispatchPool = this.dispatchPool;
+		frameCount += frames;
 
-			for (ClockListener cl : listeners) {
+		if (dispatchPool != null && listeners.length > 1) {
+			tickParallel(dispatchPool, listeners, frames, coveredTime);
+		} else {
 
-				if (cl == null) {
-					return;
-				}
+			for (int i = 0; i < listeners.length; i++) {
+				listeners[i].tick(frames, coveredTime);
+			}
+		}
 
-				try {
-					cl.tick(frames, coveredTime);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
+		metrics.recordFrame(frames, timeSource.nanoTime() - stepStartTime, getNanosecondsPerFrame());
+	}
+
+	/**
+	 * Ticks all listeners concurrently. The clock's thread ticks the last listener
+	 * itself and waits for all others before the frame ends.
+	 */
+	private void tickParallel(ForkJoinPool dispatchPool, ListenerEntry[] listeners, long frames,
+			long coveredTime) {
+
+		int last = listeners.length - 1;
+		for (int i = 0; i < last; i++) {
+
+			ListenerEntry entry = listeners[i];
+			entry.prepare(frames, coveredTime);
+			dispatchPool.execute(entry);
+		}
+
+		listeners[last].tick(frames, coveredTime);
+
+		// Frame barrier
+		for (int i = 0; i < last; i++) {
+			listeners[i].join();
+		}
+	}
+
+	/**
+	 * Fixed time step logic update
+	 * 
+	 * @param stepTime
+	 *            Time covered by this update
+	 */
+	private void update(long stepTime) {
+
+		ClockUpdateListener[] updateListeners = this.updateListeners;
+
+		for (int i = 0; i < updateListeners.length; i++) {
+
+			try {
+				updateListeners[i].update(stepTime);
+			} catch (Exception e) {
+				e.printStackTrace();
 			}
 		}
 	}
 
 	public void addClockListener(ClockListener cl) {
-		synchronized (listenerList) {
-			listenerList.add(ClockListener.class, cl);
+		if (cl == null) {
+			return;
+		}
+
+		synchronized (listenerLock) {
+			listeners = add(listeners, new ListenerEntry(cl));
 		}
 	}
 
 	public void removeClockListener(ClockListener cl) {
-		synchronized (listenerList) {
-			listenerList.remove(ClockListener.class, cl);
+		synchronized (listenerLock) {
+			ListenerEntry[] listeners = this.listeners;
+
+			for (int i = listeners.length - 1; i >= 0; i--) {
+				if (listeners[i].listener == cl) {
+
+					this.listeners = remove(listeners, listeners[i], NO_LISTENERS);
+					break;
+				}
+			}
+		}
+	}
+
+	public void addClockUpdateListener(ClockUpdateListener ul) {
+		if (ul == null) {
+			return;
+		}
+
+		synchronized (listenerLock) {
+			updateListeners = add(updateListeners, ul);
+		}
+	}
+
+	public void removeClockUpdateListener(ClockUpdateListener ul) {
+		synchronized (listenerLock) {
+			updateListeners = remove(updateListeners, ul, NO_UPDATE_LISTENERS);
+		}
+	}
+
+	/**
+	 * Get the time spent in every registered {@link ClockListener}. Unlike the
+	 * frame times these are always measured on the wall clock.
+	 * 
+	 * @return Timings in order of registration
+	 * @see #getMetrics()
+	 */
+	public ListenerTiming[] getListenerTimings() {
+
+		ListenerEntry[] listeners = this.listeners;
+		ListenerTiming[] timings = new ListenerTiming[listeners.length];
+
+		for (int i = 0; i < listeners.length; i++) {
+			timings[i] = listeners[i].timing();
+		}
+
+		return timings;
+	}
+
+	void resetListenerTimings() {
+
+		ListenerEntry[] listeners = this.listeners;
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].reset();
+		}
+	}
+
+	/**
+	 * Copy-on-write add
+	 */
+	private static <T> T[] add(T[] listeners, T listener) {
+
+		T[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+		copy[listeners.length] = listener;
+
+		return copy;
+	}
+
+	/**
+	 * Copy-on-write remove. Removes the last registration of the given listener.
+	 */
+	private static <T> T[] remove(T[] listeners, T listener, T[] empty) {
+
+		for (int i = listeners.length - 1; i >= 0; i--) {
+			if (listeners[i] == listener) {
+
+				if (listeners.length == 1) {
+					return empty;
+				}
+
+				T[] copy = Arrays.copyOf(listeners, listeners.length - 1);
+				System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+
+				return copy;
+			}
 		}
+
+		return listeners;
+	}
+
+	/**
+	 * Get the instrumentation of this clock. It can be registered for JMX with
+	 * {@link ClockMetrics#registerMBean()}. Frame times are measured with this
+	 * clock's {@link TimeSource}, just like the decisions of the
+	 * {@link FrameRateGovernor}.
+	 * 
+	 * @return This clock's metrics
+	 */
+	public ClockMetrics getMetrics() {
+
+		return this.metrics;
+	}
+
+	/**
+	 * Get the pool used for ticking the listeners concurrently
+	 * 
+	 * @return The pool or null if the listeners are ticked one after another
+	 */
+	public ForkJoinPool getDispatchPool() {
+
+		return this.dispatchPool;
+	}
+
+	/**
+	 * Tick all {@link ClockListener}s concurrently on the given pool. The frame
+	 * ends when every listener finished its tick. Only use this if the listeners
+	 * are independent of each other, e.g. several stages showing different
+	 * scenes. Fixed logic updates are still run one after another.
+	 * 
+	 * @param dispatchPool
+	 *            The pool used for ticking or null for ticking one listener after
+	 *            another on the clock's thread (default)
+	 * @see #setParallelDispatch(boolean)
+	 */
+	public void setDispatchPool(ForkJoinPool dispatchPool) {
+
+		this.dispatchPool = dispatchPool;
+	}
+
+	/**
+	 * Tick all {@link ClockListener}s concurrently on the
+	 * {@link ForkJoinPool#commonPool()}.
+	 * 
+	 * @param parallel
+	 *            true for concurrent ticking
+	 * @see #setDispatchPool(ForkJoinPool)
+	 */
+	public void setParallelDispatch(boolean parallel) {
+
+		setDispatchPool(parallel ? ForkJoinPool.commonPool() : null);
+	}
+
+	/**
+	 * Check if the listeners are ticked concurrently
+	 * 
+	 * @return true if a dispatch pool is used
+	 */
+	public boolean isParallelDispatch() {
+
+		return getDispatchPool() != null;
+	}
+
+	/**
+	 * Run a task once on this clock's thread. The delay is measured in game time,
+	 * so the time this clock is paused does not count.
+	 * 
+	 * @param task
+	 *            The task to be run
+	 * @param delay
+	 *            Game time until the task is run
+	 * @param unit
+	 *            Unit of delay
+	 * @return Handle for cancelling the task
+	 */
+	public ScheduledTask schedule(Runnable task, long delay, TimeUnit unit) {
+
+		return timerWheel.schedule(task, unit.toNanos(delay), 0);
+	}
+
+	/**
+	 * Run a task repeatedly on this clock's thread. All times are measured in game
+	 * time, so the time this clock is paused does not count. If a frame covers
+	 * more than one period, the missed runs are made up within that frame.
+	 * 
+	 * @param task
+	 *            The task to be run
+	 * @param initialDelay
+	 *            Game time until the first run
+	 * @param period
+	 *            Game time between two runs (positive)
+	 * @param unit
+	 *            Unit of initialDelay and period
+	 * @return Handle for cancelling the task
+	 */
+	public ScheduledTask scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+
+		if (period <= 0) {
+			throw new IllegalArgumentException("Period must be positive -> " + period);
+		}
+
+		return timerWheel.schedule(task, unit.toNanos(initialDelay), unit.toNanos(period));
+	}
+
+	/**
+	 * Get the number of scheduled tasks, that were neither cancelled nor done
+	 */
+	public int getScheduledTaskCount() {
+
+		return timerWheel.getTaskCount();
+	}
+
+	/**
+	 * Get the game time of this clock. The time this clock was paused does not
+	 * count.
+	 * 
+	 * @return Nanoseconds this clock was running
+	 */
+	public long getGameTime() {
+
+		return timerWheel.getTime();
+	}
+
+	/**
+	 * Get the governor adapting the frame rate
+	 * 
+	 * @return The governor or null
+	 */
+	public FrameRateGovernor getFrameRateGovernor() {
+
+		return this.governor;
+	}
+
+	/**
+	 * Adapt this clock to the cost of its frames. The actual frame rate is the
+	 * upper limit for the governor. Setting a new frame rate afterwards is only
+	 * respected until the governor adapts it again.
+	 * 
+	 * @param governor
+	 *            The governor or null for a fixed frame rate
+	 */
+	public void setFrameRateGovernor(FrameRateGovernor governor) {
+
+		if (governor != null) {
+			governor.attach((int) Math.round(getFramesPerSecond()));
+		}
+
+		this.governor = governor;
+	}
+
+	/**
+	 * Get the {@link TimeSource} used by this clock
+	 * 
+	 * @return The clock's time source
+	 */
+	public TimeSource getTimeSource() {
+
+		return this.timeSource;
+	}
+
+	/**
+	 * Get the number of frames ticked since this clock started. A tick covering
+	 * several frames counts all of them.
+	 * 
+	 * @return Number of frames
+	 */
+	public long getFrameCount() {
+
+		return this.frameCount;
 	}
 
 	/**
@@ -179,9 +718,14 @@ public class Clock extends Thread {
 	 * 
 	 * @return FPS or negative value (as fast as possible)
 	 */
-	public synchronized double getFramesPerSecond() {
+	public double getFramesPerSecond() {
 
-		return this.framesPerSecond;
+		long nanosecondsPerFrame = getNanosecondsPerFrame();
+		if (nanosecondsPerFrame < 0) {
+			return FPS_AS_FAST_AS_POSSIBLE;
+		}
+
+		return TimeUtils.NANOSECONDS_PER_SECOND / (double) nanosecondsPerFrame;
 	}
 
 	/**
@@ -190,72 +734,285 @@ public class Clock extends Thread {
 	 * @param framesPerSecond
 	 *            FPS or negative(as fast as possible)
 	 */
-	public synchronized void setFramesPerSecond(int framesPerSecond) {
+	public void setFramesPerSecond(int framesPerSecond) {
 		if (framesPerSecond == 0) {
 			throw new IllegalArgumentException("0 fps rate not allowed");
 		}
 
-		this.framesPerSecond = framesPerSecond;
-		this.nanosecondsPerFrame = Math.round((TimeUtils.NANOSECONDS_PER_SECOND / this.framesPerSecond));
+		if (framesPerSecond < 0) {
+			this.nanosecondsPerFrame = FPS_AS_FAST_AS_POSSIBLE;
+		} else {
+			this.nanosecondsPerFrame = Math.round(TimeUtils.NANOSECONDS_PER_SECOND / (double) framesPerSecond);
+		}
 	}
 
-	private synchronized long getNanosecondsPerFrame() {
+	private long getNanosecondsPerFrame() {
 
 		return this.nanosecondsPerFrame;
 	}
 
+	/**
+	 * Get the logic updates per second
+	 * 
+	 * @return UPS or {@link #UPS_DISABLED}
+	 * @see #setUpdatesPerSecond(int)
+	 */
+	public double getUpdatesPerSecond() {
+
+		long nanosecondsPerUpdate = getNanosecondsPerUpdate();
+		if (nanosecondsPerUpdate <= 0) {
+			return UPS_DISABLED;
+		}
+
+		return TimeUtils.NANOSECONDS_PER_SECOND / (double) nanosecondsPerUpdate;
+	}
+
+	/**
+	 * Set the fixed logic updates per second. If enabled every {@link ClockUpdateListener} is
+	 * updated with a fixed time step, independent of the frame rate used for the
+	 * {@link ClockListener}s.
+	 * 
+	 * @param updatesPerSecond
+	 *            UPS or {@link #UPS_DISABLED}
+	 * @see #getInterpolation()
+	 */
+	public void setUpdatesPerSecond(int updatesPerSecond) {
+		if (updatesPerSecond < 0) {
+			throw new IllegalArgumentException("Negative ups rate not allowed");
+		}
+
+		if (updatesPerSecond == UPS_DISABLED) {
+			this.nanosecondsPerUpdate = 0;
+		} else {
+			this.nanosecondsPerUpdate = Math.round(TimeUtils.NANOSECONDS_PER_SECOND / (double) updatesPerSecond);
+		}
+	}
+
+	private long getNanosecondsPerUpdate() {
+
+		return this.nanosecondsPerUpdate;
+	}
+
+	/**
+	 * Get the maximum number of logic updates run before a frame is painted.
+	 * 
+	 * @return Maximum catch up steps
+	 */
+	public int getMaxUpdateSteps() {
+
+		return this.maxUpdateSteps;
+	}
+
+	/**
+	 * Set the maximum number of logic updates run before a frame is painted. If the clock falls
+	 * further behind, the remaining time is dropped and the game slows down instead of spending
+	 * all its time catching up.
+	 * 
+	 * @param maxUpdateSteps
+	 *            Maximum catch up steps
+	 */
+	public void setMaxUpdateSteps(int maxUpdateSteps) {
+		if (maxUpdateSteps <= 0) {
+			throw new IllegalArgumentException("At least one update step is required");
+		}
+
+		this.maxUpdateSteps = maxUpdateSteps;
+	}
+
+	/**
+	 * Get the interpolation between the last and the next logic update. Use it in
+	 * {@link ClockListener#tick(long, long)} to paint states between two fixed updates.
+	 * 
+	 * @return Alpha in the range [0, 1) or 0 if fixed updates are disabled
+	 */
+	public double getInterpolation() {
+
+		return (getNanosecondsPerUpdate() <= 0) ? 0 : this.interpolation;
+	}
+
+	/**
+	 * Get the strategy used for waiting between two frames
+	 * 
+	 * @return Actual {@link FramePacer}
+	 */
+	public FramePacer getFramePacer() {
+
+		return this.framePacer;
+	}
+
+	/**
+	 * Change the strategy used for waiting between two frames. The default is a
+	 * {@link SleepFramePacer}. Use {@link HybridFramePacer} for more precise frame
+	 * timing.
+	 * 
+	 * @param framePacer
+	 *            The new {@link FramePacer}
+	 */
+	public void setFramePacer(FramePacer framePacer) {
+		if (framePacer == null) {
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.framePacer = framePacer;
+	}
+
+	/**
+	 * Get the measured frame jitter. Every time the clock waited for a frame boundary,
+	 * the time it woke up too late is recorded. Not used with
+	 * {@link #FPS_AS_FAST_AS_POSSIBLE}.
+	 * 
+	 * @return Live histogram of the jitter (nanoseconds)
+	 */
+	public TimeHistogram getJitterHistogram() {
+
+		return this.jitterHistogram;
+	}
+
 	/**
 	 * Pause or resume the clock
 	 * 
 	 * @param pause
 	 *            if true Clock will be paused
 	 */
-	public synchronized void setPaused(boolean pause) {
+	public void setPaused(boolean pause) {
 
-		if (pause && getStatus() != STATE_PAUSED) {
+		if (pause) {
 
-			setStatus(STATE_PAUSED);
-			interrupt();
-		} else if (getStatus() != STATE_RUNNING) {
+			if (state.compareAndSet(STATE_RUNNING, STATE_PAUSED) || state.compareAndSet(STATE_NEW, STATE_PAUSED)) {
 
-			setStatus(STATE_RUNNING);
+				if (scheduler != null) {
+					scheduler.unschedule(this);
+				} else {
+					interrupt();
+				}
+			}
+		} else {
 
 			synchronized (pauseLock) {
 
-				pauseLock.notifyAll();
-			}
+				if (state.compareAndSet(STATE_PAUSED, STATE_RUNNING)) {
+
+					setTime(timeSource.nanoTime());
+					pauseLock.notifyAll();
 
-			setTime(System.nanoTime());
+					if (scheduler != null && prepared) {
+						scheduler.schedule(this);
+					}
+				}
+			}
 		}
 	}
 
+	/**
+	 * Check if the clock is paused
+	 * 
+	 * @return true if paused
+	 */
+	public boolean isPaused() {
+
+		return getStatus() == STATE_PAUSED;
+	}
+
 	/**
 	 * Stop the clock and terminate the thread. It makes the clock unusable. A clock
 	 * can not be restarted.
 	 */
-	public synchronized void destroy() {
+	public void destroy() {
+
+		synchronized (pauseLock) {
+
+			state.set(STATE_TERMINATED);
+			pauseLock.notifyAll();
+		}
+
+		if (scheduler != null) {
+			scheduler.unschedule(this);
+		} else {
+			interrupt();
+		}
 
-		setStatus(STATE_TERMINATED);
-		interrupt();
+		metrics.unregisterMBean();
 	}
 
-	private synchronized void setTime(long nanoTime) {
+	private void setTime(long nanoTime) {
 
 		this.time = nanoTime;
 	}
 
-	private synchronized long getTime() {
+	private long getTime() {
 
 		return this.time;
 	}
 
-	private synchronized void setStatus(int state) {
+	private int getStatus() {
 
-		this.state = state;
+		return this.state.get();
 	}
 
-	private synchronized int getStatus() {
+	/**
+	 * A registered {@link ClockListener} and the time spent in it. The entry is
+	 * reused as task for parallel dispatch, so only one thread at a time writes the
+	 * values.
+	 */
+	private static final class ListenerEntry extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final ClockListener listener;
 
-		return this.state;
+		private volatile long ticks;
+		private volatile long totalTime;
+		private volatile long maxTime;
+
+		private long frames;
+		private long coveredTime;
+
+		public ListenerEntry(ClockListener listener) {
+			this.listener = listener;
+		}
+
+		public void prepare(long frames, long coveredTime) {
+
+			this.frames = frames;
+			this.coveredTime = coveredTime;
+			reinitialize();
+		}
+
+		@Override
+		protected void compute() {
+
+			tick(frames, coveredTime);
+		}
+
+		public void tick(long frames, long coveredTime) {
+
+			long startTime = System.nanoTime();
+			try {
+				listener.tick(frames, coveredTime);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			record(System.nanoTime() - startTime);
+		}
+
+		private void record(long time) {
+
+			ticks++;
+			totalTime += time;
+			if (time > maxTime) {
+				maxTime = time;
+			}
+		}
+
+		public void reset() {
+
+			ticks = 0;
+			totalTime = 0;
+			maxTime = 0;
+		}
+
+		public ListenerTiming timing() {
+
+			return new ListenerTiming(String.valueOf(listener), ticks, totalTime, maxTime);
+		}
 	}
 }
@@ -0,0 +1,243 @@
+package com.github.brunothg.game.engine.time;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Instrumentation of a {@link Clock}. Measures the time spent per frame and per
+ * {@link ClockListener}, counts late frames and frames that had to be caught up. Recording does
+ * not lock or allocate. Use {@link #snapshot()} for a copy or register this object as
+ * MBean for monitoring. All times are in nanoseconds.
+ *
+ * @see Clock#getMetrics()
+ * @author Marvin Bruns
+ *
+ */
+public class ClockMetrics implements ClockMetricsMXBean
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ClockMetrics.class);
+
+	public static final String JMX_DOMAIN = "com.github.brunothg.game.engine";
+
+	private final Clock clock;
+
+	private final TimeHistogram frameTimes = new TimeHistogram();
+	private final AtomicLong lateFrames = new AtomicLong();
+	private final AtomicLong catchUpFrames = new AtomicLong();
+	private final AtomicLong droppedUpdates = new AtomicLong();
+	private final AtomicLong skippedFrames = new AtomicLong();
+
+	private ObjectName objectName;
+
+	ClockMetrics(Clock clock)
+	{
+		this.clock = clock;
+	}
+
+	/**
+	 * Record a ticked frame
+	 *
+	 * @param frames Frames covered by the tick
+	 * @param frameTime Time spent for updates and the tick
+	 * @param nanosecondsPerFrame Frame budget or negative if as fast as possible
+	 */
+	void recordFrame(long frames, long frameTime, long nanosecondsPerFrame)
+	{
+
+		frameTimes.record(frameTime);
+
+		if (nanosecondsPerFrame > 0 && frameTime > nanosecondsPerFrame)
+		{
+			lateFrames.incrementAndGet();
+		}
+
+		if (frames > 1)
+		{
+			catchUpFrames.addAndGet(frames - 1);
+		}
+	}
+
+	void recordDroppedUpdates(long updates)
+	{
+		droppedUpdates.addAndGet(updates);
+	}
+
+	void recordSkippedFrames(long frames)
+	{
+		skippedFrames.addAndGet(frames);
+	}
+
+	/**
+	 * Get a copy of the actual values
+	 *
+	 * @return Snapshot of the metrics
+	 */
+	public ClockMetricsSnapshot snapshot()
+	{
+		return new ClockMetricsSnapshot(this);
+	}
+
+	/**
+	 * Get the live histogram of frame times
+	 */
+	public TimeHistogram getFrameTimeHistogram()
+	{
+		return frameTimes;
+	}
+
+	@Override
+	public long getFrameCount()
+	{
+		return clock.getFrameCount();
+	}
+
+	@Override
+	public long getMeasuredFrames()
+	{
+		return frameTimes.getCount();
+	}
+
+	@Override
+	public double getFrameTimeMean()
+	{
+		return frameTimes.getMean();
+	}
+
+	@Override
+	public long getFrameTimeP50()
+	{
+		return frameTimes.getPercentile(50);
+	}
+
+	@Override
+	public long getFrameTimeP95()
+	{
+		return frameTimes.getPercentile(95);
+	}
+
+	@Override
+	public long getFrameTimeP99()
+	{
+		return frameTimes.getPercentile(99);
+	}
+
+	@Override
+	public long getFrameTimeMax()
+	{
+		return frameTimes.getMax();
+	}
+
+	@Override
+	public long getLateFrames()
+	{
+		return lateFrames.get();
+	}
+
+	@Override
+	public long getCatchUpFrames()
+	{
+		return catchUpFrames.get();
+	}
+
+	@Override
+	public long getDroppedUpdates()
+	{
+		return droppedUpdates.get();
+	}
+
+	@Override
+	public long getSkippedFrames()
+	{
+		return skippedFrames.get();
+	}
+
+	@Override
+	public long getJitterP99()
+	{
+		return clock.getJitterHistogram().getPercentile(99);
+	}
+
+	@Override
+	public ListenerTiming[] getListenerTimings()
+	{
+		return clock.getListenerTimings();
+	}
+
+	/**
+	 * Reset all measured values including jitter and listener timings
+	 */
+	@Override
+	public void reset()
+	{
+
+		frameTimes.reset();
+		lateFrames.set(0);
+		catchUpFrames.set(0);
+		droppedUpdates.set(0);
+		skippedFrames.set(0);
+
+		clock.getJitterHistogram().reset();
+		clock.resetListenerTimings();
+	}
+
+	/**
+	 * Register these metrics at the platform MBean server. The name is
+	 * <code>com.github.brunothg.game.engine:type=Clock,name=&lt;clock name&gt;</code>
+	 *
+	 * @return The used name or null if the registration failed
+	 */
+	public synchronized ObjectName registerMBean()
+	{
+
+		if (objectName != null)
+		{
+			return objectName;
+		}
+
+		try
+		{
+			ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Clock,name=" + ObjectName.quote(clock.getName()));
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, name);
+
+			objectName = name;
+		}
+		catch (JMException e)
+		{
+			LOG.warn("Could not register clock metrics", e);
+		}
+
+		return objectName;
+	}
+
+	/**
+	 * Remove these metrics from the platform MBean server
+	 */
+	public synchronized void unregisterMBean()
+	{
+
+		if (objectName == null)
+		{
+			return;
+		}
+
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+		catch (JMException e)
+		{
+			LOG.warn("Could not unregister clock metrics", e);
+		}
+
+		objectName = null;
+	}
+}
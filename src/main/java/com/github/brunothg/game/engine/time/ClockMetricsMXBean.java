@@ -0,0 +1,39 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * JMX view of {@link ClockMetrics}. All times are in nanoseconds.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public interface ClockMetricsMXBean
+{
+
+	public long getFrameCount();
+
+	public long getMeasuredFrames();
+
+	public double getFrameTimeMean();
+
+	public long getFrameTimeP50();
+
+	public long getFrameTimeP95();
+
+	public long getFrameTimeP99();
+
+	public long getFrameTimeMax();
+
+	public long getLateFrames();
+
+	public long getCatchUpFrames();
+
+	public long getDroppedUpdates();
+
+	public long getSkippedFrames();
+
+	public long getJitterP99();
+
+	public ListenerTiming[] getListenerTimings();
+
+	public void reset();
+}
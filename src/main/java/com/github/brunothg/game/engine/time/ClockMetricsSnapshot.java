@@ -0,0 +1,141 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.Arrays;
+
+/**
+ * Immutable copy of a {@link Clock}'s {@link ClockMetrics}. All times are in nanoseconds.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public class ClockMetricsSnapshot
+{
+
+	private final long frameCount;
+	private final long measuredFrames;
+	private final double frameTimeMean;
+	private final long frameTimeP50;
+	private final long frameTimeP95;
+	private final long frameTimeP99;
+	private final long frameTimeMax;
+	private final long lateFrames;
+	private final long catchUpFrames;
+	private final long droppedUpdates;
+	private final long skippedFrames;
+	private final long jitterP99;
+	private final ListenerTiming[] listenerTimings;
+
+	ClockMetricsSnapshot(ClockMetrics metrics)
+	{
+
+		this.frameCount = metrics.getFrameCount();
+		this.measuredFrames = metrics.getMeasuredFrames();
+		this.frameTimeMean = metrics.getFrameTimeMean();
+		this.frameTimeP50 = metrics.getFrameTimeP50();
+		this.frameTimeP95 = metrics.getFrameTimeP95();
+		this.frameTimeP99 = metrics.getFrameTimeP99();
+		this.frameTimeMax = metrics.getFrameTimeMax();
+		this.lateFrames = metrics.getLateFrames();
+		this.catchUpFrames = metrics.getCatchUpFrames();
+		this.droppedUpdates = metrics.getDroppedUpdates();
+		this.skippedFrames = metrics.getSkippedFrames();
+		this.jitterP99 = metrics.getJitterP99();
+		this.listenerTimings = metrics.getListenerTimings();
+	}
+
+	/**
+	 * Frames ticked since the clock started
+	 */
+	public long getFrameCount()
+	{
+		return frameCount;
+	}
+
+	/**
+	 * Ticks measured since the last reset
+	 */
+	public long getMeasuredFrames()
+	{
+		return measuredFrames;
+	}
+
+	public double getFrameTimeMean()
+	{
+		return frameTimeMean;
+	}
+
+	public long getFrameTimeP50()
+	{
+		return frameTimeP50;
+	}
+
+	public long getFrameTimeP95()
+	{
+		return frameTimeP95;
+	}
+
+	public long getFrameTimeP99()
+	{
+		return frameTimeP99;
+	}
+
+	public long getFrameTimeMax()
+	{
+		return frameTimeMax;
+	}
+
+	/**
+	 * Ticks, that took longer than one frame
+	 */
+	public long getLateFrames()
+	{
+		return lateFrames;
+	}
+
+	/**
+	 * Frames, that had to be covered by a tick in addition to the first frame
+	 */
+	public long getCatchUpFrames()
+	{
+		return catchUpFrames;
+	}
+
+	/**
+	 * Fixed logic updates, that were dropped because the clock fell too far behind
+	 */
+	public long getDroppedUpdates()
+	{
+		return droppedUpdates;
+	}
+
+	/**
+	 * Frames, that were not rendered because of a {@link FrameRateGovernor}
+	 */
+	public long getSkippedFrames()
+	{
+		return skippedFrames;
+	}
+
+	public long getJitterP99()
+	{
+		return jitterP99;
+	}
+
+	/**
+	 * Timings of every registered {@link ClockListener}
+	 */
+	public ListenerTiming[] getListenerTimings()
+	{
+		return Arrays.copyOf(listenerTimings, listenerTimings.length);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ClockMetricsSnapshot [frameCount=" + frameCount + ", measuredFrames=" + measuredFrames
+			+ ", frameTimeP50=" + frameTimeP50 + ", frameTimeP95=" + frameTimeP95 + ", frameTimeP99=" + frameTimeP99
+			+ ", frameTimeMax=" + frameTimeMax + ", lateFrames=" + lateFrames + ", catchUpFrames=" + catchUpFrames
+			+ ", droppedUpdates=" + droppedUpdates + ", skippedFrames=" + skippedFrames + ", jitterP99=" + jitterP99
+			+ ", listenerTimings=" + Arrays.toString(listenerTimings) + "]";
+	}
+}
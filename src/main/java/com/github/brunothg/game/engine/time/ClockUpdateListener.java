@@ -0,0 +1,23 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.EventListener;
+
+/**
+ * Listener for fixed time step logic updates. In contrast to {@link ClockListener} an update is
+ * always called with the same step time, no matter how long painting takes. Use it for physics
+ * and other game logic, that should not depend on the frame rate.
+ * 
+ * @see Clock#setUpdatesPerSecond(int)
+ * @author Marvin Bruns
+ *
+ */
+public interface ClockUpdateListener extends EventListener
+{
+	/**
+	 * A logic update occurred. A clock will call this method from a thread. Think of
+	 * synchronization etc.
+	 * 
+	 * @param stepTime Fixed time covered by this update (nanoseconds)
+	 */
+	public void update(long stepTime);
+}
@@ -0,0 +1,372 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drives many {@link Clock}s from a single thread. Every clock keeps its own frame rate, the
+ * scheduler always runs the clock with the earliest frame boundary and sleeps until the next one
+ * is due. Paused clocks are removed completely, so they don't cost any CPU. If no clock is
+ * scheduled, the thread waits without any CPU usage.<br>
+ * Clocks running {@link Clock#FPS_AS_FAST_AS_POSSIBLE as fast as possible} are stepped at most
+ * every {@link #MIN_STEP_INTERVAL}, so they don't keep the thread busy and starve the other
+ * clocks.<br>
+ * Create clocks with {@link Clock#Clock(int, EngineScheduler)} to use a scheduler.
+ *
+ * @see #getDefault()
+ * @author Marvin Bruns
+ *
+ */
+public class EngineScheduler
+{
+
+	/**
+	 * Minimum time between two steps of a clock without frame limit
+	 */
+	public static final long MIN_STEP_INTERVAL = TimeUtils.NanosecondsOfMilliseconds(1);
+
+	private static EngineScheduler defaultScheduler;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+
+	private final PriorityQueue<ScheduledClock> queue = new PriorityQueue<ScheduledClock>(
+		new Comparator<ScheduledClock>()
+		{
+
+			@Override
+			public int compare(ScheduledClock o1, ScheduledClock o2)
+			{
+				return Long.compare(o1.deadline - o2.deadline, 0);
+			}
+		});
+
+	private final TimeSource timeSource;
+	private final Thread thread;
+	private volatile boolean terminated;
+
+	/**
+	 * Clock actually stepped by the scheduler thread
+	 */
+	private ScheduledClock current;
+
+	public EngineScheduler()
+	{
+		this("EngineScheduler - " + System.nanoTime());
+	}
+
+	/**
+	 *
+	 * @param name Name of the scheduler's thread
+	 */
+	public EngineScheduler(String name)
+	{
+
+		timeSource = TimeSource.SYSTEM;
+		thread = new Thread(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				EngineScheduler.this.run();
+			}
+		}, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Scheduler without a thread. Its clocks use the virtual time and are only stepped by
+	 * {@link #simulate(long)}, so they tick exactly and repeatably.
+	 *
+	 * @param timeSource Time of the scheduler and its clocks
+	 */
+	EngineScheduler(VirtualTimeSource timeSource)
+	{
+
+		if (timeSource == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.timeSource = timeSource;
+		this.thread = null;
+	}
+
+	/**
+	 * Get the scheduler shared by the whole application. It is created on first use.
+	 *
+	 * @return The shared scheduler
+	 */
+	public static synchronized EngineScheduler getDefault()
+	{
+
+		if (defaultScheduler == null || defaultScheduler.isTerminated())
+		{
+			defaultScheduler = new EngineScheduler("EngineScheduler - default");
+		}
+
+		return defaultScheduler;
+	}
+
+	/**
+	 * Start driving a clock. Called by the clock itself.
+	 */
+	void schedule(Clock clock)
+	{
+
+		if (clock.getTimeSource() != timeSource)
+		{
+			throw new IllegalArgumentException("Only clocks using the scheduler's time can be scheduled");
+		}
+
+		lock.lock();
+		try
+		{
+
+			ScheduledClock scheduled = find(clock);
+			if (scheduled != null)
+			{
+				return;
+			}
+
+			if (current != null && current.clock == clock)
+			{
+				current.active = true;
+				return;
+			}
+
+			queue.add(new ScheduledClock(clock, timeSource.nanoTime()));
+			changed.signal();
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stop driving a clock. Called by the clock itself.
+	 */
+	void unschedule(Clock clock)
+	{
+
+		lock.lock();
+		try
+		{
+
+			ScheduledClock scheduled = find(clock);
+			if (scheduled != null)
+			{
+				queue.remove(scheduled);
+				changed.signal();
+			}
+
+			if (current != null && current.clock == clock)
+			{
+				current.active = false;
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	private ScheduledClock find(Clock clock)
+	{
+
+		for (ScheduledClock scheduled : queue)
+		{
+			if (scheduled.clock == clock)
+			{
+				return scheduled;
+			}
+		}
+
+		return null;
+	}
+
+	private void run()
+	{
+
+		lock.lock();
+		try
+		{
+
+			while (!terminated)
+			{
+
+				ScheduledClock next = queue.peek();
+				if (next == null)
+				{
+					changed.await();
+					continue;
+				}
+
+				long waitTime = next.deadline - timeSource.nanoTime();
+				if (waitTime > 0)
+				{
+					changed.awaitNanos(waitTime);
+					continue;
+				}
+
+				step(next, -waitTime);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			terminated = true;
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Step the clock, that is due first. Called while holding the lock, which is released while the
+	 * clock is stepped.
+	 *
+	 * @param next Head of the queue
+	 * @param lateness Time the step is started after the clock's deadline
+	 */
+	private void step(ScheduledClock next, long lateness)
+	{
+
+		queue.poll();
+		current = next;
+		current.active = true;
+
+		long deadline = Clock.NO_DEADLINE;
+		lock.unlock();
+		try
+		{
+			if (next.clock.isRunning())
+			{
+				next.clock.recordJitter(lateness);
+				deadline = next.clock.step();
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			lock.lock();
+		}
+
+		current = null;
+		if (next.active && next.clock.isRunning())
+		{
+			next.deadline = (deadline == Clock.NO_DEADLINE) ? timeSource.nanoTime() + MIN_STEP_INTERVAL : deadline;
+			queue.add(next);
+		}
+	}
+
+	/**
+	 * Advance the virtual time and step all clocks due until then in the order of their deadlines.
+	 * For schedulers without thread only.
+	 *
+	 * @param duration Time to simulate
+	 */
+	void simulate(long duration)
+	{
+
+		if (thread != null)
+		{
+			throw new IllegalStateException("Scheduler is driven by its thread");
+		}
+
+		VirtualTimeSource virtualTime = (VirtualTimeSource) timeSource;
+		long end = virtualTime.nanoTime() + duration;
+
+		lock.lock();
+		try
+		{
+
+			ScheduledClock next;
+			while ((next = queue.peek()) != null && next.deadline - end <= 0)
+			{
+
+				virtualTime.advanceTo(next.deadline);
+				step(next, virtualTime.nanoTime() - next.deadline);
+			}
+
+			virtualTime.advanceTo(end);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	TimeSource getTimeSource()
+	{
+		return timeSource;
+	}
+
+	/**
+	 * Get the number of clocks waiting for their next frame
+	 *
+	 * @return Number of scheduled clocks
+	 */
+	public int getScheduledClockCount()
+	{
+
+		lock.lock();
+		try
+		{
+			return queue.size() + ((current != null && current.active) ? 1 : 0);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stop the scheduler's thread. All clocks driven by this scheduler will stop, too.
+	 *
+	 * @param timeout Maximum time to wait for termination
+	 * @param unit Unit of timeout
+	 * @throws InterruptedException If interrupted while waiting
+	 */
+	public void shutdown(long timeout, TimeUnit unit) throws InterruptedException
+	{
+
+		terminated = true;
+		if (thread != null)
+		{
+			thread.interrupt();
+			thread.join(unit.toMillis(timeout));
+		}
+	}
+
+	/**
+	 * Check if this scheduler was shut down
+	 */
+	public boolean isTerminated()
+	{
+		return terminated;
+	}
+
+	private static class ScheduledClock
+	{
+
+		private final Clock clock;
+		private long deadline;
+		private boolean active;
+
+		public ScheduledClock(Clock clock, long deadline)
+		{
+			this.clock = clock;
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * Strategy used by a {@link Clock} for waiting until the next frame starts.
+ * 
+ * @see SleepFramePacer
+ * @see HybridFramePacer
+ * @author Marvin Bruns
+ *
+ */
+public interface FramePacer
+{
+
+	/**
+	 * Block the calling thread until {@link System#nanoTime()} reached the given deadline. The
+	 * pacer should return as close as possible to the deadline, but never before it.
+	 * 
+	 * @param deadline Target time (nanoseconds) of the next frame boundary
+	 * @throws InterruptedException If the waiting thread was interrupted
+	 */
+	public void waitUntil(long deadline) throws InterruptedException;
+}
@@ -0,0 +1,312 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * Adapts a {@link Clock} to the cost of its frames. The governor averages the frame time over a
+ * window of frames. If the average exceeds the high watermark of the frame budget, the load is
+ * reduced according to the {@link Policy}. If it falls below the low watermark, the load is raised
+ * again step by step until the clock's original frame rate is reached. The gap between both
+ * watermarks prevents the rate from oscillating.<br>
+ * Logic updates ({@link ClockUpdateListener}) always keep running at their own rate. Clocks running
+ * as fast as possible are not governed.
+ *
+ * @see Clock#setFrameRateGovernor(FrameRateGovernor)
+ * @author Marvin Bruns
+ *
+ */
+public class FrameRateGovernor
+{
+
+	public static final int DEFAULT_WINDOW_SIZE = 30;
+	public static final double DEFAULT_HIGH_WATERMARK = 0.9;
+	public static final double DEFAULT_LOW_WATERMARK = 0.5;
+	public static final int DEFAULT_MIN_FRAMES_PER_SECOND = Clock.FPS_VERY_SLOW;
+	public static final int DEFAULT_MAX_SKIPPED_FRAMES = 3;
+
+	/**
+	 * How the load is reduced if frames are over budget
+	 */
+	public enum Policy
+	{
+		/**
+		 * Lower the clock's frame rate down to {@link FrameRateGovernor#getMinFramesPerSecond()}
+		 */
+		LOWER_FRAME_RATE,
+		/**
+		 * Keep the frame rate, but skip up to
+		 * {@link FrameRateGovernor#getMaxSkippedFrames()} ticks between two rendered frames. The next
+		 * tick covers the skipped frames.
+		 */
+		SKIP_FRAMES
+	}
+
+	private final Policy policy;
+
+	private volatile int windowSize = DEFAULT_WINDOW_SIZE;
+	private volatile double highWatermark = DEFAULT_HIGH_WATERMARK;
+	private volatile double lowWatermark = DEFAULT_LOW_WATERMARK;
+	private volatile int minFramesPerSecond = DEFAULT_MIN_FRAMES_PER_SECOND;
+	private volatile int maxSkippedFrames = DEFAULT_MAX_SKIPPED_FRAMES;
+
+	// Written by the clock's thread only
+	private int targetFramesPerSecond;
+	private volatile int framesPerSecond;
+	private volatile int skippedFrames;
+	private int skipCounter;
+	private long windowTime;
+	private int windowFrames;
+
+	public FrameRateGovernor()
+	{
+		this(Policy.LOWER_FRAME_RATE);
+	}
+
+	/**
+	 *
+	 * @param policy How to reduce the load
+	 */
+	public FrameRateGovernor(Policy policy)
+	{
+
+		if (policy == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.policy = policy;
+	}
+
+	/**
+	 * Called by the clock when the governor is installed
+	 *
+	 * @param framesPerSecond Actual frame rate of the clock, that is the upper limit
+	 */
+	void attach(int framesPerSecond)
+	{
+
+		this.targetFramesPerSecond = framesPerSecond;
+		this.framesPerSecond = framesPerSecond;
+		this.skippedFrames = 0;
+		this.skipCounter = 0;
+		this.windowTime = 0;
+		this.windowFrames = 0;
+	}
+
+	/**
+	 * Called by the clock for every due frame
+	 *
+	 * @return true if the frame should not be rendered
+	 */
+	boolean skipFrame()
+	{
+
+		if (skipCounter < skippedFrames)
+		{
+			skipCounter++;
+			return true;
+		}
+
+		skipCounter = 0;
+		return false;
+	}
+
+	/**
+	 * Called by the clock after every rendered frame
+	 *
+	 * @param clock The governed clock
+	 * @param frameTime Time spent for updates and the tick
+	 */
+	void frameFinished(Clock clock, long frameTime)
+	{
+
+		windowTime += frameTime;
+		windowFrames++;
+		if (windowFrames < windowSize)
+		{
+			return;
+		}
+
+		long meanFrameTime = windowTime / windowFrames;
+		windowTime = 0;
+		windowFrames = 0;
+
+		switch (policy)
+		{
+			case LOWER_FRAME_RATE:
+				adaptFrameRate(clock, meanFrameTime);
+			break;
+			case SKIP_FRAMES:
+				adaptSkippedFrames(meanFrameTime);
+			break;
+		}
+	}
+
+	private void adaptFrameRate(Clock clock, long meanFrameTime)
+	{
+
+		int framesPerSecond = this.framesPerSecond;
+		int minFramesPerSecond = Math.min(getMinFramesPerSecond(), targetFramesPerSecond);
+
+		if (meanFrameTime > budget(framesPerSecond) * highWatermark && framesPerSecond > minFramesPerSecond)
+		{
+			framesPerSecond = Math.max(minFramesPerSecond, framesPerSecond * 3 / 4);
+		}
+		else if (framesPerSecond < targetFramesPerSecond)
+		{
+
+			int higherFramesPerSecond = Math.min(targetFramesPerSecond, framesPerSecond * 4 / 3 + 1);
+			if (meanFrameTime < budget(higherFramesPerSecond) * lowWatermark)
+			{
+				framesPerSecond = higherFramesPerSecond;
+			}
+		}
+
+		if (framesPerSecond != this.framesPerSecond)
+		{
+			this.framesPerSecond = framesPerSecond;
+			clock.setFramesPerSecond(framesPerSecond);
+		}
+	}
+
+	private void adaptSkippedFrames(long meanFrameTime)
+	{
+
+		int skippedFrames = this.skippedFrames;
+		double frameBudget = budget(targetFramesPerSecond);
+
+		// A rendered frame may use the time of the skipped frames, too
+		if (meanFrameTime > frameBudget * (skippedFrames + 1) * highWatermark)
+		{
+			skippedFrames = Math.min(getMaxSkippedFrames(), skippedFrames + 1);
+		}
+		else if (skippedFrames > 0 && meanFrameTime < frameBudget * skippedFrames * lowWatermark)
+		{
+			skippedFrames--;
+		}
+
+		this.skippedFrames = skippedFrames;
+	}
+
+	private static double budget(int framesPerSecond)
+	{
+		return TimeUtils.NANOSECONDS_PER_SECOND / (double) framesPerSecond;
+	}
+
+	public Policy getPolicy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Get the frame rate chosen by this governor
+	 */
+	public int getFramesPerSecond()
+	{
+		return framesPerSecond;
+	}
+
+	/**
+	 * Get the number of ticks skipped between two rendered frames
+	 */
+	public int getSkippedFrames()
+	{
+		return skippedFrames;
+	}
+
+	public int getWindowSize()
+	{
+		return windowSize;
+	}
+
+	/**
+	 * Set the number of frames averaged before the load is adapted
+	 *
+	 * @param windowSize Number of frames (positive)
+	 */
+	public void setWindowSize(int windowSize)
+	{
+
+		if (windowSize <= 0)
+		{
+			throw new IllegalArgumentException("Window size must be positive -> " + windowSize);
+		}
+
+		this.windowSize = windowSize;
+	}
+
+	public double getHighWatermark()
+	{
+		return highWatermark;
+	}
+
+	public double getLowWatermark()
+	{
+		return lowWatermark;
+	}
+
+	/**
+	 * Set the watermarks as fraction of the frame budget
+	 *
+	 * @param lowWatermark Load is raised below this fraction
+	 * @param highWatermark Load is reduced above this fraction
+	 */
+	public void setWatermarks(double lowWatermark, double highWatermark)
+	{
+
+		if (lowWatermark <= 0 || lowWatermark >= highWatermark)
+		{
+			throw new IllegalArgumentException("Invalid watermarks -> " + lowWatermark + ", " + highWatermark);
+		}
+
+		this.lowWatermark = lowWatermark;
+		this.highWatermark = highWatermark;
+	}
+
+	public int getMinFramesPerSecond()
+	{
+		return minFramesPerSecond;
+	}
+
+	/**
+	 * Set the lowest frame rate chosen by {@link Policy#LOWER_FRAME_RATE}
+	 *
+	 * @param minFramesPerSecond FPS (positive)
+	 */
+	public void setMinFramesPerSecond(int minFramesPerSecond)
+	{
+
+		if (minFramesPerSecond <= 0)
+		{
+			throw new IllegalArgumentException("FPS must be positive -> " + minFramesPerSecond);
+		}
+
+		this.minFramesPerSecond = minFramesPerSecond;
+	}
+
+	public int getMaxSkippedFrames()
+	{
+		return maxSkippedFrames;
+	}
+
+	/**
+	 * Set the maximum number of ticks skipped by {@link Policy#SKIP_FRAMES}
+	 *
+	 * @param maxSkippedFrames Number of ticks (not negative)
+	 */
+	public void setMaxSkippedFrames(int maxSkippedFrames)
+	{
+
+		if (maxSkippedFrames < 0)
+		{
+			throw new IllegalArgumentException("Negative value not allowed -> " + maxSkippedFrames);
+		}
+
+		this.maxSkippedFrames = maxSkippedFrames;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "FrameRateGovernor [policy=" + policy + ", framesPerSecond=" + framesPerSecond + ", skippedFrames="
+			+ skippedFrames + "]";
+	}
+}
@@ -0,0 +1,94 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Precise {@link FramePacer}. Most of the time is spent in a coarse {@link Thread#sleep(long)},
+ * the remainder with {@link LockSupport#parkNanos(long)} and the last microseconds are spun with
+ * {@link Thread#onSpinWait()}. The spinning costs some CPU, but reduces the frame time jitter
+ * considerably.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public class HybridFramePacer implements FramePacer
+{
+
+	public static final long DEFAULT_SLEEP_MARGIN = TimeUtils.NanosecondsOfMilliseconds(2);
+	public static final long DEFAULT_SPIN_MARGIN = 100_000;
+
+	private final long sleepMargin;
+	private final long spinMargin;
+
+	/**
+	 * Uses {@link #DEFAULT_SLEEP_MARGIN} and {@link #DEFAULT_SPIN_MARGIN}
+	 * 
+	 * @see #HybridFramePacer(long, long)
+	 */
+	public HybridFramePacer()
+	{
+		this(DEFAULT_SLEEP_MARGIN, DEFAULT_SPIN_MARGIN);
+	}
+
+	/**
+	 * 
+	 * @param sleepMargin Remaining time (nanoseconds) below which sleeping stops
+	 * @param spinMargin Remaining time (nanoseconds) below which parking stops and spinning starts
+	 */
+	public HybridFramePacer(long sleepMargin, long spinMargin)
+	{
+
+		if (sleepMargin < 0 || spinMargin < 0)
+		{
+			throw new IllegalArgumentException("Negative margins not allowed");
+		}
+
+		if (spinMargin > sleepMargin)
+		{
+			throw new IllegalArgumentException("Spin margin must not exceed sleep margin");
+		}
+
+		this.sleepMargin = sleepMargin;
+		this.spinMargin = spinMargin;
+	}
+
+	@Override
+	public void waitUntil(long deadline) throws InterruptedException
+	{
+
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0)
+		{
+
+			if (remaining > sleepMargin + TimeUtils.NANOSECONDS_PER_MILLISECOND)
+			{
+
+				Thread.sleep((long) TimeUtils.Milliseconds(remaining - sleepMargin));
+			}
+			else if (remaining > spinMargin)
+			{
+
+				LockSupport.parkNanos(remaining - spinMargin);
+				if (Thread.interrupted())
+				{
+					throw new InterruptedException();
+				}
+			}
+			else
+			{
+
+				Thread.onSpinWait();
+			}
+		}
+	}
+
+	public long getSleepMargin()
+	{
+		return sleepMargin;
+	}
+
+	public long getSpinMargin()
+	{
+		return spinMargin;
+	}
+}
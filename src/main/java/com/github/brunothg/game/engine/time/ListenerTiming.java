@@ -0,0 +1,75 @@
+package com.github.brunothg.game.engine.time;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Time spent in a single {@link ClockListener}.
+ * 
+ * @see ClockMetrics
+ * @author Marvin Bruns
+ *
+ */
+public class ListenerTiming
+{
+
+	private final String listener;
+	private final long ticks;
+	private final long totalTime;
+	private final long maxTime;
+
+	@ConstructorProperties({ "listener", "ticks", "totalTime", "maxTime" })
+	public ListenerTiming(String listener, long ticks, long totalTime, long maxTime)
+	{
+		this.listener = listener;
+		this.ticks = ticks;
+		this.totalTime = totalTime;
+		this.maxTime = maxTime;
+	}
+
+	/**
+	 * Get a description of the listener
+	 */
+	public String getListener()
+	{
+		return listener;
+	}
+
+	/**
+	 * Get the number of measured ticks
+	 */
+	public long getTicks()
+	{
+		return ticks;
+	}
+
+	/**
+	 * Get the time spent in all measured ticks (nanoseconds)
+	 */
+	public long getTotalTime()
+	{
+		return totalTime;
+	}
+
+	/**
+	 * Get the longest measured tick (nanoseconds)
+	 */
+	public long getMaxTime()
+	{
+		return maxTime;
+	}
+
+	/**
+	 * Get the average time of a tick (nanoseconds)
+	 */
+	public double getMeanTime()
+	{
+		return (ticks == 0) ? 0 : totalTime / (double) ticks;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ListenerTiming [listener=" + listener + ", ticks=" + ticks + ", meanTime=" + getMeanTime()
+			+ ", maxTime=" + maxTime + "]";
+	}
+}
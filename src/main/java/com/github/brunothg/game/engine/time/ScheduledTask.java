@@ -0,0 +1,95 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A task scheduled on a {@link Clock}. All times are game time in nanoseconds, so the time a clock
+ * is paused does not count.
+ *
+ * @see Clock#schedule(Runnable, long, java.util.concurrent.TimeUnit)
+ * @see Clock#scheduleAtFixedRate(Runnable, long, long, java.util.concurrent.TimeUnit)
+ * @author Marvin Bruns
+ *
+ */
+public final class ScheduledTask
+{
+
+	static final int STATE_WAITING = 0x0;
+	static final int STATE_DONE = 0x1;
+	static final int STATE_CANCELLED = 0x2;
+
+	private final TimerWheel wheel;
+	final Runnable task;
+	final long period;
+
+	final AtomicInteger state = new AtomicInteger(STATE_WAITING);
+
+	// Owned by the clock's thread
+	long deadline;
+	long remainingRounds;
+	TimerWheel.Bucket bucket;
+	ScheduledTask previous;
+	ScheduledTask next;
+
+	ScheduledTask(TimerWheel wheel, Runnable task, long deadline, long period)
+	{
+		this.wheel = wheel;
+		this.task = task;
+		this.deadline = deadline;
+		this.period = period;
+	}
+
+	/**
+	 * Cancel this task. A running task finishes its actual run.
+	 *
+	 * @return true if the task was cancelled, false if it is done or already cancelled
+	 */
+	public boolean cancel()
+	{
+
+		if (!state.compareAndSet(STATE_WAITING, STATE_CANCELLED))
+		{
+			return false;
+		}
+
+		wheel.cancelled(this);
+		return true;
+	}
+
+	public boolean isCancelled()
+	{
+		return state.get() == STATE_CANCELLED;
+	}
+
+	/**
+	 * Check if a one shot task did run
+	 */
+	public boolean isDone()
+	{
+		return state.get() == STATE_DONE;
+	}
+
+	/**
+	 * Check if this task is repeated
+	 */
+	public boolean isPeriodic()
+	{
+		return period > 0;
+	}
+
+	/**
+	 * Get the repetition period
+	 *
+	 * @return Period in nanoseconds or 0 for one shot tasks
+	 */
+	public long getPeriod()
+	{
+		return period;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "ScheduledTask [task=" + task + ", period=" + period + ", state=" + state.get() + "]";
+	}
+}
@@ -0,0 +1,28 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * Waits using {@link Thread#sleep(long, int)} for the whole time. Cheap, but depending on the
+ * operating system the thread may wake up to a millisecond too late.
+ * 
+ * @author Marvin Bruns
+ *
+ */
+public class SleepFramePacer implements FramePacer
+{
+
+	@Override
+	public void waitUntil(long deadline) throws InterruptedException
+	{
+
+		long waitTime = deadline - System.nanoTime();
+		if (waitTime <= 0)
+		{
+			return;
+		}
+
+		long waitTimeMillis = (long) TimeUtils.Milliseconds(waitTime);
+		int waitTimeNanos = (int) (waitTime - TimeUtils.NanosecondsOfMilliseconds(waitTimeMillis));
+
+		Thread.sleep(waitTimeMillis, waitTimeNanos);
+	}
+}
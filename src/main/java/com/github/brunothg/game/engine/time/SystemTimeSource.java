@@ -0,0 +1,30 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * {@link TimeSource} using {@link System#nanoTime()}.
+ * 
+ * @see TimeSource#SYSTEM
+ * @author Marvin Bruns
+ *
+ */
+class SystemTimeSource implements TimeSource
+{
+
+	@Override
+	public long nanoTime()
+	{
+		return System.nanoTime();
+	}
+
+	@Override
+	public void waitUntil(long deadline, FramePacer pacer) throws InterruptedException
+	{
+		pacer.waitUntil(deadline);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "SystemTimeSource";
+	}
+}
@@ -0,0 +1,202 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram for time values (nanoseconds). Values are counted in logarithmic buckets, that are
+ * split into {@value #SUB_BUCKETS} linear sub buckets. So every recorded value is accurate to
+ * about 6%. Recording is lock free and does not allocate, so it can be used in the hot path of a
+ * {@link Clock}. Negative values are counted as zero.
+ *
+ * @author Marvin Bruns
+ *
+ */
+public class TimeHistogram
+{
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a single value.
+	 *
+	 * @param value Time in nanoseconds
+	 */
+	public void record(long value)
+	{
+
+		if (value < 0)
+		{
+			value = 0;
+		}
+
+		counts.incrementAndGet(bucketOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax;
+		while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value))
+		{
+		}
+	}
+
+	/**
+	 * Remove all recorded values.
+	 */
+	public void reset()
+	{
+
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			counts.set(i, 0);
+		}
+
+		count.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Get the number of recorded values
+	 */
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	/**
+	 * Get the largest recorded value
+	 *
+	 * @return Maximum in nanoseconds or 0 if empty
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Get the mean of all recorded values
+	 *
+	 * @return Mean in nanoseconds or 0 if empty
+	 */
+	public double getMean()
+	{
+
+		long count = getCount();
+		return (count == 0) ? 0 : sum.get() / (double) count;
+	}
+
+	/**
+	 * Get the value below which the given percentage of recorded values lie.
+	 *
+	 * @param percentile Percentile in the range [0, 100]
+	 * @return The upper bound of the bucket containing the percentile (nanoseconds) or 0 if empty
+	 */
+	public long getPercentile(double percentile)
+	{
+
+		if (percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("Percentile out of range -> " + percentile);
+		}
+
+		long count = getCount();
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(count * (percentile / 100.0)));
+
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+
+			seen += counts.get(i);
+			if (seen >= rank)
+			{
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Get the number of values in a bucket.
+	 *
+	 * @param bucket Bucket index
+	 * @see #getBucketCount()
+	 */
+	public long getCountOfBucket(int bucket)
+	{
+		return counts.get(bucket);
+	}
+
+	/**
+	 * Get the smallest value, that is counted in a bucket.
+	 *
+	 * @param bucket Bucket index
+	 * @return Lower bound in nanoseconds
+	 */
+	public long getLowerBoundOfBucket(int bucket)
+	{
+
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	/**
+	 * Get the number of buckets
+	 */
+	public int getBucketCount()
+	{
+		return BUCKETS;
+	}
+
+	private long upperBoundOf(int bucket)
+	{
+
+		if (bucket + 1 >= BUCKETS)
+		{
+			return Long.MAX_VALUE;
+		}
+
+		return getLowerBoundOfBucket(bucket + 1) - 1;
+	}
+
+	private static int bucketOf(long value)
+	{
+
+		if (value < SUB_BUCKETS)
+		{
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "TimeHistogram [count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50) + ", p99="
+			+ getPercentile(99) + ", max=" + getMax() + "]";
+	}
+}
@@ -0,0 +1,35 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * Source of the time used by {@link Clock}s and {@link Timer}s.
+ * 
+ * @see #SYSTEM
+ * @see VirtualTimeSource
+ * @author Marvin Bruns
+ *
+ */
+public interface TimeSource
+{
+
+	/**
+	 * Uses {@link System#nanoTime()}
+	 */
+	public static final TimeSource SYSTEM = new SystemTimeSource();
+
+	/**
+	 * Get the actual time. Like {@link System#nanoTime()} the value is only meaningful compared to
+	 * other values of the same source.
+	 * 
+	 * @return Time in nanoseconds
+	 */
+	public long nanoTime();
+
+	/**
+	 * Wait until {@link #nanoTime()} reached the given deadline.
+	 * 
+	 * @param deadline Target time (nanoseconds)
+	 * @param pacer The {@link FramePacer}, that should be used for real waiting
+	 * @throws InterruptedException If the waiting thread was interrupted
+	 */
+	public void waitUntil(long deadline, FramePacer pacer) throws InterruptedException;
+}
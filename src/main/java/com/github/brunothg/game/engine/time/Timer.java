@@ -9,11 +9,28 @@ package com.github.brunothg.game.engine.time;
 public class Timer
 {
 
+	private final TimeSource timeSource;
+
 	private long lastTime;
 	private long elapsedTime;
 
 	public Timer()
 	{
+		this(TimeSource.SYSTEM);
+	}
+
+	/**
+	 * 
+	 * @param timeSource Source of time used for measuring
+	 */
+	public Timer(TimeSource timeSource)
+	{
+		if (timeSource == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+
+		this.timeSource = timeSource;
 		reset();
 	}
 
@@ -22,7 +39,7 @@ public class Timer
 	 */
 	public void reset()
 	{
-		lastTime = System.nanoTime();
+		lastTime = timeSource.nanoTime();
 		elapsedTime = 0;
 	}
 
@@ -31,7 +48,7 @@ public class Timer
 	 */
 	public long update()
 	{
-		long time = System.nanoTime();
+		long time = timeSource.nanoTime();
 		elapsedTime = time - lastTime;
 		lastTime = time;
 
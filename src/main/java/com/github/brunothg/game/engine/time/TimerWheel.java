@@ -0,0 +1,331 @@
+package com.github.brunothg.game.engine.time;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel measured in game time. Tasks are hashed into a ring of buckets by their
+ * deadline, tasks further away than one revolution count down their remaining rounds. Adding and
+ * cancelling a task is O(1). Tasks may be added and cancelled from any thread, but they are moved
+ * into the wheel and run by the clock's thread only. Tasks run at the first tick after their
+ * deadline, so the accuracy is one {@link #getTickDuration() tick}.
+ *
+ * @author Marvin Bruns
+ *
+ */
+class TimerWheel
+{
+
+	public static final int DEFAULT_WHEEL_SIZE = 512;
+	public static final long DEFAULT_TICK_DURATION = TimeUtils.NanosecondsOfMilliseconds(1);
+
+	private final long tickDuration;
+	private final int mask;
+	private final Bucket[] buckets;
+
+	private final Queue<ScheduledTask> pendingTasks = new ConcurrentLinkedQueue<ScheduledTask>();
+	private final Queue<ScheduledTask> cancelledTasks = new ConcurrentLinkedQueue<ScheduledTask>();
+	private final AtomicInteger taskCount = new AtomicInteger();
+
+	private volatile long time;
+	/**
+	 * Next tick to be processed
+	 */
+	private long tick;
+
+	public TimerWheel()
+	{
+		this(DEFAULT_WHEEL_SIZE, DEFAULT_TICK_DURATION);
+	}
+
+	/**
+	 *
+	 * @param wheelSize Number of buckets, rounded up to a power of two
+	 * @param tickDuration Nanoseconds covered by one bucket
+	 */
+	public TimerWheel(int wheelSize, long tickDuration)
+	{
+
+		if (wheelSize <= 0 || tickDuration <= 0)
+		{
+			throw new IllegalArgumentException("Wheel size and tick duration must be positive");
+		}
+
+		int size = Integer.highestOneBit(wheelSize);
+		if (size < wheelSize)
+		{
+			size <<= 1;
+		}
+
+		this.tickDuration = tickDuration;
+		this.mask = size - 1;
+		this.buckets = new Bucket[size];
+		for (int i = 0; i < size; i++)
+		{
+			buckets[i] = new Bucket();
+		}
+	}
+
+	/**
+	 * Add a task. May be called from any thread.
+	 *
+	 * @param task The task to be run
+	 * @param delay Game time until the first run
+	 * @param period Game time between two runs or 0 for one run
+	 * @return The scheduled task
+	 */
+	public ScheduledTask schedule(Runnable task, long delay, long period)
+	{
+
+		if (task == null)
+		{
+			throw new IllegalArgumentException("Null value not allowed");
+		}
+		if (period < 0)
+		{
+			throw new IllegalArgumentException("Negative period not allowed -> " + period);
+		}
+
+		ScheduledTask scheduledTask = new ScheduledTask(this, task, time + Math.max(0, delay), period);
+		taskCount.incrementAndGet();
+		pendingTasks.add(scheduledTask);
+
+		return scheduledTask;
+	}
+
+	void cancelled(ScheduledTask task)
+	{
+		cancelledTasks.add(task);
+	}
+
+	/**
+	 * Advance the game time and run all due tasks. Called by the clock's thread only.
+	 *
+	 * @param deltaTime Game time since the last call
+	 */
+	public void advance(long deltaTime)
+	{
+
+		long time = this.time + deltaTime;
+		this.time = time;
+
+		transferPendingTasks();
+		removeCancelledTasks();
+
+		long lastTick = time / tickDuration;
+		while (tick <= lastTick)
+		{
+
+			ScheduledTask rescheduled = expire(buckets[(int) (tick & mask)], tick * tickDuration);
+			tick++;
+
+			// Periodic tasks are added after the bucket was processed
+			while (rescheduled != null)
+			{
+				ScheduledTask next = rescheduled.next;
+				rescheduled.next = null;
+				add(rescheduled);
+
+				rescheduled = next;
+			}
+		}
+	}
+
+	/**
+	 * Runs the due tasks of a bucket. Periodic tasks are run until their next deadline is after the
+	 * tick, so periods shorter than a tick don't fall behind.
+	 *
+	 * @param tickTime Game time of the processed tick
+	 * @return Linked list of periodic tasks to be added again
+	 */
+	private ScheduledTask expire(Bucket bucket, long tickTime)
+	{
+
+		ScheduledTask rescheduled = null;
+
+		ScheduledTask task = bucket.head;
+		while (task != null)
+		{
+
+			ScheduledTask next = task.next;
+
+			if (task.remainingRounds > 0)
+			{
+				task.remainingRounds--;
+			}
+			else
+			{
+
+				bucket.remove(task);
+
+				boolean again;
+				do
+				{
+					again = run(task);
+					task.deadline += task.period;
+				}
+				while (again && task.deadline <= tickTime);
+
+				if (again)
+				{
+					task.next = rescheduled;
+					rescheduled = task;
+				}
+			}
+
+			task = next;
+		}
+
+		return rescheduled;
+	}
+
+	/**
+	 * @return true if the task has to be run again
+	 */
+	private boolean run(ScheduledTask task)
+	{
+
+		// Cancelled tasks are counted down by removeCancelledTasks()
+		boolean periodic = task.isPeriodic();
+		if (periodic ? task.state.get() != ScheduledTask.STATE_WAITING
+			: !task.state.compareAndSet(ScheduledTask.STATE_WAITING, ScheduledTask.STATE_DONE))
+		{
+			return false;
+		}
+
+		try
+		{
+			task.task.run();
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+		}
+
+		if (!periodic)
+		{
+			taskCount.decrementAndGet();
+			return false;
+		}
+
+		return task.state.get() == ScheduledTask.STATE_WAITING;
+	}
+
+	private void transferPendingTasks()
+	{
+
+		ScheduledTask task;
+		while ((task = pendingTasks.poll()) != null)
+		{
+
+			if (task.state.get() == ScheduledTask.STATE_WAITING)
+			{
+				add(task);
+			}
+		}
+	}
+
+	private void removeCancelledTasks()
+	{
+
+		ScheduledTask task;
+		while ((task = cancelledTasks.poll()) != null)
+		{
+
+			// Still pending or already removed while running
+			if (task.bucket != null)
+			{
+				task.bucket.remove(task);
+			}
+			taskCount.decrementAndGet();
+		}
+	}
+
+	private void add(ScheduledTask task)
+	{
+
+		// Round up, so the task never runs before its deadline
+		long deadlineTick = Math.max((task.deadline + tickDuration - 1) / tickDuration, tick);
+
+		task.remainingRounds = (deadlineTick - tick) / buckets.length;
+		buckets[(int) (deadlineTick & mask)].add(task);
+	}
+
+	/**
+	 * Get the game time
+	 *
+	 * @return Nanoseconds the wheel was advanced
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+
+	public long getTickDuration()
+	{
+		return tickDuration;
+	}
+
+	/**
+	 * Get the number of tasks, that were neither cancelled nor done
+	 */
+	public int getTaskCount()
+	{
+		return taskCount.get();
+	}
+
+	/**
+	 * Doubly linked list of tasks
+	 */
+	static final class Bucket
+	{
+
+		private ScheduledTask head;
+		private ScheduledTask tail;
+
+		void add(ScheduledTask task)
+		{
+
+			task.bucket = this;
+			task.previous = tail;
+			task.next = null;
+
+			if (tail == null)
+			{
+				head = task;
+			}
+			else
+			{
+				tail.next = task;
+			}
+			tail = task;
+		}
+
+		void remove(ScheduledTask task)
+		{
+
+			if (task.previous == null)
+			{
+				head = task.next;
+			}
+			else
+			{
+				task.previous.next = task.next;
+			}
+
+			if (task.next == null)
+			{
+				tail = task.previous;
+			}
+			else
+			{
+				task.next.previous = task.previous;
+			}
+
+			task.bucket = null;
+			task.previous = null;
+			task.next = null;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.github.brunothg.game.engine.time;
+
+/**
+ * Simulated {@link TimeSource}. Time only moves if it is advanced explicitly or if someone waits
+ * for it. Waiting never blocks, it just jumps to the deadline. A {@link Clock} using this source
+ * runs as fast as the CPU allows and always produces exactly the same covered times.
+ * 
+ * @see Clock#simulate(long)
+ * @author Marvin Bruns
+ *
+ */
+public class VirtualTimeSource implements TimeSource
+{
+
+	private volatile long time;
+
+	/**
+	 * Starts at zero
+	 */
+	public VirtualTimeSource()
+	{
+		this(0);
+	}
+
+	/**
+	 * 
+	 * @param startTime Initial time (nanoseconds)
+	 */
+	public VirtualTimeSource(long startTime)
+	{
+		this.time = startTime;
+	}
+
+	@Override
+	public long nanoTime()
+	{
+		return time;
+	}
+
+	@Override
+	public void waitUntil(long deadline, FramePacer pacer) throws InterruptedException
+	{
+		advanceTo(deadline);
+	}
+
+	/**
+	 * Move the time forward.
+	 * 
+	 * @param nanoseconds Time to add
+	 */
+	public synchronized void advance(long nanoseconds)
+	{
+
+		if (nanoseconds < 0)
+		{
+			throw new IllegalArgumentException("Time can not go backwards");
+		}
+
+		time += nanoseconds;
+	}
+
+	/**
+	 * Move the time forward to the given time. Earlier times are ignored.
+	 * 
+	 * @param nanoTime New time
+	 */
+	public synchronized void advanceTo(long nanoTime)
+	{
+
+		if (nanoTime > time)
+		{
+			time = nanoTime;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return "VirtualTimeSource [time=" + time + "]";
+	}
+}
@@ -0,0 +1,136 @@
+package com.github.brunothg.game.engine.d2.commons;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+
+public class DirtyRegionTest
+{
+
+	@Test
+	public void mergeTest()
+	{
+
+		DirtyRegion region = new DirtyRegion(4);
+		region.setBounds(100, 100);
+		assertTrue(region.isEmpty());
+
+		region.add(10, 10, 10, 10);
+		region.add(50, 50, 10, 10);
+		assertEquals(2, region.getRectangleCount());
+
+		// Overlaps the first one
+		region.add(15, 15, 10, 10);
+		assertEquals(2, region.getRectangleCount());
+		assertTrue(contains(region, new Rectangle(10, 10, 15, 15)));
+
+		// Connects both
+		region.add(20, 20, 35, 35);
+		assertEquals(1, region.getRectangleCount());
+		assertEquals(new Rectangle(10, 10, 50, 50), region.getRectangle(0));
+
+		// Clipped to bounds
+		region.clear();
+		region.add(-10, 90, 30, 30);
+		assertEquals(new Rectangle(0, 90, 20, 10), region.getRectangle(0));
+		region.add(200, 200, 10, 10);
+		assertEquals(1, region.getRectangleCount());
+
+		region.add(0, 0, 100, 100);
+		assertTrue(region.isFull());
+		assertEquals(0, region.getRectangleCount());
+		assertEquals(100 * 100, region.getArea());
+	}
+
+	@Test
+	public void overflowTest()
+	{
+
+		DirtyRegion region = new DirtyRegion(3);
+		region.setBounds(1000, 1000);
+
+		Rectangle[] added = new Rectangle[10];
+		for (int i = 0; i < added.length; i++)
+		{
+			added[i] = new Rectangle(i * 90, (i % 3) * 300, 5, 5);
+			region.add(added[i]);
+		}
+
+		assertEquals(3, region.getRectangleCount());
+		for (Rectangle rectangle : added)
+		{
+			assertTrue(contains(region, rectangle));
+		}
+	}
+
+	@Test
+	public void sceneObjectTest()
+	{
+
+		SceneObject object = new SceneObject()
+		{
+
+			@Override
+			protected void paint(Graphics2D g, long elapsedTime)
+			{
+			}
+		};
+		object.setSize(10, 10);
+		object.setPosition(20, 20);
+
+		DirtyRegion region = new DirtyRegion();
+		region.setBounds(100, 100);
+
+		// Never painted
+		object.addDirtyRegion(region);
+		assertEquals(new Rectangle(20, 20, 10, 10), region.getRectangle(0));
+
+		paint(object);
+		region.clear();
+		object.addDirtyRegion(region);
+		assertTrue(region.isEmpty());
+
+		// Old and new bounds
+		object.setPosition(60, 60);
+		object.addDirtyRegion(region);
+		assertEquals(2, region.getRectangleCount());
+		assertTrue(contains(region, new Rectangle(20, 20, 10, 10)));
+		assertTrue(contains(region, new Rectangle(60, 60, 10, 10)));
+
+		paint(object);
+		region.clear();
+		object.invalidate();
+		object.addDirtyRegion(region);
+		assertEquals(1, region.getRectangleCount());
+		assertEquals(new Rectangle(60, 60, 10, 10), region.getRectangle(0));
+	}
+
+	private static void paint(SceneObject object)
+	{
+
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		object.paintOnScene(g, 100, 100, 0);
+		g.dispose();
+	}
+
+	private static boolean contains(DirtyRegion region, Rectangle rectangle)
+	{
+
+		for (int i = 0; i < region.getRectangleCount(); i++)
+		{
+			if (region.getRectangle(i).contains(rectangle))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,350 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.object.image.ImageSceneObject;
+import com.github.brunothg.game.engine.d2.object.sprite.SpriteSceneObject;
+import com.github.brunothg.game.engine.image.sprite.DefaultSprite;
+
+public class CollisionMaskTest
+{
+
+	@Test
+	public void createTest()
+	{
+
+		BufferedImage image = new BufferedImage(130, 3, BufferedImage.TYPE_INT_ARGB);
+		image.setRGB(0, 0, 0x01000000);
+		image.setRGB(64, 1, 0xFF000000);
+		image.setRGB(129, 2, 0x80FFFFFF);
+		image.setRGB(5, 2, 0x00FFFFFF);
+
+		CollisionMask mask = CollisionMask.create(image, 0);
+		assertEquals(130, mask.getWidth());
+		assertEquals(3, mask.getHeight());
+		assertTrue(mask.isSet(0, 0));
+		assertTrue(mask.isSet(64, 1));
+		assertTrue(mask.isSet(129, 2));
+		assertFalse(mask.isSet(5, 2));
+		assertFalse(mask.isSet(-1, 0));
+		assertFalse(mask.isSet(130, 2));
+
+		assertFalse(CollisionMask.create(image, 0x80).isSet(129, 2));
+
+		// Scaled by nearest pixel
+		CollisionMask scaled = CollisionMask.create(image, 260, 6, 0);
+		assertTrue(scaled.isSet(128, 2));
+		assertTrue(scaled.isSet(129, 3));
+		assertFalse(scaled.isSet(130, 2));
+	}
+
+	@Test
+	public void intersectsTest()
+	{
+
+		Random random = new Random(7);
+		for (int i = 0; i < 300; i++)
+		{
+
+			CollisionMask a = randomMask(random, 1 + random.nextInt(150), 1 + random.nextInt(10));
+			CollisionMask b = randomMask(random, 1 + random.nextInt(150), 1 + random.nextInt(10));
+			int offsetX = random.nextInt(301) - 150;
+			int offsetY = random.nextInt(21) - 10;
+
+			assertEquals(intersects(a, b, offsetX, offsetY, 0, 0, a.getWidth(), a.getHeight()),
+				a.intersects(b, offsetX, offsetY));
+
+			int x = random.nextInt(200) - 50;
+			int y = random.nextInt(14) - 2;
+			int width = random.nextInt(100);
+			int height = random.nextInt(10);
+			assertEquals(intersects(a, b, offsetX, offsetY, x, y, width, height),
+				a.intersects(b, offsetX, offsetY, x, y, width, height));
+		}
+	}
+
+	@Test
+	public void coversTest()
+	{
+
+		Random random = new Random(11);
+		for (int i = 0; i < 300; i++)
+		{
+
+			// Dense masks, so covering happens
+			CollisionMask a = randomMask(random, 1 + random.nextInt(150), 1 + random.nextInt(10), 0.98);
+			CollisionMask b = randomMask(random, 1 + random.nextInt(40), 1 + random.nextInt(4), 0.05);
+			int offsetX = random.nextInt(200) - 20;
+			int offsetY = random.nextInt(12) - 1;
+
+			assertEquals(covers(a, b, offsetX, offsetY), a.covers(b, offsetX, offsetY));
+		}
+	}
+
+	@Test
+	public void cacheTest()
+	{
+
+		BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		assertSame(CollisionMask.get(image, 8, 8), CollisionMask.get(image, 8, 8));
+		assertNotSame(CollisionMask.get(image, 8, 8), CollisionMask.get(image, 16, 8));
+
+		// Shared by objects showing the same image
+		assertSame(new ImageSceneObject(image).getCollisionMask(), new ImageSceneObject(image).getCollisionMask());
+	}
+
+	@Test
+	public void boundingBoxTest()
+	{
+
+		PaintedObject a = new PaintedObject(10, 10);
+		PaintedObject b = new PaintedObject(10, 10);
+
+		// Overlapping columns, separate rows
+		b.setPosition(5, 20);
+		assertNull(a.collidesBoundingBox(b));
+		assertFalse(a.collides(b));
+
+		b.setPosition(5, 5);
+		Rectangle rv = new Rectangle();
+		assertSame(rv, a.collidesBoundingBox(b, rv));
+		assertEquals(new Rectangle(5, 5, 5, 5), rv);
+		assertEquals(rv, b.collidesBoundingBox(a));
+	}
+
+	@Test
+	public void imageCollisionTest()
+	{
+
+		BufferedImage circle = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = circle.createGraphics();
+		g.setColor(Color.RED);
+		g.fillOval(0, 0, 100, 100);
+		g.dispose();
+
+		ImageSceneObject a = new ImageSceneObject(circle);
+		ImageSceneObject b = new ImageSceneObject(circle);
+
+		// Bounding boxes overlap at the corners only
+		b.setPosition(90, 90);
+		assertNotNull(a.collidesBoundingBox(b));
+		assertFalse(a.collides(b));
+
+		b.setPosition(60, 0);
+		assertTrue(a.collides(b));
+
+		ImageSceneObject small = new ImageSceneObject(circle);
+		small.setSize(10, 10);
+		small.setPosition(45, 45);
+		assertTrue(a.consumes(small));
+
+		small.setPosition(0, 0);
+		assertTrue(a.consumesBoundingBox(small));
+		assertFalse(a.consumes(small));
+	}
+
+	@Test
+	public void spriteCollisionTest()
+	{
+
+		// Left tile is filled at the left, right tile at the right
+		BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLUE);
+		g.fillRect(0, 0, 2, 10);
+		g.fillRect(18, 0, 2, 10);
+		g.dispose();
+
+		SpriteSceneObject sprite = new SpriteSceneObject(new DefaultSprite(image, 10, 10), 0);
+		PaintedObject block = new PaintedObject(2, 10);
+
+		assertTrue(sprite.collides(block));
+
+		sprite.setAnimationFrame(1);
+		assertFalse(sprite.collides(block));
+
+		block.setPosition(8, 0);
+		assertTrue(sprite.collides(block));
+	}
+
+	@Test
+	public void groupCollisionTest()
+	{
+
+		BufferedImage opaque = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = opaque.createGraphics();
+		g.setColor(Color.GREEN);
+		g.fillRect(0, 0, 8, 8);
+		g.dispose();
+
+		ImageSceneObject image = new ImageSceneObject(opaque);
+		image.setPosition(12, 12);
+
+		SceneGroup group = new SceneGroup();
+		ImageSceneObject child = new ImageSceneObject(opaque);
+		child.setPosition(10, 10);
+		group.add(child);
+
+		assertNotNull(image.collidesBoundingBox(group));
+		assertTrue(image.collides(group));
+		assertTrue(group.collides(image));
+		assertTrue(group.consumes(new ImageSceneObject(opaque)
+		{
+
+			{
+				setPosition(10, 10);
+				setSize(4, 4);
+			}
+		}));
+
+		// Transformed group
+		group.setPosition(20, 0);
+		group.setTransform(AffineTransform.getScaleInstance(0.5, 0.5));
+		assertEquals(new Rectangle(25, 5, 4, 4), group.getRectangle());
+		assertFalse(image.collides(group));
+
+		image.setPosition(27, 7);
+		assertTrue(image.collides(group));
+		assertTrue(group.collides(image));
+
+		// Testing doesn't count as painting
+		assertTrue(group.isInvalid());
+
+		// Cached until a child changes
+		CollisionMask mask = group.getCollisionMask();
+		assertSame(mask, group.getCollisionMask());
+
+		child.invalidate();
+		CollisionMask invalidated = group.getCollisionMask();
+		assertNotSame(mask, invalidated);
+		assertSame(invalidated, group.getCollisionMask());
+
+		child.setPosition(30, 30);
+		assertNotSame(invalidated, group.getCollisionMask());
+		assertFalse(image.collides(group));
+	}
+
+	@Test
+	public void paintedObjectTest()
+	{
+
+		PaintedObject a = new PaintedObject(10, 10);
+		PaintedObject b = new PaintedObject(10, 10);
+		b.setPosition(5, 5);
+		assertTrue(a.collides(b));
+
+		// Look changed -> new mask
+		b.empty = true;
+		b.invalidate();
+		assertFalse(a.collides(b));
+
+		// Changing with every painting
+		PaintedObject animated = new PaintedObject(10, 10)
+		{
+
+			@Override
+			public boolean isInvalid()
+			{
+				return true;
+			}
+		};
+		BufferedImage image = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		animated.paintOnScene(g, 20, 20, 0);
+		g.dispose();
+
+		assertTrue(a.collides(animated));
+		animated.empty = true;
+		assertFalse(a.collides(animated));
+	}
+
+	private static CollisionMask randomMask(Random random, int width, int height)
+	{
+		return randomMask(random, width, height, 0.1);
+	}
+
+	private static CollisionMask randomMask(Random random, int width, int height, double density)
+	{
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				if (random.nextDouble() < density)
+				{
+					image.setRGB(x, y, 0xFF000000);
+				}
+			}
+		}
+
+		return CollisionMask.create(image, 0);
+	}
+
+	private static boolean intersects(CollisionMask a, CollisionMask b, int offsetX, int offsetY, int x, int y,
+		int width, int height)
+	{
+
+		for (int row = y; row < y + height; row++)
+		{
+			for (int column = x; column < x + width; column++)
+			{
+				if (a.isSet(column, row) && b.isSet(column - offsetX, row - offsetY))
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean covers(CollisionMask a, CollisionMask b, int offsetX, int offsetY)
+	{
+
+		for (int row = 0; row < b.getHeight(); row++)
+		{
+			for (int column = 0; column < b.getWidth(); column++)
+			{
+				if (b.isSet(column, row) && !a.isSet(column + offsetX, row + offsetY))
+				{
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	private static class PaintedObject extends SceneObject
+	{
+
+		boolean empty;
+
+		PaintedObject(int width, int height)
+		{
+			setSize(width, height);
+		}
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+
+			if (!empty)
+			{
+
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, getWidth(), getHeight());
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class SceneGroupTest
+{
+
+	@Test
+	public void boundsTest()
+	{
+
+		SceneGroup world = new SceneGroup();
+		world.setPosition(10, 20);
+
+		SceneGroup group = new SceneGroup();
+		group.setPosition(5, 5);
+		group.setTransform(AffineTransform.getScaleInstance(2, 2));
+		world.add(group);
+
+		CountingObject child = new CountingObject(0, 0, 10, 10);
+		group.add(child);
+
+		assertEquals(new Rectangle(5, 5, 20, 20), group.getRectangle());
+		assertEquals(new Rectangle(15, 25, 20, 20), world.getRectangle());
+		assertEquals(new Rectangle2D.Double(15, 25, 20, 20), group.getWorldBounds());
+
+		// Child moved -> path to the root recomputed
+		child.setPosition(5, 0);
+		assertEquals(new Rectangle(15, 5, 20, 20), group.getRectangle());
+		assertEquals(new Rectangle(25, 25, 20, 20), world.getRectangle());
+
+		AffineTransform expected = AffineTransform.getTranslateInstance(15, 25);
+		expected.scale(2, 2);
+		assertEquals(expected, group.getWorldTransform());
+	}
+
+	@Test
+	public void dirtySubtreeTest()
+	{
+
+		SceneGroup world = new SceneGroup();
+		SceneGroup left = new SceneGroup();
+		SceneGroup right = new SceneGroup();
+		world.add(left);
+		world.add(right);
+
+		CountingObject leftChild = new CountingObject(0, 0, 10, 10);
+		CountingObject rightChild = new CountingObject(100, 0, 10, 10);
+		left.add(leftChild);
+		right.add(rightChild);
+
+		assertEquals(new Rectangle(0, 0, 110, 10), world.getRectangle());
+		leftChild.calls = 0;
+		rightChild.calls = 0;
+
+		// Only the changed subtree collects its children again
+		leftChild.setPosition(0, 20);
+		assertEquals(new Rectangle(0, 0, 110, 30), world.getRectangle());
+		assertEquals(1, leftChild.calls);
+		assertEquals(0, rightChild.calls);
+
+		// Moving a group only updates transforms
+		world.setPosition(50, 50);
+		assertEquals(new Rectangle2D.Double(50, 50, 110, 30), world.getWorldBounds());
+		assertEquals(new Rectangle2D.Double(150, 50, 10, 10), right.getWorldBounds());
+		assertEquals(1, leftChild.calls);
+		assertEquals(0, rightChild.calls);
+
+		// Unchanged -> nothing recomputed
+		world.getRectangle();
+		assertEquals(1, leftChild.calls);
+		assertEquals(0, rightChild.calls);
+	}
+
+	@Test
+	public void paintTest()
+	{
+
+		SceneGroup group = new SceneGroup();
+		group.setPosition(4, 4);
+		group.setTransform(AffineTransform.getScaleInstance(2, 2));
+		group.add(new CountingObject(1, 1, 2, 2));
+
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		group.paintOnScene(g, 16, 16, 0);
+
+		assertTrue(g.getTransform().isIdentity());
+		g.dispose();
+
+		assertEquals(0, image.getRGB(5, 5));
+		assertEquals(Color.RED.getRGB(), image.getRGB(6, 6));
+		assertEquals(Color.RED.getRGB(), image.getRGB(9, 9));
+		assertEquals(0, image.getRGB(10, 10));
+		assertFalse(group.isInvalid());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void cycleTest()
+	{
+
+		SceneGroup parent = new SceneGroup();
+		SceneGroup child = new SceneGroup();
+		parent.add(child);
+		child.add(parent);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void secondParentTest()
+	{
+
+		CountingObject child = new CountingObject(0, 0, 1, 1);
+		new SceneGroup().add(child);
+		new SceneGroup().add(child);
+	}
+
+	private static class CountingObject extends SceneObject
+	{
+
+		private int calls;
+
+		CountingObject(int x, int y, int width, int height)
+		{
+
+			setPosition(x, y);
+			setSize(width, height);
+		}
+
+		@Override
+		public Rectangle getRectangle(Rectangle rv)
+		{
+
+			calls++;
+			return super.getRectangle(rv);
+		}
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+
+			g.setColor(Color.RED);
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+	}
+}
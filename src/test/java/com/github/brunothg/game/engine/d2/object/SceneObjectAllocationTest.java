@@ -0,0 +1,225 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.commons.RenderingOptions;
+import com.github.brunothg.game.engine.d2.object.image.ImageSceneObject;
+
+/**
+ * Benchmark for the scene object's paint path. Painting many sprites every frame must not produce
+ * any garbage.
+ */
+public class SceneObjectAllocationTest
+{
+
+	private static final int OBJECTS = 5000;
+
+	@Test
+	public void zeroAllocationPerPaint()
+	{
+
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g = image.createGraphics();
+
+		RectangleObject[] objects = new RectangleObject[OBJECTS];
+		for (int i = 0; i < objects.length; i++)
+		{
+
+			objects[i] = new RectangleObject();
+			objects[i].setPosition(i % 240, (i / 240) * 8);
+			objects[i].setSize(16, 8);
+			objects[i].setClipToBounds(false);
+		}
+
+		// Warm up
+		for (int frame = 0; frame < 200; frame++)
+		{
+			paint(g, objects);
+		}
+
+		long threadId = Thread.currentThread().getId();
+		long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+
+		int frames = 100;
+		for (int frame = 0; frame < frames; frame++)
+		{
+			paint(g, objects);
+		}
+
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+		long paints = (long) frames * OBJECTS;
+		g.dispose();
+
+		assertTrue("SceneObject allocates in paint path: " + allocated + " bytes", allocated < paints);
+	}
+
+	@Test
+	public void zeroAllocationPerCollision()
+	{
+
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		// Transparent, so overlapping bounding boxes are tested exactly without colliding
+		BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+		ImageSceneObject[] objects = new ImageSceneObject[100];
+		for (int i = 0; i < objects.length; i++)
+		{
+
+			objects[i] = new ImageSceneObject(image);
+			objects[i].setPosition(i * 8, (i % 3) * 10);
+		}
+
+		// Warm up, masks are cached
+		int collisions = collideAll(objects);
+
+		long threadId = Thread.currentThread().getId();
+		long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+
+		for (int i = 0; i < 100; i++)
+		{
+			collideAll(objects);
+		}
+
+		long allocated = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+		assertEquals(0, collisions);
+		assertTrue("SceneObject allocates in collision tests: " + allocated + " bytes", allocated <= 4096);
+	}
+
+	private static int collideAll(SceneObject[] objects)
+	{
+
+		int collisions = 0;
+		for (int i = 0; i < objects.length; i++)
+		{
+			for (int j = i + 1; j < objects.length; j++)
+			{
+				if (objects[i].collides(objects[j]))
+				{
+					collisions++;
+				}
+			}
+		}
+
+		return collisions;
+	}
+
+	@Test
+	public void paintRestoresGraphics()
+	{
+
+		BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.BLUE);
+		Stroke stroke = g.getStroke();
+		Object antialiasing = g.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+
+		SceneObject obj = new SceneObject()
+		{
+
+			@Override
+			protected void paint(Graphics2D g, long elapsedTime)
+			{
+
+				g.setColor(Color.RED);
+				g.setStroke(new BasicStroke(3));
+				g.fillRect(0, 0, getWidth(), getHeight());
+			}
+		};
+		obj.setPosition(10, 12);
+		obj.setSize(4, 4);
+		obj.setRenderingOptions(new RenderingOptions().setAntiAliasing(
+			!RenderingHints.VALUE_ANTIALIAS_ON.equals(antialiasing)).setEnhancedInterpolation(true));
+
+		obj.paintOnScene(g, 32, 32, 0);
+
+		assertEquals(Color.BLUE, g.getColor());
+		assertSame(stroke, g.getStroke());
+		assertEquals(antialiasing, g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+		assertEquals(interpolation, g.getRenderingHint(RenderingHints.KEY_INTERPOLATION));
+		assertTrue(g.getTransform().isIdentity());
+
+		// Painted at its position
+		assertEquals(Color.RED.getRGB(), image.getRGB(10, 12));
+		assertEquals(Color.RED.getRGB(), image.getRGB(13, 15));
+		assertEquals(0, image.getRGB(14, 16));
+		assertEquals(0, image.getRGB(9, 11));
+		g.dispose();
+	}
+
+	@Test
+	public void paintClipsToBounds()
+	{
+
+		BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+
+		SceneObject obj = new SceneObject()
+		{
+
+			@Override
+			protected void paint(Graphics2D g, long elapsedTime)
+			{
+
+				g.setColor(Color.RED);
+				g.fillRect(-5, -5, 20, 20);
+			}
+		};
+		obj.setPosition(10, 10);
+		obj.setSize(4, 4);
+
+		obj.paintOnScene(g, 32, 32, 0);
+		assertEquals(Color.RED.getRGB(), image.getRGB(10, 10));
+		assertEquals(0, image.getRGB(9, 9));
+		assertEquals(0, image.getRGB(14, 14));
+		assertNull(g.getClip());
+
+		obj.setClipToBounds(false);
+		obj.paintOnScene(g, 32, 32, 0);
+		assertEquals(Color.RED.getRGB(), image.getRGB(9, 9));
+		g.dispose();
+	}
+
+	private static void paint(Graphics2D g, RectangleObject[] objects)
+	{
+
+		for (RectangleObject obj : objects)
+		{
+			obj.paintOnScene(g, 256, 256, 16);
+		}
+	}
+
+	private static class RectangleObject extends SceneObject
+	{
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+
+			g.setColor(Color.GREEN);
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+	}
+}
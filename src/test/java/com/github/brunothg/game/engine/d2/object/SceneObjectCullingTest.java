@@ -0,0 +1,223 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
+
+public class SceneObjectCullingTest
+{
+
+	@Test
+	public void viewportTest()
+	{
+
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+
+		CountingObject visible = new CountingObject(90, 90);
+		CountingObject outside = new CountingObject(100, 50);
+		CountingObject forced = new CountingObject(-20, -20);
+		forced.setCullable(false);
+
+		CullingStatistics statistics = new CullingStatistics();
+		CullingStatistics previous = CullingStatistics.bind(statistics);
+		try
+		{
+
+			visible.paintOnScene(g, 100, 100, 5);
+			outside.paintOnScene(g, 100, 100, 5);
+			forced.paintOnScene(g, 100, 100, 5);
+		}
+		finally
+		{
+			CullingStatistics.bind(previous);
+		}
+		statistics.nextFrame();
+
+		assertEquals(1, visible.paintings);
+		assertEquals(0, outside.paintings);
+		assertEquals(5, outside.culledTime);
+		assertEquals(1, forced.paintings);
+		assertEquals(2, statistics.getDrawnObjects());
+		assertEquals(1, statistics.getCulledObjects());
+
+		// Nothing recorded without bound statistics
+		outside.paintOnScene(g, 100, 100, 0);
+		statistics.nextFrame();
+		assertEquals(0, statistics.getCulledObjects());
+
+		// Clip is the visible area
+		g.clipRect(0, 0, 50, 50);
+		visible.paintOnScene(g, 100, 100, 5);
+		assertEquals(1, visible.paintings);
+
+		g.dispose();
+	}
+
+	@Test
+	public void untrackedTest()
+	{
+
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+
+		CountingObject visible = new CountingObject(10, 10);
+		CountingObject outside = new CountingObject(200, 10);
+		SceneGroup group = new SceneGroup();
+		group.add(new CountingObject(0, 0));
+
+		boolean tracking = SceneObject.setDirtyRegionTracking(false);
+		try
+		{
+
+			visible.paintOnScene(g, 100, 100, 0);
+			outside.paintOnScene(g, 100, 100, 0);
+			group.paintOnScene(g, 100, 100, 0);
+		}
+		finally
+		{
+			SceneObject.setDirtyRegionTracking(tracking);
+		}
+
+		// Painted, but not tracked
+		assertEquals(1, visible.paintings);
+		assertTrue(visible.isInvalid());
+		assertTrue(outside.isInvalid());
+		assertTrue(group.isInvalid());
+
+		visible.paintOnScene(g, 100, 100, 0);
+		assertFalse(visible.isInvalid());
+
+		g.dispose();
+	}
+
+	@Test
+	public void groupTest()
+	{
+
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+
+		SceneGroup group = new SceneGroup();
+		group.setPosition(50, 0);
+		group.setTransform(AffineTransform.getScaleInstance(2, 2));
+
+		CountingObject visible = new CountingObject(20, 20);
+		CountingObject outside = new CountingObject(30, 20);
+		group.add(visible);
+		group.add(outside);
+
+		// Children culled in the group's coordinates
+		group.paintOnScene(g, 100, 100, 0);
+		assertEquals(1, visible.paintings);
+		assertEquals(0, outside.paintings);
+
+		// Group outside -> children culled with the group
+		group.setPosition(200, 0);
+		group.paintOnScene(g, 100, 100, 7);
+		assertEquals(1, visible.paintings);
+		assertEquals(7, visible.culledTime);
+		assertEquals(7, outside.culledTime);
+
+		// Objects, that aren't cullable, are painted anyway
+		SceneGroup nested = new SceneGroup();
+		CountingObject forced = new CountingObject(0, 0);
+		forced.setCullable(false);
+		nested.add(forced);
+		group.add(nested);
+
+		group.paintOnScene(g, 100, 100, 7);
+		assertEquals(1, forced.paintings);
+		assertEquals(1, visible.paintings);
+		assertEquals(14, visible.culledTime);
+
+		g.dispose();
+	}
+
+	@Test
+	public void culledDirtyRegionTest()
+	{
+
+		BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+
+		CountingObject obj = new CountingObject(10, 10);
+		SceneGroup group = new SceneGroup();
+		group.add(new CountingObject(20, 20));
+
+		obj.paintOnScene(g, 100, 100, 0);
+		group.paintOnScene(g, 100, 100, 0);
+
+		obj.setPosition(500, 500);
+		group.setPosition(500, 500);
+
+		// Old bounds are dirty once
+		DirtyRegion region = new DirtyRegion();
+		region.setBounds(100, 100);
+		obj.addDirtyRegion(region);
+		group.addDirtyRegion(region);
+		assertTrue(contains(region, 10, 10));
+		assertTrue(contains(region, 20, 20));
+
+		for (int frame = 0; frame < 3; frame++)
+		{
+
+			obj.paintOnScene(g, 100, 100, 0);
+			group.paintOnScene(g, 100, 100, 0);
+
+			region = new DirtyRegion();
+			region.setBounds(100, 100);
+			obj.addDirtyRegion(region);
+			group.addDirtyRegion(region);
+			assertTrue(region.isEmpty());
+		}
+
+		g.dispose();
+	}
+
+	private static boolean contains(DirtyRegion region, int x, int y)
+	{
+
+		for (int i = 0; i < region.getRectangleCount(); i++)
+		{
+			if (region.getRectangle(i).contains(x, y))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static class CountingObject extends SceneObject
+	{
+
+		private int paintings;
+		private long culledTime;
+
+		CountingObject(int x, int y)
+		{
+
+			setPosition(x, y);
+			setSize(10, 10);
+		}
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+			paintings++;
+		}
+
+		@Override
+		protected void culled(long elapsedTime)
+		{
+			culledTime += elapsedTime;
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.github.brunothg.game.engine.d2.object;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class SpatialIndexTest
+{
+
+	@Test
+	public void uniformGridTest()
+	{
+		assertMatchesBruteForce(new UniformGrid(32));
+	}
+
+	@Test
+	public void looseQuadtreeTest()
+	{
+		assertMatchesBruteForce(new LooseQuadtree(0, 0, 1000, 1000, 6));
+	}
+
+	@Test
+	public void uniformGridCellsTest()
+	{
+
+		UniformGrid index = new UniformGrid(10);
+		List<BoxObject> objects = new ArrayList<BoxObject>();
+		for (int i = 0; i < 100; i++)
+		{
+
+			BoxObject obj = new BoxObject(i * 10, 0, 5, 5);
+			objects.add(obj);
+			index.add(obj);
+		}
+		assertEquals(100, index.getCellCount());
+
+		// Objects wandering through an unbounded world don't grow the grid
+		for (int step = 1; step <= 1000; step++)
+		{
+
+			for (BoxObject obj : objects)
+			{
+				obj.setPosition(obj.getX() + 10, step * 10);
+			}
+			index.query(0, 0, 1, 1, new ArrayList<SceneObject>());
+			assertEquals(100, index.getCellCount());
+		}
+
+		BoxObject first = objects.get(0);
+		assertEquals(1, index.query(first.getX(), first.getY(), new ArrayList<SceneObject>()).size());
+
+		for (BoxObject obj : objects)
+		{
+			index.remove(obj);
+		}
+		assertEquals(0, index.getCellCount());
+	}
+
+	@Test
+	public void groupTest()
+	{
+
+		UniformGrid index = new UniformGrid(16);
+		SceneGroup group = new SceneGroup();
+		BoxObject child = new BoxObject(0, 0, 10, 10);
+		group.add(child);
+		index.add(group);
+
+		// Moving a child moves the group's bounds
+		child.setPosition(100, 100);
+		assertTrue(index.query(105, 105, new ArrayList<SceneObject>()).contains(group));
+		assertTrue(index.query(5, 5, new ArrayList<SceneObject>()).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void secondIndexTest()
+	{
+
+		BoxObject obj = new BoxObject(0, 0, 1, 1);
+		new UniformGrid().add(obj);
+		new LooseQuadtree(0, 0, 10, 10).add(obj);
+	}
+
+	private static void assertMatchesBruteForce(SpatialIndex index)
+	{
+
+		Random random = new Random(42);
+		List<BoxObject> objects = new ArrayList<BoxObject>();
+		for (int i = 0; i < 500; i++)
+		{
+
+			// Some objects outside of the quadtree's area and some big ones
+			int size = (i % 50 == 0) ? 300 : 1 + random.nextInt(40);
+			BoxObject obj = new BoxObject(random.nextInt(1200) - 100, random.nextInt(1200) - 100, size, size);
+			objects.add(obj);
+			index.add(obj);
+		}
+		assertEquals(500, index.size());
+
+		for (int round = 0; round < 5; round++)
+		{
+
+			assertQueries(index, objects, random);
+
+			// Incremental updates
+			for (int i = 0; i < objects.size(); i += 2)
+			{
+
+				BoxObject obj = objects.get(i);
+				obj.setPosition(obj.getX() + random.nextInt(41) - 20, obj.getY() + random.nextInt(41) - 20);
+				if (i % 10 == 0)
+				{
+					obj.setSize(1 + random.nextInt(80), 1 + random.nextInt(80));
+				}
+			}
+
+			for (int i = 0; i < 20; i++)
+			{
+
+				BoxObject obj = objects.remove(random.nextInt(objects.size()));
+				assertTrue(index.remove(obj));
+				assertFalse(index.contains(obj));
+			}
+		}
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertTrue(index.query(-1000, -1000, 5000, 5000, new ArrayList<SceneObject>()).isEmpty());
+	}
+
+	private static void assertQueries(SpatialIndex index, List<BoxObject> objects, Random random)
+	{
+
+		Rectangle bounds = new Rectangle();
+		for (int i = 0; i < 50; i++)
+		{
+
+			Rectangle region = new Rectangle(random.nextInt(1200) - 100, random.nextInt(1200) - 100,
+				1 + random.nextInt(300), 1 + random.nextInt(300));
+			Set<SceneObject> expected = new HashSet<SceneObject>();
+			for (BoxObject obj : objects)
+			{
+				if (obj.getRectangle(bounds).intersects(region))
+				{
+					expected.add(obj);
+				}
+			}
+
+			List<SceneObject> found = index.query(region, new ArrayList<SceneObject>());
+			assertEquals(expected.size(), found.size());
+			assertEquals(expected, new HashSet<SceneObject>(found));
+
+			int px = region.x;
+			int py = region.y;
+			expected.clear();
+			for (BoxObject obj : objects)
+			{
+				if (obj.getRectangle(bounds).contains(px, py))
+				{
+					expected.add(obj);
+				}
+			}
+			assertEquals(expected, new HashSet<SceneObject>(index.query(px, py, new ArrayList<SceneObject>())));
+		}
+
+		final Set<String> pairs = new HashSet<String>();
+		final int[] visits = new int[1];
+		index.queryPairs(new SpatialIndex.PairVisitor()
+		{
+
+			@Override
+			public void visit(SceneObject a, SceneObject b)
+			{
+
+				visits[0]++;
+				pairs.add(key(a, b));
+			}
+		});
+		assertEquals("Pair visited twice", pairs.size(), visits[0]);
+
+		Set<String> expectedPairs = new HashSet<String>();
+		for (int i = 0; i < objects.size(); i++)
+		{
+			for (int j = i + 1; j < objects.size(); j++)
+			{
+				if (objects.get(i).getRectangle().intersects(objects.get(j).getRectangle()))
+				{
+					expectedPairs.add(key(objects.get(i), objects.get(j)));
+				}
+			}
+		}
+		assertEquals(expectedPairs, pairs);
+	}
+
+	private static String key(SceneObject a, SceneObject b)
+	{
+
+		int ha = System.identityHashCode(a);
+		int hb = System.identityHashCode(b);
+		return Math.min(ha, hb) + ":" + Math.max(ha, hb);
+	}
+
+	private static class BoxObject extends SceneObject
+	{
+
+		BoxObject(int x, int y, int width, int height)
+		{
+
+			setPosition(x, y);
+			setSize(width, height);
+		}
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.EventListener;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.commons.DirtyRegion;
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+import com.github.brunothg.game.engine.d2.scene.ReentrantScene;
+
+public class BandedRasterizerTest
+{
+
+	@Test
+	public void equalToSequentialTest()
+	{
+
+		ReentrantScene scene = new ShapesScene();
+		int width = 317;
+		int height = 211;
+
+		OffscreenStage sequential = new OffscreenStage(width, height);
+		sequential.setScene(scene);
+		OffscreenFrame expected = sequential.render(0);
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+
+			OffscreenStage banded = new OffscreenStage(width, height);
+			banded.setScene(scene);
+
+			// More bands than rows must work, too
+			for (int bands : new int[] { 1, 3, 7, 500 })
+			{
+
+				banded.setBandedRasterizer(new BandedRasterizer(pool, bands));
+				OffscreenFrame actual = banded.render(0);
+
+				assertImageEquals(expected.getImage(), actual.getImage());
+				actual.release();
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void trackingTest()
+	{
+
+		final SceneObject[] objects = new SceneObject[20];
+		for (int i = 0; i < objects.length; i++)
+		{
+
+			objects[i] = new SceneObject()
+			{
+
+				@Override
+				protected void paint(Graphics2D g, long elapsedTime)
+				{
+				}
+			};
+			objects[i].setPosition(i * 5, i * 10);
+			objects[i].setSize(10, 10);
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+
+			OffscreenStage stage = new OffscreenStage(100, 200);
+			stage.setBandedRasterizer(new BandedRasterizer(pool, 4));
+			stage.setScene(new ObjectScene(objects));
+			stage.render(0).release();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		// Tracked by one band, no matter which band painted the object
+		DirtyRegion region = new DirtyRegion();
+		region.setBounds(100, 200);
+		for (SceneObject object : objects)
+		{
+
+			assertFalse(object.isInvalid());
+			object.addDirtyRegion(region);
+		}
+		assertTrue(region.isEmpty());
+
+		// Worker bands don't track
+		assertTrue(SceneObject.setDirtyRegionTracking(true));
+	}
+
+	private static void assertImageEquals(BufferedImage expected, BufferedImage actual)
+	{
+
+		for (int y = 0; y < expected.getHeight(); y++)
+		{
+			for (int x = 0; x < expected.getWidth(); x++)
+			{
+				assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	private static class ShapesScene implements ReentrantScene
+	{
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setStroke(new BasicStroke(3));
+
+			for (int i = 0; i < 20; i++)
+			{
+				g.setColor(new Color(i * 12, 255 - i * 12, (i * 40) % 255, 200));
+				g.fillOval(i * 13, i * 9, 60, 40);
+				g.drawLine(0, i * 10, width, height - i * 10);
+			}
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+
+	private static class ObjectScene implements ReentrantScene
+	{
+
+		private final SceneObject[] objects;
+
+		ObjectScene(SceneObject... objects)
+		{
+			this.objects = objects;
+		}
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+			for (SceneObject object : objects)
+			{
+				object.paintOnScene(g, width, height, elapsedTime);
+			}
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import java.awt.BufferCapabilities;
+import java.awt.EventQueue;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.ImageCapabilities;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.EventListener;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.scene.Scene;
+
+public class CanvasStageTest
+{
+
+	@Test
+	public void notDisplayableTest()
+	{
+
+		CountingScene scene = new CountingScene();
+
+		CanvasStage stage = new CanvasStage(3);
+		stage.setScene(scene);
+
+		stage.tick(1, 10);
+		stage.tick(1, 20);
+
+		// Nothing painted, not even into a dummy graphics
+		assertEquals(0, scene.paintings);
+		assertEquals(2, stage.getPresentMetrics().getSkippedFrames());
+		assertEquals(0, stage.getPresentMetrics().getPresentedFrames());
+		assertFalse(stage.isPageFlipping());
+	}
+
+	@Test
+	public void restoredContentsTest()
+	{
+
+		CountingScene scene = new CountingScene();
+		final StubBufferStrategy bufferStrategy = new StubBufferStrategy();
+
+		CanvasStage stage = new CanvasStage(2)
+		{
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			BufferStrategy getReadyBufferStrategy()
+			{
+				return bufferStrategy;
+			}
+		};
+		stage.setScene(scene);
+
+		// Restored twice, lost once -> painted four times
+		bufferStrategy.restored = 2;
+		bufferStrategy.lost = 1;
+		stage.tick(1, 10);
+
+		assertEquals(4, scene.paintings);
+		assertEquals(10, scene.elapsedTime);
+		assertEquals(2, bufferStrategy.shown);
+		assertEquals(1, stage.getPresentMetrics().getPresentedFrames());
+
+		stage.tick(1, 20);
+		assertEquals(5, scene.paintings);
+		assertEquals(30, scene.elapsedTime);
+	}
+
+	@Test(timeout = 10000)
+	public void listenersWithoutClockTest() throws Exception
+	{
+
+		CanvasStage stage = new CanvasStage(2);
+		KeyListener first = new KeyAdapter()
+		{
+		};
+		KeyListener second = new KeyAdapter()
+		{
+		};
+
+		// No frame is painted
+		stage.setScene(new CountingScene(first));
+		flushEventQueue();
+		assertTrue(Arrays.asList(stage.getKeyListeners()).contains(first));
+
+		stage.setScene(new CountingScene(second));
+		flushEventQueue();
+		assertTrue(Arrays.asList(stage.getKeyListeners()).contains(second));
+		assertFalse(Arrays.asList(stage.getKeyListeners()).contains(first));
+	}
+
+	private static void flushEventQueue() throws Exception
+	{
+
+		EventQueue.invokeAndWait(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+			}
+		});
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void bufferCountTest()
+	{
+		new CanvasStage(1);
+	}
+
+	private static class CountingScene implements Scene
+	{
+
+		private int paintings;
+		private long elapsedTime;
+		private final EventListener[] listeners;
+
+		CountingScene(EventListener... listeners)
+		{
+			this.listeners = listeners;
+		}
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+			paintings++;
+			this.elapsedTime += elapsedTime;
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return listeners;
+		}
+	}
+
+	private static class StubBufferStrategy extends BufferStrategy
+	{
+
+		private final BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+
+		private int restored;
+		private int lost;
+		private int shown;
+
+		@Override
+		public BufferCapabilities getCapabilities()
+		{
+			return new BufferCapabilities(new ImageCapabilities(false), new ImageCapabilities(false), null);
+		}
+
+		@Override
+		public Graphics getDrawGraphics()
+		{
+			return image.createGraphics();
+		}
+
+		@Override
+		public boolean contentsRestored()
+		{
+			return restored-- > 0;
+		}
+
+		@Override
+		public boolean contentsLost()
+		{
+			return lost-- > 0;
+		}
+
+		@Override
+		public void show()
+		{
+			shown++;
+		}
+	}
+}
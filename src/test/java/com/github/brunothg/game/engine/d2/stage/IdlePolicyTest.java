@@ -0,0 +1,112 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import java.awt.Canvas;
+import java.awt.Graphics2D;
+import java.util.EventListener;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.scene.Scene;
+import com.github.brunothg.game.engine.time.Clock;
+
+public class IdlePolicyTest
+{
+
+	@Test
+	public void idleClockTest()
+	{
+
+		Clock clock = new Clock(60);
+		IdlePolicy policy = new IdlePolicy();
+		policy.setIdleClock(clock);
+		policy.setIdleFramesPerSecond(5);
+
+		ToggleCanvas canvas = new ToggleCanvas();
+		canvas.setSize(20, 20);
+
+		canvas.showing = true;
+		assertFalse(policy.update(canvas));
+		assertEquals(60, clock.getFramesPerSecond(), 0.5);
+
+		// Hidden -> reduced frame rate
+		canvas.showing = false;
+		assertTrue(policy.update(canvas));
+		assertTrue(policy.update(canvas));
+		assertTrue(policy.isIdle());
+		assertEquals(2, policy.getIdleFrames());
+		assertEquals(5, clock.getFramesPerSecond(), 0.5);
+
+		// Resumed -> frame rate restored
+		canvas.showing = true;
+		assertFalse(policy.update(canvas));
+		assertFalse(policy.isIdle());
+		assertEquals(60, clock.getFramesPerSecond(), 0.5);
+	}
+
+	@Test
+	public void suspendedStageTest()
+	{
+
+		SwingStage stage = new SwingStage();
+		stage.setSize(20, 20);
+		stage.setIdlePolicy(new IdlePolicy());
+
+		CountingScene scene = new CountingScene();
+		stage.setScene(scene);
+
+		// Not showing -> not painted
+		stage.tick(1, 10);
+		stage.tick(1, 20);
+		assertEquals(0, scene.paintings);
+		assertTrue(stage.getIdlePolicy().isIdle());
+
+		// Resumed -> painted with the accumulated time
+		stage.setIdlePolicy(null);
+		stage.tick(1, 5);
+		assertEquals(1, scene.paintings);
+		assertEquals(35, scene.elapsedTime);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidIdleFramesPerSecondTest()
+	{
+		new IdlePolicy().setIdleFramesPerSecond(0);
+	}
+
+	private static class ToggleCanvas extends Canvas
+	{
+
+		private static final long serialVersionUID = 1L;
+
+		private boolean showing;
+
+		@Override
+		public boolean isShowing()
+		{
+			return showing;
+		}
+	}
+
+	private static class CountingScene implements Scene
+	{
+
+		private int paintings;
+		private long elapsedTime;
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			paintings++;
+			this.elapsedTime = elapsedTime;
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+}
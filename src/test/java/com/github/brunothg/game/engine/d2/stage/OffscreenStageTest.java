@@ -0,0 +1,210 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.object.CullingStatistics;
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+import com.github.brunothg.game.engine.d2.scene.Scene;
+import com.github.brunothg.game.engine.time.Clock;
+import com.github.brunothg.game.engine.time.VirtualTimeSource;
+
+public class OffscreenStageTest
+{
+
+	@Test
+	public void renderTest()
+	{
+
+		OffscreenStage stage = new OffscreenStage(40, 30, 2);
+		assertNull(stage.render(0));
+
+		stage.setScene(new RectScene());
+
+		OffscreenFrame first = stage.render(10);
+		assertNotNull(first);
+		assertEquals(0, first.getFrameNumber());
+		assertEquals(40, first.getImage().getWidth());
+		assertEquals(30, first.getImage().getHeight());
+		assertEquals(Color.RED.getRGB(), first.getImage().getRGB(5, 5));
+		assertEquals(0, first.getImage().getRGB(30, 25));
+
+		OffscreenFrame second = stage.render(10);
+		assertNotSame(first.getImage(), second.getImage());
+
+		// Pool exhausted -> time is added to the next frame
+		assertNull(stage.render(10));
+		assertEquals(1, stage.getDroppedFrames());
+
+		first.release();
+		first.release();
+		OffscreenFrame third = stage.render(10);
+		assertSame(first.getImage(), third.getImage());
+		assertEquals(20, third.getElapsedTime());
+		assertEquals(2, third.getFrameNumber());
+
+		// Resized images are not reused
+		stage.setSize(20, 20);
+		second.release();
+		third.release();
+		OffscreenFrame resized = stage.render(0);
+		assertEquals(20, resized.getImage().getWidth());
+		assertNotSame(first.getImage(), resized.getImage());
+		resized.release();
+	}
+
+	@Test
+	public void clockTest()
+	{
+
+		final List<Long> frameNumbers = new ArrayList<Long>();
+
+		OffscreenStage stage = new OffscreenStage(16, 16);
+		stage.setScene(new RectScene());
+		stage.setFrameConsumer(new OffscreenStage.FrameConsumer()
+		{
+
+			@Override
+			public void frameRendered(OffscreenFrame frame)
+			{
+				frameNumbers.add(frame.getFrameNumber());
+				frame.release();
+			}
+		});
+
+		Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		clk.addClockListener(stage);
+		clk.simulate(10);
+
+		assertEquals(10, frameNumbers.size());
+		assertEquals(Long.valueOf(9), frameNumbers.get(9));
+		assertEquals(0, stage.getDroppedFrames());
+	}
+
+	@Test
+	public void failingSceneTest()
+	{
+
+		OffscreenStage stage = new OffscreenStage(16, 16, 1);
+		stage.setScene(new RectScene()
+		{
+
+			@Override
+			public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+			{
+				throw new IllegalStateException("Scene failed");
+			}
+		});
+
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+
+				stage.render(0);
+				fail("Exception expected");
+			}
+			catch (IllegalStateException e)
+			{
+			}
+		}
+
+		// Image is back in the pool
+		stage.setScene(new RectScene());
+		OffscreenFrame frame = stage.render(0);
+		assertNotNull(frame);
+		assertEquals(0, stage.getDroppedFrames());
+		frame.release();
+	}
+
+	@Test
+	public void cullingStatisticsTest()
+	{
+
+		OffscreenStage first = new OffscreenStage(40, 30, 1);
+		first.setScene(new ObjectScene(new EmptyObject(0, 0), new EmptyObject(20, 10), new EmptyObject(50, 0)));
+
+		OffscreenStage second = new OffscreenStage(40, 30, 1);
+		second.setScene(new ObjectScene(new EmptyObject(100, 100)));
+
+		first.render(0).release();
+		second.render(0).release();
+
+		// Every stage counts its own frames
+		assertEquals(2, first.getCullingStatistics().getDrawnObjects());
+		assertEquals(1, first.getCullingStatistics().getCulledObjects());
+		assertEquals(0, second.getCullingStatistics().getDrawnObjects());
+		assertEquals(1, second.getCullingStatistics().getCulledObjects());
+
+		// Latched per frame
+		first.render(0).release();
+		assertEquals(2, first.getCullingStatistics().getDrawnObjects());
+		assertNull(CullingStatistics.getBound());
+	}
+
+	private static class RectScene implements Scene
+	{
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+			g.setColor(Color.RED);
+			g.fillRect(0, 0, 10, 10);
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+
+	private static class ObjectScene implements Scene
+	{
+
+		private final SceneObject[] objects;
+
+		ObjectScene(SceneObject... objects)
+		{
+			this.objects = objects;
+		}
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+			for (SceneObject object : objects)
+			{
+				object.paintOnScene(g, width, height, elapsedTime);
+			}
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+
+	private static class EmptyObject extends SceneObject
+	{
+
+		EmptyObject(int x, int y)
+		{
+
+			setPosition(x, y);
+			setSize(10, 10);
+		}
+
+		@Override
+		protected void paint(Graphics2D g, long elapsedTime)
+		{
+		}
+	}
+}
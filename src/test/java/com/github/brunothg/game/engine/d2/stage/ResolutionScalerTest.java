@@ -0,0 +1,75 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class ResolutionScalerTest
+{
+
+	private static final long BUDGET = 10000000;
+
+	@Test
+	public void scaleTest()
+	{
+
+		ResolutionScaler scaler = new ResolutionScaler(BUDGET);
+		scaler.setWindow(5);
+		scaler.setMinScale(0.25);
+		assertEquals(1, scaler.getScale(), 0);
+		assertEquals(1920, scaler.scale(1920));
+
+		// Four times too slow -> half resolution (quarter of the pixels)
+		record(scaler, BUDGET * 4 * 3 / 4, 5);
+		assertEquals(0.5, scaler.getScale(), 0);
+		assertEquals(960, scaler.scale(1920));
+
+		// Within the watermarks -> stable
+		record(scaler, BUDGET * 3 / 4, 50);
+		assertEquals(0.5, scaler.getScale(), 0);
+
+		// Much too slow -> minimum
+		record(scaler, BUDGET * 100, 5);
+		assertEquals(0.25, scaler.getScale(), 0);
+		assertEquals(1, scaler.scale(1));
+
+		// Fast -> back to full resolution
+		for (int i = 0; i < 10; i++)
+		{
+			record(scaler, BUDGET / 10, 5);
+		}
+		assertEquals(1, scaler.getScale(), 0);
+	}
+
+	@Test
+	public void windowTest()
+	{
+
+		ResolutionScaler scaler = new ResolutionScaler(BUDGET);
+		scaler.setWindow(10);
+
+		record(scaler, BUDGET * 10, 9);
+		assertEquals(1, scaler.getScale(), 0);
+
+		record(scaler, BUDGET * 10, 1);
+		assertEquals(ResolutionScaler.DEFAULT_MIN_SCALE, scaler.getScale(), 0);
+
+		scaler.reset();
+		assertEquals(1, scaler.getScale(), 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void minScaleTest()
+	{
+		new ResolutionScaler(BUDGET).setMinScale(0);
+	}
+
+	private static void record(ResolutionScaler scaler, long time, int frames)
+	{
+
+		for (int i = 0; i < frames; i++)
+		{
+			scaler.record(time);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.brunothg.game.engine.d2.stage;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyListener;
+import java.util.Arrays;
+import java.util.EventListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.scene.Scene;
+
+public class SwingStageTest
+{
+
+	@Test(timeout = 10000)
+	public void nonBlockingSceneSwapTest() throws Exception
+	{
+
+		final SwingStage stage = new SwingStage();
+		stage.setSize(20, 20);
+
+		BlockingScene first = new BlockingScene();
+		BlockingScene second = new BlockingScene();
+		second.release.countDown();
+
+		stage.setScene(first);
+
+		Thread clock = new Thread(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				stage.tick(1, 1);
+			}
+		});
+		clock.start();
+
+		// Painting blocked -> setting a scene must not wait
+		assertTrue(first.painting.await(5, TimeUnit.SECONDS));
+		stage.setScene(second);
+		assertSame(second, stage.getScene());
+		assertEquals(0, second.paintings);
+
+		first.release.countDown();
+		clock.join();
+
+		// Takes effect on the next frame
+		stage.tick(1, 1);
+		assertEquals(1, first.paintings);
+		assertEquals(1, second.paintings);
+
+		// Listeners rewired by the EDT
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+			}
+		});
+
+		KeyListener[] listeners = stage.getKeyListeners();
+		assertTrue(Arrays.asList(listeners).contains(second.listener));
+		assertFalse(Arrays.asList(listeners).contains(first.listener));
+	}
+
+	@Test(timeout = 10000)
+	public void listenersWithoutClockTest() throws Exception
+	{
+
+		SwingStage stage = new SwingStage();
+
+		BlockingScene first = new BlockingScene();
+		BlockingScene second = new BlockingScene();
+
+		// No frame is painted
+		stage.setScene(first);
+		flushEventQueue();
+		assertTrue(Arrays.asList(stage.getKeyListeners()).contains(first.listener));
+
+		stage.setScene(second);
+		flushEventQueue();
+		assertTrue(Arrays.asList(stage.getKeyListeners()).contains(second.listener));
+		assertFalse(Arrays.asList(stage.getKeyListeners()).contains(first.listener));
+		assertEquals(0, first.paintings);
+	}
+
+	private static void flushEventQueue() throws Exception
+	{
+
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+			}
+		});
+	}
+
+	private static class BlockingScene implements Scene
+	{
+
+		private final CountDownLatch painting = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final KeyListener listener = new KeyAdapter()
+		{
+		};
+		private volatile int paintings;
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			painting.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			paintings++;
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return new EventListener[] { listener };
+		}
+	}
+}
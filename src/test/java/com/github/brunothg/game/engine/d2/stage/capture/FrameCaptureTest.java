@@ -0,0 +1,189 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EventListener;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.d2.scene.Scene;
+import com.github.brunothg.game.engine.d2.stage.OffscreenFrame;
+import com.github.brunothg.game.engine.d2.stage.OffscreenStage;
+
+public class FrameCaptureTest
+{
+
+	@Test
+	public void deltaStreamTest() throws Exception
+	{
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FrameCapture capture = new FrameCapture(new DeltaStreamEncoder(out, 4), 64, FrameCapture.DropPolicy.DROP_NEWEST);
+
+		OffscreenStage stage = new OffscreenStage(64, 48);
+		stage.setScene(new MovingScene());
+		stage.setFrameCapture(capture);
+
+		List<int[]> expected = new ArrayList<int[]>();
+		for (int i = 0; i < 10; i++)
+		{
+
+			OffscreenFrame frame = stage.render(1);
+			BufferedImage image = frame.getImage();
+			expected.add(image.getRaster().getPixels(0, 0, 64, 48, (int[]) null));
+			frame.release();
+		}
+
+		capture.close();
+		assertEquals(10, capture.getEncodedFrames());
+		assertEquals(0, capture.getDroppedFrames());
+
+		DeltaStreamEncoder.Reader reader = new DeltaStreamEncoder.Reader(new ByteArrayInputStream(out.toByteArray()));
+		for (int i = 0; i < 10; i++)
+		{
+
+			assertTrue(reader.next());
+			assertEquals(i, reader.getFrameNumber());
+			assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, reader.getImageType());
+
+			BufferedImage image = new BufferedImage(64, 48, reader.getImageType());
+			image.getRaster().setDataElements(0, 0, 64, 48, reader.getPixels());
+			assertArrayEquals(expected.get(i), image.getRaster().getPixels(0, 0, 64, 48, (int[]) null));
+		}
+		assertFalse(reader.next());
+
+		// Mostly unchanged frames are small
+		assertTrue(out.size() < 10 * 64 * 48 * 4 / 2);
+	}
+
+	@Test
+	public void dropNewestTest() throws Exception
+	{
+
+		BlockingEncoder encoder = new BlockingEncoder();
+		FrameCapture capture = new FrameCapture(encoder, 2, FrameCapture.DropPolicy.DROP_NEWEST);
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB_PRE);
+
+		// Encoder blocked -> one frame encoding, two queued, rest dropped without blocking
+		for (int i = 0; i < 10; i++)
+		{
+			capture.capture(image);
+		}
+		encoder.started.await();
+
+		encoder.release.countDown();
+		capture.close();
+
+		assertEquals(10, capture.getCapturedFrames());
+		assertEquals(capture.getCapturedFrames(), capture.getEncodedFrames() + capture.getDroppedFrames());
+		assertTrue(capture.getDroppedFrames() >= 7);
+		assertEquals(0, encoder.frameNumbers.get(0).longValue());
+	}
+
+	@Test
+	public void dropOldestTest() throws Exception
+	{
+
+		BlockingEncoder encoder = new BlockingEncoder();
+		FrameCapture capture = new FrameCapture(encoder, 2, FrameCapture.DropPolicy.DROP_OLDEST);
+		BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_ARGB_PRE);
+
+		capture.capture(image);
+		encoder.started.await();
+
+		for (int i = 1; i < 10; i++)
+		{
+			capture.capture(image);
+		}
+
+		encoder.release.countDown();
+		capture.close();
+
+		// The first one was encoding, the newest ones were kept
+		assertEquals(Arrays.asList(0L, 8L, 9L), encoder.frameNumbers);
+		assertEquals(7, capture.getDroppedFrames());
+	}
+
+	@Test
+	public void codecTest() throws IOException
+	{
+
+		int[] previous = { 1, 2, 3, 4, 5, 6, 7, 8 };
+		int[] pixels = { 1, 2, 9, 4, 5, 6, 0, 0 };
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		DeltaCodec.encode(pixels, previous, pixels.length, out);
+		out.flush();
+
+		int[] decoded = previous.clone();
+		DeltaCodec.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), decoded,
+			decoded.length);
+		assertArrayEquals(pixels, decoded);
+	}
+
+	private static class BlockingEncoder implements FrameEncoder
+	{
+
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final List<Long> frameNumbers = new ArrayList<Long>();
+
+		@Override
+		public void encode(CapturedFrame frame) throws IOException
+		{
+
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				throw new IOException(e);
+			}
+
+			frameNumbers.add(frame.getFrameNumber());
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+		}
+	}
+
+	private static class MovingScene implements Scene
+	{
+
+		private int x;
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			g.setColor(Color.BLUE);
+			g.fillRect(0, 0, width, height);
+			g.setColor(Color.RED);
+			g.fillRect(x, 10, 8, 8);
+			x += 3;
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.brunothg.game.engine.d2.stage.capture;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class FrameHistoryTest
+{
+
+	private static final int WIDTH = 32;
+	private static final int HEIGHT = 24;
+
+	@Test
+	public void memoryBudgetTest() throws Exception
+	{
+
+		long maxBytes = 20000;
+		FrameHistory history = new FrameHistory(maxBytes, 1, TimeUnit.HOURS, 10);
+
+		CapturedFrame frame = new CapturedFrame();
+		long maxUsed = 0;
+		for (int i = 0; i < 2000; i++)
+		{
+
+			frame.copy(paint(i), i);
+			history.encode(frame);
+			maxUsed = Math.max(maxUsed, history.getByteCount());
+		}
+
+		// At most one group of ten frames more than the budget
+		assertTrue(maxUsed < maxBytes + 10 * WIDTH * HEIGHT * 4);
+		assertTrue(history.getFrameCount() < 2000);
+
+		assertDump(history, 1999);
+	}
+
+	@Test
+	public void maxAgeTest() throws Exception
+	{
+
+		FrameHistory history = new FrameHistory(Long.MAX_VALUE, 20, TimeUnit.MILLISECONDS, 5);
+
+		CapturedFrame frame = new CapturedFrame();
+		for (int i = 0; i < 20; i++)
+		{
+
+			frame.copy(paint(i), i);
+			history.encode(frame);
+			Thread.sleep(5);
+		}
+
+		// Removed in groups of five frames, a single group may be older on slow machines
+		assertTrue(history.getFrameCount() < 20);
+		assertTrue(history.getDuration() <= TimeUnit.MILLISECONDS.toNanos(20) || history.getFrameCount() <= 5 + 1);
+		assertDump(history, 19);
+
+		history.clear();
+		assertEquals(0, history.getFrameCount());
+		assertEquals(0, history.getByteCount());
+
+		frame.copy(paint(20), 20);
+		history.encode(frame);
+		assertDump(history, 20);
+	}
+
+	/**
+	 * Dump must start with a key frame and end with the newest frame
+	 */
+	private static void assertDump(FrameHistory history, long lastFrame) throws Exception
+	{
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		history.dump(out);
+
+		DeltaStreamEncoder.Reader reader = new DeltaStreamEncoder.Reader(new ByteArrayInputStream(out.toByteArray()));
+		int frames = 0;
+		long frameNumber = -1;
+		while (reader.next())
+		{
+
+			frameNumber = reader.getFrameNumber();
+			frames++;
+
+			CapturedFrame expected = new CapturedFrame();
+			expected.copy(paint((int) frameNumber), frameNumber);
+			for (int i = 0; i < WIDTH * HEIGHT; i++)
+			{
+				assertEquals(expected.getPixels()[i], reader.getPixels()[i]);
+			}
+		}
+
+		assertEquals(history.getFrameCount(), frames);
+		assertEquals(lastFrame, frameNumber);
+	}
+
+	private static BufferedImage paint(int frame)
+	{
+
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g = image.createGraphics();
+		g.setColor(Color.GREEN);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.setColor(new Color(frame % 256, 0, 0));
+		g.fillRect(frame % WIDTH, 4, 6, 6);
+		g.dispose();
+
+		return image;
+	}
+}
@@ -0,0 +1,213 @@
+package com.github.brunothg.game.engine.image;
+
+import static org.junit.Assert.*;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class RecordingGraphicsTest
+{
+
+	private static final int WIDTH = 160;
+	private static final int HEIGHT = 120;
+
+	@Test
+	public void replayEqualsDirectPaintingTest()
+	{
+
+		BufferedImage expected = newImage();
+		Graphics2D g = expected.createGraphics();
+		paint(g);
+		g.dispose();
+
+		CommandBuffer buffer = new CommandBuffer();
+		RecordingGraphics recorder = new RecordingGraphics(buffer);
+		paint(recorder);
+		recorder.dispose();
+
+		// Replay twice -> buffer is not consumed
+		for (int i = 0; i < 2; i++)
+		{
+
+			BufferedImage actual = newImage();
+			g = actual.createGraphics();
+			buffer.replay(g);
+			g.dispose();
+
+			assertImageEquals(expected, actual, new Rectangle(0, 0, WIDTH, HEIGHT));
+		}
+	}
+
+	@Test
+	public void reusedRecorderTest()
+	{
+
+		BufferedImage expected = newImage();
+		Graphics2D g = expected.createGraphics();
+		paint(g);
+		g.dispose();
+
+		CommandBuffer buffer = new CommandBuffer();
+		RecordingGraphics first = buffer.record();
+		paint(first);
+		first.dispose();
+
+		// Same graphics, state of a new recording
+		RecordingGraphics second = buffer.record();
+		assertSame(first, second);
+		assertTrue(second.getTransform().isIdentity());
+		assertNull(second.getClip());
+		assertEquals(Color.WHITE, second.getColor());
+
+		paint(second);
+		second.dispose();
+
+		BufferedImage actual = newImage();
+		g = actual.createGraphics();
+		buffer.replay(g);
+		g.dispose();
+
+		assertImageEquals(expected, actual, new Rectangle(0, 0, WIDTH, HEIGHT));
+	}
+
+	@Test
+	public void replayKeepsTargetClipTest()
+	{
+
+		CommandBuffer buffer = new CommandBuffer();
+		RecordingGraphics recorder = new RecordingGraphics(buffer);
+		paint(recorder);
+		recorder.dispose();
+
+		BufferedImage expected = newImage();
+		Graphics2D g = expected.createGraphics();
+		buffer.replay(g);
+		g.dispose();
+
+		// Recorded setClip(...) must not paint outside of the band
+		Rectangle band = new Rectangle(0, 40, WIDTH, 30);
+		BufferedImage actual = newImage();
+		g = actual.createGraphics();
+		g.clip(band);
+		buffer.replay(g);
+		g.dispose();
+
+		assertImageEquals(expected, actual, band);
+
+		for (int y = 0; y < HEIGHT; y++)
+		{
+			for (int x = 0; x < WIDTH; x++)
+			{
+				if (!band.contains(x, y))
+				{
+					assertEquals(0, actual.getRGB(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void stateTest()
+	{
+
+		CommandBuffer buffer = new CommandBuffer();
+		RecordingGraphics recorder = new RecordingGraphics(buffer);
+
+		recorder.translate(10, 20);
+		recorder.clipRect(0, 0, 50, 50);
+		recorder.setColor(Color.RED);
+
+		assertEquals(Color.RED, recorder.getColor());
+		assertEquals(Color.RED, recorder.getPaint());
+		assertEquals(AffineTransform.getTranslateInstance(10, 20), recorder.getTransform());
+		assertEquals(new Rectangle(0, 0, 50, 50), recorder.getClipBounds());
+
+		Graphics2D child = (Graphics2D) recorder.create();
+		child.translate(5, 5);
+		assertEquals(new Rectangle(-5, -5, 50, 50), child.getClipBounds());
+		child.dispose();
+
+		// Parent unchanged
+		assertEquals(AffineTransform.getTranslateInstance(10, 20), recorder.getTransform());
+		assertNotNull(recorder.getFontMetrics());
+
+		int commands = buffer.getCommandCount();
+		assertTrue(commands > 0);
+
+		buffer.reset();
+		assertTrue(buffer.isEmpty());
+	}
+
+	private static void paint(Graphics2D g)
+	{
+
+		g.setColor(Color.DARK_GRAY);
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setPaint(new GradientPaint(0, 0, Color.ORANGE, WIDTH, HEIGHT, Color.BLUE));
+		g.fillOval(10, 10, 80, 60);
+
+		// Reused shape must be copied
+		Rectangle rectangle = new Rectangle(20, 30, 40, 20);
+		g.setColor(Color.GREEN);
+		g.fill(rectangle);
+		rectangle.setBounds(100, 80, 30, 30);
+		g.draw(rectangle);
+
+		Graphics2D child = (Graphics2D) g.create();
+		child.translate(40, 20);
+		child.rotate(0.3);
+		child.setStroke(new BasicStroke(3));
+		child.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.5f));
+		child.setColor(Color.CYAN);
+		child.draw(new Ellipse2D.Double(0, 0, 60, 30));
+		child.drawPolygon(new int[] { 0, 30, 15 }, new int[] { 0, 0, 25 }, 3);
+		child.dispose();
+
+		g.setClip(0, 60, WIDTH, 40);
+		g.setColor(Color.WHITE);
+		g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
+		g.drawString("Replay", 10, 80);
+		g.drawLine(0, 0, WIDTH, HEIGHT);
+
+		BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D ig = image.createGraphics();
+		ig.setColor(Color.MAGENTA);
+		ig.fillRect(2, 2, 4, 4);
+		ig.dispose();
+
+		g.setClip(null);
+		g.drawImage(image, 120, 10, null);
+		g.drawImage(image, 120, 30, 16, 16, null);
+		g.drawImage(image, AffineTransform.getRotateInstance(0.5, 140, 90), null);
+	}
+
+	private static BufferedImage newImage()
+	{
+		return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+
+	private static void assertImageEquals(BufferedImage expected, BufferedImage actual, Rectangle area)
+	{
+
+		for (int y = area.y; y < area.y + area.height; y++)
+		{
+			for (int x = area.x; x < area.x + area.width; x++)
+			{
+				assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+}
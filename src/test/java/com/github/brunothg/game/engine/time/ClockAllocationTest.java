@@ -0,0 +1,68 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Benchmark for the clock's hot path. An idle game running as fast as possible must not produce
+ * any garbage on the clock thread.
+ */
+public class ClockAllocationTest
+{
+
+	/**
+	 * Left over by the warm up, e.g. by late compilation. Independent of the number of ticks.
+	 */
+	private static final long MAX_ALLOCATED_BYTES = 4096;
+
+	@Test
+	public void zeroAllocationPerTick() throws Exception
+	{
+
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+			.getThreadMXBean();
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		final AtomicLong ticks = new AtomicLong();
+
+		Clock clk = new Clock(Clock.FPS_AS_FAST_AS_POSSIBLE);
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long frames, long coveredTime)
+			{
+				ticks.incrementAndGet();
+			}
+		});
+		clk.start();
+
+		// Warm up
+		Thread.sleep(500);
+
+		long ticksBefore = ticks.get();
+		long bytesBefore = threadBean.getThreadAllocatedBytes(clk.getId());
+
+		Thread.sleep(1000);
+
+		long bytesAfter = threadBean.getThreadAllocatedBytes(clk.getId());
+		long ticksAfter = ticks.get();
+
+		clk.destroy();
+		clk.join();
+
+		long tickCount = ticksAfter - ticksBefore;
+		long allocated = bytesAfter - bytesBefore;
+
+		assertTrue("Clock did not tick", tickCount > 1000);
+		assertTrue("Clock allocates in hot path: " + allocated + " bytes in " + tickCount + " ticks",
+			allocated <= MAX_ALLOCATED_BYTES);
+	}
+}
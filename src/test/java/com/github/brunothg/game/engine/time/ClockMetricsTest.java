@@ -0,0 +1,96 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class ClockMetricsTest
+{
+
+	@Test
+	public void metricsTest() throws Exception
+	{
+
+		final long workTime = TimeUtils.NanosecondsOfMilliseconds(1);
+
+		final VirtualTimeSource timeSource = new VirtualTimeSource();
+		Clock clk = new Clock(Clock.FPS_FAST, timeSource);
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long frames, long coveredTime)
+			{
+				// Frame times use the clock's time, listener timings the wall clock
+				timeSource.advance(workTime);
+
+				long end = System.nanoTime() + workTime;
+				while (System.nanoTime() < end)
+				{
+					Thread.onSpinWait();
+				}
+			}
+
+			@Override
+			public String toString()
+			{
+				return "BusyListener";
+			}
+		});
+
+		clk.simulate(50);
+
+		ClockMetricsSnapshot snapshot = clk.getMetrics().snapshot();
+		assertEquals(50, snapshot.getFrameCount());
+		assertEquals(50, snapshot.getMeasuredFrames());
+		assertTrue(snapshot.getFrameTimeP50() >= workTime * 0.9);
+		assertTrue(snapshot.getFrameTimeP50() <= workTime * 1.1);
+		assertEquals(0, snapshot.getLateFrames());
+		assertTrue(snapshot.getFrameTimeMax() >= snapshot.getFrameTimeP99());
+
+		ListenerTiming[] timings = snapshot.getListenerTimings();
+		assertEquals(1, timings.length);
+		assertEquals("BusyListener", timings[0].getListener());
+		assertEquals(50, timings[0].getTicks());
+		assertTrue(timings[0].getMeanTime() >= workTime);
+
+		ObjectName name = clk.getMetrics().registerMBean();
+		assertNotNull(name);
+		assertEquals(50L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "MeasuredFrames"));
+
+		clk.getMetrics().reset();
+		assertEquals(0, clk.getMetrics().getMeasuredFrames());
+		assertEquals(0, clk.getListenerTimings()[0].getTicks());
+
+		clk.destroy();
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	@Test
+	public void lateFramesTest()
+	{
+
+		// Frame times are recorded directly
+		long budget = TimeUtils.NanosecondsOfMilliseconds(16);
+		ClockMetrics metrics = new Clock(Clock.FPS_FAST, new VirtualTimeSource()).getMetrics();
+
+		metrics.recordFrame(1, budget / 2, budget);
+		metrics.recordFrame(1, budget, budget);
+		assertEquals(0, metrics.getLateFrames());
+
+		metrics.recordFrame(1, budget + 1, budget);
+		assertEquals(1, metrics.getLateFrames());
+
+		// No budget as fast as possible
+		metrics.recordFrame(1, budget * 10, -1);
+		assertEquals(1, metrics.getLateFrames());
+
+		metrics.recordFrame(3, budget / 2, budget);
+		assertEquals(2, metrics.getCatchUpFrames());
+		assertEquals(5, metrics.getMeasuredFrames());
+	}
+}
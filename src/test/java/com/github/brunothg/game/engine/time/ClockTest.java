@@ -1,5 +1,14 @@
 package com.github.brunothg.game.engine.time;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
 import org.junit.Test;
 
 public class ClockTest
@@ -88,4 +97,249 @@ public class ClockTest
 		pauseT.join();
 		destroyT.join();
 	}
+
+	@Test
+	public void virtualClockTest() throws Exception
+	{
+
+		final AtomicLong frames = new AtomicLong();
+		final AtomicLong coveredTime = new AtomicLong();
+		final AtomicLong updates = new AtomicLong();
+
+		VirtualTimeSource timeSource = new VirtualTimeSource();
+		Clock clk = new Clock(Clock.FPS_FAST, timeSource);
+		clk.setUpdatesPerSecond(120);
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long f, long t)
+			{
+				frames.addAndGet(f);
+				coveredTime.addAndGet(t);
+			}
+		});
+		clk.addClockUpdateListener(new ClockUpdateListener()
+		{
+
+			@Override
+			public void update(long stepTime)
+			{
+				updates.incrementAndGet();
+			}
+		});
+
+		assertEquals(10_000, clk.simulate(10_000));
+
+		long nanosecondsPerFrame = Math.round(TimeUtils.NANOSECONDS_PER_SECOND / (double) Clock.FPS_FAST);
+
+		assertEquals(10_000, frames.get());
+		assertEquals(10_000 * nanosecondsPerFrame, coveredTime.get());
+		assertEquals(coveredTime.get() / Math.round(TimeUtils.NANOSECONDS_PER_SECOND / 120.0), updates.get());
+
+		// The clock already waited for the next frame
+		assertEquals(10_001 * nanosecondsPerFrame, timeSource.nanoTime());
+	}
+
+	@Test
+	public void fixedStepTest()
+	{
+
+		final List<Long> stepTimes = new ArrayList<Long>();
+		final List<Integer> updatesPerTick = new ArrayList<Integer>();
+
+		Clock clk = new Clock(50, new VirtualTimeSource());
+		clk.setUpdatesPerSecond(200);
+		clk.addClockUpdateListener(new ClockUpdateListener()
+		{
+
+			@Override
+			public void update(long stepTime)
+			{
+				stepTimes.add(stepTime);
+			}
+		});
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long frames, long coveredTime)
+			{
+				updatesPerTick.add(stepTimes.size());
+			}
+		});
+
+		assertEquals(10, clk.simulate(10));
+
+		// 20 ms frames, 5 ms steps -> 4 updates before every frame
+		assertEquals(40, stepTimes.size());
+		for (long stepTime : stepTimes)
+		{
+			assertEquals(5_000_000, stepTime);
+		}
+		for (int i = 0; i < updatesPerTick.size(); i++)
+		{
+			assertEquals(4 * (i + 1), (int) updatesPerTick.get(i));
+		}
+		assertEquals(200.0, clk.getUpdatesPerSecond(), 0);
+		assertEquals(0, clk.getInterpolation(), 0);
+	}
+
+	@Test
+	public void maxUpdateStepsTest()
+	{
+
+		final VirtualTimeSource timeSource = new VirtualTimeSource();
+		final AtomicInteger updates = new AtomicInteger();
+		final List<Integer> updatesPerTick = new ArrayList<Integer>();
+		final List<Long> framesPerTick = new ArrayList<Long>();
+
+		final Clock clk = new Clock(50, timeSource);
+		clk.setUpdatesPerSecond(100);
+		clk.setMaxUpdateSteps(3);
+		clk.addClockUpdateListener(new ClockUpdateListener()
+		{
+
+			@Override
+			public void update(long stepTime)
+			{
+				updates.incrementAndGet();
+			}
+		});
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long frames, long coveredTime)
+			{
+
+				updatesPerTick.add(updates.getAndSet(0));
+				framesPerTick.add(frames);
+
+				// The second frame takes 105 ms
+				if (updatesPerTick.size() == 2)
+				{
+					timeSource.advance(105_000_000);
+				}
+			}
+		});
+
+		assertEquals(2 + 5 + 1, clk.simulate(2 + 5 + 1));
+
+		// 20 ms frames, 10 ms steps -> 2 updates per frame
+		assertEquals(2, (int) updatesPerTick.get(0));
+		assertEquals(2, (int) updatesPerTick.get(1));
+
+		// 105 ms behind -> capped at 3 updates, 7 dropped, the rest is kept
+		assertEquals(3, (int) updatesPerTick.get(2));
+		assertEquals(5, (long) framesPerTick.get(2));
+		assertEquals(7, clk.getMetrics().getDroppedUpdates());
+
+		// Back on schedule
+		assertEquals(2, (int) updatesPerTick.get(3));
+		assertEquals(1, (long) framesPerTick.get(3));
+	}
+
+	@Test
+	public void interpolationTest()
+	{
+
+		final List<Double> interpolations = new ArrayList<Double>();
+
+		final Clock clk = new Clock(50, new VirtualTimeSource());
+		clk.setUpdatesPerSecond(40);
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long frames, long coveredTime)
+			{
+				interpolations.add(clk.getInterpolation());
+			}
+		});
+
+		assertEquals(0, clk.getInterpolation(), 0);
+		assertEquals(5, clk.simulate(5));
+
+		// 20 ms frames, 25 ms steps
+		double[] expected = { 20 / 25.0, 15 / 25.0, 10 / 25.0, 5 / 25.0, 0 };
+		for (int i = 0; i < expected.length; i++)
+		{
+			assertEquals(expected[i], interpolations.get(i), 1e-9);
+		}
+
+		clk.setUpdatesPerSecond(Clock.UPS_DISABLED);
+		assertEquals(0, clk.getInterpolation(), 0);
+	}
+
+	@Test
+	public void parallelDispatchTest() throws Exception
+	{
+
+		final int listenerCount = 4;
+		final AtomicLongArray ticks = new AtomicLongArray(listenerCount);
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final AtomicInteger barrierViolations = new AtomicInteger();
+
+		Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		for (int i = 0; i < listenerCount; i++)
+		{
+			final int index = i;
+			clk.addClockListener(new ClockListener()
+			{
+
+				@Override
+				public void tick(long f, long t)
+				{
+
+					long tick = ticks.incrementAndGet(index);
+					for (int j = 0; j < listenerCount; j++)
+					{
+						// No listener may be more than one frame ahead of another
+						if (Math.abs(ticks.get(j) - tick) > 1)
+						{
+							barrierViolations.incrementAndGet();
+						}
+					}
+
+					int now = active.incrementAndGet();
+					maxActive.accumulateAndGet(now, Math::max);
+					try
+					{
+						Thread.sleep(5);
+					}
+					catch (InterruptedException e)
+					{
+					}
+					active.decrementAndGet();
+				}
+			});
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(listenerCount);
+		try
+		{
+			clk.setDispatchPool(pool);
+			assertTrue(clk.isParallelDispatch());
+
+			assertEquals(20, clk.simulate(20));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		for (int i = 0; i < listenerCount; i++)
+		{
+			assertEquals(20, ticks.get(i));
+		}
+		assertEquals(0, barrierViolations.get());
+		assertTrue("Listeners did not run concurrently", maxActive.get() > 1);
+
+		for (ListenerTiming timing : clk.getListenerTimings())
+		{
+			assertEquals(20, timing.getTicks());
+		}
+	}
 }
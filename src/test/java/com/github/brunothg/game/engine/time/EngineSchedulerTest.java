@@ -0,0 +1,128 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class EngineSchedulerTest
+{
+
+	private static final long MS = TimeUtils.NanosecondsOfMilliseconds(1);
+
+	@Test
+	public void schedulerTest() throws Exception
+	{
+
+		EngineScheduler scheduler = new EngineScheduler(new VirtualTimeSource());
+
+		AtomicLong fastFrames = new AtomicLong();
+		AtomicLong slowFrames = new AtomicLong();
+
+		Clock fast = new Clock(50, scheduler);
+		fast.addClockListener(new CountingListener(fastFrames));
+
+		Clock slow = new Clock(10, scheduler);
+		slow.addClockListener(new CountingListener(slowFrames));
+
+		fast.start();
+		slow.start();
+		assertFalse(fast.isAlive());
+		assertEquals(2, scheduler.getScheduledClockCount());
+
+		scheduler.simulate(1000 * MS);
+
+		assertEquals(50, fastFrames.get());
+		assertEquals(10, slowFrames.get());
+
+		// Paused clocks are not driven any more
+		fast.setPaused(true);
+		assertEquals(1, scheduler.getScheduledClockCount());
+
+		scheduler.simulate(300 * MS);
+		assertEquals(50, fastFrames.get());
+		assertEquals(13, slowFrames.get());
+
+		// The paused time doesn't count
+		fast.setPaused(false);
+		scheduler.simulate(300 * MS);
+		assertEquals(65, fastFrames.get());
+
+		fast.destroy();
+		slow.destroy();
+		assertEquals(0, scheduler.getScheduledClockCount());
+
+		scheduler.shutdown(1, TimeUnit.SECONDS);
+		assertTrue(scheduler.isTerminated());
+	}
+
+	@Test
+	public void asFastAsPossibleTest()
+	{
+
+		EngineScheduler scheduler = new EngineScheduler(new VirtualTimeSource());
+
+		AtomicLong unlimitedFrames = new AtomicLong();
+		AtomicLong limitedFrames = new AtomicLong();
+
+		Clock unlimited = new Clock(Clock.FPS_AS_FAST_AS_POSSIBLE, scheduler);
+		unlimited.addClockListener(new CountingListener(unlimitedFrames));
+
+		Clock limited = new Clock(100, scheduler);
+		limited.addClockListener(new CountingListener(limitedFrames));
+
+		unlimited.start();
+		limited.start();
+
+		// Stepped once per interval, the other clock keeps its rate
+		scheduler.simulate(100 * EngineScheduler.MIN_STEP_INTERVAL);
+		assertEquals(101, unlimitedFrames.get());
+		assertEquals(10, limitedFrames.get());
+
+		unlimited.destroy();
+		limited.destroy();
+	}
+
+	@Test(timeout = 10000)
+	public void threadTest() throws Exception
+	{
+
+		EngineScheduler scheduler = new EngineScheduler();
+
+		AtomicLong frames = new AtomicLong();
+		Clock clock = new Clock(Clock.FPS_FAST, scheduler);
+		clock.addClockListener(new CountingListener(frames));
+		clock.start();
+		assertFalse(clock.isAlive());
+
+		while (frames.get() < 2)
+		{
+			Thread.sleep(10);
+		}
+
+		clock.destroy();
+		assertEquals(0, scheduler.getScheduledClockCount());
+
+		scheduler.shutdown(1, TimeUnit.SECONDS);
+		assertTrue(scheduler.isTerminated());
+	}
+
+	private static class CountingListener implements ClockListener
+	{
+
+		private final AtomicLong frames;
+
+		CountingListener(AtomicLong frames)
+		{
+			this.frames = frames;
+		}
+
+		@Override
+		public void tick(long frames, long coveredTime)
+		{
+			this.frames.addAndGet(frames);
+		}
+	}
+}
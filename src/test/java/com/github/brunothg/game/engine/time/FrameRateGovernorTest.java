@@ -0,0 +1,146 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.github.brunothg.game.engine.time.FrameRateGovernor.Policy;
+
+public class FrameRateGovernorTest
+{
+
+	private static final long MS = 1_000_000;
+
+	@Test
+	public void lowerFrameRateTest()
+	{
+
+		Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		FrameRateGovernor governor = new FrameRateGovernor(Policy.LOWER_FRAME_RATE);
+		governor.setWindowSize(10);
+		governor.setMinFramesPerSecond(20);
+		clk.setFrameRateGovernor(governor);
+
+		assertEquals(Clock.FPS_FAST, governor.getFramesPerSecond());
+
+		// 25ms per frame is over budget -> lowered by a quarter to 45 fps
+		feed(clk, governor, 25 * MS, 10);
+		assertEquals(45, governor.getFramesPerSecond());
+		assertEquals(45, clk.getFramesPerSecond(), 0.01);
+
+		feed(clk, governor, 25 * MS, 10);
+		assertEquals(33, governor.getFramesPerSecond());
+
+		feed(clk, governor, 25 * MS, 50);
+		assertEquals(33, governor.getFramesPerSecond());
+
+		// Not cheap enough to raise the rate -> hysteresis
+		feed(clk, governor, 15 * MS, 50);
+		assertEquals(33, governor.getFramesPerSecond());
+
+		// Cheap frames raise the rate back to the original one
+		feed(clk, governor, 1 * MS, 50);
+		assertEquals(Clock.FPS_FAST, governor.getFramesPerSecond());
+		assertEquals(Clock.FPS_FAST, clk.getFramesPerSecond(), 0.01);
+	}
+
+	@Test
+	public void minFrameRateTest()
+	{
+
+		Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		FrameRateGovernor governor = new FrameRateGovernor(Policy.LOWER_FRAME_RATE);
+		governor.setWindowSize(1);
+		governor.setMinFramesPerSecond(20);
+		clk.setFrameRateGovernor(governor);
+
+		feed(clk, governor, 1000 * MS, 100);
+		assertEquals(20, governor.getFramesPerSecond());
+	}
+
+	@Test
+	public void skipFramesTest()
+	{
+
+		Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		FrameRateGovernor governor = new FrameRateGovernor(Policy.SKIP_FRAMES);
+		governor.setWindowSize(1);
+		governor.setMaxSkippedFrames(2);
+		clk.setFrameRateGovernor(governor);
+
+		feed(clk, governor, 20 * MS, 1);
+		assertEquals(1, governor.getSkippedFrames());
+
+		assertTrue(governor.skipFrame());
+		assertFalse(governor.skipFrame());
+
+		feed(clk, governor, 100 * MS, 10);
+		assertEquals(2, governor.getSkippedFrames());
+		assertEquals(Clock.FPS_FAST, clk.getFramesPerSecond(), 0.01);
+
+		feed(clk, governor, 1 * MS, 10);
+		assertEquals(0, governor.getSkippedFrames());
+		assertFalse(governor.skipFrame());
+	}
+
+	@Test
+	public void skipFramesClockTest()
+	{
+
+		final AtomicLong ticks = new AtomicLong();
+		final AtomicLong frames = new AtomicLong();
+		final AtomicLong updates = new AtomicLong();
+
+		final VirtualTimeSource timeSource = new VirtualTimeSource();
+		Clock clk = new Clock(Clock.FPS_FAST, timeSource);
+		clk.setUpdatesPerSecond(Clock.FPS_FAST);
+		clk.addClockListener(new ClockListener()
+		{
+
+			@Override
+			public void tick(long f, long t)
+			{
+
+				ticks.incrementAndGet();
+				frames.addAndGet(f);
+
+				// Over budget
+				timeSource.advance(TimeUtils.NanosecondsOfMilliseconds(25));
+			}
+		});
+		clk.addClockUpdateListener(new ClockUpdateListener()
+		{
+
+			@Override
+			public void update(long stepTime)
+			{
+				updates.incrementAndGet();
+			}
+		});
+
+		FrameRateGovernor governor = new FrameRateGovernor(Policy.SKIP_FRAMES);
+		governor.setWindowSize(2);
+		governor.setMaxSkippedFrames(1);
+		clk.setFrameRateGovernor(governor);
+
+		clk.simulate(20);
+
+		assertEquals(1, governor.getSkippedFrames());
+		assertTrue(ticks.get() < frames.get());
+		assertTrue(clk.getMetrics().getSkippedFrames() > 0);
+		assertEquals(frames.get(), clk.getFrameCount());
+		// Updates are not skipped
+		assertTrue(updates.get() >= frames.get());
+	}
+
+	private static void feed(Clock clk, FrameRateGovernor governor, long frameTime, int frames)
+	{
+
+		for (int i = 0; i < frames; i++)
+		{
+			governor.frameFinished(clk, frameTime);
+		}
+	}
+}
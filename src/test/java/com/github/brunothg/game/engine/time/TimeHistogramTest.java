@@ -0,0 +1,43 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TimeHistogramTest
+{
+
+	@Test
+	public void percentileTest() throws Exception
+	{
+
+		TimeHistogram histogram = new TimeHistogram();
+		for (int i = 1; i <= 1000; i++)
+		{
+			histogram.record(TimeUtils.NanosecondsOfMilliseconds(i));
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(TimeUtils.NanosecondsOfMilliseconds(1000), histogram.getMax());
+		assertEquals(500, TimeUtils.Milliseconds(histogram.getPercentile(50)), 500 * 0.07);
+		assertEquals(990, TimeUtils.Milliseconds(histogram.getPercentile(99)), 990 * 0.07);
+	}
+
+	@Test
+	public void resetTest() throws Exception
+	{
+
+		TimeHistogram histogram = new TimeHistogram();
+		histogram.record(-5);
+		histogram.record(15);
+
+		assertEquals(2, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(0));
+
+		histogram.reset();
+
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(99));
+	}
+}
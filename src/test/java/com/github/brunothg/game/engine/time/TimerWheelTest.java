@@ -0,0 +1,222 @@
+package com.github.brunothg.game.engine.time;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TimerWheelTest
+{
+
+	private static final long MS = TimeUtils.NanosecondsOfMilliseconds(1);
+
+	@Test
+	public void oneShotTest()
+	{
+
+		TimerWheel wheel = new TimerWheel(8, MS);
+		final AtomicLong runTime = new AtomicLong(-1);
+		final TimerWheel w = wheel;
+
+		// Several revolutions of the wheel
+		ScheduledTask task = wheel.schedule(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runTime.set(w.getTime());
+			}
+		}, 50 * MS, 0);
+
+		assertEquals(1, wheel.getTaskCount());
+		for (int i = 0; i < 49; i++)
+		{
+			wheel.advance(MS);
+		}
+		assertEquals(-1, runTime.get());
+
+		wheel.advance(MS);
+		assertEquals(50 * MS, runTime.get());
+		assertTrue(task.isDone());
+		assertFalse(task.cancel());
+		assertEquals(0, wheel.getTaskCount());
+	}
+
+	@Test
+	public void neverEarlyTest()
+	{
+
+		final TimerWheel wheel = new TimerWheel(8, MS);
+		final AtomicLong runTime = new AtomicLong(-1);
+
+		// Deadline between two ticks
+		wheel.schedule(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runTime.set(wheel.getTime());
+			}
+		}, 5 * MS + MS / 2, 0);
+
+		for (int i = 0; i < 5; i++)
+		{
+			wheel.advance(MS);
+		}
+		wheel.advance(MS / 4);
+		assertEquals(-1, runTime.get());
+
+		// First tick after the deadline
+		wheel.advance(MS / 2);
+		assertEquals(-1, runTime.get());
+		wheel.advance(MS / 4);
+		assertEquals(6 * MS, runTime.get());
+	}
+
+	@Test
+	public void periodicTest()
+	{
+
+		TimerWheel wheel = new TimerWheel(16, MS);
+		final AtomicInteger runs = new AtomicInteger();
+
+		ScheduledTask task = wheel.schedule(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runs.incrementAndGet();
+			}
+		}, 10 * MS, 5 * MS);
+
+		wheel.advance(9 * MS);
+		assertEquals(0, runs.get());
+
+		wheel.advance(MS);
+		assertEquals(1, runs.get());
+
+		// Catch up several periods at once
+		wheel.advance(100 * MS);
+		assertEquals(21, runs.get());
+
+		assertTrue(task.cancel());
+		assertTrue(task.isCancelled());
+		wheel.advance(100 * MS);
+		assertEquals(21, runs.get());
+		assertEquals(0, wheel.getTaskCount());
+	}
+
+	@Test
+	public void shortPeriodTest()
+	{
+
+		TimerWheel wheel = new TimerWheel(8, MS);
+		final AtomicInteger runs = new AtomicInteger();
+
+		// Ten runs per tick
+		wheel.schedule(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runs.incrementAndGet();
+			}
+		}, 0, MS / 10);
+
+		wheel.advance(MS);
+		assertEquals(11, runs.get());
+
+		for (int i = 0; i < 9; i++)
+		{
+			wheel.advance(MS);
+		}
+		assertEquals(101, runs.get());
+
+		// Frame covering several ticks
+		wheel.advance(5 * MS);
+		assertEquals(151, runs.get());
+	}
+
+	@Test
+	public void cancelTest()
+	{
+
+		TimerWheel wheel = new TimerWheel();
+		final AtomicInteger runs = new AtomicInteger();
+		Runnable counter = new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runs.incrementAndGet();
+			}
+		};
+
+		int taskCount = 20_000;
+		ScheduledTask[] tasks = new ScheduledTask[taskCount];
+		for (int i = 0; i < taskCount; i++)
+		{
+			tasks[i] = wheel.schedule(counter, (i % 2000 + 1) * MS, 0);
+		}
+		assertEquals(taskCount, wheel.getTaskCount());
+
+		// Cancel every second task, some before they were moved into the wheel
+		for (int i = 0; i < taskCount; i += 2)
+		{
+			assertTrue(tasks[i].cancel());
+			if (i == taskCount / 2)
+			{
+				wheel.advance(0);
+			}
+		}
+
+		wheel.advance(TimeUtils.NanosecondsOfSeconds(2));
+		assertEquals(taskCount / 2, runs.get());
+		assertEquals(0, wheel.getTaskCount());
+	}
+
+	@Test
+	public void clockTest()
+	{
+
+		final AtomicLong runTime = new AtomicLong(-1);
+		final AtomicInteger runs = new AtomicInteger();
+
+		final Clock clk = new Clock(Clock.FPS_FAST, new VirtualTimeSource());
+		clk.schedule(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runTime.set(clk.getGameTime());
+			}
+		}, 2500, TimeUnit.MILLISECONDS);
+		clk.scheduleAtFixedRate(new Runnable()
+		{
+
+			@Override
+			public void run()
+			{
+				runs.incrementAndGet();
+			}
+		}, 500, 500, TimeUnit.MILLISECONDS);
+		assertEquals(2, clk.getScheduledTaskCount());
+
+		// 5 seconds
+		clk.simulate(300);
+
+		assertTrue(runTime.get() >= TimeUtils.NanosecondsOfMilliseconds(2500));
+		assertTrue(runTime.get() < TimeUtils.NanosecondsOfMilliseconds(2500) + 20 * MS);
+		assertEquals(10, runs.get());
+		assertEquals(1, clk.getScheduledTaskCount());
+	}
+}
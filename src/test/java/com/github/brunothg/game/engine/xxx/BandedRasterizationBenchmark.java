@@ -0,0 +1,109 @@
+package com.github.brunothg.game.engine.xxx;
+
+import com.github.brunothg.game.engine.d2.scene.ReentrantScene;
+import com.github.brunothg.game.engine.d2.stage.BandedRasterizer;
+import com.github.brunothg.game.engine.d2.stage.OffscreenFrame;
+import com.github.brunothg.game.engine.d2.stage.OffscreenStage;
+import com.github.brunothg.game.engine.time.TimeUtils;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.EventListener;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how parallel banded rasterization scales with the number of cores. Run with
+ * <code>-Djava.awt.headless=true</code>. Optional arguments: frames per measurement and maximum
+ * number of threads.
+ */
+public class BandedRasterizationBenchmark
+{
+
+	private static final int[][] RESOLUTIONS = { { 1920, 1080 }, { 3840, 2160 } };
+
+	public static void main(String[] args)
+	{
+
+		int frames = (args.length > 0) ? Integer.parseInt(args[0]) : 30;
+		int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		System.out.println("Cores: " + Runtime.getRuntime().availableProcessors() + ", frames: " + frames);
+
+		for (int[] resolution : RESOLUTIONS)
+		{
+
+			OffscreenStage stage = new OffscreenStage(resolution[0], resolution[1], 1);
+			stage.setScene(new BenchmarkScene());
+
+			double sequential = measure(stage, frames);
+			System.out.printf("%dx%d sequential: %.2f ms/frame%n", resolution[0], resolution[1], sequential);
+
+			for (int threads = 2; threads <= Math.max(2, maxThreads); threads *= 2)
+			{
+
+				ForkJoinPool pool = new ForkJoinPool(threads - 1);
+				stage.setBandedRasterizer(new BandedRasterizer(pool, threads));
+
+				double banded = measure(stage, frames);
+				System.out.printf("%dx%d %2d bands: %.2f ms/frame (speedup %.2f)%n", resolution[0], resolution[1],
+					threads, banded, sequential / banded);
+
+				stage.setBandedRasterizer(null);
+				pool.shutdown();
+			}
+		}
+	}
+
+	private static double measure(OffscreenStage stage, int frames)
+	{
+
+		// Warm up
+		for (int i = 0; i < Math.max(3, frames / 5); i++)
+		{
+			stage.render(0).release();
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < frames; i++)
+		{
+			OffscreenFrame frame = stage.render(0);
+			frame.release();
+		}
+
+		return TimeUtils.Milliseconds(System.nanoTime() - start) / frames;
+	}
+
+	/**
+	 * Antialiased shapes and gradients, typical for software rasterization
+	 */
+	private static class BenchmarkScene implements ReentrantScene
+	{
+
+		@Override
+		public void paintScene(Graphics2D g, int width, int height, long elapsedTime)
+		{
+
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+			g.fillRect(0, 0, width, height);
+
+			int size = width / 20;
+			for (int y = 0; y < height; y += size / 2)
+			{
+				for (int x = 0; x < width; x += size / 2)
+				{
+					g.setColor(new Color((x * 255) / width, (y * 255) / height, 128, 160));
+					g.fillOval(x, y, size, size);
+				}
+			}
+		}
+
+		@Override
+		public EventListener[] getEventListeners()
+		{
+			return null;
+		}
+	}
+}
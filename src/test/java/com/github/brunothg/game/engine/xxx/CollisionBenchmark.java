@@ -0,0 +1,104 @@
+package com.github.brunothg.game.engine.xxx;
+
+import com.github.brunothg.game.engine.d2.object.image.ImageSceneObject;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Compares exact collision tests by cached collision masks with painting both objects and reading
+ * the alpha pixel by pixel for every test. Optional argument: number of tests.
+ */
+public class CollisionBenchmark
+{
+
+	public static void main(String[] args)
+	{
+
+		int tests = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+
+		for (int size : new int[] { 32, 64, 128 })
+		{
+
+			BufferedImage circle = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = circle.createGraphics();
+			g.setColor(Color.RED);
+			g.fillOval(0, 0, size, size);
+			g.dispose();
+
+			ImageSceneObject a = new ImageSceneObject(circle);
+			ImageSceneObject b = new ImageSceneObject(circle);
+
+			// Corners overlap, circles don't: the whole intersection is tested
+			b.setPosition(size * 3 / 4, size * 3 / 4);
+			Rectangle intersection = a.collidesBoundingBox(b);
+
+			for (int warmup = 0; warmup < 2; warmup++)
+			{
+
+				long start = System.nanoTime();
+				for (int i = 0; i < tests; i++)
+				{
+					a.collidesExactly(b, intersection);
+				}
+				double mask = (System.nanoTime() - start) / 1e3 / tests;
+
+				start = System.nanoTime();
+				for (int i = 0; i < tests; i++)
+				{
+					collidesByPainting(a, b, intersection);
+				}
+				double painting = (System.nanoTime() - start) / 1e3 / tests;
+
+				if (warmup == 1)
+				{
+					System.out.printf("%3dx%-3d mask %8.3f us, painting %8.3f us (speedup %.0f)%n", size, size, mask,
+						painting, painting / mask);
+				}
+			}
+		}
+	}
+
+	private static boolean collidesByPainting(ImageSceneObject a, ImageSceneObject b, Rectangle intersection)
+	{
+
+		BufferedImage img1 = paint(a);
+		BufferedImage img2 = paint(b);
+
+		ColorModel cm1 = img1.getColorModel();
+		WritableRaster raster1 = img1.getRaster();
+		ColorModel cm2 = img2.getColorModel();
+		WritableRaster raster2 = img2.getRaster();
+
+		for (int y = intersection.y; y < intersection.y + intersection.height; y++)
+		{
+			for (int x = intersection.x; x < intersection.x + intersection.width; x++)
+			{
+
+				int alpha1 = cm1.getAlpha(raster1.getDataElements(x - a.getTopLeftX(), y - a.getTopLeftY(), null));
+				int alpha2 = cm2.getAlpha(raster2.getDataElements(x - b.getTopLeftX(), y - b.getTopLeftY(), null));
+				if (alpha1 != 0 && alpha2 != 0)
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static BufferedImage paint(ImageSceneObject obj)
+	{
+
+		BufferedImage image = new BufferedImage(obj.getWidth(), obj.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.drawImage(obj.getImage(), 0, 0, null);
+		g.dispose();
+
+		return image;
+	}
+}
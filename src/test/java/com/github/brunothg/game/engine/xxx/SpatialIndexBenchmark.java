@@ -0,0 +1,187 @@
+package com.github.brunothg.game.engine.xxx;
+
+import com.github.brunothg.game.engine.d2.object.LooseQuadtree;
+import com.github.brunothg.game.engine.d2.object.SceneObject;
+import com.github.brunothg.game.engine.d2.object.SpatialIndex;
+import com.github.brunothg.game.engine.d2.object.UniformGrid;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares region and pair queries of the spatial indices with testing every object. Optional
+ * argument: number of rounds per measurement.
+ */
+public class SpatialIndexBenchmark
+{
+
+	private static final int[] OBJECT_COUNTS = { 1000, 10000, 100000 };
+	private static final int QUERIES = 1000;
+
+	public static void main(String[] args)
+	{
+
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+
+		for (int count : OBJECT_COUNTS)
+		{
+
+			// Constant density: about 16 objects per 256x256 area
+			int area = (int) Math.sqrt(count / 16.0) * 256;
+			System.out.println(count + " objects, area " + area + "x" + area);
+
+			List<SceneObject> objects = createObjects(count, area);
+
+			measure("uniform grid", new UniformGrid(32), objects, area, rounds);
+			measure("loose quadtree", new LooseQuadtree(0, 0, area, area), objects, area, rounds);
+
+			if (count <= 10000)
+			{
+				measureBruteForce(objects, area, rounds);
+			}
+		}
+	}
+
+	private static void measure(String name, SpatialIndex index, List<SceneObject> objects, int area, int rounds)
+	{
+
+		long start = System.nanoTime();
+		for (SceneObject obj : objects)
+		{
+			index.add(obj);
+		}
+		double build = (System.nanoTime() - start) / 1e6;
+
+		Random random = new Random(1);
+		List<SceneObject> result = new ArrayList<SceneObject>();
+		final long[] pairs = new long[1];
+		SpatialIndex.PairVisitor visitor = new SpatialIndex.PairVisitor()
+		{
+
+			@Override
+			public void visit(SceneObject a, SceneObject b)
+			{
+				pairs[0]++;
+			}
+		};
+
+		long moveTime = 0;
+		long queryTime = 0;
+		long pairTime = 0;
+		long found = 0;
+		for (int round = 0; round < rounds; round++)
+		{
+
+			start = System.nanoTime();
+			for (SceneObject obj : objects)
+			{
+				obj.setPosition(obj.getX() + random.nextInt(5) - 2, obj.getY() + random.nextInt(5) - 2);
+			}
+			index.query(0, 0, 1, 1, result);
+			moveTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < QUERIES; i++)
+			{
+
+				result.clear();
+				index.query(random.nextInt(area), random.nextInt(area), 128, 128, result);
+				found += result.size();
+			}
+			queryTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			index.queryPairs(visitor);
+			pairTime += System.nanoTime() - start;
+		}
+
+		System.out.printf("  %-15s build %8.2f ms, move all %8.2f ms, %d queries %8.2f ms, pairs %8.2f ms"
+			+ " (found %d, pairs %d)%n", name, build, moveTime / 1e6 / rounds, QUERIES, queryTime / 1e6 / rounds,
+			pairTime / 1e6 / rounds, found / rounds, pairs[0] / rounds);
+
+		index.clear();
+	}
+
+	private static void measureBruteForce(List<SceneObject> objects, int area, int rounds)
+	{
+
+		Random random = new Random(1);
+		Rectangle[] bounds = new Rectangle[objects.size()];
+		for (int i = 0; i < bounds.length; i++)
+		{
+			bounds[i] = new Rectangle();
+		}
+
+		long queryTime = 0;
+		long pairTime = 0;
+		long found = 0;
+		long pairs = 0;
+		Rectangle region = new Rectangle();
+		for (int round = 0; round < rounds; round++)
+		{
+
+			for (int i = 0; i < bounds.length; i++)
+			{
+				objects.get(i).getRectangle(bounds[i]);
+			}
+
+			long start = System.nanoTime();
+			for (int i = 0; i < QUERIES; i++)
+			{
+
+				region.setBounds(random.nextInt(area), random.nextInt(area), 128, 128);
+				for (Rectangle rect : bounds)
+				{
+					if (rect.intersects(region))
+					{
+						found++;
+					}
+				}
+			}
+			queryTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			for (int i = 0; i < bounds.length; i++)
+			{
+				for (int j = i + 1; j < bounds.length; j++)
+				{
+					if (bounds[i].intersects(bounds[j]))
+					{
+						pairs++;
+					}
+				}
+			}
+			pairTime += System.nanoTime() - start;
+		}
+
+		System.out.printf("  %-15s %d queries %8.2f ms, pairs %8.2f ms (found %d, pairs %d)%n", "brute force",
+			QUERIES, queryTime / 1e6 / rounds, pairTime / 1e6 / rounds, found / rounds, pairs / rounds);
+	}
+
+	private static List<SceneObject> createObjects(int count, int area)
+	{
+
+		Random random = new Random(0);
+		List<SceneObject> objects = new ArrayList<SceneObject>(count);
+		for (int i = 0; i < count; i++)
+		{
+
+			SceneObject obj = new SceneObject()
+			{
+
+				@Override
+				protected void paint(Graphics2D g, long elapsedTime)
+				{
+				}
+			};
+			obj.setPosition(random.nextInt(area), random.nextInt(area));
+			obj.setSize(8 + random.nextInt(24), 8 + random.nextInt(24));
+			objects.add(obj);
+		}
+
+		return objects;
+	}
+}